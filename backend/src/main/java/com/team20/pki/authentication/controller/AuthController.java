@@ -4,6 +4,8 @@ import com.team20.pki.authentication.dto.*;
 import com.team20.pki.authentication.exception.UnauthenticatedError;
 import com.team20.pki.authentication.model.UserDetailsImpl;
 import com.team20.pki.authentication.service.AuthService;
+import com.team20.pki.authentication.service.BulkInviteService;
+import com.team20.pki.authentication.service.util.InviteCsvParser;
 import com.team20.pki.authentication.service.JwtService;
 import com.team20.pki.authentication.service.RefreshTokenService;
 import com.team20.pki.common.dto.ErrorResponseDto;
@@ -13,16 +15,20 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping(value = "/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final BulkInviteService bulkInviteService;
     private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
 
@@ -43,6 +49,18 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(authService.inviteCaUser(dto));
     }
 
+    @PostMapping(value = "/invite/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Secured("ROLE_ADMINISTRATOR")
+    public ResponseEntity<BulkInviteResponseDto> inviteCaUsers(@RequestBody List<InviteRequestDto> dtos) {
+        return ResponseEntity.ok(bulkInviteService.inviteCaUsers(dtos));
+    }
+
+    @PostMapping(value = "/invite/bulk", consumes = "text/csv")
+    @Secured("ROLE_ADMINISTRATOR")
+    public ResponseEntity<BulkInviteResponseDto> inviteCaUsersFromCsv(@RequestBody String csv) {
+        return ResponseEntity.ok(bulkInviteService.inviteCaUserRows(InviteCsvParser.parse(csv)));
+    }
+
     @GetMapping("/verification-subject")
     public ResponseEntity<VerificationCheckResponseDto> getPendingVerificationSubject(
             @Valid @ModelAttribute VerificationCodeRequestDto dto
@@ -0,0 +1,13 @@
+package com.team20.pki.authentication.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BulkInviteResponseDto {
+    int total;
+    int invited;
+    int rejected;
+    List<BulkInviteRowResultDto> results;
+}
@@ -0,0 +1,14 @@
+package com.team20.pki.authentication.dto;
+
+import lombok.Value;
+
+/**
+ * One row of a bulk invite, with the number it is reported under.
+ * Rows that could not be read have no invite and an error instead.
+ */
+@Value
+public class BulkInviteRowDto {
+    int row;
+    InviteRequestDto invite;
+    String error;
+}
@@ -0,0 +1,19 @@
+package com.team20.pki.authentication.dto;
+
+import lombok.Value;
+
+@Value
+public class BulkInviteRowResultDto {
+    int row;
+    String email;
+    Status status;
+    String error;
+
+    public enum Status {
+        INVITED,
+        INVALID,
+        ALREADY_EXISTS,
+        DUPLICATE,
+        FAILED
+    }
+}
@@ -29,8 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         String token = jwtService.getToken(request);
 
-        if (token != null && jwtService.isTokenValid(token)) {
-            UserDetails userDetails = jwtService.getUserDetailsFromToken(token);
+        UserDetails userDetails = token != null ? jwtService.authenticate(token) : null;
+
+        if (userDetails != null) {
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
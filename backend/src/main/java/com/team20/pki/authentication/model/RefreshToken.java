@@ -20,7 +20,8 @@ import java.util.UUID;
         indexes = {
                 @Index(name = "idx_refresh_token_token", columnList = "token", unique = true),
                 @Index(name = "idx_refresh_token_session", columnList = "sessionId"),
-                @Index(name = "idx_refresh_token_exp_revoked", columnList = "expirationTime, revoked")
+                @Index(name = "idx_refresh_token_expiration", columnList = "expirationTime, sessionId"),
+                @Index(name = "idx_refresh_token_revoked", columnList = "revoked, sessionId")
         }
 )
 public class RefreshToken {
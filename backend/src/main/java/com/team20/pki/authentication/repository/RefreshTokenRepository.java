@@ -1,10 +1,12 @@
 package com.team20.pki.authentication.repository;
 
 import com.team20.pki.authentication.model.RefreshToken;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,17 +15,41 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
 
     void deleteAllBySessionId(String sessionId);
 
-    @Modifying
+    /**
+     * Sessions with an expired token in which every token is expired or revoked.
+     * Starts from expired tokens through the expiration index and checks each candidate session through the session index.
+     */
     @Query("""
-        delete from RefreshToken rt
-        where rt.sessionId in (
-            select rt2.sessionId
-            from RefreshToken rt2
-            group by rt2.sessionId
-            having sum(
-                case when rt2.revoked = false and rt2.expirationTime > current_timestamp then 1 else 0 end
-            ) = 0
+        select distinct rt.sessionId
+        from RefreshToken rt
+        where rt.expirationTime <= current_timestamp
+        and not exists (
+            select 1 from RefreshToken active
+            where active.sessionId = rt.sessionId
+            and active.revoked = false
+            and active.expirationTime > current_timestamp
         )
         """)
-    void deleteAllExpiredAndRevokedSessions();
+    List<String> findExpiredSessionIds(Limit limit);
+
+    /**
+     * Sessions with a revoked token in which every token is expired or revoked.
+     * Kept apart from {@link #findExpiredSessionIds}, since a disjunction of both conditions cannot use either index.
+     */
+    @Query("""
+        select distinct rt.sessionId
+        from RefreshToken rt
+        where rt.revoked = true
+        and not exists (
+            select 1 from RefreshToken active
+            where active.sessionId = rt.sessionId
+            and active.revoked = false
+            and active.expirationTime > current_timestamp
+        )
+        """)
+    List<String> findRevokedSessionIds(Limit limit);
+
+    @Modifying
+    @Query("delete from RefreshToken rt where rt.sessionId in :sessionIds")
+    int deleteAllBySessionIdIn(List<String> sessionIds);
 }
\ No newline at end of file
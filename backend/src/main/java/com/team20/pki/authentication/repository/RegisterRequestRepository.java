@@ -1,17 +1,22 @@
 package com.team20.pki.authentication.repository;
 
 import com.team20.pki.authentication.model.RegisterRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RegisterRequestRepository extends JpaRepository<RegisterRequest, UUID> {
     Optional<RegisterRequest> findByVerificationCode(String verificationCode);
 
+    @Query("select r.id from RegisterRequest r where r.expirationTime < current_timestamp order by r.expirationTime")
+    List<UUID> findExpiredIds(Limit limit);
+
     @Modifying
-    @Query("delete from RegisterRequest where expirationTime < current_timestamp")
-    void deleteAllExpired();
+    @Query("delete from RegisterRequest r where r.id in :ids")
+    int deleteAllByIdIn(List<UUID> ids);
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ import com.team20.pki.common.repository.UserRepository;
 import com.team20.pki.config.properties.AuthConfigProperties;
 import com.team20.pki.email.service.EmailService;
 import com.team20.pki.encryption.service.CryptoHashService;
+import com.team20.pki.purge.service.ChunkedPurger;
+import com.team20.pki.purge.service.PurgeTarget;
+import com.team20.pki.scheduling.service.ScheduledJobRunner;
 import com.team20.pki.util.SecureRandomGenerator;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
@@ -20,6 +23,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -28,9 +32,10 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -43,7 +48,7 @@ public class AuthService {
     private static final long REGISTRATION_REQUEST_CLEANUP_PERIOD_MILLIS = 1000 * 60 * 60 * 24; // 1 day
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final CryptoHashService cryptoHashService;
     private final RegisterRequestRepository registerRequestRepository;
     private final EmailService emailService;
@@ -51,13 +56,19 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final RefreshTokenService refreshTokenService;
+    private final ChunkedPurger purger;
+    private final ScheduledJobRunner jobRunner;
+    private final PlatformTransactionManager transactionManager;
 
     private final AuthConfigProperties authConfig;
     private Duration activationDuration;
+    // passwords are hashed before this opens, so waiting for the hashing pool never holds a connection
+    private TransactionTemplate transactionTemplate;
 
     @PostConstruct
     public void init() {
         activationDuration = Duration.ofMinutes(authConfig.getActivationCodeExpirationMinutes());
+        transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public RegisterResponseDto register(@Valid RegisterRequestDto registerRequestDto) {
@@ -65,26 +76,29 @@ public class AuthService {
             throw new InvalidRequestError("User with this email already exists");
         }
 
+        String passwordHash = passwordHashingExecutor.encode(registerRequestDto.getPassword());
         String verificationCode = SecureRandomGenerator.generateCode(VERIFICATION_CODE_LENGTH);
 
         RegisterRequest request = RegisterRequest.builder()
                 .verificationCode(cryptoHashService.hash(verificationCode))
                 .expirationTime(Instant.now().plus(activationDuration))
                 .email(registerRequestDto.getEmail())
-                .password(passwordEncoder.encode(registerRequestDto.getPassword()))
+                .password(passwordHash)
                 .firstName(registerRequestDto.getFirstName())
                 .lastName(registerRequestDto.getLastName())
                 .organization(registerRequestDto.getOrganization())
                 .role(User.Role.REGULAR_USER)
                 .build();
 
-        emailService.sendAccountActivationEmail(request, verificationCode);
-
-        registerRequestRepository.save(request);
+        transactionTemplate.executeWithoutResult(status -> {
+            registerRequestRepository.save(request);
+            emailService.sendAccountActivationEmail(request, verificationCode);
+        });
 
         return new RegisterResponseDto(request.getEmail(), request.getFullName());
     }
 
+    @Transactional
     public RegisterResponseDto inviteCaUser(@Valid InviteRequestDto dto) {
         if (userRepository.existsByEmail(dto.getEmail())) {
             throw new InvalidRequestError("User with this email already exists");
@@ -102,10 +116,10 @@ public class AuthService {
                 .role(User.Role.CA_USER)
                 .build();
 
-        emailService.sendInvitationEmail(request, verificationCode);
-
         registerRequestRepository.save(request);
 
+        emailService.sendInvitationEmail(request, verificationCode);
+
         return new RegisterResponseDto(request.getEmail(), request.getFullName());
     }
 
@@ -144,19 +158,22 @@ public class AuthService {
         }
     }
 
-    @Transactional
     public void activateAccount(@Valid CaVerificationRequestDto dto) {
-        RegisterRequest request = getValidRequestOrThrow(dto.getVerificationCode());
+        String passwordHash = passwordHashingExecutor.encode(dto.getPassword());
 
-        if (request.getRole() != User.Role.CA_USER) {
-            throw new NotFoundError("Activation link invalid or expired");
-        }
+        transactionTemplate.executeWithoutResult(status -> {
+            RegisterRequest request = getValidRequestOrThrow(dto.getVerificationCode());
 
-        User user = registerRequestMapper.toUser(request);
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            if (request.getRole() != User.Role.CA_USER) {
+                throw new NotFoundError("Activation link invalid or expired");
+            }
+
+            User user = registerRequestMapper.toUser(request);
+            user.setPassword(passwordHash);
 
-        userRepository.save(user);
-        registerRequestRepository.delete(request);
+            userRepository.save(user);
+            registerRequestRepository.delete(request);
+        });
     }
 
     @Transactional
@@ -166,9 +183,12 @@ public class AuthService {
     }
 
     @Scheduled(fixedRate = REGISTRATION_REQUEST_CLEANUP_PERIOD_MILLIS)
-    @Transactional
     public void cleanExpiredRequests() {
-        registerRequestRepository.deleteAllExpired();
+        jobRunner.run("register-request-cleanup", () -> purger.purge(PurgeTarget.of(
+                "register-requests",
+                limit -> registerRequestRepository.findExpiredIds(Limit.of(limit)),
+                registerRequestRepository::deleteAllByIdIn
+        )));
     }
 
     public LoginResultDto login(@Valid LoginRequestDto loginRequestDto) {
@@ -176,6 +196,7 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(loginRequestDto.getEmail(), loginRequestDto.getPassword());
 
         try {
+            // the authentication provider verifies the password on the hashing pool
             Authentication authentication = authenticationManager.authenticate(auth);
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
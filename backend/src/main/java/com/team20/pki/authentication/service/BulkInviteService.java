@@ -0,0 +1,201 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.authentication.dto.BulkInviteResponseDto;
+import com.team20.pki.authentication.dto.BulkInviteRowDto;
+import com.team20.pki.authentication.dto.BulkInviteRowResultDto;
+import com.team20.pki.authentication.dto.BulkInviteRowResultDto.Status;
+import com.team20.pki.authentication.dto.InviteRequestDto;
+import com.team20.pki.authentication.model.RegisterRequest;
+import com.team20.pki.authentication.repository.RegisterRequestRepository;
+import com.team20.pki.common.exception.InvalidRequestError;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.config.properties.AuthConfigProperties;
+import com.team20.pki.email.service.EmailService;
+import com.team20.pki.encryption.service.CryptoHashService;
+import com.team20.pki.util.SecureRandomGenerator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Invites many CA users at once. Rows are validated up front, existing users are looked up
+ * with a single query, and the remaining rows are inserted in chunks, each chunk in its own
+ * transaction together with its invitation emails.
+ * A chunk that fails to save is retried row by row, so that a bad row only fails itself.
+ */
+@Slf4j
+@Service
+public class BulkInviteService {
+    private static final int VERIFICATION_CODE_LENGTH = 64;
+
+    private final UserRepository userRepository;
+    private final RegisterRequestRepository registerRequestRepository;
+    private final CryptoHashService cryptoHashService;
+    private final EmailService emailService;
+    private final Validator validator;
+    private final AuthConfigProperties authConfig;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkInviteService(UserRepository userRepository,
+                             RegisterRequestRepository registerRequestRepository,
+                             CryptoHashService cryptoHashService,
+                             EmailService emailService,
+                             Validator validator,
+                             AuthConfigProperties authConfig,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.registerRequestRepository = registerRequestRepository;
+        this.cryptoHashService = cryptoHashService;
+        this.emailService = emailService;
+        this.validator = validator;
+        this.authConfig = authConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkInviteResponseDto inviteCaUsers(List<InviteRequestDto> invites) {
+        List<BulkInviteRowDto> rows = new ArrayList<>(invites.size());
+        // rows are reported 1-based, as they appear in the uploaded list
+        for (int i = 0; i < invites.size(); i++) {
+            rows.add(new BulkInviteRowDto(i + 1, invites.get(i), null));
+        }
+        return inviteCaUserRows(rows);
+    }
+
+    public BulkInviteResponseDto inviteCaUserRows(List<BulkInviteRowDto> rows) {
+        if (rows.isEmpty()) {
+            throw new InvalidRequestError("No users to invite");
+        }
+        if (rows.size() > authConfig.getBulkInviteMaxRows()) {
+            throw new InvalidRequestError("At most " + authConfig.getBulkInviteMaxRows() + " users can be invited at once");
+        }
+
+        BulkInviteRowResultDto[] results = new BulkInviteRowResultDto[rows.size()];
+        List<Integer> accepted = validate(rows, results);
+        rejectExistingUsers(rows, accepted, results);
+
+        final int chunkSize = authConfig.getBulkInviteChunkSize();
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            inviteChunk(rows, chunk, results);
+        }
+
+        long invited = Arrays.stream(results).filter(r -> r.getStatus() == Status.INVITED).count();
+        return new BulkInviteResponseDto(
+                rows.size(),
+                (int) invited,
+                rows.size() - (int) invited,
+                Arrays.asList(results)
+        );
+    }
+
+    /**
+     * Validates every row and drops repeated emails within the request.
+     *
+     * @return indices of the rows that passed validation
+     */
+    private List<Integer> validate(List<BulkInviteRowDto> rows, BulkInviteRowResultDto[] results) {
+        List<Integer> accepted = new ArrayList<>(rows.size());
+        Set<String> seenEmails = new HashSet<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            BulkInviteRowDto row = rows.get(i);
+            InviteRequestDto invite = row.getInvite();
+            if (row.getError() != null) {
+                results[i] = result(row, Status.INVALID, row.getError());
+                continue;
+            }
+            if (invite == null) {
+                results[i] = result(row, Status.INVALID, "Row is empty");
+                continue;
+            }
+
+            Set<ConstraintViolation<InviteRequestDto>> violations = validator.validate(invite);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                results[i] = result(row, Status.INVALID, error);
+            } else if (!seenEmails.add(invite.getEmail())) {
+                results[i] = result(row, Status.DUPLICATE, "Email appears more than once");
+            } else {
+                accepted.add(i);
+            }
+        }
+        return accepted;
+    }
+
+    private void rejectExistingUsers(List<BulkInviteRowDto> rows, List<Integer> accepted, BulkInviteRowResultDto[] results) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        Set<String> emails = accepted.stream().map(i -> rows.get(i).getInvite().getEmail()).collect(Collectors.toSet());
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(emails));
+
+        accepted.removeIf(i -> {
+            if (existing.contains(rows.get(i).getInvite().getEmail())) {
+                results[i] = result(rows.get(i), Status.ALREADY_EXISTS, "User with this email already exists");
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void inviteChunk(List<BulkInviteRowDto> rows, List<Integer> chunk, BulkInviteRowResultDto[] results) {
+        final Instant expirationTime = Instant.now().plus(Duration.ofMinutes(authConfig.getActivationCodeExpirationMinutes()));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<RegisterRequest, String> verificationCodes = new LinkedHashMap<>();
+                for (int i : chunk) {
+                    InviteRequestDto invite = rows.get(i).getInvite();
+                    String verificationCode = SecureRandomGenerator.generateCode(VERIFICATION_CODE_LENGTH);
+                    RegisterRequest request = RegisterRequest.builder()
+                            .verificationCode(cryptoHashService.hash(verificationCode))
+                            .expirationTime(expirationTime)
+                            .email(invite.getEmail())
+                            .firstName(invite.getFirstName())
+                            .lastName(invite.getLastName())
+                            .organization(invite.getOrganization())
+                            .role(User.Role.CA_USER)
+                            .build();
+                    verificationCodes.put(request, verificationCode);
+                }
+
+                registerRequestRepository.saveAll(verificationCodes.keySet());
+                emailService.sendInvitationEmails(verificationCodes);
+            });
+            for (int i : chunk) {
+                results[i] = result(rows.get(i), Status.INVITED, null);
+            }
+        } catch (DataAccessException e) {
+            if (chunk.size() > 1) {
+                log.warn("Bulk invite chunk of {} users failed, retrying row by row: {}", chunk.size(), e.getMessage());
+                for (int i : chunk) {
+                    inviteChunk(rows, List.of(i), results);
+                }
+                return;
+            }
+            BulkInviteRowDto row = rows.get(chunk.getFirst());
+            log.error("Bulk invite of row {} failed: {}", row.getRow(), e.getMessage());
+            results[chunk.getFirst()] = result(row, Status.FAILED, e instanceof DataIntegrityViolationException
+                    ? "Could not save invitation, a field may be too long"
+                    : "Could not save invitation");
+        }
+    }
+
+    private static BulkInviteRowResultDto result(BulkInviteRowDto row, Status status, String error) {
+        String email = row.getInvite() != null ? row.getInvite().getEmail() : null;
+        return new BulkInviteRowResultDto(row.getRow(), email, status, error);
+    }
+}
@@ -5,6 +5,7 @@ import com.team20.pki.config.properties.AuthConfigProperties;
 import com.team20.pki.common.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,7 +14,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
@@ -29,6 +29,9 @@ public class JwtService {
 
     private final AuthConfigProperties authConfig;
     private SecretKey signingKey;
+    // immutable and thread-safe, so it is built once and shared between requests
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @PostConstruct
     public void init() {
@@ -38,6 +41,12 @@ public class JwtService {
         } catch (DecoderException e) {
             throw new RuntimeException(e);
         }
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokenCache = new VerifiedTokenCache(authConfig.getVerifiedTokenCacheSize());
+    }
+
+    public int getVerifiedTokenCacheSize() {
+        return verifiedTokenCache.size();
     }
 
     public String generateAccessToken(UserDetailsImpl userDetails) {
@@ -51,17 +60,29 @@ public class JwtService {
                 .compact();
     }
 
-    public boolean isTokenValid(String token) {
+    /**
+     * Verifies the token and returns its user details, or null if the token is invalid or expired.
+     * The signature is checked at most once per token while it stays in the verified-token cache.
+     */
+    public UserDetailsImpl authenticate(String token) {
+        return verifiedTokenCache.getOrVerify(token, this::verify);
+    }
+
+    private VerifiedTokenCache.VerifiedToken verify(String token) {
         try {
-            getAllClaimsFromToken(token);
-            return true;
+            Claims claims = getAllClaimsFromToken(token);
+            Date expiration = claims.getExpiration();
+            return new VerifiedTokenCache.VerifiedToken(
+                    toUserDetails(claims),
+                    expiration != null ? expiration.toInstant() : null
+            );
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String getToken(HttpServletRequest request) {
@@ -72,11 +93,7 @@ public class JwtService {
         return null;
     }
 
-    public UserDetails getUserDetailsFromToken(String token) {
-        final Claims claims = getAllClaimsFromToken(token);
-        if (claims == null) {
-            return null;
-        }
+    private UserDetailsImpl toUserDetails(Claims claims) {
         return new UserDetailsImpl(
                 UUID.fromString(claims.get("user_id", String.class)),
                 claims.getSubject(),
@@ -0,0 +1,115 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.exception.TooManyRequestsError;
+import com.team20.pki.config.properties.PasswordHashingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs password hashing on a small, bounded pool instead of request threads, so that a burst of
+ * logins cannot occupy every servlet thread. When the pool and its queue are full, or a task waits
+ * longer than the configured limit, the request is rejected with {@link TooManyRequestsError}.
+ */
+@Component
+public class PasswordHashingExecutor {
+    private static final String BUSY_MESSAGE = "Too many authentication requests, try again later";
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingProperties config;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   PasswordHashingProperties config,
+                                   MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.config = config;
+        this.executor = new ThreadPoolExecutor(
+                config.getThreads(),
+                config.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                config.getQueueCapacity() > 0 ? new ArrayBlockingQueue<>(config.getQueueCapacity()) : new SynchronousQueue<>(),
+                // CPU-bound, so it stays on platform threads in virtual-thread mode
+                Thread.ofPlatform().name("password-hashing-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.rejectedCounter = meterRegistry.counter("pki.password.hashing.rejected");
+        meterRegistry.gauge("pki.password.hashing.queue", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("pki.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Password encoder that hashes and verifies passwords on this pool. Meant for the authentication provider,
+     * which then loads the user and stores upgraded hashes on the request thread, keeping JDBC off the pool.
+     */
+    public PasswordEncoder pooledEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return PasswordHashingExecutor.this.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                // only reads the strength from the hash
+                return passwordEncoder.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    /**
+     * Runs a task that hashes or verifies passwords and waits for its result.
+     * Runtime exceptions thrown by the task are rethrown unchanged.
+     */
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsError(BUSY_MESSAGE);
+        }
+
+        try {
+            return future.get(config.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new TooManyRequestsError(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServerError("Interrupted while waiting for password hashing", 503);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ServerError(cause.getMessage(), 500);
+        }
+    }
+}
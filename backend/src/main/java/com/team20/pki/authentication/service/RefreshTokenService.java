@@ -7,12 +7,16 @@ import com.team20.pki.common.model.User;
 import com.team20.pki.common.repository.UserRepository;
 import com.team20.pki.config.properties.AuthConfigProperties;
 import com.team20.pki.encryption.service.CryptoHashService;
+import com.team20.pki.purge.service.ChunkedPurger;
+import com.team20.pki.purge.service.PurgeTarget;
+import com.team20.pki.scheduling.service.ScheduledJobRunner;
 import com.team20.pki.util.SecureRandomGenerator;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +37,8 @@ public class RefreshTokenService {
     private final UserRepository userRepository;
     private final CryptoHashService cryptoHashService;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final ChunkedPurger purger;
+    private final ScheduledJobRunner jobRunner;
 
     private final AuthConfigProperties authConfig;
     private Duration refreshDuration;
@@ -140,13 +146,23 @@ public class RefreshTokenService {
     }
 
     @EventListener(ContextRefreshedEvent.class)
-    @Transactional
     public void initAfterStartup() {
         clearExpiredTokens();
     }
 
     @Scheduled(cron = "${config.refresh-token.delete-cron}")
     public void clearExpiredTokens() {
-        refreshTokenRepository.deleteAllExpiredAndRevokedSessions();
+        jobRunner.run("refresh-token-cleanup", () -> {
+            purger.purge(PurgeTarget.of(
+                    "expired-refresh-token-sessions",
+                    limit -> refreshTokenRepository.findExpiredSessionIds(Limit.of(limit)),
+                    refreshTokenRepository::deleteAllBySessionIdIn
+            ));
+            purger.purge(PurgeTarget.of(
+                    "revoked-refresh-token-sessions",
+                    limit -> refreshTokenRepository.findRevokedSessionIds(Limit.of(limit)),
+                    refreshTokenRepository::deleteAllBySessionIdIn
+            ));
+        });
     }
 }
@@ -0,0 +1,80 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.authentication.model.UserDetailsImpl;
+import com.team20.pki.common.service.StripedLruCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of access tokens whose signature has already been verified.
+ * Entries are keyed by the SHA-256 hash of the token and dropped once the token expires.
+ * When the cache is full, the least recently used entry of the key's stripe makes room for the new one.
+ * Tokens are hashed and verified outside the stripe locks, which are only held for the map lookup and update.
+ */
+public class VerifiedTokenCache {
+    private final Clock clock;
+    // null when caching is disabled
+    private final StripedLruCache<String, VerifiedToken> entries;
+
+    public record VerifiedToken(UserDetailsImpl userDetails, Instant expiration) {
+    }
+
+    public VerifiedTokenCache(int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, Clock clock) {
+        this.clock = clock;
+        this.entries = maxSize > 0 ? new StripedLruCache<>(maxSize) : null;
+    }
+
+    /**
+     * Returns the user details of a cached token, or runs the verifier and caches its result.
+     * The verifier must return null for invalid tokens.
+     */
+    public UserDetailsImpl getOrVerify(String token, Function<String, VerifiedToken> verifier) {
+        if (entries == null) {
+            VerifiedToken verified = verifier.apply(token);
+            return verified != null ? verified.userDetails() : null;
+        }
+
+        final String key = hash(token);
+        final Instant now = clock.instant();
+
+        VerifiedToken cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiration().isAfter(now)) {
+                return cached.userDetails();
+            }
+            entries.remove(key, cached);
+        }
+
+        VerifiedToken verified = verifier.apply(token);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.expiration() != null && verified.expiration().isAfter(now)) {
+            entries.put(key, verified);
+        }
+        return verified.userDetails();
+    }
+
+    public int size() {
+        return entries != null ? entries.size() : 0;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.team20.pki.authentication.service.util;
+
+import com.team20.pki.authentication.dto.BulkInviteRowDto;
+import com.team20.pki.authentication.dto.InviteRequestDto;
+import com.team20.pki.common.exception.InvalidRequestError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses CSV user lists with a header row naming the columns
+ * {@code email, firstName, lastName, organization} (in any order, case-insensitive).
+ * Fields may be quoted, with {@code ""} as an escaped quote, and quoted fields may span lines.
+ * A leading byte order mark, as written by spreadsheet exports, is skipped.
+ * <p>
+ * Rows are numbered by the line they start on, so that the header is line 1.
+ * A row with more fields than the header is returned with an error instead of an invite.
+ */
+public final class InviteCsvParser {
+    private static final List<String> COLUMNS = List.of("email", "firstName", "lastName", "organization");
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private InviteCsvParser() {
+    }
+
+    public static List<BulkInviteRowDto> parse(String csv) {
+        List<Record> records = readRecords(csv);
+        if (records.isEmpty()) {
+            throw new InvalidRequestError("CSV is empty");
+        }
+
+        Map<String, Integer> columnIndices = new HashMap<>();
+        List<String> header = records.getFirst().fields();
+        for (int i = 0; i < header.size(); i++) {
+            columnIndices.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : COLUMNS) {
+            if (!columnIndices.containsKey(column.toLowerCase(Locale.ROOT))) {
+                throw new InvalidRequestError("CSV header is missing column: " + column);
+            }
+        }
+
+        List<BulkInviteRowDto> rows = new ArrayList<>(records.size() - 1);
+        for (Record record : records.subList(1, records.size())) {
+            List<String> fields = record.fields();
+            if (fields.size() > header.size()) {
+                rows.add(new BulkInviteRowDto(record.line(), null,
+                        "Row has " + fields.size() + " fields, but the header has " + header.size()));
+                continue;
+            }
+            rows.add(new BulkInviteRowDto(record.line(), new InviteRequestDto(
+                    field(fields, columnIndices.get("email")),
+                    field(fields, columnIndices.get("firstname")),
+                    field(fields, columnIndices.get("lastname")),
+                    field(fields, columnIndices.get("organization"))
+            ), null));
+        }
+        return rows;
+    }
+
+    private static String field(List<String> record, int index) {
+        return index < record.size() ? record.get(index).trim() : null;
+    }
+
+    private static List<Record> readRecords(String csv) {
+        List<Record> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean blankLine = true;
+        int line = 1;
+        int recordLine = 1;
+
+        final int start = !csv.isEmpty() && csv.charAt(0) == BYTE_ORDER_MARK ? 1 : 0;
+        for (int i = start; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (c == '\n') {
+                line++;
+            }
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    blankLine = false;
+                }
+                case ',' -> {
+                    record.add(field.toString());
+                    field.setLength(0);
+                    blankLine = false;
+                }
+                case '\r' -> {
+                }
+                case '\n' -> {
+                    if (!blankLine || !field.toString().isBlank()) {
+                        record.add(field.toString());
+                        records.add(new Record(recordLine, record));
+                    }
+                    record = new ArrayList<>();
+                    field.setLength(0);
+                    blankLine = true;
+                    recordLine = line;
+                }
+                default -> {
+                    field.append(c);
+                    if (!Character.isWhitespace(c)) {
+                        blankLine = false;
+                    }
+                }
+            }
+        }
+
+        if (quoted) {
+            throw new InvalidRequestError("CSV has an unterminated quoted field");
+        }
+        if (!blankLine || !field.toString().isBlank()) {
+            record.add(field.toString());
+            records.add(new Record(recordLine, record));
+        }
+        return records;
+    }
+
+    private record Record(int line, List<String> fields) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.team20.pki.caUsers.dto;
 
+import com.team20.pki.certificates.dto.CertificateStatusDto;
+
 import java.util.List;
 import java.util.UUID;
 
@@ -18,11 +20,8 @@ public record CAUserGetAllResponse(
             String serialNumber,
             String issuedDate,
             String expiryDate,
-            Status status,
+            CertificateStatusDto status,
             String type
     ) {
-        public enum Status {
-            ACTIVE, EXPIRED, REVOKED
-        }
     }
 }
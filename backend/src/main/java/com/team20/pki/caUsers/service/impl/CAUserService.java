@@ -3,8 +3,11 @@ package com.team20.pki.caUsers.service.impl;
 import com.team20.pki.caUsers.dto.CAUserGetAllResponse;
 import com.team20.pki.caUsers.dto.CAUserGetResponse;
 import com.team20.pki.caUsers.service.ICAUserService;
-import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.dto.CertificateStatusDto;
 import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.repository.ICertificateRepository.CertificateWithStatus;
+import com.team20.pki.certificates.repository.ICertificateRepository.OwnedCertificateWithStatus;
+import com.team20.pki.certificates.repository.ICertificateRepository.OwnerCount;
 import com.team20.pki.common.model.User;
 import com.team20.pki.common.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -13,6 +16,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -26,11 +30,16 @@ public class CAUserService implements ICAUserService {
 
     public List<CAUserGetAllResponse> getAllCaUsersWithCertificates() {
         List<User> caUSers = userRepository.findUsersByRole(User.Role.CA_USER);
+        Map<UUID, List<OwnedCertificateWithStatus>> certificatesByOwner = certificateRepository
+                .findWithStatusByOwnerRole(User.Role.CA_USER).stream()
+                .collect(Collectors.groupingBy(OwnedCertificateWithStatus::getOwnerId));
+        Map<UUID, Long> issuedByOwner = certificateRepository.countIssuedCertificatesByParentOwnerRole(User.Role.CA_USER).stream()
+                .collect(Collectors.toMap(OwnerCount::getOwnerId, OwnerCount::getCount));
         return caUSers.stream().map(user -> {
-            List<CAUserGetAllResponse.Certificate> userCertificates = certificateRepository.findByOwnerId(user.getId())
+            List<CAUserGetAllResponse.Certificate> userCertificates = certificatesByOwner.getOrDefault(user.getId(), List.of())
                     .stream().map(this::createUserCertificateResponse).toList();
 
-            int issuedByUserCound = certificateRepository.countIssuedCertificatesByParentId(user.getId());
+            int issuedByUserCound = issuedByOwner.getOrDefault(user.getId(), 0L).intValue();
 
             return new CAUserGetAllResponse(
                     user.getId(),
@@ -38,7 +47,8 @@ public class CAUserService implements ICAUserService {
                     user.getEmail(),
                     user.getOrganization(),
                     issuedByUserCound,
-                    userCertificates.size(),
+                    // revoked certificates are listed, but not counted
+                    (int) userCertificates.stream().filter(certificate -> certificate.status() != CertificateStatusDto.REVOKED).count(),
                     userCertificates,
                     user.getRole().toString()
                     );
@@ -46,13 +56,13 @@ public class CAUserService implements ICAUserService {
     }
 
 
-    private CAUserGetAllResponse.Certificate createUserCertificateResponse(Certificate certificate) {
+    private CAUserGetAllResponse.Certificate createUserCertificateResponse(CertificateWithStatus row) {
         return new CAUserGetAllResponse.Certificate(
-                certificate.getId(),
-                certificate.getSerialNumber(),
-                certificate.getValidFrom().toString(),
-                certificate.getValidTo().toString(),
-                CAUserGetAllResponse.Certificate.Status.ACTIVE,// promeniti
-                certificate.getType().toString());
+                row.getCertificate().getId(),
+                row.getCertificate().getSerialNumber(),
+                row.getCertificate().getValidFrom().toString(),
+                row.getCertificate().getValidTo().toString(),
+                row.getStatus(),
+                row.getCertificate().getType().toString());
     }
 }
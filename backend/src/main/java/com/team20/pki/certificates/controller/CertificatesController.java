@@ -4,7 +4,9 @@ import com.team20.pki.authentication.model.UserDetailsImpl;
 import com.team20.pki.certificates.dto.*;
 import com.team20.pki.certificates.service.certificate.ICertificateDownloadService;
 import com.team20.pki.certificates.service.certificate.ICertificateService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +27,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -50,8 +53,15 @@ public class CertificatesController {
 
     @GetMapping("/user/{id}")
     @PreAuthorize("hasRole('ROLE_ADMINISTRATOR') or #userId == authentication.principal.userId")
-    ResponseEntity<List<CertificateResponseDto>> getUserCertificates(@PathVariable("id") UUID userId) {
-        return ResponseEntity.ok(certificateService.getUserCertificates(userId));
+    ResponseEntity<List<CertificateResponseDto>> getUserCertificates(@PathVariable("id") UUID userId,
+                                                                     @RequestParam(name = "status", required = false) CertificateStatusDto status) {
+        return ResponseEntity.ok(certificateService.getUserCertificates(userId, status));
+    }
+
+    @GetMapping("/status-counts")
+    @Secured("ROLE_ADMINISTRATOR")
+    ResponseEntity<Map<CertificateStatusDto, Long>> getStatusCounts() {
+        return ResponseEntity.ok(certificateService.getStatusCounts());
     }
 
     @GetMapping("/tree")
@@ -66,6 +76,24 @@ public class CertificatesController {
         return ResponseEntity.ok(certificateService.getCaCertificates(userId));
     }
 
+    @GetMapping("/tree/roots")
+    @Secured("ROLE_ADMINISTRATOR")
+    ResponseEntity<List<CertificateTreeNodeResponseDto>> getRootNodes() {
+        return ResponseEntity.ok(certificateService.getRootNodes());
+    }
+
+    @GetMapping("/tree/ca/{id}/roots")
+    @PreAuthorize("hasRole('ROLE_ADMINISTRATOR') or (hasRole('ROLE_CA') and #userId == authentication.principal.userId)")
+    ResponseEntity<List<CertificateTreeNodeResponseDto>> getCaRootNodes(@PathVariable("id") UUID userId) {
+        return ResponseEntity.ok(certificateService.getCaRootNodes(userId));
+    }
+
+    @GetMapping("/tree/{id}/children")
+    @PreAuthorize("@certificatePermissionEvaluator.canViewSubtree(authentication, #id)")
+    ResponseEntity<List<CertificateTreeNodeResponseDto>> getChildNodes(@PathVariable("id") UUID id) {
+        return ResponseEntity.ok(certificateService.getChildNodes(id));
+    }
+
     @GetMapping("/get-cas/{id}")
     ResponseEntity<List<CAResponseDTO>> getCAs(@PathVariable("id") UUID subjectId) {
 
@@ -93,15 +121,17 @@ public class CertificatesController {
 
     @GetMapping("/{id}/download/{requestId}")
     @PreAuthorize("@certificatePermissionEvaluator.canDownloadKeyPair(authentication, #certificateId)")
-    public ResponseEntity<byte[]> downloadCertificate(
+    public void downloadCertificate(
             @PathVariable("id") UUID certificateId,
             @PathVariable UUID requestId,
-            @RequestParam(name = "includeChain", defaultValue = "true") Boolean includeChain
-    ) {
-        CertificateDownloadResponseDTO downloadResponse = certificateDownloadService.downloadCertificate(certificateId, requestId, includeChain);
-        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadResponse.fileName() + "\"")
-                .contentType(MediaType.valueOf("application/x-pkcs12"))
-                .body(downloadResponse.certificateBytes());
+            @RequestParam(name = "includeChain", defaultValue = "true") Boolean includeChain,
+            HttpServletResponse response
+    ) throws IOException {
+        CertificatePkcs12ResponseDTO downloadResponse = certificateDownloadService.downloadCertificate(certificateId, requestId, includeChain);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadResponse.fileName() + "\"");
+        response.setContentType("application/x-pkcs12");
+        // encoded straight into the response instead of into a byte array first
+        downloadResponse.pkcs12().toASN1Structure().encodeTo(response.getOutputStream(), ASN1Encoding.DER);
     }
 
     @GetMapping("/{id}/download/pem")
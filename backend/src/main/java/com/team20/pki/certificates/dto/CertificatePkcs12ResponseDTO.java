@@ -0,0 +1,10 @@
+package com.team20.pki.certificates.dto;
+
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+
+public record CertificatePkcs12ResponseDTO(
+    PKCS12PfxPdu pkcs12,
+    String fileName
+){
+
+}
@@ -3,6 +3,7 @@ package com.team20.pki.certificates.dto;
 import com.team20.pki.certificates.model.CertificateType;
 import lombok.Data;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -16,4 +17,6 @@ public class CertificateResponseDto {
     private String commonName;
     private String issuerName;
     private CertificateStatusDto status;
+    private Instant revokedAt;
+    private Integer revocationReason;
 }
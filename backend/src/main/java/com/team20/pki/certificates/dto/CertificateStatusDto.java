@@ -4,4 +4,6 @@ public enum CertificateStatusDto {
     ACTIVE,
     EXPIRED,
     REVOKED,
+    // issued with a validity period that has not started yet
+    NOT_YET_VALID,
 }
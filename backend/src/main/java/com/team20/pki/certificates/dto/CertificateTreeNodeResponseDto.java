@@ -0,0 +1,11 @@
+package com.team20.pki.certificates.dto;
+
+import lombok.Value;
+
+@Value
+public class CertificateTreeNodeResponseDto {
+    CertificateResponseDto certificate;
+    // certificates listed below this one, which leaves out revoked subtrees
+    long descendantCount;
+    long revokedDescendantCount;
+}
@@ -17,15 +17,28 @@ public interface CertificateMapper {
     @Mapping(target = "status", ignore = true)
     CertificateResponseDto toDto(Certificate certificate);
 
+    // the status is computed by the query that loaded the certificate, see ICertificateRepository.STATUS
+    @Mapping(target = "commonName", ignore = true)
+    @Mapping(target = "issuerName", ignore = true)
+    CertificateResponseDto toDto(Certificate certificate, CertificateStatusDto status);
+
     @AfterMapping
     default void extractNames(Certificate certificate, @MappingTarget CertificateResponseDto dto) {
         dto.setCommonName(certificate.getSubject().getCommonName());
         dto.setIssuerName(certificate.getIssuer().getCommonName());
-        // TODO: check if revoked
-        if (certificate.getValidTo().isBefore(LocalDate.now())) {
-            dto.setStatus(CertificateStatusDto.EXPIRED);
-        } else {
-            dto.setStatus(CertificateStatusDto.ACTIVE);
+        if (dto.getStatus() == null) {
+            dto.setStatus(statusOf(certificate, LocalDate.now()));
+        }
+    }
+
+    // for certificates loaded without their status, follows ICertificateRepository.STATUS
+    static CertificateStatusDto statusOf(Certificate certificate, LocalDate today) {
+        if (certificate.getIsRevoked()) {
+            return CertificateStatusDto.REVOKED;
+        }
+        if (certificate.getValidTo().isBefore(today)) {
+            return CertificateStatusDto.EXPIRED;
         }
+        return certificate.getValidFrom().isAfter(today) ? CertificateStatusDto.NOT_YET_VALID : CertificateStatusDto.ACTIVE;
     }
 }
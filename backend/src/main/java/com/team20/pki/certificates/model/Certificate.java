@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -16,7 +17,17 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "certificates")
+@Table(
+        name = "certificates",
+        indexes = {
+                @Index(name = "idx_certificate_parent", columnList = "parent_id"),
+                @Index(name = "idx_certificate_crl_partition", columnList = "crl_partition"),
+                @Index(name = "idx_certificate_parent_partition", columnList = "parent_id, crl_partition, valid_to"),
+                @Index(name = "idx_certificate_revoked_at", columnList = "revoked_at"),
+                // status filters are ranges over these, see ICertificateRepository.HAS_STATUS
+                @Index(name = "idx_certificate_owner_status", columnList = "owner_id, is_revoked, valid_to")
+        }
+)
 public class Certificate {
     @Id
     private UUID id;
@@ -49,6 +60,27 @@ public class Certificate {
     @Column(nullable = false)
     private Boolean isRevoked;
 
+    // null for certificates that are not revoked, or were revoked before it was recorded
+    @Column(columnDefinition = "TIMESTAMP")
+    private Instant revokedAt;
+
+    // CRLReason code the certificate was revoked with
+    private Integer revocationReason;
+
+    // number of certificates below this one in the hierarchy (null for rows created before counting was introduced)
+    private Long descendantCount;
+
+    // number of revoked certificates below this one in the hierarchy
+    private Long revokedDescendantCount;
+
+    // partition of the parent's CRL the certificate is listed in (null for roots and certificates issued before partitioning)
+    @Column(name = "crl_partition")
+    private Integer crlPartition;
+
+    // whether the keystore holds the private key, so that checking for it does not need to load it
+    // (null for certificates issued before it was recorded)
+    private Boolean privateKeyAvailable;
+
     @PrePersist
     public void prePersist() {
         if (id == null) {
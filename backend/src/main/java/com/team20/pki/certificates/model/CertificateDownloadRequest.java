@@ -14,7 +14,12 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "certificate_download_requests")
+@Table(
+        name = "certificate_download_requests",
+        indexes = {
+                @Index(name = "idx_certificate_download_request_expiration", columnList = "expirationTime")
+        }
+)
 public class CertificateDownloadRequest {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -0,0 +1,15 @@
+package com.team20.pki.certificates.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One-time permission to download a certificate with its private key.
+ *
+ * @param password PKCS#12 password encrypted with the organization key, Base64 encoded
+ */
+public record DownloadTicket(UUID id, UUID certificateId, String password, Instant expirationTime) {
+    public boolean isExpired(Instant now) {
+        return !expirationTime.isAfter(now);
+    }
+}
@@ -1,6 +1,7 @@
 package com.team20.pki.certificates.model;
 
 import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.metrics.jfr.DnParsingEvent;
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
@@ -12,7 +13,6 @@ import org.bouncycastle.asn1.x500.X500Name;
 
 import javax.naming.InvalidNameException;
 import javax.naming.ldap.LdapName;
-import java.util.Optional;
 
 @Slf4j
 @Getter
@@ -32,25 +32,41 @@ public class Subject {
     }
 
     public String getOrganization() throws InvalidNameException {
-        LdapName ldapName = new LdapName(distinguishedName);
-        Optional<String> organization = ldapName.getRdns()
-                .stream()
-                .filter(rdn -> "O".equalsIgnoreCase(rdn.getType()))
-                .map(rdn -> rdn.getValue().toString()).findFirst();
-        return organization.orElseThrow(EntityNotFoundException::new);
+        DnParsingEvent event = new DnParsingEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            LdapName ldapName = new LdapName(distinguishedName);
+            String organization = ldapName.getRdns()
+                    .stream()
+                    .filter(rdn -> "O".equalsIgnoreCase(rdn.getType()))
+                    .map(rdn -> rdn.getValue().toString()).findFirst()
+                    .orElseThrow(EntityNotFoundException::new);
+            failed = false;
+            return organization;
+        } finally {
+            DnParsingEvent.commit(event, "O", distinguishedName, failed);
+        }
     }
 
     public String getCommonName() {
+        DnParsingEvent event = new DnParsingEvent();
+        event.begin();
+        boolean failed = true;
         try {
             LdapName ldapName = new LdapName(distinguishedName);
-            Optional<String> organization = ldapName.getRdns()
+            String commonName = ldapName.getRdns()
                     .stream()
                     .filter(rdn -> "CN".equalsIgnoreCase(rdn.getType()))
-                    .map(rdn -> rdn.getValue().toString()).findFirst();
-            return organization.orElseThrow(EntityNotFoundException::new);
+                    .map(rdn -> rdn.getValue().toString()).findFirst()
+                    .orElseThrow(EntityNotFoundException::new);
+            failed = false;
+            return commonName;
         } catch (InvalidNameException e) {
             log.error(e.getMessage());
             throw new ServerError(500);
+        } finally {
+            DnParsingEvent.commit(event, "CN", distinguishedName, failed);
         }
     }
-}
+}
\ No newline at end of file
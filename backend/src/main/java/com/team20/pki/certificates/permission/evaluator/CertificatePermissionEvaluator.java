@@ -39,6 +39,23 @@ public class CertificatePermissionEvaluator {
         };
     }
 
+    public boolean canViewSubtree(Authentication authentication, UUID certificateId) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl user)) {
+            return false;
+        }
+
+        Certificate certificate = certificateRepository.findById(certificateId).orElse(null);
+        if (certificate == null) {
+            return false;
+        }
+
+        return switch (user.getUserRole()) {
+            case REGULAR_USER -> false;
+            case CA_USER -> isInCaChain(certificate, user.getUserId());
+            case ADMINISTRATOR -> true;
+        };
+    }
+
     private boolean isInCaChain(Certificate certificate, UUID caId) {
         if (certificate.getOwner().getId().equals(caId)) {
             return true;
@@ -1,14 +1,19 @@
 package com.team20.pki.certificates.repository;
 
 import com.team20.pki.certificates.model.CertificateDownloadRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface CertificateDownloadRequestRepository extends JpaRepository<CertificateDownloadRequest, UUID> {
+    @Query("select r.id from CertificateDownloadRequest r where r.expirationTime < current_timestamp order by r.expirationTime")
+    List<UUID> findExpiredIds(Limit limit);
+
     @Modifying
-    @Query("delete from CertificateDownloadRequest r where r.expirationTime < current_timestamp")
-    void deleteAllExpired();
+    @Query("delete from CertificateDownloadRequest r where r.id in :ids")
+    int deleteAllByIdIn(List<UUID> ids);
 }
\ No newline at end of file
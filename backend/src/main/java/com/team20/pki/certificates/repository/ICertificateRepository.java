@@ -1,30 +1,85 @@
 package com.team20.pki.certificates.repository;
 
+import com.team20.pki.certificates.dto.CertificateStatusDto;
 import com.team20.pki.certificates.model.Certificate;
 import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.common.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ICertificateRepository extends JpaRepository<Certificate, UUID> {
+    // status of certificate c as of today, computed by the database
+    String STATUS = """
+            CASE WHEN c.isRevoked = true THEN com.team20.pki.certificates.dto.CertificateStatusDto.REVOKED
+                 WHEN c.validTo < CURRENT_DATE THEN com.team20.pki.certificates.dto.CertificateStatusDto.EXPIRED
+                 WHEN c.validFrom > CURRENT_DATE THEN com.team20.pki.certificates.dto.CertificateStatusDto.NOT_YET_VALID
+                 ELSE com.team20.pki.certificates.dto.CertificateStatusDto.ACTIVE END
+            """;
+
+    // the same as STATUS = :status for the status name, spelled out per status so that it is a range on the status index;
+    // a null status matches all
+    String HAS_STATUS = """
+            (:status IS NULL
+             OR (:status = 'REVOKED' AND c.isRevoked = true)
+             OR (:status = 'EXPIRED' AND c.isRevoked = false
+                 AND c.validTo < CURRENT_DATE)
+             OR (:status = 'NOT_YET_VALID' AND c.isRevoked = false
+                 AND c.validTo >= CURRENT_DATE AND c.validFrom > CURRENT_DATE)
+             OR (:status = 'ACTIVE' AND c.isRevoked = false
+                 AND c.validTo >= CURRENT_DATE AND c.validFrom <= CURRENT_DATE))
+            """;
+
+    // owners are fetched with the certificates, instead of one query per owner
+    @EntityGraph(attributePaths = "owner")
     List<Certificate> findCertificatesByTypeInAndIsRevokedFalse(Collection<CertificateType> types);
 
     @Query("select c from Certificate c where c.owner.id =:id and c.isRevoked = false")
-    List<Certificate> findByOwnerId(@Param("id") UUID id);
+    List<Certificate> findNotRevokedByOwnerId(@Param("id") UUID id);
+
+    @Query("select c as certificate, " + STATUS + " as status from Certificate c where c.owner.id = :id and " + HAS_STATUS)
+    List<CertificateWithStatus> findWithStatusByOwnerIdAndStatusName(@Param("id") UUID id, @Param("status") String status);
+
+    // certificates of all users with the role in one query, for listings of users with their certificates
+    @Query("select c as certificate, c.owner.id as ownerId, " + STATUS + " as status from Certificate c where c.owner.role = :role")
+    List<OwnedCertificateWithStatus> findWithStatusByOwnerRole(@Param("role") User.Role role);
 
-    @Query("SELECT COUNT(c) FROM Certificate c WHERE c.parent.owner.id = :id")
-    int countIssuedCertificatesByParentId(@Param("id") UUID id);
+    /**
+     * @param status status to list, or null for all certificates of the owner
+     */
+    default List<CertificateWithStatus> findWithStatusByOwnerId(UUID id, CertificateStatusDto status) {
+        return findWithStatusByOwnerIdAndStatusName(id, status != null ? status.name() : null);
+    }
+
+    @Query("select " + STATUS + " as status, count(c) as count from Certificate c group by " + STATUS)
+    List<StatusCount> countByStatus();
+
+    // certificates issued from CAs owned by each user with the role; users who issued none are left out
+    @Query("SELECT c.parent.owner.id AS ownerId, COUNT(c) AS count FROM Certificate c WHERE c.parent.owner.role = :role GROUP BY c.parent.owner.id")
+    List<OwnerCount> countIssuedCertificatesByParentOwnerRole(@Param("role") User.Role role);
 
     List<Certificate> findAllByParent_Id(UUID parentId);
 
     List<Certificate> findAllByParent_IdAndIsRevokedFalse(UUID parentId);
 
+    boolean existsByParent_IdAndCrlPartition(UUID parentId, Integer crlPartition);
+
+    @Query("select c.id from Certificate c where c.type <> com.team20.pki.certificates.model.CertificateType.END_ENTITY")
+    List<UUID> findCaIds();
+
     List<Certificate> findByTypeAndIsRevokedFalse(CertificateType type);
 
     @Query("""
@@ -49,4 +104,97 @@ public interface ICertificateRepository extends JpaRepository<Certificate, UUID>
     @Query("select count(c) > 0 from Certificate c where c.parent is null and c.owner.organization = :organization")
     boolean existsRootCertificatesForOrganization(String organization);
 
+    // the counters are updated in the database only, so managed certificates are detached rather than left stale
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Certificate c set c.descendantCount = c.descendantCount + :delta where c.id in :ids")
+    void incrementDescendantCount(@Param("ids") Collection<UUID> ids, @Param("delta") long delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Certificate c set c.revokedDescendantCount = c.revokedDescendantCount + :delta where c.id in :ids")
+    void incrementRevokedDescendantCount(@Param("ids") Collection<UUID> ids, @Param("delta") long delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Certificate c set c.revokedDescendantCount = c.descendantCount where c.id in :ids")
+    void markAllDescendantsRevoked(@Param("ids") Collection<UUID> ids);
+
+    // only fills in missing counters, so counters another request stored and has since incremented are kept
+    @Modifying
+    @Query("""
+    update Certificate c set c.descendantCount = :total, c.revokedDescendantCount = :revoked
+    where c.id = :id and (c.descendantCount is null or c.revokedDescendantCount is null)
+    """)
+    int initializeSubtreeCounts(@Param("id") UUID id, @Param("total") long total, @Param("revoked") long revoked);
+
+    /**
+     * Serial numbers of the revoked certificates listed on a CA's CRL partition (the unpartitioned CRL for a null
+     * partition) that expired in {@code [expiredFrom, expiredBefore)}. Certificates that expired before
+     * {@code expiredFrom} were pruned from the list already, a null {@code expiredFrom} finds all of them.
+     */
+    @Query("""
+    SELECT c.serialNumber
+    FROM Certificate c
+    WHERE c.parent.id = :caId
+      AND c.isRevoked = true
+      AND c.validTo < :expiredBefore
+      AND (:expiredFrom IS NULL OR c.validTo >= :expiredFrom)
+      AND ((:partition IS NULL AND c.crlPartition IS NULL) OR c.crlPartition = :partition)
+    """)
+    List<String> findExpiredRevokedSerialNumbers(@Param("caId") UUID caId, @Param("partition") Integer partition,
+                                                 @Param("expiredFrom") LocalDate expiredFrom,
+                                                 @Param("expiredBefore") LocalDate expiredBefore);
+
+    @Query(value = """
+    WITH RECURSIVE subtree(id, is_revoked) AS (
+        SELECT c.id, c.is_revoked FROM certificates c WHERE c.parent_id = :id
+        UNION ALL
+        SELECT c.id, c.is_revoked FROM certificates c JOIN subtree s ON c.parent_id = s.id
+    )
+    SELECT COUNT(*) AS total,
+           COALESCE(SUM(CASE WHEN s.is_revoked THEN 1 ELSE 0 END), 0) AS revoked
+    FROM subtree s
+    """, nativeQuery = true)
+    SubtreeCounts countSubtree(@Param("id") UUID id);
+
+    // streamed, as it reads every certificate; must be consumed within a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("select c.serialNumber as serialNumber, c.isRevoked as revoked from Certificate c")
+    Stream<SerialNumberStatus> streamSerialNumberStatuses();
+
+    @Query("select c.serialNumber from Certificate c where c.revokedAt > :since")
+    List<String> findSerialNumbersRevokedAfter(@Param("since") Instant since);
+
+    interface SubtreeCounts {
+        long getTotal();
+
+        long getRevoked();
+    }
+
+    interface CertificateWithStatus {
+        Certificate getCertificate();
+
+        CertificateStatusDto getStatus();
+    }
+
+    interface OwnedCertificateWithStatus extends CertificateWithStatus {
+        UUID getOwnerId();
+    }
+
+    interface OwnerCount {
+        UUID getOwnerId();
+
+        long getCount();
+    }
+
+    interface StatusCount {
+        CertificateStatusDto getStatus();
+
+        long getCount();
+    }
+
+    interface SerialNumberStatus {
+        String getSerialNumber();
+
+        Boolean getRevoked();
+    }
+
 }
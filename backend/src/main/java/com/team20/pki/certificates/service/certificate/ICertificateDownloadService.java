@@ -2,6 +2,7 @@ package com.team20.pki.certificates.service.certificate;
 
 import com.team20.pki.certificates.dto.CertificateDownloadRequestResponseDto;
 import com.team20.pki.certificates.dto.CertificateDownloadResponseDTO;
+import com.team20.pki.certificates.dto.CertificatePkcs12ResponseDTO;
 import com.team20.pki.certificates.dto.DownloadCheckResponseDto;
 
 import java.util.UUID;
@@ -11,7 +12,7 @@ public interface ICertificateDownloadService {
 
     CertificateDownloadResponseDTO downloadCertificatePem(UUID certificateId);
 
-    CertificateDownloadResponseDTO downloadCertificate(UUID certificateId, UUID requestId, Boolean includeChain);
+    CertificatePkcs12ResponseDTO downloadCertificate(UUID certificateId, UUID requestId, Boolean includeChain);
 
     CertificateDownloadRequestResponseDto requestCertificateDownload(UUID certificateId);
 }
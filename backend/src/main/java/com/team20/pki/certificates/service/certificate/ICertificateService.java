@@ -15,6 +15,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface ICertificateService {
@@ -28,11 +29,22 @@ public interface ICertificateService {
 
     List<CAResponseDTO> getCertificateAuthorities(UserDetailsImpl userDetails);
 
-    List<CertificateResponseDto> getUserCertificates(UUID userId);
+    /**
+     * @param status status to list, or null for all of the user's certificates
+     */
+    List<CertificateResponseDto> getUserCertificates(UUID userId, CertificateStatusDto status);
+
+    Map<CertificateStatusDto, Long> getStatusCounts();
 
     List<CertificateNodeResponseDto> getAllCertificates();
 
     List<CertificateNodeResponseDto> getCaCertificates(UUID userId);
 
+    List<CertificateTreeNodeResponseDto> getRootNodes();
+
+    List<CertificateTreeNodeResponseDto> getCaRootNodes(UUID userId);
+
+    List<CertificateTreeNodeResponseDto> getChildNodes(UUID certificateId);
+
     RootsExistResponse rootsExistsForUser(UUID id);
 }
\ No newline at end of file
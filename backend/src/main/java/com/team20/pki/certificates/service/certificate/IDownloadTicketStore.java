@@ -0,0 +1,22 @@
+package com.team20.pki.certificates.service.certificate;
+
+import com.team20.pki.certificates.model.DownloadTicket;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds the tickets handed out by a download request until they are redeemed by the download or expire.
+ * Selected with {@code certificate.download.tickets.store}.
+ */
+public interface IDownloadTicketStore {
+    DownloadTicket issue(UUID certificateId, String password, Instant expirationTime);
+
+    /**
+     * Removes the ticket, so that it can be redeemed only once.
+     *
+     * @return the ticket, or empty if it does not exist, was already redeemed or has expired
+     */
+    Optional<DownloadTicket> redeem(UUID ticketId);
+}
@@ -6,6 +6,7 @@ import com.team20.pki.certificates.model.Issuer;
 import com.team20.pki.certificates.model.Subject;
 import com.team20.pki.certificates.service.certificate.ICertificateFactory;
 import com.team20.pki.common.model.User;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -15,17 +16,24 @@ import java.util.UUID;
 @Component
 @RequiredArgsConstructor
 public class CertificateFactory implements ICertificateFactory {
-
+    private final CrlDistributionPoints distributionPoints;
 
     public Certificate createCertificate(
             CertificateType type, String serial, LocalDate from, LocalDate to,
             Certificate issuerCert, Issuer issuer, Subject subject, User owner
     ) {
-        return new Certificate(null, type, serial, from, to, issuerCert, issuer, subject, owner, false);
+        return new Certificate(null, type, serial, from, to, issuerCert, issuer, subject, owner, false, null, null, 0L, 0L,
+                crlPartition(issuerCert, from), null);
     }
 
     @Override
     public Certificate createCertificate(UUID uuid, CertificateType type, String serial, LocalDate from, LocalDate to, Certificate issuerCert, Issuer issuer, Subject subject, User owner) {
-        return new Certificate(uuid, type, serial, from, to, issuerCert, issuer, subject, owner, false);
+        return new Certificate(uuid, type, serial, from, to, issuerCert, issuer, subject, owner, false, null, null, 0L, 0L,
+                crlPartition(issuerCert, from), null);
+    }
+
+    // same partition as in the certificate's CRL distribution point, which is generated from its start date
+    private Integer crlPartition(Certificate issuerCert, LocalDate from) {
+        return issuerCert == null ? null : distributionPoints.partitionOf(from);
     }
 }
@@ -13,13 +13,20 @@ import com.team20.pki.certificates.service.certificate.ICertificateService;
 import com.team20.pki.certificates.service.certificate.IRSAGenerator;
 import com.team20.pki.certificates.service.certificate.Ix500NameService;
 import com.team20.pki.certificates.service.certificate.util.CertificateGenerator;
+import com.team20.pki.certificates.service.certificate.util.CertificateTreeCounter;
 import com.team20.pki.certificates.service.certificate.util.KeyStorePasswordGenerator;
 import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
 import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.certificates.service.certificate.util.SerialNumberGenerator;
 import com.team20.pki.common.exception.InvalidRequestError;
 import com.team20.pki.common.exception.NotFoundError;
 import com.team20.pki.common.model.User;
 import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.metrics.service.OperationMetrics;
+import com.team20.pki.metrics.service.OperationTrace;
+import com.team20.pki.publication.service.StaticPublisher;
+import com.team20.pki.revocation.service.CrlPublisher;
+import com.team20.pki.revocation.service.RevocationStatusIndex;
 import com.team20.pki.util.ExtensionUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -50,7 +57,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -68,13 +77,28 @@ public class CertificateService implements ICertificateService {
     private final ICertificateFactory certificateFactory;
     private final PasswordStorage passwordStorage;
     private final CertificateMapper certificateMapper;
+    private final CertificateTreeCounter treeCounter;
+    private final SerialNumberGenerator serialNumberGenerator;
+    private final OperationMetrics operationMetrics;
+    private final CrlPublisher crlPublisher;
+    private final StaticPublisher staticPublisher;
+    private final RevocationStatusIndex statusIndex;
     private final ExtensionUtils extensionUtils = new ExtensionUtils();
 
     @Transactional
     public CertificateSelfSignResponseDTO generateSelfSignedCertificate(SelfSignSubjectDataDTO selfSignSubjectDataDTO) throws IOException, NoSuchAlgorithmException, CertificateException, KeyStoreException {
+        try (OperationTrace trace = operationMetrics.start("self-signed-issuance")) {
+            trace.tag(OperationMetrics.CERTIFICATE_TYPE, CertificateType.ROOT);
+            CertificateSelfSignResponseDTO response = generateSelfSignedCertificate(selfSignSubjectDataDTO, trace);
+            trace.success();
+            return response;
+        }
+    }
 
-
-        User user = userRepository.findById(selfSignSubjectDataDTO.subjectId()).orElseThrow(() -> new NotFoundError("User not found"));
+    private CertificateSelfSignResponseDTO generateSelfSignedCertificate(SelfSignSubjectDataDTO selfSignSubjectDataDTO, OperationTrace trace) throws IOException, NoSuchAlgorithmException, CertificateException, KeyStoreException {
+        User user = trace.stage("jpa-load", () -> userRepository.findById(selfSignSubjectDataDTO.subjectId()))
+                .orElseThrow(() -> new NotFoundError("User not found"));
+        trace.tag(OperationMetrics.ORGANIZATION, user.getOrganization());
 //        boolean rootExists = certificateRepository.existsRootCertificatesForOrganization(user.getOrganization());
 //        if (rootExists)
 //            throw new InvalidRequestError("Cannot issue another root!");
@@ -82,8 +106,8 @@ public class CertificateService implements ICertificateService {
         X500Name name = x500NameService.createX500Name(selfSignSubjectDataDTO);
         Subject subject = new Subject(name);
 
-        BigInteger serial = generateSerialNumber();
-        KeyPair keyPair = rsaGenerator.generateKeyPair();
+        BigInteger serial = serialNumberGenerator.generate();
+        KeyPair keyPair = trace.stage("key-generation", rsaGenerator::generateKeyPair);
 
         LocalDate from = LocalDateTime.parse(selfSignSubjectDataDTO.validFrom()).toLocalDate();
         LocalDate to = LocalDateTime.parse(selfSignSubjectDataDTO.validTo()).toLocalDate();
@@ -103,38 +127,50 @@ public class CertificateService implements ICertificateService {
                 new Subject(name),
                 user
         );
-        X509Certificate cert = generator.generateSelfSignedCertificate(id, serial, keyPair, user, from, to, subject);
-        persistCertificate(selfSignSubjectDataDTO.o(), keyPair, cert, certificate);
+        X509Certificate cert = trace.stage("signing",
+                () -> generator.generateSelfSignedCertificate(id, serial, keyPair, user, from, to, subject));
+        persistCertificate(selfSignSubjectDataDTO.o(), keyPair, cert, certificate, trace);
         return new CertificateSelfSignResponseDTO(certificate.getId());
     }
 
     @Transactional
     @Override
     public CertificateCaSignResponseDTO generateCaSignedCertificate(CaSignSubjectDataDTO dto) throws NoSuchAlgorithmException, IOException, CertificateException, KeyStoreException {
-        Certificate caCertificate = certificateRepository.findById(dto.caId()).orElseThrow(() -> new EntityNotFoundException("CA Not found"));
-        User subjectUser = userRepository.findById(dto.subjectId()).orElseThrow(() -> new EntityNotFoundException("Subject user not found!"));
+        try (OperationTrace trace = operationMetrics.start("issuance")) {
+            CertificateCaSignResponseDTO response = generateCaSignedCertificate(dto, trace);
+            trace.success();
+            return response;
+        }
+    }
+
+    private CertificateCaSignResponseDTO generateCaSignedCertificate(CaSignSubjectDataDTO dto, OperationTrace trace) throws NoSuchAlgorithmException, IOException, CertificateException, KeyStoreException {
+        Certificate caCertificate = trace.stage("jpa-load", () -> certificateRepository.findById(dto.caId()))
+                .orElseThrow(() -> new EntityNotFoundException("CA Not found"));
+        trace.tag(OperationMetrics.ORGANIZATION, caCertificate.getIssuer().getOrganization());
+        User subjectUser = trace.stage("jpa-load", () -> userRepository.findById(dto.subjectId()))
+                .orElseThrow(() -> new EntityNotFoundException("Subject user not found!"));
         X500Name subjectName = x500NameService.createX500Name(dto);
         Subject subject = new Subject(subjectName);
         CertificateType certificateType = declareCertificateType(subjectUser.getRole());
+        trace.tag(OperationMetrics.CERTIFICATE_TYPE, certificateType);
 
         if (certificateType.equals(CertificateType.END_ENTITY) && dto.maxLength() != null)
             throw new InvalidRequestError("End entity generation request cannot contain path length");
 
 
-        BigInteger serialNumber = generateSerialNumber();
+        BigInteger serialNumber = serialNumberGenerator.generate();
 
         LocalDate today = LocalDate.now();
         LocalDate withDays = today.plusDays(dto.validityDays());
         if (withDays.isAfter(caCertificate.getValidTo()))
             throw new InvalidRequestError("Certificate cannot last longer that its parent CA");
 
-        KeyPair keyPair = rsaGenerator.generateKeyPair();
+        KeyPair keyPair = trace.stage("key-generation", rsaGenerator::generateKeyPair);
 
-        PrivateKey parentPrivateKey = loadParentPrivateKey(caCertificate);
-        PublicKey parentPublicKey = loadParentPublicKey(caCertificate);
-        User user = userRepository.findById(dto.subjectId()).orElseThrow(EntityNotFoundException::new);
+        PrivateKey parentPrivateKey = loadParentPrivateKey(caCertificate, trace);
+        PublicKey parentPublicKey = loadParentPublicKey(caCertificate, trace);
 
-        X509Certificate cert = generator.generateCertificate(
+        X509Certificate cert = trace.stage("signing", () -> generator.generateCertificate(
                 subject,
                 parentPrivateKey,
                 parentPublicKey,
@@ -147,7 +183,7 @@ public class CertificateService implements ICertificateService {
                 dto.maxLength(),
                 dto.keyUsage(),
                 dto.extendedKeyUsage()
-        );
+        ));
         Issuer issuer = new Issuer(caCertificate.getSubject().toX500Name());
         Certificate certificate = certificateFactory.createCertificate(
                 certificateType,
@@ -157,10 +193,11 @@ public class CertificateService implements ICertificateService {
                 caCertificate,
                 issuer,
                 subject,
-                user
+                subjectUser
         );
 
-        persistCertificate(dto.o(), keyPair, cert, certificate);
+        persistCertificate(dto.o(), keyPair, cert, certificate, trace);
+        trace.stage("jpa-save", () -> treeCounter.onCertificateIssued(caCertificate));
         return new CertificateCaSignResponseDTO(certificate.getId());
 
     }
@@ -168,7 +205,7 @@ public class CertificateService implements ICertificateService {
     @Override
     public List<CAResponseDTO> getCertificateAuthorities(UserDetailsImpl userDetails) {
         User subject = userRepository.findById(userDetails.getUserId()).orElseThrow(() -> new EntityNotFoundException("Issuer not found"));
-        List<Certificate> userOwnedCertificates = certificateRepository.findByOwnerId(subject.getId());
+        List<Certificate> userOwnedCertificates = certificateRepository.findNotRevokedByOwnerId(subject.getId());
         List<Certificate> recursiveResult = new ArrayList<>();
         for (Certificate cert : userOwnedCertificates) {
             recursiveResult.add(cert);
@@ -241,8 +278,20 @@ public class CertificateService implements ICertificateService {
     }
 
     @Override
-    public List<CertificateResponseDto> getUserCertificates(UUID userId) {
-        return certificateRepository.findByOwnerId(userId).stream().map(certificateMapper::toDto).toList();
+    public List<CertificateResponseDto> getUserCertificates(UUID userId, CertificateStatusDto status) {
+        return certificateRepository.findWithStatusByOwnerId(userId, status).stream()
+                .map(row -> certificateMapper.toDto(row.getCertificate(), row.getStatus()))
+                .toList();
+    }
+
+    @Override
+    public Map<CertificateStatusDto, Long> getStatusCounts() {
+        Map<CertificateStatusDto, Long> counts = new EnumMap<>(CertificateStatusDto.class);
+        for (CertificateStatusDto status : CertificateStatusDto.values()) {
+            counts.put(status, 0L);
+        }
+        certificateRepository.countByStatus().forEach(row -> counts.put(row.getStatus(), row.getCount()));
+        return counts;
     }
 
     @Override
@@ -267,6 +316,36 @@ public class CertificateService implements ICertificateService {
         return new RootsExistResponse(existsRoot, isRegularUser);
     }
 
+    @Override
+    @Transactional
+    public List<CertificateTreeNodeResponseDto> getRootNodes() {
+        return certificateRepository.findByTypeAndIsRevokedFalse(CertificateType.ROOT).stream()
+                .map(this::toTreeNode).toList();
+    }
+
+    @Override
+    @Transactional
+    public List<CertificateTreeNodeResponseDto> getCaRootNodes(UUID userId) {
+        return certificateRepository.findCaRoots(userId).stream().map(this::toTreeNode).toList();
+    }
+
+    @Override
+    @Transactional
+    public List<CertificateTreeNodeResponseDto> getChildNodes(UUID certificateId) {
+        return certificateRepository.findAllByParent_IdAndIsRevokedFalse(certificateId).stream()
+                .map(this::toTreeNode).toList();
+    }
+
+    private CertificateTreeNodeResponseDto toTreeNode(Certificate certificate) {
+        CertificateTreeCounter.Counts counts = treeCounter.countsOf(certificate);
+        return new CertificateTreeNodeResponseDto(
+                certificateMapper.toDto(certificate),
+                // revoked subtrees are not listed, so they are left out of the count shown on expanding
+                counts.descendants() - counts.revokedDescendants(),
+                counts.revokedDescendants()
+        );
+    }
+
     private CertificateNodeResponseDto getSubtree(Certificate certificate) {
         final List<Certificate> children = certificateRepository.findAllByParent_IdAndIsRevokedFalse(certificate.getId());
         return new CertificateNodeResponseDto(
@@ -280,51 +359,87 @@ public class CertificateService implements ICertificateService {
         return role.equals(User.Role.REGULAR_USER) ? CertificateType.END_ENTITY : CertificateType.INTERMEDIATE;
     }
 
-    private void persistCertificate(String organization, KeyPair keyPair, X509Certificate cert, Certificate certificate) throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
+    private void persistCertificate(String organization, KeyPair keyPair, X509Certificate cert, Certificate certificate, OperationTrace trace) throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
 
         String keyStorePassword = keyStorePasswordGenerator.generatePassword(16);
         String pkPassword = keyStorePasswordGenerator.generatePassword(16);
 
-        passwordStorage.storePrivateKeyPassword(organization, pkPassword, certificate.getSerialNumber());
-        passwordStorage.storeKeyStorePassword(organization, keyStorePassword, certificate.getSerialNumber());
-
-        keyStoreService.loadKeyStore(null, keyStorePassword.toCharArray());
-        keyStoreService.write(certificate.getSerialNumber(), keyPair.getPrivate(), pkPassword.toCharArray(), cert);
-        keyStoreService.saveKeyStore(certificate.getSerialNumber(), keyStorePassword.toCharArray());
+        trace.stage("password-encrypt", () -> {
+            passwordStorage.storePrivateKeyPassword(organization, pkPassword, certificate.getSerialNumber());
+            passwordStorage.storeKeyStorePassword(organization, keyStorePassword, certificate.getSerialNumber());
+        });
+
+        trace.stage("keystore-save", () -> keyStoreService.saveKeyStore(
+                certificate.getSerialNumber(),
+                keyStorePassword.toCharArray(),
+                certificate.getSerialNumber(),
+                keyPair.getPrivate(),
+                pkPassword.toCharArray(),
+                cert
+        ));
 
-        certificateRepository.save(certificate);
+        certificate.setPrivateKeyAvailable(true);
+        // flushed here, so that the insert is part of the stage instead of the commit
+        trace.stage("jpa-save", () -> certificateRepository.saveAndFlush(certificate));
 
+        if (certificate.getType() != CertificateType.END_ENTITY) {
+            crlPublisher.publishAfterCommit(certificate.getId());
+            staticPublisher.caIssuedAfterCommit(certificate.getId());
+        }
+        statusIndex.issuedAfterCommit(certificate.getSerialNumber());
+        publishCrlPartition(certificate);
     }
 
-    private BigInteger generateSerialNumber() {
-        return BigInteger.valueOf(System.currentTimeMillis());
+    // the CRL named in the certificate's distribution point must exist before anyone fetches it
+    private void publishCrlPartition(Certificate certificate) {
+        if (certificate.getCrlPartition() != null) {
+            crlPublisher.publishPartitionAfterCommit(certificate.getParent().getId(), certificate.getCrlPartition());
+        }
     }
 
-    private PublicKey loadParentPublicKey(Certificate certificate) {
+    private PublicKey loadParentPublicKey(Certificate certificate, OperationTrace trace) {
         String issuersOrganization = certificate.getIssuer().getOrganization();
         String parentSerialNumber = certificate.getSerialNumber();
-        String parentKeystorePassword = passwordStorage.loadKeyStorePassword(issuersOrganization, parentSerialNumber);
-        java.security.cert.Certificate cert = keyStoreService.readCertificate(parentSerialNumber, parentKeystorePassword.toCharArray(), parentSerialNumber);
+        String parentKeystorePassword = trace.stage("password-decrypt",
+                () -> passwordStorage.loadKeyStorePassword(issuersOrganization, parentSerialNumber));
+        java.security.cert.Certificate cert = trace.stage("keystore-load",
+                () -> keyStoreService.readCertificate(parentSerialNumber, parentKeystorePassword.toCharArray(), parentSerialNumber));
         return cert.getPublicKey();
     }
 
-    private PrivateKey loadParentPrivateKey(Certificate certificate) {
+    private PrivateKey loadParentPrivateKey(Certificate certificate, OperationTrace trace) {
         String issuersOrganization = certificate.getIssuer().getOrganization();
         String parentSerialNumber = certificate.getSerialNumber();
-        String parentKeystorePassword = passwordStorage.loadKeyStorePassword(issuersOrganization, parentSerialNumber);
-        String parentPrivateKeyPassword = passwordStorage.loadPrivateKeyPassword(issuersOrganization, parentSerialNumber);
-        return keyStoreService.readPrivateKey(parentSerialNumber, parentKeystorePassword, parentSerialNumber, parentPrivateKeyPassword);
+        String parentKeystorePassword = trace.stage("password-decrypt",
+                () -> passwordStorage.loadKeyStorePassword(issuersOrganization, parentSerialNumber));
+        String parentPrivateKeyPassword = trace.stage("password-decrypt",
+                () -> passwordStorage.loadPrivateKeyPassword(issuersOrganization, parentSerialNumber));
+        return trace.stage("keystore-load",
+                () -> keyStoreService.readPrivateKey(parentSerialNumber, parentKeystorePassword, parentSerialNumber, parentPrivateKeyPassword));
     }
 
     @Override
+    @Transactional
     public CertificateCaSignResponseDTO generateCaSignedCertificateExternal(UserDetailsImpl user, CaSignSubjectExternalDataDTO data, MultipartFile csr) throws NoSuchAlgorithmException, IOException, CertificateException, KeyStoreException, InvalidNameException {
+        try (OperationTrace trace = operationMetrics.start("csr-issuance")) {
+            CertificateCaSignResponseDTO response = generateCaSignedCertificateExternal(user, data, csr, trace);
+            trace.success();
+            return response;
+        }
+    }
+
+    private CertificateCaSignResponseDTO generateCaSignedCertificateExternal(UserDetailsImpl user, CaSignSubjectExternalDataDTO data, MultipartFile csr, OperationTrace trace) throws NoSuchAlgorithmException, IOException, CertificateException, KeyStoreException, InvalidNameException {
         CertificateType certificateType = declareCertificateType(user.getUserRole());
-        Certificate caCertificate = certificateRepository.findById(data.caId()).orElseThrow(() -> new EntityNotFoundException("CA Not found"));
+        trace.tag(OperationMetrics.CERTIFICATE_TYPE, certificateType);
+        Certificate caCertificate = trace.stage("jpa-load", () -> certificateRepository.findById(data.caId()))
+                .orElseThrow(() -> new EntityNotFoundException("CA Not found"));
+        trace.tag(OperationMetrics.ORGANIZATION, caCertificate.getIssuer().getOrganization());
         String pemFile = new String(csr.getBytes());
 
         PKCS10CertificationRequest csrCertificate = null;
         boolean isValid = false;
-        try (PEMParser pemParser = new PEMParser(new StringReader(new String(pemFile.getBytes())))) {
+        try (PEMParser pemParser = new PEMParser(new StringReader(new String(pemFile.getBytes())));
+             OperationTrace.StageScope ignored = trace.startStage("csr-verify")) {
             csrCertificate = (PKCS10CertificationRequest) pemParser.readObject();
 
             isValid = csrCertificate.isSignatureValid(
@@ -341,7 +456,7 @@ public class CertificateService implements ICertificateService {
 
         X500Name subjectName = csrCertificate.getSubject();
         Subject subject = new Subject(subjectName);
-        BigInteger serialNumber = generateSerialNumber();
+        BigInteger serialNumber = serialNumberGenerator.generate();
 
         // check if ca organization is equal to csr organization
         if (!caCertificate.getSubject().getOrganization().equals(subject.getOrganization())) {
@@ -354,10 +469,11 @@ public class CertificateService implements ICertificateService {
             throw new InvalidRequestError("Certificate cannot last longer that its parent CA");
 
 
-        PrivateKey parentPrivateKey = loadParentPrivateKey(caCertificate);
-        PublicKey parentPublicKey = loadParentPublicKey(caCertificate);
+        PrivateKey parentPrivateKey = loadParentPrivateKey(caCertificate, trace);
+        PublicKey parentPublicKey = loadParentPublicKey(caCertificate, trace);
 
-        User subjectUser = userRepository.findById(data.subjectId()).orElseThrow(EntityNotFoundException::new);
+        User subjectUser = trace.stage("jpa-load", () -> userRepository.findById(data.subjectId()))
+                .orElseThrow(EntityNotFoundException::new);
 
         SubjectPublicKeyInfo pkInfo = csrCertificate.getSubjectPublicKeyInfo();
         JcaPEMKeyConverter converter = new JcaPEMKeyConverter().setProvider("BC");
@@ -370,7 +486,8 @@ public class CertificateService implements ICertificateService {
         List<String> extendedKeyUsagesList = extensionUtils.getExtendedUsagesFromBits(extendedKeyUsage);
 
 
-        X509Certificate cert = generator.generateCertificate(
+        PublicKey subjectPublicKey = converter.getPublicKey(pkInfo);
+        X509Certificate cert = trace.stage("signing", () -> generator.generateCertificate(
                 subject,
                 parentPrivateKey,
                 parentPublicKey,
@@ -378,12 +495,12 @@ public class CertificateService implements ICertificateService {
                 today,
                 withDays,
                 serialNumber.toString(),
-                converter.getPublicKey(pkInfo),
+                subjectPublicKey,
                 certificateType,
                 null,
                 keyUsagesList,
                 extendedKeyUsagesList
-        );
+        ));
 
         Certificate certificate = certificateFactory.createCertificate(
                 certificateType,
@@ -395,21 +512,26 @@ public class CertificateService implements ICertificateService {
                 , subject,
                 subjectUser);
 
-        persistCertificateExternal(subjectUser.getOrganization(), cert, certificate);
+        persistCertificateExternal(subjectUser.getOrganization(), cert, certificate, trace);
+        trace.stage("jpa-save", () -> treeCounter.onCertificateIssued(caCertificate));
         return new CertificateCaSignResponseDTO(certificate.getId());
     }
 
-    private void persistCertificateExternal(String organization, X509Certificate cert, Certificate certificate) throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
+    private void persistCertificateExternal(String organization, X509Certificate cert, Certificate certificate, OperationTrace trace) throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
 
         String keyStorePassword = keyStorePasswordGenerator.generatePassword(16);
 
-        passwordStorage.storeKeyStorePassword(organization, keyStorePassword, certificate.getSerialNumber());
-        keyStoreService.loadKeyStore(null, keyStorePassword.toCharArray());
-        keyStoreService.write(certificate.getSerialNumber(), cert);
-        keyStoreService.saveKeyStore(certificate.getSerialNumber(), keyStorePassword.toCharArray());
-
-        certificateRepository.save(certificate);
-
+        trace.stage("password-encrypt",
+                () -> passwordStorage.storeKeyStorePassword(organization, keyStorePassword, certificate.getSerialNumber()));
+        trace.stage("keystore-save", () -> keyStoreService.saveKeyStore(
+                certificate.getSerialNumber(), keyStorePassword.toCharArray(), certificate.getSerialNumber(), cert));
+
+        // the key pair stays with the requester of the CSR
+        certificate.setPrivateKeyAvailable(false);
+        // flushed here, so that the insert is part of the stage instead of the commit
+        trace.stage("jpa-save", () -> certificateRepository.saveAndFlush(certificate));
+        statusIndex.issuedAfterCommit(certificate.getSerialNumber());
+        publishCrlPartition(certificate);
     }
 //    private void persistCertificate(String organization, KeyPair keyPair, X509Certificate cert, Certificate certificate) throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, NoSuchPaddingException, IllegalBlockSizeException, BadPaddingException, InvalidKeyException {
 //
@@ -0,0 +1,66 @@
+package com.team20.pki.certificates.service.certificate.impl;
+
+import com.team20.pki.certificates.model.CertificateDownloadRequest;
+import com.team20.pki.certificates.model.DownloadTicket;
+import com.team20.pki.certificates.repository.CertificateDownloadRequestRepository;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.IDownloadTicketStore;
+import com.team20.pki.purge.service.ChunkedPurger;
+import com.team20.pki.purge.service.PurgeTarget;
+import com.team20.pki.scheduling.service.ScheduledJobRunner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps tickets in the database, so that a download can be served by any node of a cluster.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "certificate.download.tickets", name = "store", havingValue = "database")
+public class DatabaseDownloadTicketStore implements IDownloadTicketStore {
+    private final CertificateDownloadRequestRepository downloadRequestRepository;
+    private final ICertificateRepository certificateRepository;
+    private final ChunkedPurger purger;
+    private final ScheduledJobRunner jobRunner;
+
+    @Override
+    public DownloadTicket issue(UUID certificateId, String password, Instant expirationTime) {
+        CertificateDownloadRequest request = downloadRequestRepository.save(CertificateDownloadRequest.builder()
+                .password(password)
+                .expirationTime(expirationTime)
+                .certificate(certificateRepository.getReferenceById(certificateId))
+                .build());
+        return new DownloadTicket(request.getId(), certificateId, password, expirationTime);
+    }
+
+    @Override
+    @Transactional
+    public Optional<DownloadTicket> redeem(UUID ticketId) {
+        Optional<CertificateDownloadRequest> request = downloadRequestRepository.findById(ticketId);
+        // only the transaction that deletes the row redeems it
+        if (request.isEmpty() || downloadRequestRepository.deleteAllByIdIn(List.of(ticketId)) == 0) {
+            return Optional.empty();
+        }
+        DownloadTicket ticket = new DownloadTicket(ticketId, request.get().getCertificate().getId(),
+                request.get().getPassword(), request.get().getExpirationTime());
+        return ticket.isExpired(Instant.now()) ? Optional.empty() : Optional.of(ticket);
+    }
+
+    @Scheduled(cron = "${certificate.download.delete-cron}")
+    public void clearExpiredRequests() {
+        jobRunner.run("certificate-download-request-cleanup", () -> purger.purge(PurgeTarget.of(
+                "certificate-download-requests",
+                limit -> downloadRequestRepository.findExpiredIds(Limit.of(limit)),
+                downloadRequestRepository::deleteAllByIdIn
+        )));
+    }
+}
@@ -0,0 +1,128 @@
+package com.team20.pki.certificates.service.certificate.impl;
+
+import com.team20.pki.certificates.model.DownloadTicket;
+import com.team20.pki.certificates.service.certificate.IDownloadTicketStore;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.config.properties.DownloadTicketProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps tickets in memory, so that a download handshake does not write to the database.
+ * A ticket can only be redeemed on the node that issued it.
+ * <p>
+ * Expired tickets are dropped by a hashed timing wheel: each ticket is also filed in the slot of the tick it expires in,
+ * and every tick sweeps only the slots that have passed since the previous one, instead of scanning all tickets.
+ * Tickets filed in a swept slot that expire on a later turn of the wheel stay.
+ */
+@Service
+@ConditionalOnProperty(prefix = "certificate.download.tickets", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryDownloadTicketStore implements IDownloadTicketStore {
+    private final DownloadTicketProperties properties;
+    private final Clock clock;
+
+    private final Map<UUID, DownloadTicket> tickets = new ConcurrentHashMap<>();
+    private final Set<UUID>[] slots;
+    // held while the wheel advances, a caller finding it taken leaves the sweep to the holder
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    // first tick not swept yet
+    private long nextTick;
+
+    @Autowired
+    public InMemoryDownloadTicketStore(DownloadTicketProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryDownloadTicketStore(DownloadTicketProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.slots = new Set[properties.getWheelSlots()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.nextTick = tickOf(clock.instant());
+    }
+
+    @Override
+    public DownloadTicket issue(UUID certificateId, String password, Instant expirationTime) {
+        sweep();
+        if (tickets.size() >= properties.getMaxTickets()) {
+            throw new ServerError("Too many pending downloads, try again later", 503);
+        }
+        DownloadTicket ticket = new DownloadTicket(UUID.randomUUID(), certificateId, password, expirationTime);
+        // filed before it is visible, so that a concurrent sweep cannot miss it
+        slotOf(tickOf(expirationTime)).add(ticket.id());
+        tickets.put(ticket.id(), ticket);
+        return ticket;
+    }
+
+    @Override
+    public Optional<DownloadTicket> redeem(UUID ticketId) {
+        DownloadTicket ticket = tickets.remove(ticketId);
+        if (ticket == null) {
+            return Optional.empty();
+        }
+        slotOf(tickOf(ticket.expirationTime())).remove(ticketId);
+        return ticket.isExpired(clock.instant()) ? Optional.empty() : Optional.of(ticket);
+    }
+
+    /**
+     * @return number of tickets held, including expired ones not swept yet
+     */
+    public int size() {
+        return tickets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${certificate.download.tickets.tick-ms:1000}")
+    public void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            Instant now = clock.instant();
+            long currentTick = tickOf(now);
+            // a pause longer than a turn sweeps every slot once
+            long lastTick = Math.min(currentTick, nextTick + slots.length);
+            for (long tick = nextTick; tick < lastTick; tick++) {
+                sweep(slotOf(tick), now);
+            }
+            nextTick = Math.max(nextTick, currentTick);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void sweep(Set<UUID> slot, Instant now) {
+        slot.removeIf(ticketId -> {
+            DownloadTicket ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                return true;
+            }
+            if (!ticket.isExpired(now)) {
+                return false;
+            }
+            tickets.remove(ticketId, ticket);
+            return true;
+        });
+    }
+
+    private long tickOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), properties.getTickMs());
+    }
+
+    private Set<UUID> slotOf(long tick) {
+        return slots[(int) Math.floorMod(tick, (long) slots.length)];
+    }
+}
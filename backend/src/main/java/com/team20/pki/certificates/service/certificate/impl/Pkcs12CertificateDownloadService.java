@@ -2,37 +2,40 @@ package com.team20.pki.certificates.service.certificate.impl;
 
 import com.team20.pki.certificates.dto.CertificateDownloadRequestResponseDto;
 import com.team20.pki.certificates.dto.CertificateDownloadResponseDTO;
+import com.team20.pki.certificates.dto.CertificatePkcs12ResponseDTO;
 import com.team20.pki.certificates.dto.DownloadCheckResponseDto;
 import com.team20.pki.certificates.model.Certificate;
-import com.team20.pki.certificates.model.CertificateDownloadRequest;
 import com.team20.pki.certificates.model.CertificateType;
-import com.team20.pki.certificates.repository.CertificateDownloadRequestRepository;
+import com.team20.pki.certificates.model.DownloadTicket;
 import com.team20.pki.certificates.repository.ICertificateRepository;
 import com.team20.pki.certificates.service.certificate.ICertificateDownloadService;
+import com.team20.pki.certificates.service.certificate.IDownloadTicketStore;
 import com.team20.pki.certificates.service.certificate.util.CertificateToPEMConverter;
+import com.team20.pki.certificates.service.certificate.util.ChainCertificateCache;
 import com.team20.pki.certificates.service.certificate.util.KeyStorePasswordGenerator;
 import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import com.team20.pki.certificates.service.certificate.util.Pkcs12Builder;
 import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
 import com.team20.pki.common.exception.InvalidRequestError;
 import com.team20.pki.common.exception.NotFoundError;
 import com.team20.pki.common.exception.ServerError;
 import com.team20.pki.encryption.service.EncryptionService;
+import com.team20.pki.metrics.service.OperationMetrics;
+import com.team20.pki.metrics.service.OperationTrace;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCSException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.time.Instant;
@@ -50,8 +53,11 @@ public class Pkcs12CertificateDownloadService implements ICertificateDownloadSer
     private final KeyStoreService keyStoreService;
     private final KeyStorePasswordGenerator keyStorePasswordGenerator;
     private final CertificateToPEMConverter certificateToPEMConverter;
-    private final CertificateDownloadRequestRepository downloadRequestRepository;
+    private final Pkcs12Builder pkcs12Builder;
+    private final ChainCertificateCache chainCertificateCache;
+    private final IDownloadTicketStore downloadTicketStore;
     private final EncryptionService encryptionService;
+    private final OperationMetrics operationMetrics;
 
     @Value("${certificate.download.time-window-ms}")
     private Long downloadDurationMs;
@@ -67,7 +73,7 @@ public class Pkcs12CertificateDownloadService implements ICertificateDownloadSer
         Certificate certificate = certificateRepository.findById(id)
                 .orElseThrow(() -> new NotFoundError("Certificate not found"));
 
-        X509Certificate cert = loadCertificate(certificate);
+        X509Certificate cert = loadCertificate(certificate, OperationTrace.noop());
 
         try {
             String pemContent = certificateToPEMConverter.convertToPEM(cert);
@@ -85,9 +91,7 @@ public class Pkcs12CertificateDownloadService implements ICertificateDownloadSer
         Certificate certificate = certificateRepository.findById(id)
                 .orElseThrow(() -> new NotFoundError("Certificate not found"));
 
-        PrivateKey privateKey = loadPrivateKey(certificate);
-
-        return new DownloadCheckResponseDto(privateKey != null);
+        return new DownloadCheckResponseDto(isPrivateKeyAvailable(certificate));
     }
 
     @Override
@@ -95,7 +99,7 @@ public class Pkcs12CertificateDownloadService implements ICertificateDownloadSer
         Certificate certificate = certificateRepository.findById(certificateId)
                 .orElseThrow(() -> new NotFoundError("Certificate not found"));
 
-        if (loadPrivateKey(certificate) == null) {
+        if (!isPrivateKeyAvailable(certificate)) {
             throw new InvalidRequestError("Private key not available");
         }
 
@@ -106,118 +110,117 @@ public class Pkcs12CertificateDownloadService implements ICertificateDownloadSer
         );
         final String encryptedPass = Base64.getEncoder().encodeToString(encryptedBytes);
 
-        CertificateDownloadRequest request = CertificateDownloadRequest.builder()
-                .password(encryptedPass)
-                .expirationTime(Instant.now().plus(downloadDuration))
-                .certificate(certificate)
-                .build();
-
-        request = downloadRequestRepository.save(request);
+        DownloadTicket ticket = downloadTicketStore.issue(certificateId, encryptedPass, Instant.now().plus(downloadDuration));
 
-        return new CertificateDownloadRequestResponseDto(request.getId(), password);
+        return new CertificateDownloadRequestResponseDto(ticket.id(), password);
     }
 
     @Override
     @Transactional
-    public CertificateDownloadResponseDTO downloadCertificate(UUID certificateId, UUID requestId, Boolean includeChain) {
-        final Certificate certificate = certificateRepository.findById(certificateId)
+    public CertificatePkcs12ResponseDTO downloadCertificate(UUID certificateId, UUID requestId, Boolean includeChain) {
+        try (OperationTrace trace = operationMetrics.start("download")) {
+            CertificatePkcs12ResponseDTO response = downloadCertificate(certificateId, requestId, includeChain, trace);
+            trace.success();
+            return response;
+        }
+    }
+
+    private CertificatePkcs12ResponseDTO downloadCertificate(UUID certificateId, UUID requestId, Boolean includeChain, OperationTrace trace) {
+        final Certificate certificate = trace.stage("jpa-load", () -> certificateRepository.findById(certificateId))
                 .orElseThrow(() -> new NotFoundError("Certificate not found"));
+        trace.tag(OperationMetrics.ORGANIZATION, certificate.getIssuer().getOrganization())
+                .tag(OperationMetrics.CERTIFICATE_TYPE, certificate.getType());
 
-        final X509Certificate cert = loadCertificate(certificate);
-        final PrivateKey privateKey = loadPrivateKey(certificate);
+        final X509Certificate cert = loadCertificate(certificate, trace);
+        final PrivateKey privateKey = loadPrivateKey(certificate, trace);
 
         if(privateKey == null) {
             throw new InvalidRequestError("Private key not available");
         }
 
-        final CertificateDownloadRequest downloadRequest = downloadRequestRepository.findById(requestId)
+        final DownloadTicket ticket = trace.stage("ticket-redeem", () -> downloadTicketStore.redeem(requestId))
+                .filter(redeemed -> redeemed.certificateId().equals(certificateId))
                 .orElseThrow(() -> new NotFoundError("Password expired"));
 
-        if (downloadRequest.getExpirationTime().isBefore(Instant.now())) {
-            downloadRequestRepository.delete(downloadRequest);
-            throw new NotFoundError("Password expired");
-        }
-
-        final byte[] encryptedBytes = Base64.getDecoder().decode(downloadRequest.getPassword());
-        final byte[] decryptedBytes = encryptionService.decrypt(
+        final byte[] encryptedBytes = Base64.getDecoder().decode(ticket.password());
+        final byte[] decryptedBytes = trace.stage("password-decrypt", () -> encryptionService.decrypt(
                 encryptedBytes,
                 certificate.getIssuer().getOrganization()
-        );
+        ));
         final String password = new String(decryptedBytes, StandardCharsets.UTF_8);
 
-        downloadRequestRepository.delete(downloadRequest);
-
-        X509Certificate[] certificates = new X509Certificate[] {cert};
-        if (includeChain) {
-            certificates = getCertificateChain(certificate)
-                    .stream().map(this::loadCertificate).toList().toArray(new X509Certificate[0]);
-        }
-
-        try {
-            KeyStore pkcs12 = KeyStore.getInstance("PKCS12");
-            pkcs12.load(null, null);
-
-            pkcs12.setKeyEntry(
-                    "key",
-                    privateKey,
-                    password.toCharArray(),
-                    certificates
-            );
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            pkcs12.store(baos, password.toCharArray());
-            baos.flush();
+        final List<X509CertificateHolder> chain = includeChain ? getCertificateChain(certificate, trace) : List.of();
 
-            byte[] pkcs12Bytes = baos.toByteArray();
-            String fileName = "certificate-" + certificate.getSerialNumber() + ".p12";
+        PKCS12PfxPdu pkcs12 = trace.stage("pkcs12-build", () -> buildPkcs12(privateKey, cert, chain, password));
+        String fileName = "certificate-" + certificate.getSerialNumber() + ".p12";
 
-            if (certificate.getType().equals(CertificateType.END_ENTITY)) {
-                // delete private key for end entity certificate after first download
-                deletePrivateKey(certificate);
-            }
+        if (certificate.getType().equals(CertificateType.END_ENTITY)) {
+            // delete private key for end entity certificate after first download
+            deletePrivateKey(certificate, trace);
+        }
 
-            return new CertificateDownloadResponseDTO(pkcs12Bytes, fileName);
+        return new CertificatePkcs12ResponseDTO(pkcs12, fileName);
+    }
 
-        } catch (KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException e) {
+    private PKCS12PfxPdu buildPkcs12(PrivateKey privateKey, X509Certificate certificate, List<X509CertificateHolder> chain, String password) {
+        try {
+            return pkcs12Builder.build(privateKey, certificate, chain, password.toCharArray());
+        } catch (IOException | OperatorCreationException | PKCSException e) {
             log.error(e.getMessage());
             throw new ServerError("Failed to create PKCS12 file", 500);
         }
     }
 
-    private List<Certificate> getCertificateChain(Certificate certificate) {
-        List<Certificate> certificates = new ArrayList<>();
-        certificates.add(certificate);
+    /**
+     * @return certificates of the issuing CAs up to the root, taken from the cache where possible
+     */
+    private List<X509CertificateHolder> getCertificateChain(Certificate certificate, OperationTrace trace) {
+        List<X509CertificateHolder> chain = new ArrayList<>();
         while (!certificate.getType().equals(CertificateType.ROOT) && certificate.getParent() != null) {
-            certificate = certificate.getParent();
-            certificates.add(certificate);
+            final Certificate ca = certificate.getParent();
+            chain.add(chainCertificateCache.get(ca.getId(), () -> loadCertificate(ca, trace)));
+            certificate = ca;
         }
-        return certificates;
+        return chain;
     }
 
-    private PrivateKey loadPrivateKey(Certificate certificate) {
-        final String organization = certificate.getIssuer().getOrganization();
-        final String serialNumber = certificate.getSerialNumber();
-        final String keyStorePass = passwordStorage.loadKeyStorePassword(organization, serialNumber);
-        final String privateKeyPass = passwordStorage.loadPrivateKeyPassword(organization, serialNumber);
-        return keyStoreService.readPrivateKey(serialNumber, keyStorePass, serialNumber, privateKeyPass);
+    /**
+     * Reads the recorded availability, loading the key only for certificates issued before it was recorded.
+     */
+    private boolean isPrivateKeyAvailable(Certificate certificate) {
+        if (certificate.getPrivateKeyAvailable() == null) {
+            certificate.setPrivateKeyAvailable(loadPrivateKey(certificate, OperationTrace.noop()) != null);
+            certificateRepository.save(certificate);
+        }
+        return certificate.getPrivateKeyAvailable();
     }
 
-    private X509Certificate loadCertificate(Certificate certificate) {
+    private PrivateKey loadPrivateKey(Certificate certificate, OperationTrace trace) {
         final String organization = certificate.getIssuer().getOrganization();
         final String serialNumber = certificate.getSerialNumber();
-        final String keyStorePass = passwordStorage.loadKeyStorePassword(organization, serialNumber);
-        return keyStoreService.readCertificate(serialNumber, keyStorePass.toCharArray(), serialNumber);
+        final String keyStorePass = trace.stage("password-decrypt",
+                () -> passwordStorage.loadKeyStorePassword(organization, serialNumber));
+        final String privateKeyPass = trace.stage("password-decrypt",
+                () -> passwordStorage.loadPrivateKeyPassword(organization, serialNumber));
+        return trace.stage("keystore-load",
+                () -> keyStoreService.readPrivateKey(serialNumber, keyStorePass, serialNumber, privateKeyPass));
     }
 
-    private void deletePrivateKey(Certificate certificate) {
+    private X509Certificate loadCertificate(Certificate certificate, OperationTrace trace) {
         final String organization = certificate.getIssuer().getOrganization();
         final String serialNumber = certificate.getSerialNumber();
-        final String keyStorePass = passwordStorage.loadKeyStorePassword(organization, serialNumber);
-        keyStoreService.removePrivateKey(serialNumber, keyStorePass.toCharArray(), serialNumber);
+        final String keyStorePass = trace.stage("password-decrypt",
+                () -> passwordStorage.loadKeyStorePassword(organization, serialNumber));
+        return trace.stage("keystore-load",
+                () -> keyStoreService.readCertificate(serialNumber, keyStorePass.toCharArray(), serialNumber));
     }
 
-    @Scheduled(cron = "${certificate.download.delete-cron}")
-    public void clearExpiredRequests() {
-        downloadRequestRepository.deleteAllExpired();
+    private void deletePrivateKey(Certificate certificate, OperationTrace trace) {
+        final String organization = certificate.getIssuer().getOrganization();
+        final String serialNumber = certificate.getSerialNumber();
+        final String keyStorePass = trace.stage("password-decrypt",
+                () -> passwordStorage.loadKeyStorePassword(organization, serialNumber));
+        trace.stage("keystore-save", () -> keyStoreService.removePrivateKey(serialNumber, keyStorePass.toCharArray(), serialNumber));
+        certificate.setPrivateKeyAvailable(false);
     }
 }
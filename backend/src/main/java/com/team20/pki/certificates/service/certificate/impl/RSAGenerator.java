@@ -1,6 +1,7 @@
 package com.team20.pki.certificates.service.certificate.impl;
 
 import com.team20.pki.certificates.service.certificate.IRSAGenerator;
+import com.team20.pki.metrics.jfr.KeyGenerationEvent;
 import org.springframework.stereotype.Component;
 
 import java.security.KeyPair;
@@ -9,9 +10,23 @@ import java.security.NoSuchAlgorithmException;
 
 @Component
 public class RSAGenerator implements IRSAGenerator {
+    private static final int KEY_SIZE = 2048;
+
     public KeyPair generateKeyPair() throws NoSuchAlgorithmException {
-        KeyPairGenerator keyGen =KeyPairGenerator.getInstance("RSA");
-        keyGen.initialize(2048);
-        return keyGen.generateKeyPair();
+        KeyGenerationEvent event = new KeyGenerationEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            KeyPairGenerator keyGen =KeyPairGenerator.getInstance("RSA");
+            keyGen.initialize(KEY_SIZE);
+            KeyPair keyPair = keyGen.generateKeyPair();
+            failed = false;
+            return keyPair;
+        } finally {
+            event.algorithm = "RSA";
+            event.keySize = KEY_SIZE;
+            event.failed = failed;
+            event.commit();
+        }
     }
 }
@@ -5,6 +5,8 @@ import com.team20.pki.certificates.model.CertificateType;
 import com.team20.pki.certificates.model.Subject;
 import com.team20.pki.common.exception.ServerError;
 import com.team20.pki.common.model.User;
+import com.team20.pki.metrics.jfr.CertificateSigningEvent;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
 import com.team20.pki.util.ExtensionUtils;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.*;
@@ -18,7 +20,6 @@ import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
@@ -27,8 +28,10 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import java.math.BigInteger;
 import java.security.*;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAKey;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
@@ -41,12 +44,12 @@ import java.util.UUID;
 @Component
 public class CertificateGenerator {
     private final ExtensionUtils extensionUtils;
-    private final String crlPath;
+    private final CrlDistributionPoints distributionPoints;
 
-    public CertificateGenerator(@Value("${crl-url}") String revocationListPath) {
+    public CertificateGenerator(CrlDistributionPoints distributionPoints) {
         Security.addProvider(new BouncyCastleProvider());
         extensionUtils = new ExtensionUtils();
-        crlPath = revocationListPath;
+        this.distributionPoints = distributionPoints;
     }
 
     public X509Certificate generateCertificate(
@@ -62,8 +65,11 @@ public class CertificateGenerator {
             Integer maxLength,
             List<String> keyUsage,
             List<String> extendedKeyUsage) {
+        CertificateSigningEvent event = new CertificateSigningEvent();
+        event.begin();
         JcaContentSignerBuilder builder = new JcaContentSignerBuilder("SHA256WithRSAEncryption").setProvider("BC");
-
+        X509Certificate certificate = null;
+        boolean failed = true;
 
         try {
             ContentSigner contentSigner = builder.build(parentPrivateKey);
@@ -106,8 +112,8 @@ public class CertificateGenerator {
             List<String> updatedKeyUsage = concatenateBaseCaKeyUsage(type, keyUsage);
             extensionUtils.addKeyUsageExtensions(certificateBuilder, updatedKeyUsage);
             extensionUtils.addExtendedKeyUsage(certificateBuilder, extendedKeyUsage);
-            // if the parent certificate
-            String crlDistPoint = crlPath + parent.getId();
+            // the partition of the parent's CRL the certificate is listed in when revoked
+            String crlDistPoint = distributionPoints.url(parent.getId(), distributionPoints.partitionOf(startDate));
 
             GeneralName generalName = new GeneralName(GeneralName.uniformResourceIdentifier, crlDistPoint);
             CRLDistPoint distributionPoint = new CRLDistPoint(new DistributionPoint[]{
@@ -119,16 +125,44 @@ public class CertificateGenerator {
             X509CertificateHolder certificateHolder = certificateBuilder.build(contentSigner);
             JcaX509CertificateConverter converter = new JcaX509CertificateConverter().setProvider("BC");
 
-            return converter.getCertificate(certificateHolder);
+            certificate = converter.getCertificate(certificateHolder);
+            failed = false;
+            return certificate;
         } catch (OperatorCreationException e) {
             throw new RuntimeException(e);
         } catch (CertificateException e) {
             throw new RuntimeException(e);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            commitSigningEvent(event, certificate, serialNumber, parent.getId(), type, failed);
         }
 
     }
+    // the certificate is null when signing failed before it was built
+    private void commitSigningEvent(CertificateSigningEvent event, X509Certificate certificate, String serialNumber,
+                                    UUID caId, CertificateType type, boolean failed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.serialNumber = serialNumber;
+        event.caId = String.valueOf(caId);
+        event.certificateType = type.name();
+        event.failed = failed;
+        if (certificate != null) {
+            if (certificate.getPublicKey() instanceof RSAKey rsaKey) {
+                event.keySize = rsaKey.getModulus().bitLength();
+            }
+            try {
+                event.encodedBytes = certificate.getEncoded().length;
+            } catch (CertificateEncodingException e) {
+                // left at zero, the event is still worth recording
+            }
+        }
+        event.commit();
+    }
+
     private List<String> concatenateBaseCaKeyUsage(CertificateType type, List<String> keyUsage) {
         List<String> updatedKeyUsage = keyUsage.stream().toList();
         if (!type.equals(CertificateType.END_ENTITY))
@@ -137,8 +171,12 @@ public class CertificateGenerator {
     }
 
     public X509Certificate generateSelfSignedCertificate(UUID id, BigInteger serialNumber, KeyPair keyPair, User owner, LocalDate startDate, LocalDate endDate, Subject subject) {
+        CertificateSigningEvent event = new CertificateSigningEvent();
+        event.begin();
+        X509Certificate certificate = null;
+        boolean failed = true;
 
-        try {;
+        try {
             X500Name subjectName = subject.toX500Name();
             X500Name issuerName = subjectName;
 
@@ -159,7 +197,7 @@ public class CertificateGenerator {
             );
 
             extensionUtils.addCertificateAuthorityBaseExtensions(certBuilder, null);
-            String crlDistPoint = crlPath + id;
+            String crlDistPoint = distributionPoints.url(id, null);
 
 
             GeneralName generalName = new GeneralName(GeneralName.uniformResourceIdentifier, crlDistPoint);
@@ -168,15 +206,18 @@ public class CertificateGenerator {
 
             certBuilder.addExtension(Extension.cRLDistributionPoints, false, distributionPoint);
 
-            X509Certificate certificate = new JcaX509CertificateConverter()
+            certificate = new JcaX509CertificateConverter()
                     .setProvider("BC")
                     .getCertificate(certBuilder.build(contentSigner));
 
             certificate.verify(keyPair.getPublic());
+            failed = false;
             return certificate;
         } catch (OperatorCreationException | CertificateException | NoSuchAlgorithmException | SignatureException |
                  InvalidKeyException | NoSuchProviderException | CertIOException e) {
             throw new ServerError("Could not create certificate", 500);
+        } finally {
+            commitSigningEvent(event, certificate, serialNumber.toString(), id, CertificateType.ROOT, failed);
         }
 
     }
@@ -0,0 +1,70 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the per-certificate subtree counters up to date, so that tree nodes can be
+ * expanded one level at a time without walking the hierarchy below them.
+ * Must be called from within a transaction. The counters are updated in bulk, which detaches every
+ * entity of the persistence context, so callers update them last.
+ */
+@Component
+@RequiredArgsConstructor
+public class CertificateTreeCounter {
+    private final ICertificateRepository certificateRepository;
+
+    public record Counts(long descendants, long revokedDescendants) {
+    }
+
+    public void onCertificateIssued(Certificate issuer) {
+        certificateRepository.incrementDescendantCount(getPathToRoot(issuer), 1);
+    }
+
+    /**
+     * @param revoked       root of the revoked subtree
+     * @param descendantIds ids of all certificates below {@code revoked}
+     * @param newlyRevoked  number of certificates in the subtree (including {@code revoked}) that were not revoked before
+     */
+    public void onSubtreeRevoked(Certificate revoked, Collection<UUID> descendantIds, long newlyRevoked) {
+        // walked before the first update detaches the ancestors
+        List<UUID> ancestorIds = revoked.getParent() != null ? getPathToRoot(revoked.getParent()) : List.of();
+        List<UUID> subtreeIds = new ArrayList<>(descendantIds);
+        subtreeIds.add(revoked.getId());
+        certificateRepository.markAllDescendantsRevoked(subtreeIds);
+
+        if (newlyRevoked > 0 && !ancestorIds.isEmpty()) {
+            certificateRepository.incrementRevokedDescendantCount(ancestorIds, newlyRevoked);
+        }
+    }
+
+    /**
+     * Returns the counters of the certificate, computing them for certificates created before counting was introduced.
+     * Computed counters are stored with a conditional update instead of on the entity, so that they never overwrite
+     * counters that a concurrent request stored and incremented in the meantime. Once set, they are maintained incrementally.
+     */
+    public Counts countsOf(Certificate certificate) {
+        if (certificate.getDescendantCount() != null && certificate.getRevokedDescendantCount() != null) {
+            return new Counts(certificate.getDescendantCount(), certificate.getRevokedDescendantCount());
+        }
+        ICertificateRepository.SubtreeCounts counts = certificateRepository.countSubtree(certificate.getId());
+        certificateRepository.initializeSubtreeCounts(certificate.getId(), counts.getTotal(), counts.getRevoked());
+        return new Counts(counts.getTotal(), counts.getRevoked());
+    }
+
+    private List<UUID> getPathToRoot(Certificate certificate) {
+        List<UUID> ids = new ArrayList<>();
+        while (certificate != null) {
+            ids.add(certificate.getId());
+            certificate = certificate.getParent();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,57 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.service.StripedLruCache;
+import com.team20.pki.config.properties.Pkcs12Properties;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.springframework.stereotype.Component;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Encoded CA certificates, so that the chain of a download is not read from one keystore per link.
+ * Certificates never change once issued, so entries are never stale.
+ * When the cache is full, the least recently used certificate of the key's stripe makes room for the new one.
+ */
+@Component
+public class ChainCertificateCache {
+    // null when caching is disabled
+    private final StripedLruCache<UUID, X509CertificateHolder> certificates;
+
+    public ChainCertificateCache(Pkcs12Properties properties) {
+        int maxSize = properties.getChainCacheSize();
+        this.certificates = maxSize > 0 ? new StripedLruCache<>(maxSize) : null;
+    }
+
+    /**
+     * Returns the cached certificate, or loads, encodes and caches it.
+     */
+    public X509CertificateHolder get(UUID certificateId, Supplier<X509Certificate> loader) {
+        X509CertificateHolder cached = certificates != null ? certificates.get(certificateId) : null;
+        if (cached != null) {
+            return cached;
+        }
+        // loaded outside the stripe lock, a concurrent load of the same certificate only costs a second read
+        X509CertificateHolder loaded = encode(loader.get());
+        if (certificates != null) {
+            certificates.put(certificateId, loaded);
+        }
+        return loaded;
+    }
+
+    public int size() {
+        return certificates != null ? certificates.size() : 0;
+    }
+
+    private static X509CertificateHolder encode(X509Certificate certificate) {
+        try {
+            return new JcaX509CertificateHolder(certificate);
+        } catch (CertificateEncodingException e) {
+            throw new ServerError("Failed to encode certificate", 500);
+        }
+    }
+}
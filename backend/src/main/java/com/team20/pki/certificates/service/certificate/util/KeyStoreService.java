@@ -2,69 +2,97 @@ package com.team20.pki.certificates.service.certificate.util;
 
 import com.team20.pki.common.exception.InvalidRequestError;
 import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.service.SingleFlight;
+import com.team20.pki.metrics.jfr.KeyStoreEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads and writes one JKS file per certificate.
+ * Every call works on its own {@link KeyStore} instance, so concurrent requests never share keystore state.
+ * File contents are read and written outside the keystore's internal {@code synchronized} sections,
+ * so blocking file I/O does not pin virtual threads. Files are replaced atomically, and
+ * read-modify-write updates of the same file are serialized by striped locks.
+ * Concurrent reads of the same entry, e.g. a CA's key during an issuing burst, share a single load.
+ */
 @Slf4j
 @Component
 public class KeyStoreService {
-    private final KeyStore keyStore;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] fileLocks = new ReentrantLock[LOCK_STRIPES];
+
+    // the passwords are part of the key, so that a load is only shared with callers able to do it themselves
+    private record EntryLoad(String keyStoreFile, String keyStorePassword, String alias, String keyPassword) {
+    }
+
+    private final SingleFlight<EntryLoad, X509Certificate> certificateLoads = new SingleFlight<>();
+    private final SingleFlight<EntryLoad, PrivateKey> privateKeyLoads = new SingleFlight<>();
 
     @Value("${cert-keystore.path}")
     private String certificateFilePath;
 
-    public KeyStoreService() throws KeyStoreException, NoSuchProviderException {
-
-        keyStore = KeyStore.getInstance("JKS", "SUN");
+    public KeyStoreService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new ReentrantLock();
+        }
     }
 
-    public void write(String alias, PrivateKey privateKey, char[] password, java.security.cert.Certificate certificate) {
+    /**
+     * Creates a keystore file holding the private key and its certificate under {@code alias}.
+     */
+    public void saveKeyStore(String fileName, char[] password, String alias, PrivateKey privateKey, char[] keyPassword, Certificate certificate) {
         try {
-            keyStore.setKeyEntry(alias, privateKey, password, new Certificate[]{certificate});
+            KeyStore keyStore = newKeyStore();
+            keyStore.setKeyEntry(alias, privateKey, keyPassword, new Certificate[]{certificate});
+            store(fileName, keyStore, password);
         } catch (KeyStoreException e) {
             log.error(e.getMessage());
             throw new InvalidRequestError(e.getMessage());
         }
     }
 
-    public void write(String alias, java.security.cert.Certificate certificate) {
+    /**
+     * Creates a keystore file holding only a certificate under {@code alias}.
+     */
+    public void saveKeyStore(String fileName, char[] password, String alias, Certificate certificate) {
         try {
+            KeyStore keyStore = newKeyStore();
             keyStore.setCertificateEntry(alias, certificate);
+            store(fileName, keyStore, password);
         } catch (KeyStoreException e) {
             log.error(e.getMessage());
             throw new InvalidRequestError(e.getMessage());
         }
     }
 
-    public void loadKeyStore(String fileName, char[] password) {
-        try {
-            if (fileName != null) {
-                keyStore.load(new FileInputStream(certificateFilePath + "/" + fileName + ".jks"), password);
-            } else {
-                keyStore.load(null, password);
-            }
-        } catch (CertificateException | IOException | NoSuchAlgorithmException e) {
-            throw new InvalidRequestError(e.getMessage());
-        }
+    public X509Certificate readCertificate(String keyStoreFile, char[] password, String alias) {
+        return certificateLoads.load(new EntryLoad(keyStoreFile, new String(password), alias, null),
+                () -> loadCertificate(keyStoreFile, password, alias));
     }
 
-    public void saveKeyStore(String fileName, char[] password) throws IOException, CertificateException, KeyStoreException, NoSuchAlgorithmException {
-        keyStore.store(new FileOutputStream(certificateFilePath + "/" + fileName + ".jks"), password);
+    public PrivateKey readPrivateKey(String keyStoreFile, String keyStorePass, String alias, String pass) {
+        return privateKeyLoads.load(new EntryLoad(keyStoreFile, keyStorePass, alias, pass),
+                () -> loadPrivateKey(keyStoreFile, keyStorePass, alias, pass));
     }
 
-    public X509Certificate readCertificate(String keyStoreFile, char[] password, String alias) {
-        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(certificateFilePath + "/" + keyStoreFile + ".jks"))) {
-            keyStore.load(in, password);
+    private X509Certificate loadCertificate(String keyStoreFile, char[] password, String alias) {
+        try {
+            KeyStore keyStore = load(keyStoreFile, password);
             return (X509Certificate) keyStore.getCertificate(alias);
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -72,18 +100,14 @@ public class KeyStoreService {
         }
     }
 
-    public PrivateKey readPrivateKey(String keyStoreFile, String keyStorePass, String alias, String pass) {
+    private PrivateKey loadPrivateKey(String keyStoreFile, String keyStorePass, String alias, String pass) {
         try {
-            //kreiramo instancu KeyStore
-            KeyStore ks = KeyStore.getInstance("JKS", "SUN");
-            //ucitavamo podatke
-            BufferedInputStream in = new BufferedInputStream(new FileInputStream(certificateFilePath + "/" + keyStoreFile + ".jks"));
-            ks.load(in, keyStorePass.toCharArray());
+            KeyStore ks = load(keyStoreFile, keyStorePass.toCharArray());
 
             if (ks.isKeyEntry(alias)) {
                 return (PrivateKey) ks.getKey(alias, pass.toCharArray());
             }
-        } catch (KeyStoreException | NoSuchProviderException | NoSuchAlgorithmException | CertificateException |
+        } catch (KeyStoreException | NoSuchAlgorithmException | CertificateException |
                  IOException | UnrecoverableKeyException e) {
             log.error(e.getMessage());
             throw new ServerError("Failed to read private key for alias: " + alias, 500);
@@ -92,8 +116,10 @@ public class KeyStoreService {
     }
 
     public void removePrivateKey(String keyStoreFile, char[] keyStorePassword, String alias) {
-        try (FileInputStream fis = new FileInputStream(certificateFilePath + "/" + keyStoreFile + ".jks")) {
-            keyStore.load(fis, keyStorePassword);
+        ReentrantLock lock = getFileLock(keyStoreFile);
+        lock.lock();
+        try {
+            KeyStore keyStore = load(keyStoreFile, keyStorePassword);
 
             if (!keyStore.containsAlias(alias)) {
                 throw new InvalidRequestError("Alias not found: " + alias);
@@ -108,12 +134,92 @@ public class KeyStoreService {
 
             keyStore.setCertificateEntry(alias, cert);
 
-            try (FileOutputStream fos = new FileOutputStream(certificateFilePath + "/" + keyStoreFile + ".jks")) {
-                keyStore.store(fos, keyStorePassword);
-            }
+            store(keyStoreFile, keyStore, keyStorePassword);
         } catch (IOException | NoSuchAlgorithmException | CertificateException | KeyStoreException e) {
             log.error(e.getMessage());
             throw new ServerError("Failed to remove private key for alias: " + alias, 500);
+        } finally {
+            lock.unlock();
         }
     }
+
+    private KeyStore newKeyStore() {
+        try {
+            KeyStore keyStore = KeyStore.getInstance("JKS", "SUN");
+            keyStore.load(null, null);
+            return keyStore;
+        } catch (KeyStoreException | NoSuchProviderException | IOException | NoSuchAlgorithmException |
+                 CertificateException e) {
+            throw new ServerError("Failed to create key store", 500);
+        }
+    }
+
+    private KeyStore load(String fileName, char[] password)
+            throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException {
+        KeyStoreEvent event = new KeyStoreEvent();
+        event.begin();
+        byte[] content = null;
+        boolean failed = true;
+        try {
+            content = Files.readAllBytes(getPath(fileName));
+            KeyStore keyStore = KeyStore.getInstance("JKS", "SUN");
+            keyStore.load(new ByteArrayInputStream(content), password);
+            failed = false;
+            return keyStore;
+        } catch (NoSuchProviderException e) {
+            throw new KeyStoreException(e);
+        } finally {
+            commitEvent(event, KeyStoreEvent.LOAD, fileName, content != null ? content.length : 0, failed);
+        }
+    }
+
+    private void store(String fileName, KeyStore keyStore, char[] password) {
+        Path path = getPath(fileName);
+        ReentrantLock lock = getFileLock(fileName);
+        KeyStoreEvent event = new KeyStoreEvent();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean failed = true;
+        lock.lock();
+        // the wait for the lock is not part of the event
+        event.begin();
+        try {
+            keyStore.store(out, password);
+
+            // readers never see a partially written file
+            Path tmp = Files.createTempFile(path.getParent(), fileName, ".tmp");
+            try {
+                Files.write(tmp, out.toByteArray());
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                failed = false;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | KeyStoreException | NoSuchAlgorithmException | CertificateException e) {
+            log.error(e.getMessage());
+            throw new ServerError("Failed to store key store: " + fileName, 500);
+        } finally {
+            lock.unlock();
+            commitEvent(event, KeyStoreEvent.STORE, fileName, out.size(), failed);
+        }
+    }
+
+    private void commitEvent(KeyStoreEvent event, String operation, String fileName, long bytes, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.fileName = fileName;
+            event.bytes = bytes;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    private Path getPath(String fileName) {
+        return Paths.get(certificateFilePath).resolve(fileName + ".jks");
+    }
+
+    // reentrant, so store() can run while removePrivateKey() holds the same stripe
+    private ReentrantLock getFileLock(String fileName) {
+        return fileLocks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
 }
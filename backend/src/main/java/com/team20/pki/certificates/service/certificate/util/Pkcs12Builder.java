@@ -0,0 +1,204 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import com.team20.pki.config.properties.Pkcs12Properties;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.DERBMPString;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCS12PBEParams;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.jcajce.io.MacOutputStream;
+import org.bouncycastle.operator.GenericKey;
+import org.bouncycastle.operator.MacCalculator;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.OutputEncryptor;
+import org.bouncycastle.operator.jcajce.JceGenericKey;
+import org.bouncycastle.pkcs.PKCS12MacCalculatorBuilder;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCS12PfxPduBuilder;
+import org.bouncycastle.pkcs.PKCS12SafeBag;
+import org.bouncycastle.pkcs.PKCS12SafeBagBuilder;
+import org.bouncycastle.pkcs.PKCSException;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS12SafeBagBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.PBEParameterSpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assembles PKCS#12 files with the encryption and MAC parameters of {@link Pkcs12Properties},
+ * instead of the JVM-wide defaults of the PKCS12 {@link java.security.KeyStore}.
+ * The result is an ASN.1 structure that can be DER encoded straight into a stream.
+ * <p>
+ * The structure is built by BouncyCastle, while key derivation, encryption and the MAC use the JDK's PBE algorithms,
+ * whose PBKDF2 is several times faster than BouncyCastle's at the iteration counts used here.
+ */
+@Component
+public class Pkcs12Builder {
+    // the alias under which the key entry is read by KeyStore
+    public static final String FRIENDLY_NAME = "key";
+
+    private static final int SALT_LENGTH = 20;
+
+    private final Pkcs12Properties properties;
+    private final JcaX509ExtensionUtils extensionUtils;
+    private final SecureRandom random = new SecureRandom();
+
+    public Pkcs12Builder(Pkcs12Properties properties) throws NoSuchAlgorithmException {
+        if (properties.getKeyEncryption() == Pkcs12Properties.Encryption.NONE) {
+            throw new IllegalStateException("The private key of a PKCS#12 file must be encrypted");
+        }
+        this.properties = properties;
+        this.extensionUtils = new JcaX509ExtensionUtils();
+    }
+
+    /**
+     * @param certificate certificate of the private key
+     * @param chain       certificates of the issuing CAs, starting with the direct issuer
+     */
+    public PKCS12PfxPdu build(PrivateKey privateKey, X509Certificate certificate, List<X509CertificateHolder> chain, char[] password)
+            throws IOException, OperatorCreationException, PKCSException {
+        // pairs the key with its certificate
+        SubjectKeyIdentifier localKeyId = extensionUtils.createSubjectKeyIdentifier(certificate.getPublicKey());
+
+        PKCS12SafeBagBuilder certificateBag = new JcaPKCS12SafeBagBuilder(certificate);
+        certificateBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName, new DERBMPString(FRIENDLY_NAME));
+        certificateBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_localKeyId, localKeyId);
+        List<PKCS12SafeBag> certificateBags = new ArrayList<>(chain.size() + 1);
+        certificateBags.add(certificateBag.build());
+        for (X509CertificateHolder caCertificate : chain) {
+            certificateBags.add(new PKCS12SafeBagBuilder(caCertificate).build());
+        }
+
+        PKCS12SafeBagBuilder keyBag = new JcaPKCS12SafeBagBuilder(privateKey, encryptor(properties.getKeyEncryption(), password));
+        keyBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName, new DERBMPString(FRIENDLY_NAME));
+        keyBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_localKeyId, localKeyId);
+
+        PKCS12PfxPduBuilder pfx = new PKCS12PfxPduBuilder();
+        if (properties.getCertificateEncryption() == Pkcs12Properties.Encryption.NONE) {
+            for (PKCS12SafeBag bag : certificateBags) {
+                pfx.addData(bag);
+            }
+        } else {
+            pfx.addEncryptedData(encryptor(properties.getCertificateEncryption(), password),
+                    certificateBags.toArray(PKCS12SafeBag[]::new));
+        }
+        pfx.addData(keyBag.build());
+
+        return pfx.build(macCalculator(), password);
+    }
+
+    private OutputEncryptor encryptor(Pkcs12Properties.Encryption encryption, char[] password) throws OperatorCreationException {
+        record Scheme(String algorithm, ASN1ObjectIdentifier oid) {
+        }
+        Scheme scheme = switch (encryption) {
+            case AES_256_CBC -> new Scheme("PBEWithHmacSHA256AndAES_256", PKCSObjectIdentifiers.id_PBES2);
+            case DES_EDE3_CBC -> new Scheme("PBEWithSHA1AndDESede", PKCSObjectIdentifiers.pbeWithSHAAnd3_KeyTripleDES_CBC);
+            case NONE -> throw new IllegalArgumentException("No encryption");
+        };
+        try {
+            SecretKey key = SecretKeyFactory.getInstance(scheme.algorithm()).generateSecret(new PBEKeySpec(password));
+            Cipher cipher = Cipher.getInstance(scheme.algorithm());
+            cipher.init(Cipher.ENCRYPT_MODE, key, new PBEParameterSpec(salt(), properties.getEncryptionIterations()), random);
+            // the parameters hold the salt, iterations and, for PBES2, the PRF, cipher and IV
+            AlgorithmIdentifier algorithm = new AlgorithmIdentifier(scheme.oid(),
+                    ASN1Primitive.fromByteArray(cipher.getParameters().getEncoded()));
+            return new OutputEncryptor() {
+                @Override
+                public AlgorithmIdentifier getAlgorithmIdentifier() {
+                    return algorithm;
+                }
+
+                @Override
+                public OutputStream getOutputStream(OutputStream out) {
+                    return new CipherOutputStream(out, cipher);
+                }
+
+                @Override
+                public GenericKey getKey() {
+                    return new JceGenericKey(algorithm, key);
+                }
+            };
+        } catch (GeneralSecurityException | IOException e) {
+            throw new OperatorCreationException("Failed to create " + scheme.algorithm() + " cipher", e);
+        }
+    }
+
+    private PKCS12MacCalculatorBuilder macCalculator() {
+        ASN1ObjectIdentifier digest = switch (properties.getMac()) {
+            case HMAC_SHA256 -> NISTObjectIdentifiers.id_sha256;
+            case HMAC_SHA1 -> OIWObjectIdentifiers.idSHA1;
+        };
+        String algorithm = switch (properties.getMac()) {
+            case HMAC_SHA256 -> "HmacPBESHA256";
+            case HMAC_SHA1 -> "HmacPBESHA1";
+        };
+        return new PKCS12MacCalculatorBuilder() {
+            @Override
+            public AlgorithmIdentifier getDigestAlgorithmIdentifier() {
+                return new AlgorithmIdentifier(digest, DERNull.INSTANCE);
+            }
+
+            @Override
+            public MacCalculator build(char[] password) throws OperatorCreationException {
+                byte[] salt = salt();
+                try {
+                    SecretKey key = SecretKeyFactory.getInstance("PBE").generateSecret(new PBEKeySpec(password));
+                    Mac mac = Mac.getInstance(algorithm);
+                    mac.init(key, new PBEParameterSpec(salt, properties.getMacIterations()));
+                    AlgorithmIdentifier macAlgorithm = new AlgorithmIdentifier(digest,
+                            new PKCS12PBEParams(salt, properties.getMacIterations()));
+                    return new MacCalculator() {
+                        @Override
+                        public AlgorithmIdentifier getAlgorithmIdentifier() {
+                            return macAlgorithm;
+                        }
+
+                        @Override
+                        public OutputStream getOutputStream() {
+                            return new MacOutputStream(mac);
+                        }
+
+                        @Override
+                        public byte[] getMac() {
+                            return mac.doFinal();
+                        }
+
+                        @Override
+                        public GenericKey getKey() {
+                            return new JceGenericKey(macAlgorithm, key);
+                        }
+                    };
+                } catch (GeneralSecurityException e) {
+                    throw new OperatorCreationException("Failed to create " + algorithm + " MAC", e);
+                }
+            }
+        };
+    }
+
+    private byte[] salt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        return salt;
+    }
+}
@@ -1,6 +1,6 @@
 package com.team20.pki.common.dto;
 
-import com.team20.pki.caUsers.dto.CAUserGetAllResponse;
+import com.team20.pki.certificates.dto.CertificateStatusDto;
 
 import java.util.List;
 import java.util.UUID;
@@ -19,11 +19,8 @@ public record UserGetAllResponse(
             String serialNumber,
             String issuedDate,
             String expiryDate,
-            CAUserGetAllResponse.Certificate.Status status,
+            CertificateStatusDto status,
             String type
     ) {
-        public enum Status {
-            ACTIVE, EXPIRED, REVOKED
-        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.team20.pki.common.exception;
+
+public class TooManyRequestsError extends RuntimeException {
+    public TooManyRequestsError(String message) {
+        super(message);
+    }
+}
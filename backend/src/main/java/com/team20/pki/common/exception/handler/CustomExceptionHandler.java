@@ -4,8 +4,10 @@ import com.team20.pki.common.dto.ErrorResponseDto;
 import com.team20.pki.common.exception.InvalidRequestError;
 import com.team20.pki.common.exception.NotFoundError;
 import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.exception.TooManyRequestsError;
 import com.team20.pki.common.exception.UnauthorizedError;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -42,6 +44,14 @@ public class CustomExceptionHandler {
         );
     }
 
+    @ExceptionHandler(TooManyRequestsError.class)
+    public ResponseEntity<ErrorResponseDto> handleTooManyRequestsError(TooManyRequestsError error) {
+        log.warn("TooManyRequestsError: {}", error.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponseDto(HttpStatus.TOO_MANY_REQUESTS.value(), error.getMessage()));
+    }
+
     @ExceptionHandler(ServerError.class)
     public ResponseEntity<ErrorResponseDto> handleServerError(ServerError error) {
         int statusCode = (error.getCode() != null && error.getCode() >= 100 && error.getCode() <= 599)
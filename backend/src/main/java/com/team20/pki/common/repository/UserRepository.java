@@ -3,7 +3,9 @@ package com.team20.pki.common.repository;
 import com.team20.pki.common.model.User;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +15,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByEmail(String email);
 
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
     List<User> findUsersByRole(User.Role role);
 
 
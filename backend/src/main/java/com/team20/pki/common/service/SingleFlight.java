@@ -0,0 +1,58 @@
+package com.team20.pki.common.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent loads of the same key into one.
+ * The first caller runs the load, callers arriving while it runs wait for it and get the same result or exception.
+ * Nothing is cached: a call arriving after the load finished runs a new one.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Load<V, E extends Exception> {
+        V load() throws E;
+    }
+
+    public <E extends Exception> V load(K key, Load<V, E> load) throws E {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            V value = load.load();
+            flight.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return number of loads currently running
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, E extends Exception> V await(CompletableFuture<V> flight) throws E {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            // the load only throws E or unchecked exceptions
+            throw (E) cause;
+        }
+    }
+}
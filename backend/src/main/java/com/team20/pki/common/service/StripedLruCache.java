@@ -0,0 +1,99 @@
+package com.team20.pki.common.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache that evicts the least recently used entry when full.
+ * Keys are spread over independently locked stripes, each an access-ordered map with its share of the capacity,
+ * so that concurrent readers of different keys rarely wait for each other. Recency is tracked per stripe.
+ */
+public class StripedLruCache<K, V> {
+    private static final int MAX_STRIPES = 16;
+
+    private final Stripe<K, V>[] stripes;
+
+    public StripedLruCache(int maxSize) {
+        this(maxSize, MAX_STRIPES);
+    }
+
+    @SuppressWarnings("unchecked")
+    StripedLruCache(int maxSize, int maxStripes) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        int stripeCount = Math.min(maxStripes, maxSize);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // the remainder of the division goes to the first stripes, so that the capacities add up to maxSize
+            stripes[i] = new Stripe<>(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+        }
+    }
+
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeOf(key);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripeOf(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(key, value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry only if it still maps to the given value.
+     */
+    public void remove(K key, V value) {
+        Stripe<K, V> stripe = stripeOf(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(key, value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K, V> stripeOf(K key) {
+        int hash = key.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private static final class Stripe<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        // access-ordered, guarded by lock
+        private final LinkedHashMap<K, V> entries;
+
+        private Stripe(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
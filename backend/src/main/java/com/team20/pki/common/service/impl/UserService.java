@@ -1,10 +1,11 @@
 package com.team20.pki.common.service.impl;
 
 import com.team20.pki.authentication.model.UserDetailsImpl;
-import com.team20.pki.caUsers.dto.CAUserGetAllResponse;
 import com.team20.pki.caUsers.dto.CAUserGetResponse;
-import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.dto.CertificateStatusDto;
 import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.repository.ICertificateRepository.CertificateWithStatus;
+import com.team20.pki.certificates.repository.ICertificateRepository.OwnedCertificateWithStatus;
 import com.team20.pki.common.dto.UserCertificateIssueResponseDTO;
 import com.team20.pki.common.dto.UserGetAllResponse;
 import com.team20.pki.common.model.User;
@@ -16,7 +17,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -38,8 +41,11 @@ public class UserService implements IUserService {
     @Override
     public List<UserGetAllResponse> getAllRegularUsers() {
         List<User> caUSers = userRepository.findUsersByRole(User.Role.REGULAR_USER);
+        Map<UUID, List<OwnedCertificateWithStatus>> certificatesByOwner = certificateRepository
+                .findWithStatusByOwnerRole(User.Role.REGULAR_USER).stream()
+                .collect(Collectors.groupingBy(OwnedCertificateWithStatus::getOwnerId));
         return caUSers.stream().map(user -> {
-            List<UserGetAllResponse.Certificate> userCertificates = certificateRepository.findByOwnerId(user.getId())
+            List<UserGetAllResponse.Certificate> userCertificates = certificatesByOwner.getOrDefault(user.getId(), List.of())
                     .stream().map(this::createUserCertificateResponse).toList();
 
             return new UserGetAllResponse(
@@ -47,7 +53,8 @@ public class UserService implements IUserService {
                     user.getFullName(),
                     user.getEmail(),
                     user.getOrganization(),
-                    userCertificates.size(),
+                    // every certificate that is not revoked, including expired and not yet valid ones
+                    (int) userCertificates.stream().filter(certificate -> certificate.status() != CertificateStatusDto.REVOKED).count(),
                     userCertificates,
                     user.getRole().toString()
                     );
@@ -71,13 +78,13 @@ public class UserService implements IUserService {
                         )
                 ).toList();
     }
-    private UserGetAllResponse.Certificate createUserCertificateResponse(Certificate certificate) {
+    private UserGetAllResponse.Certificate createUserCertificateResponse(CertificateWithStatus row) {
         return new UserGetAllResponse.Certificate(
-                certificate.getId(),
-                certificate.getSerialNumber(),
-                certificate.getValidFrom().toString(),
-                certificate.getValidTo().toString(),
-                CAUserGetAllResponse.Certificate.Status.ACTIVE,// promeniti
-                certificate.getType().toString());
+                row.getCertificate().getId(),
+                row.getCertificate().getSerialNumber(),
+                row.getCertificate().getValidFrom().toString(),
+                row.getCertificate().getValidTo().toString(),
+                row.getStatus(),
+                row.getCertificate().getType().toString());
     }
 }
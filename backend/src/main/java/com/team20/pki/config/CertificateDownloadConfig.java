@@ -0,0 +1,11 @@
+package com.team20.pki.config;
+
+import com.team20.pki.config.properties.DownloadTicketProperties;
+import com.team20.pki.config.properties.Pkcs12Properties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({DownloadTicketProperties.class, Pkcs12Properties.class})
+public class CertificateDownloadConfig {
+}
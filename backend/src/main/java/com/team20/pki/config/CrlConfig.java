@@ -0,0 +1,11 @@
+package com.team20.pki.config;
+
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.config.properties.RevocationStatusProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({CrlProperties.class, RevocationStatusProperties.class})
+public class CrlConfig {
+}
@@ -1,10 +1,11 @@
 package com.team20.pki.config;
 
 import com.team20.pki.config.properties.EmailConfigProperties;
+import com.team20.pki.config.properties.EmailOutboxProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties(EmailConfigProperties.class)
+@EnableConfigurationProperties({EmailConfigProperties.class, EmailOutboxProperties.class})
 public class JavaMailSenderConfig {
 }
@@ -0,0 +1,40 @@
+package com.team20.pki.config;
+
+import com.team20.pki.authentication.service.JwtService;
+import com.team20.pki.email.model.OutboxEmail;
+import com.team20.pki.email.repository.EmailOutboxRepository;
+import com.team20.pki.revocation.service.RevocationStatusIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public MeterBinder verifiedTokenCacheMetrics(JwtService jwtService) {
+        return registry -> Gauge.builder("pki.auth.verified-token-cache.size", jwtService, JwtService::getVerifiedTokenCacheSize)
+                .description("Access tokens whose signature is cached")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder revocationStatusIndexMetrics(RevocationStatusIndex statusIndex) {
+        return registry -> Gauge.builder("pki.revocation.status-index.size", statusIndex, RevocationStatusIndex::size)
+                .description("Certificates in the revocation status index")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder emailOutboxMetrics(EmailOutboxRepository outboxRepository) {
+        return registry -> {
+            // queried on every scrape
+            for (OutboxEmail.Status status : OutboxEmail.Status.values()) {
+                Gauge.builder("pki.email.outbox.size", outboxRepository, repository -> repository.countByStatus(status))
+                        .description("Emails in the outbox")
+                        .tag("status", status.name().toLowerCase())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.team20.pki.config;
+
+import com.team20.pki.config.properties.PublicationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PublicationProperties.class)
+public class PublicationConfig {
+}
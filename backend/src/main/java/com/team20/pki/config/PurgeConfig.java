@@ -0,0 +1,10 @@
+package com.team20.pki.config;
+
+import com.team20.pki.config.properties.PurgeConfigProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PurgeConfigProperties.class)
+public class PurgeConfig {
+}
@@ -0,0 +1,16 @@
+package com.team20.pki.config;
+
+import com.team20.pki.config.properties.SchedulingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Triggers stay on even with {@code scheduling.enabled=false}, as node-local timers such as index reloads depend
+ * on them; the flag only keeps {@link com.team20.pki.scheduling.service.ScheduledJobRunner} from running cluster jobs.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SchedulingProperties.class)
+public class SchedulingConfig {
+}
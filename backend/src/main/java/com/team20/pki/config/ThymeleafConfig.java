@@ -10,9 +10,14 @@ import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 @Configuration
 public class ThymeleafConfig implements WebMvcConfigurer {
     private final String emailTemplatesPath;
+    private final boolean cacheable;
 
-    public ThymeleafConfig(@Value("${email.templates.path}") String emailTemplatesPath) {
+    public ThymeleafConfig(
+            @Value("${email.templates.path}") String emailTemplatesPath,
+            @Value("${email.templates.cacheable:true}") boolean cacheable
+    ) {
         this.emailTemplatesPath = emailTemplatesPath;
+        this.cacheable = cacheable;
     }
 
     @Bean
@@ -20,7 +25,8 @@ public class ThymeleafConfig implements WebMvcConfigurer {
         ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
 
         resolver.setPrefix(emailTemplatesPath);
-        resolver.setCacheable(false);
+        // parsed templates are reused; disable while editing templates
+        resolver.setCacheable(cacheable);
         resolver.setSuffix(".html");
         resolver.setTemplateMode("HTML");
         resolver.setCharacterEncoding("UTF-8");
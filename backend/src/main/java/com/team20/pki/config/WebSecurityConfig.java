@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.team20.pki.authentication.exception.handler.CustomAccessDeniedHandler;
 import com.team20.pki.authentication.exception.handler.CustomAuthenticationEntryPoint;
 import com.team20.pki.authentication.filter.JwtAuthenticationFilter;
+import com.team20.pki.authentication.service.PasswordHashingExecutor;
 import com.team20.pki.config.properties.AuthConfigProperties;
+import com.team20.pki.config.properties.PasswordHashingProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -19,6 +21,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -37,10 +40,12 @@ import java.util.List;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true, jsr250Enabled = true)
-@EnableConfigurationProperties(AuthConfigProperties.class)
+@EnableConfigurationProperties({AuthConfigProperties.class, PasswordHashingProperties.class})
 @RequiredArgsConstructor
 public class WebSecurityConfig {
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordHashingProperties passwordHashingConfig;
     private final Environment environment;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -59,7 +64,7 @@ public class WebSecurityConfig {
 
     @Bean
     PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(passwordHashingConfig.getBcryptStrength());
     }
 
     @Bean
@@ -69,9 +74,12 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    DaoAuthenticationProvider authenticationProvider() {
+    DaoAuthenticationProvider authenticationProvider(PasswordHashingExecutor passwordHashingExecutor) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        // only the hashing runs on the pool, the user lookup and hash upgrade stay on the request thread
+        authProvider.setPasswordEncoder(passwordHashingExecutor.pooledEncoder());
+        // rehashes passwords stored with a lower strength after a successful login
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
@@ -96,16 +104,19 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf
                         .csrfTokenRepository(csrfTokenRepository())
                         .csrfTokenRequestHandler(new CsrfTokenRequestAttributeHandler())
+                        // the batch status lookup is a read, posted only because of its size
+                        .ignoringRequestMatchers("/api/certificates/revoke/status")
                 )
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/certificates/revoke/crl/**").permitAll()
+                        .requestMatchers("/api/certificates/revoke/status", "/api/certificates/revoke/status/**").permitAll()
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
                 )
@@ -114,7 +125,7 @@ public class WebSecurityConfig {
                         .accessDeniedHandler(new CustomAccessDeniedHandler(new ObjectMapper()))
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
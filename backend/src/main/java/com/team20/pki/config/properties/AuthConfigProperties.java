@@ -1,5 +1,6 @@
 package com.team20.pki.config.properties;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -30,4 +31,15 @@ public class AuthConfigProperties {
     @NotNull
     @Positive
     private Long activationCodeExpirationMinutes;
+
+    // 0 disables caching of verified access tokens
+    @Min(0)
+    private int verifiedTokenCacheSize = 10000;
+
+    @Positive
+    private int bulkInviteMaxRows = 10000;
+
+    // invitations saved per transaction
+    @Positive
+    private int bulkInviteChunkSize = 500;
 }
@@ -0,0 +1,49 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "crl")
+public class CrlProperties {
+    // time between thisUpdate and nextUpdate of a signed CRL
+    @Positive
+    private long validityHours = 168;
+
+    // certificates issued within the same period are listed in the same CRL partition, 0 disables partitioning
+    @Min(0)
+    private int partitionDays = 30;
+
+    // entries of expired certificates are dropped when a CRL is re-signed, as RFC 5280 allows
+    private boolean pruneExpired = true;
+
+    // time after expiry that entries are kept on the CRL before being pruned
+    @Min(0)
+    private int expiredRetentionDays = 30;
+
+    // announces the pruning cutoff in an ExpiredCertsOnCRL extension
+    private boolean expiredCertsOnCrlExtension = true;
+
+    // CRLs expiring within this time are re-signed by the publisher
+    @Positive
+    private long refreshAheadHours = 48;
+
+    // disables background signing, CRLs are then only signed on revocation
+    private boolean publisherEnabled = true;
+
+    @Positive
+    private int publisherThreads = 2;
+
+    @Positive
+    private long publishIntervalMs = 300000;
+
+    // time before signing is retried for a CA whose CRL could not be signed
+    @Positive
+    private long failureBackoffMs = 3600000;
+}
@@ -0,0 +1,34 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "certificate.download.tickets")
+public class DownloadTicketProperties {
+    // memory keeps tickets on the node that issued them, database shares them between the nodes of a cluster
+    @NotNull
+    private Store store = Store.MEMORY;
+
+    // granularity at which expired tickets are dropped from memory
+    @Positive
+    private long tickMs = 1000;
+
+    // slots of the expiry wheel, tickets expiring further ahead than slots * tickMs wait for more than one turn
+    @Positive
+    private int wheelSlots = 512;
+
+    // tickets held in memory at once, further download requests are refused until some are redeemed or expire
+    @Positive
+    private int maxTickets = 100000;
+
+    public enum Store {
+        MEMORY, DATABASE
+    }
+}
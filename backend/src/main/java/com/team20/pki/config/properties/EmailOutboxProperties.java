@@ -0,0 +1,43 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "email.outbox")
+public class EmailOutboxProperties {
+    // disables the sender threads, emails are still written to the outbox
+    private boolean enabled = true;
+
+    @Positive
+    private int senderThreads = 2;
+
+    // emails sent over a single SMTP connection
+    @Positive
+    private int batchSize = 20;
+
+    @Positive
+    private long pollIntervalMs = 5000;
+
+    // time after which a claimed email is picked up again if its sender died
+    @Positive
+    private long claimTimeoutMs = 300000;
+
+    @Positive
+    private int maxAttempts = 8;
+
+    @Positive
+    private long initialBackoffMs = 10000;
+
+    @Positive
+    private long maxBackoffMs = 3600000;
+
+    // emails that were given up on are kept this long for inspection
+    @Positive
+    private int failedRetentionDays = 7;
+}
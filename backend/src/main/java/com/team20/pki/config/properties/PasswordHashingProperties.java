@@ -0,0 +1,30 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public class PasswordHashingProperties {
+    // BCrypt log rounds; existing hashes with fewer rounds are upgraded on login
+    @Min(4)
+    @Max(31)
+    private int bcryptStrength = 10;
+
+    @Positive
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // requests waiting for a hashing thread; further requests are rejected with 429
+    @Min(0)
+    private int queueCapacity = 64;
+
+    @Positive
+    private long maxWaitMs = 5000;
+}
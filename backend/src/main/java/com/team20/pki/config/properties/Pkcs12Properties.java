@@ -0,0 +1,50 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "certificate.download.pkcs12")
+public class Pkcs12Properties {
+    // encryption of the private key
+    @NotNull
+    private Encryption keyEncryption = Encryption.AES_256_CBC;
+
+    // encryption of the certificates, NONE leaves them readable without the password
+    @NotNull
+    private Encryption certificateEncryption = Encryption.AES_256_CBC;
+
+    // PBKDF2 or PKCS#12 key derivation iterations of both encryptions
+    @Positive
+    private int encryptionIterations = 10000;
+
+    @NotNull
+    private Mac mac = Mac.HMAC_SHA256;
+
+    @Positive
+    private int macIterations = 10000;
+
+    // encoded CA certificates kept for the chains of downloads, 0 loads every chain from the keystores
+    @Min(0)
+    private int chainCacheSize = 1000;
+
+    public enum Encryption {
+        // PBES2 with PBKDF2-HMAC-SHA256, read by OpenSSL 1.1+ and Java 8u301+
+        AES_256_CBC,
+        // pbeWithSHAAnd3-KeyTripleDES-CBC, for older clients such as the Windows certificate import before Server 2019
+        DES_EDE3_CBC,
+        NONE
+    }
+
+    public enum Mac {
+        HMAC_SHA256,
+        HMAC_SHA1
+    }
+}
@@ -0,0 +1,30 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "publication")
+public class PublicationProperties {
+    // writes signed CRLs and CA certificates to the directory and serves them from there
+    private boolean enabled = false;
+
+    // laid out like the /pub URLs, so that any static web server can serve it as well
+    @NotBlank
+    private String directory = "publish";
+
+    // max-age of the Cache-Control header of published files
+    @Min(0)
+    private long cacheMaxAgeSeconds = 300;
+
+    // picks up CRLs signed by other nodes of the cluster
+    @Positive
+    private long syncIntervalMs = 60000;
+}
@@ -0,0 +1,24 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "purge")
+public class PurgeConfigProperties {
+    @Positive
+    private int chunkSize = 1000;
+
+    @Min(0)
+    private long pauseMs = 50;
+
+    // 0 purges until the table is clean
+    @Min(0)
+    private int maxChunksPerRun = 0;
+}
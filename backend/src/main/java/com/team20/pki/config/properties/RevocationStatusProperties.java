@@ -0,0 +1,33 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "revocation-status")
+public class RevocationStatusProperties {
+    // reloads the index from the database, picking up certificates issued by other nodes of the cluster
+    @Positive
+    private long reloadIntervalMs = 300000;
+
+    // reads certificates revoked by other nodes of the cluster since the previous read
+    @Positive
+    private long refreshIntervalMs = 5000;
+
+    // how far each read reaches back, revocations whose transaction ran longer are only seen by the next reload
+    @Positive
+    private long refreshOverlapMs = 60000;
+
+    // changes kept next to the sorted arrays before they are merged into them
+    @Positive
+    private int mergeThreshold = 4096;
+
+    // serial numbers accepted by one batch status request
+    @Positive
+    private int maxBatchSize = 10000;
+}
@@ -0,0 +1,31 @@
+package com.team20.pki.config.properties;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "scheduling")
+public class SchedulingProperties {
+    // skips cluster jobs on this node, other nodes still run them; node-local timers are not affected
+    private boolean enabled = true;
+
+    // name recorded in locks and run history, defaults to host name and process id
+    private String nodeId;
+
+    // time after which the lock of a node that died during a run is taken over
+    @Positive
+    private long lockAtMostForMs = 1800000;
+
+    // minimum time a lock is held, so that nodes with skewed clocks do not run a short job twice
+    @Min(0)
+    private long lockAtLeastForMs = 5000;
+
+    @Positive
+    private int historyRetentionDays = 30;
+}
@@ -0,0 +1,17 @@
+package com.team20.pki.email.dto;
+
+import lombok.Value;
+
+@Value
+public class EmailSendResult {
+    boolean sent;
+    String error;
+
+    public static EmailSendResult sent() {
+        return new EmailSendResult(true, null);
+    }
+
+    public static EmailSendResult failed(String error) {
+        return new EmailSendResult(false, error);
+    }
+}
@@ -0,0 +1,67 @@
+package com.team20.pki.email.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "email_outbox",
+        indexes = {
+                @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+        }
+)
+public class OutboxEmail {
+    // replaces the body of emails that are given up on, as it can contain a verification code
+    public static final String REDACTED_BODY = "[redacted]";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @NotEmpty
+    @Column(nullable = false)
+    private String recipientEmail;
+
+    @NotEmpty
+    @Column(nullable = false)
+    private String subject;
+
+    @NotEmpty
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // also used as a lease: claimed emails are pushed into the future until the send completes
+    @NotNull
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant nextAttemptAt;
+
+    @NotNull
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        FAILED
+    }
+}
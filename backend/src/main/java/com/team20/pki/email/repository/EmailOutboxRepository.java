@@ -0,0 +1,44 @@
+package com.team20.pki.email.repository;
+
+import com.team20.pki.email.model.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailOutboxRepository extends JpaRepository<OutboxEmail, UUID> {
+    /**
+     * Locks due emails, skipping rows already locked by another sender.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        select e from OutboxEmail e
+        where e.status = com.team20.pki.email.model.OutboxEmail.Status.PENDING
+        and e.nextAttemptAt <= :now
+        order by e.nextAttemptAt
+        """)
+    List<OutboxEmail> findDueForUpdate(Instant now, Limit limit);
+
+    long countByStatus(OutboxEmail.Status status);
+
+    @Query("""
+        select e.id from OutboxEmail e
+        where e.status = com.team20.pki.email.model.OutboxEmail.Status.FAILED
+        and e.createdAt < :before
+        order by e.createdAt
+        """)
+    List<UUID> findFailedIdsCreatedBefore(Instant before, Limit limit);
+
+    @Modifying
+    @Query("delete from OutboxEmail e where e.id in :ids")
+    int deleteAllByIdIn(List<UUID> ids);
+}
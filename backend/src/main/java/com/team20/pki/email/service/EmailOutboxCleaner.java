@@ -0,0 +1,35 @@
+package com.team20.pki.email.service;
+
+import com.team20.pki.config.properties.EmailOutboxProperties;
+import com.team20.pki.email.repository.EmailOutboxRepository;
+import com.team20.pki.purge.service.ChunkedPurger;
+import com.team20.pki.purge.service.PurgeTarget;
+import com.team20.pki.scheduling.service.ScheduledJobRunner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxCleaner {
+    private final ScheduledJobRunner jobRunner;
+    private final EmailOutboxRepository outboxRepository;
+    private final ChunkedPurger purger;
+    private final EmailOutboxProperties properties;
+
+    @Scheduled(cron = "${email.outbox.failed-delete-cron}")
+    public void clearFailedEmails() {
+        jobRunner.run("email-outbox-cleanup", () -> {
+            Instant before = Instant.now().minus(Duration.ofDays(properties.getFailedRetentionDays()));
+            purger.purge(PurgeTarget.of(
+                    "failed-emails",
+                    limit -> outboxRepository.findFailedIdsCreatedBefore(before, Limit.of(limit)),
+                    outboxRepository::deleteAllByIdIn
+            ));
+        });
+    }
+}
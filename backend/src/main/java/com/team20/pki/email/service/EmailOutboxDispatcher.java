@@ -0,0 +1,210 @@
+package com.team20.pki.email.service;
+
+import com.team20.pki.config.properties.EmailOutboxProperties;
+import com.team20.pki.email.dto.EmailDto;
+import com.team20.pki.email.dto.EmailSendResult;
+import com.team20.pki.email.model.OutboxEmail;
+import com.team20.pki.email.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends emails from the outbox on a fixed pool of sender threads.
+ * Each sender claims a batch of due emails, sends it over one connection and
+ * deletes the sent emails. Failed emails are retried with exponential backoff,
+ * and once they are given up on their body is redacted, so no verification code
+ * outlives the send attempts in the outbox.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailSenderService emailSenderService;
+    private final EmailOutboxProperties config;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean virtualThreads;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private boolean signalled;
+
+    private ExecutorService senderPool;
+    private volatile boolean running;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 EmailSenderService emailSenderService,
+                                 EmailOutboxProperties config,
+                                 PlatformTransactionManager transactionManager,
+                                 Environment environment) {
+        this.outboxRepository = outboxRepository;
+        this.emailSenderService = emailSenderService;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running = true;
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("email-sender-", 0).factory()
+                : Thread.ofPlatform().name("email-sender-", 0).factory();
+        senderPool = Executors.newFixedThreadPool(config.getSenderThreads(), threadFactory);
+        for (int i = 0; i < config.getSenderThreads(); i++) {
+            senderPool.submit(this::runSender);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (senderPool != null) {
+            senderPool.shutdownNow();
+            senderPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Wakes up idle senders, so that newly committed emails are sent without waiting for the next poll.
+     */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            signalled = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Claims, sends and records a single batch of due emails.
+     *
+     * @return number of claimed emails
+     */
+    public int dispatchBatch() {
+        List<OutboxEmail> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<EmailDto> emails = batch.stream()
+                .map(e -> new EmailDto(e.getRecipientEmail(), e.getSubject(), e.getBody()))
+                .toList();
+        List<EmailSendResult> results = emailSenderService.sendEmails(emails);
+
+        transactionTemplate.executeWithoutResult(status -> recordResults(batch, results));
+        return batch.size();
+    }
+
+    private void runSender() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (dispatchBatch() == 0) {
+                    awaitWork();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Email outbox dispatch failed: {}", e.getMessage());
+                try {
+                    awaitWork();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void awaitWork() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!signalled) {
+                workAvailable.await(config.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+            }
+            signalled = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<OutboxEmail> claimBatch() {
+        final Instant now = Instant.now();
+        List<OutboxEmail> batch = outboxRepository.findDueForUpdate(now, Limit.of(config.getBatchSize()));
+        final Instant leaseEnd = now.plusMillis(config.getClaimTimeoutMs());
+        batch.forEach(email -> email.setNextAttemptAt(leaseEnd));
+        return batch;
+    }
+
+    private void recordResults(List<OutboxEmail> batch, List<EmailSendResult> results) {
+        final Instant now = Instant.now();
+        List<UUID> sentIds = new ArrayList<>();
+        List<OutboxEmail> failed = new ArrayList<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            EmailSendResult result = results.get(i);
+            if (result.isSent()) {
+                sentIds.add(email.getId());
+                continue;
+            }
+
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(truncate(result.getError()));
+            if (email.getAttempts() >= config.getMaxAttempts()) {
+                email.setStatus(OutboxEmail.Status.FAILED);
+                email.setBody(OutboxEmail.REDACTED_BODY);
+                log.error("Giving up on email {} after {} attempts: {}", email.getId(), email.getAttempts(), result.getError());
+            } else {
+                email.setNextAttemptAt(now.plus(getBackoff(email.getAttempts())));
+                log.warn("Failed to send email {} (attempt {}): {}", email.getId(), email.getAttempts(), result.getError());
+            }
+            failed.add(email);
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(sentIds);
+        }
+        outboxRepository.saveAll(failed);
+    }
+
+    private Duration getBackoff(int attempts) {
+        long backoffMs = config.getInitialBackoffMs() << Math.min(attempts - 1, 30);
+        if (backoffMs <= 0 || backoffMs > config.getMaxBackoffMs()) {
+            backoffMs = config.getMaxBackoffMs();
+        }
+        return Duration.ofMillis(backoffMs);
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
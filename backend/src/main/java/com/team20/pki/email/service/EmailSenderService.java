@@ -1,8 +1,29 @@
 package com.team20.pki.email.service;
 
 import com.team20.pki.email.dto.EmailDto;
+import com.team20.pki.email.dto.EmailSendResult;
 import com.team20.pki.email.exception.EmailSendFailedException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface EmailSenderService {
     void sendEmail(EmailDto email) throws EmailSendFailedException;
+
+    /**
+     * Sends the emails and returns one result per email, in the same order.
+     * Implementations should reuse a single connection for the whole batch.
+     */
+    default List<EmailSendResult> sendEmails(List<EmailDto> emails) {
+        List<EmailSendResult> results = new ArrayList<>(emails.size());
+        for (EmailDto email : emails) {
+            try {
+                sendEmail(email);
+                results.add(EmailSendResult.sent());
+            } catch (RuntimeException e) {
+                results.add(EmailSendResult.failed(e.getMessage()));
+            }
+        }
+        return results;
+    }
 }
@@ -1,37 +1,74 @@
 package com.team20.pki.email.service;
 
 import com.team20.pki.email.dto.EmailDto;
-import com.team20.pki.email.exception.EmailSendFailedException;
 import com.team20.pki.authentication.model.RegisterRequest;
+import com.team20.pki.email.model.OutboxEmail;
+import com.team20.pki.email.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-@Slf4j
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes emails to the outbox in the caller's transaction.
+ * They are sent by {@link EmailOutboxDispatcher} once the transaction commits.
+ */
 @RequiredArgsConstructor
 @Service
 public class EmailService {
     private final EmailGeneratorService emailGeneratorService;
-    private final EmailSenderService emailSenderService;
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailOutboxDispatcher outboxDispatcher;
 
-    @Async
     public void sendAccountActivationEmail(RegisterRequest registerRequest, String verificationCode) {
-        EmailDto email = emailGeneratorService.getAccountActivationEmail(registerRequest, verificationCode);
-        try {
-            emailSenderService.sendEmail(email);
-        } catch (EmailSendFailedException e) {
-            log.warn("Failed to send account activation email for request: {}", registerRequest.getId());
-        }
+        enqueue(emailGeneratorService.getAccountActivationEmail(registerRequest, verificationCode));
     }
 
-    @Async
     public void sendInvitationEmail(RegisterRequest registerRequest, String verificationCode) {
-        EmailDto email = emailGeneratorService.getInvitationEmail(registerRequest, verificationCode);
-        try {
-            emailSenderService.sendEmail(email);
-        } catch (EmailSendFailedException e) {
-            log.warn("Failed to send invitation email for request: {}", registerRequest.getId());
+        enqueue(emailGeneratorService.getInvitationEmail(registerRequest, verificationCode));
+    }
+
+    /**
+     * @param verificationCodes plain verification code of each request
+     */
+    public void sendInvitationEmails(Map<RegisterRequest, String> verificationCodes) {
+        List<EmailDto> emails = new ArrayList<>(verificationCodes.size());
+        verificationCodes.forEach((request, code) -> emails.add(emailGeneratorService.getInvitationEmail(request, code)));
+        enqueue(emails);
+    }
+
+    private void enqueue(EmailDto email) {
+        enqueue(List.of(email));
+    }
+
+    private void enqueue(List<EmailDto> emails) {
+        final Instant now = Instant.now();
+        outboxRepository.saveAll(emails.stream()
+                .map(email -> OutboxEmail.builder()
+                        .recipientEmail(email.getRecipientEmail())
+                        .subject(email.getSubject())
+                        .body(email.getBody())
+                        .status(OutboxEmail.Status.PENDING)
+                        .attempts(0)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            outboxDispatcher.wakeUp();
         }
     }
 }
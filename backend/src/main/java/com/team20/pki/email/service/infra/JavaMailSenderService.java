@@ -2,16 +2,23 @@ package com.team20.pki.email.service.infra;
 
 import com.team20.pki.config.properties.EmailConfigProperties;
 import com.team20.pki.email.dto.EmailDto;
+import com.team20.pki.email.dto.EmailSendResult;
 import com.team20.pki.email.exception.EmailSendFailedException;
 import com.team20.pki.email.service.EmailSenderService;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +28,52 @@ public class JavaMailSenderService implements EmailSenderService {
 
     @Override
     public void sendEmail(EmailDto email) throws EmailSendFailedException {
+        mailSender.send(createMessage(email));
+    }
+
+    @Override
+    public List<EmailSendResult> sendEmails(List<EmailDto> emails) {
+        List<EmailSendResult> results = new ArrayList<>(Collections.nCopies(emails.size(), null));
+        List<MimeMessage> messages = new ArrayList<>();
+        List<Integer> messageIndices = new ArrayList<>();
+
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                messages.add(createMessage(emails.get(i)));
+                messageIndices.add(i);
+            } catch (EmailSendFailedException e) {
+                results.set(i, EmailSendResult.failed(e.getMessage()));
+            }
+        }
+
+        // all messages are sent over one transport connection
+        Map<Object, Exception> failedMessages = Map.of();
+        String batchError = null;
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            batchError = e.getMessage();
+        } catch (MailException e) {
+            batchError = e.getMessage();
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            EmailSendResult result;
+            Exception failure = failedMessages.get(messages.get(i));
+            if (failure != null) {
+                result = EmailSendResult.failed(failure.getMessage());
+            } else if (batchError != null && failedMessages.isEmpty()) {
+                result = EmailSendResult.failed(batchError);
+            } else {
+                result = EmailSendResult.sent();
+            }
+            results.set(messageIndices.get(i), result);
+        }
+        return results;
+    }
+
+    private MimeMessage createMessage(EmailDto email) throws EmailSendFailedException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message);
 
@@ -33,6 +86,6 @@ public class JavaMailSenderService implements EmailSenderService {
             throw new EmailSendFailedException(e.getMessage());
         }
 
-        mailSender.send(message);
+        return message;
     }
 }
@@ -3,6 +3,7 @@ package com.team20.pki.encryption.service.impl;
 import com.team20.pki.encryption.exception.EncryptionError;
 import com.team20.pki.encryption.service.EncryptionService;
 import com.team20.pki.encryption.service.OrganizationKeyProvider;
+import com.team20.pki.metrics.jfr.EncryptionEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,7 +27,10 @@ public class DefaultEncryptionService implements EncryptionService {
     @Override
     public byte[] encrypt(byte[] value, String organization) throws EncryptionError {
         SecretKey orgKey = organizationKeyProvider.getOrCreateOrganizationKey(organization);
-
+        // the key lookup may hit the database, so it is not part of the event
+        EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        byte[] encrypted = null;
         try {
             Cipher cipher = Cipher.getInstance(TRANSFORMATION);
             cipher.init(Cipher.ENCRYPT_MODE, orgKey);
@@ -34,22 +38,25 @@ public class DefaultEncryptionService implements EncryptionService {
             byte[] iv = cipher.getIV();
             byte[] cipherText = cipher.doFinal(value);
 
-            byte[] encrypted = new byte[iv.length + cipherText.length];
+            encrypted = new byte[iv.length + cipherText.length];
             System.arraycopy(iv, 0, encrypted, 0, iv.length);
             System.arraycopy(cipherText, 0, encrypted, iv.length, cipherText.length);
-
             return encrypted;
         } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
                  IllegalBlockSizeException | BadPaddingException e) {
             log.error("Encryption failed", e);
             throw new EncryptionError();
+        } finally {
+            commitEvent(event, EncryptionEvent.ENCRYPT, organization, value.length, encrypted);
         }
     }
 
     @Override
     public byte[] decrypt(byte[] encrypted, String organization) throws EncryptionError {
         SecretKey orgKey = organizationKeyProvider.getOrCreateOrganizationKey(organization);
-
+        EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        byte[] plainText = null;
         try {
             byte[] iv = new byte[GCM_IV_LENGTH];
             byte[] cipherText = new byte[encrypted.length - GCM_IV_LENGTH];
@@ -60,11 +67,27 @@ public class DefaultEncryptionService implements EncryptionService {
             GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.DECRYPT_MODE, orgKey, gcmSpec);
 
-            return cipher.doFinal(cipherText);
+            plainText = cipher.doFinal(cipherText);
+            return plainText;
         } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
                  IllegalBlockSizeException | BadPaddingException | InvalidAlgorithmParameterException e) {
             log.error("Decryption failed", e);
             throw new EncryptionError();
+        } finally {
+            commitEvent(event, EncryptionEvent.DECRYPT, organization, encrypted.length, plainText);
+        }
+    }
+
+    // a null output marks a failed operation
+    private void commitEvent(EncryptionEvent event, String operation, String organization, long inputBytes, byte[] output) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.organization = organization;
+            event.inputBytes = inputBytes;
+            event.outputBytes = output != null ? output.length : 0;
+            event.failed = output == null;
+            event.commit();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.CertificateSigning")
+@Label("Certificate Signing")
+@Category({"PKI", "Crypto"})
+@Description("Building and signing of an X.509 certificate")
+@StackTrace(false)
+public class CertificateSigningEvent extends Event {
+    @Label("Serial Number")
+    public String serialNumber;
+
+    @Label("CA Id")
+    @Description("Id of the issuing CA certificate, or of the certificate itself when self-signed")
+    public String caId;
+
+    @Label("Certificate Type")
+    public String certificateType;
+
+    @Label("Public Key Size")
+    public int keySize;
+
+    @Label("Encoded Size")
+    @DataAmount
+    public long encodedBytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
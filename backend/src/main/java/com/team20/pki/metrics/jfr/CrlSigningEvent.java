@@ -0,0 +1,27 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.CrlSigning")
+@Label("CRL Signing")
+@Category({"PKI", "Crypto"})
+@Description("Rebuilding and signing of a certificate revocation list")
+@StackTrace(false)
+public class CrlSigningEvent extends Event {
+    @Label("CA Id")
+    public String caId;
+
+    @Label("Revoked Serial Number")
+    @Description("Serial number added by this update, empty for a new list")
+    public String revokedSerialNumber;
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Encoded Size")
+    @DataAmount
+    public long encodedBytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,32 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.DnParsing")
+@Label("DN Parsing")
+@Category({"PKI", "Certificates"})
+@Description("Lookup of an attribute in a distinguished name")
+@StackTrace(false)
+public class DnParsingEvent extends Event {
+    @Label("Attribute")
+    public String attribute;
+
+    @Label("DN Length")
+    public int length;
+
+    @Label("Failed")
+    public boolean failed;
+
+    /**
+     * Ends the event and commits it when it is enabled and lasted longer than its threshold.
+     */
+    public static void commit(DnParsingEvent event, String attribute, String distinguishedName, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.attribute = attribute;
+            event.length = distinguishedName != null ? distinguishedName.length() : 0;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.Encryption")
+@Label("AES-GCM Encryption")
+@Category({"PKI", "Crypto"})
+@Description("Encryption or decryption with an organization key")
+@StackTrace(false)
+public class EncryptionEvent extends Event {
+    public static final String ENCRYPT = "encrypt";
+    public static final String DECRYPT = "decrypt";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Organization")
+    public String organization;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputBytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
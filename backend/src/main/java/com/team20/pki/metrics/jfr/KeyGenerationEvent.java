@@ -0,0 +1,19 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.KeyGeneration")
+@Label("Key Generation")
+@Category({"PKI", "Crypto"})
+@Description("Generation of a certificate key pair")
+@StackTrace(false)
+public class KeyGenerationEvent extends Event {
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Key Size")
+    public int keySize;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,26 @@
+package com.team20.pki.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.team20.pki.KeyStore")
+@Label("Key Store I/O")
+@Category({"PKI", "Storage"})
+@Description("Loading or storing of a certificate keystore file")
+@StackTrace(false)
+public class KeyStoreEvent extends Event {
+    public static final String LOAD = "load";
+    public static final String STORE = "store";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Failed")
+    public boolean failed;
+}
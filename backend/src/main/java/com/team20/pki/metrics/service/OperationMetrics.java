@@ -0,0 +1,53 @@
+package com.team20.pki.metrics.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts {@link OperationTrace}s for the certificate issuance, download and revocation flows.
+ * Each trace records {@value #OPERATION_TIMER} for the whole operation and {@value #STAGE_TIMER}
+ * per stage, tagged with the operation, outcome, organization and certificate type.
+ * <p>
+ * Organization names are free text, so only the first {@value #MAX_ORGANIZATIONS} distinct organizations get a tag
+ * of their own, and later ones are tagged {@value #OTHER_ORGANIZATION}. This bounds the number of time series.
+ */
+@Component
+@RequiredArgsConstructor
+public class OperationMetrics {
+    public static final String OPERATION_TIMER = "pki.operation.duration";
+    public static final String STAGE_TIMER = "pki.operation.stage";
+
+    public static final String ORGANIZATION = "organization";
+    public static final String CERTIFICATE_TYPE = "type";
+
+    static final int MAX_ORGANIZATIONS = 100;
+    static final String OTHER_ORGANIZATION = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> organizations = ConcurrentHashMap.newKeySet();
+
+    public OperationTrace start(String operation) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put(ORGANIZATION, OperationTrace.UNKNOWN);
+        tags.put(CERTIFICATE_TYPE, OperationTrace.UNKNOWN);
+        return new OperationTrace(meterRegistry, this::organizationTag, operation, tags);
+    }
+
+    private String organizationTag(String organization) {
+        if (organization.equals(OperationTrace.UNKNOWN) || organizations.contains(organization)) {
+            return organization;
+        }
+        // concurrent first uses may overshoot the limit by a few organizations, which still bounds it
+        if (organizations.size() < MAX_ORGANIZATIONS) {
+            organizations.add(organization);
+            return organization;
+        }
+        return OTHER_ORGANIZATION;
+    }
+}
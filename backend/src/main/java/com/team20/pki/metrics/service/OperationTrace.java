@@ -0,0 +1,164 @@
+package com.team20.pki.metrics.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Times the stages of a single operation. Stage durations are summed per stage name and recorded
+ * when the trace is closed, together with the operation tags and its outcome, so that every stage
+ * of a failed operation is tagged as failed.
+ * <p>
+ * Meant to be used in a try-with-resources block, calling {@link #success()} as its last statement.
+ * Within a transaction, the operation only succeeds once the transaction commits, and it is recorded
+ * when the transaction completes, so that the duration includes the commit.
+ */
+public class OperationTrace implements AutoCloseable {
+    public static final String UNKNOWN = "unknown";
+
+    private static final OperationTrace NOOP = new OperationTrace(null, null, null, Map.of());
+
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidStage<E extends Exception> {
+        void run() throws E;
+    }
+
+    @FunctionalInterface
+    public interface StageScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final MeterRegistry meterRegistry;
+    // maps an organization to its tag value
+    private final UnaryOperator<String> organizationTag;
+    private final String operation;
+    private final Map<String, String> tags;
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private final long start = System.nanoTime();
+    private boolean succeeded;
+    // set while recording waits for the surrounding transaction to complete
+    private boolean awaitingCompletion;
+    private boolean recorded;
+
+    OperationTrace(MeterRegistry meterRegistry, UnaryOperator<String> organizationTag, String operation, Map<String, String> tags) {
+        this.meterRegistry = meterRegistry;
+        this.organizationTag = organizationTag;
+        this.operation = operation;
+        this.tags = new LinkedHashMap<>(tags);
+    }
+
+    /**
+     * Trace that runs stages without recording anything, for code paths shared with untraced callers.
+     */
+    public static OperationTrace noop() {
+        return NOOP;
+    }
+
+    /**
+     * Sets one of the tags declared by {@link OperationMetrics}. Unknown keys are ignored,
+     * since every meter with the same name must have the same set of tag keys.
+     */
+    public OperationTrace tag(String key, Object value) {
+        if (meterRegistry != null && tags.containsKey(key)) {
+            String tagValue = value != null ? value.toString() : UNKNOWN;
+            tags.put(key, key.equals(OperationMetrics.ORGANIZATION) ? organizationTag.apply(tagValue) : tagValue);
+        }
+        return this;
+    }
+
+    public <T, E extends Exception> T stage(String name, Stage<T, E> stage) throws E {
+        final long stageStart = System.nanoTime();
+        try {
+            return stage.run();
+        } finally {
+            addStageTime(name, System.nanoTime() - stageStart);
+        }
+    }
+
+    public <E extends Exception> void stage(String name, VoidStage<E> stage) throws E {
+        final long stageStart = System.nanoTime();
+        try {
+            stage.run();
+        } finally {
+            addStageTime(name, System.nanoTime() - stageStart);
+        }
+    }
+
+    /**
+     * Times a stage until the returned scope is closed. Useful for blocks that throw several checked exceptions.
+     */
+    public StageScope startStage(String name) {
+        final long stageStart = System.nanoTime();
+        return () -> addStageTime(name, System.nanoTime() - stageStart);
+    }
+
+    public void success() {
+        if (meterRegistry == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            succeeded = true;
+            return;
+        }
+        awaitingCompletion = true;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                succeeded = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                awaitingCompletion = false;
+                record();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        if (meterRegistry == null || awaitingCompletion) {
+            return;
+        }
+        record();
+    }
+
+    private void record() {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+        Tags operationTags = Tags.of("operation", operation, "outcome", succeeded ? "success" : "failure");
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            operationTags = operationTags.and(tag.getKey(), tag.getValue());
+        }
+        final Tags recordedTags = operationTags;
+
+        stageNanos.forEach((stage, nanos) -> Timer.builder(OperationMetrics.STAGE_TIMER)
+                .tags(recordedTags)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS));
+
+        Timer.builder(OperationMetrics.OPERATION_TIMER)
+                .tags(recordedTags)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void addStageTime(String name, long nanos) {
+        if (meterRegistry != null) {
+            stageNanos.merge(name, nanos, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.team20.pki.publication.controller;
+
+import com.team20.pki.common.exception.NotFoundError;
+import com.team20.pki.publication.service.StaticFileSender;
+import com.team20.pki.publication.service.StaticPublisher;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Serves the publication directory under the same paths it is laid out in, so that it can be moved
+ * behind any static web server without changing URLs.
+ */
+@RestController
+@RequestMapping("/pub")
+@RequiredArgsConstructor
+public class PublicationController {
+    private final StaticPublisher staticPublisher;
+    private final StaticFileSender fileSender;
+
+    @GetMapping("/crl/{caId}.crl")
+    void getCertificateRevocationList(@PathVariable("caId") UUID caId,
+                                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileSender.send(staticPublisher.findCrl(caId, null).orElseThrow(() -> notPublished()), "application/pkix-crl",
+                "crl.der", request, response);
+    }
+
+    @GetMapping("/crl/{caId}/{partition}.crl")
+    void getCertificateRevocationListPartition(@PathVariable("caId") UUID caId, @PathVariable("partition") int partition,
+                                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileSender.send(staticPublisher.findCrl(caId, partition).orElseThrow(() -> notPublished()), "application/pkix-crl",
+                "crl.der", request, response);
+    }
+
+    @GetMapping("/ca/{caId}.crt")
+    void getCaCertificate(@PathVariable("caId") UUID caId,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileSender.send(staticPublisher.findCaCertificate(caId).orElseThrow(() -> notPublished()), "application/pkix-cert",
+                "ca.crt", request, response);
+    }
+
+    private static NotFoundError notPublished() {
+        return new NotFoundError("Not published");
+    }
+}
@@ -0,0 +1,60 @@
+package com.team20.pki.publication.service;
+
+import com.team20.pki.config.properties.PublicationProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends published files with validators and caching headers, answering conditional requests with 304.
+ * The body is streamed from the file channel to the response in small buffers, so a large list is never held in
+ * memory as a whole. This is not zero-copy: the servlet output stream is not a socket channel, so the JDK copies
+ * through a buffer. Tomcat's sendfile request attributes are not used, as Tomcat reopens the file by name after
+ * this returns, which races the atomic replacement of the file, and sendfile is unavailable over TLS anyway.
+ * Zero-copy delivery is left to a static web server serving the publication directory.
+ * <p>
+ * The file is opened before its size is taken, so an atomic replacement during the transfer does not mix two versions.
+ */
+@Component
+@RequiredArgsConstructor
+public class StaticFileSender {
+    private final PublicationProperties properties;
+
+    public void send(Path file, String contentType, String fileName,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(properties.getCacheMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic().getHeaderValue());
+            if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+                return;
+            }
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+            response.setContentLengthLong(size);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
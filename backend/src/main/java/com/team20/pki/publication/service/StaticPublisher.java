@@ -0,0 +1,257 @@
+package com.team20.pki.publication.service;
+
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.config.properties.PublicationProperties;
+import com.team20.pki.revocation.model.CertificateRevocationList;
+import com.team20.pki.revocation.model.CrlPartition;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.cert.CertificateEncodingException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes signed CRLs and CA certificates to the publication directory, so that they are served as files
+ * instead of from the database. Files are replaced atomically after the transaction that changed them commits.
+ * Writes run on a single background thread and always write the current state from the database, so a burst
+ * of changes to one list ends in one or two writes of its latest version.
+ * <p>
+ * Only changes committed on this node are written right away. Lists signed by other nodes, such as after a
+ * revocation there, are written by the next sync, so a node serves the previous file for up to
+ * {@code publication.sync-interval-ms} plus the write, and clients may keep it for {@code publication.cache-max-age-seconds}.
+ * <p>
+ * Layout: {@code crl/<caId>.crl}, {@code crl/<caId>/<partition>.crl} and {@code ca/<caId>.crt}, all DER.
+ */
+@Slf4j
+@Service
+public class StaticPublisher {
+    // lists signed shortly before the last sync may have committed after it
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(5);
+
+    private final PublicationProperties properties;
+    private final CertificateRevocationListRepository crlRepository;
+    private final CrlPartitionRepository partitionRepository;
+    private final ICertificateRepository certificateRepository;
+    private final KeyStoreService keyStoreService;
+    private final PasswordStorage passwordStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    // files waiting to be written, so that a change arriving while one is queued adds no write
+    private final Set<PublishedFile> pending = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService writer;
+    private volatile Instant lastSync;
+
+    // a null partition is the CA's unpartitioned CRL, ignored for CA certificates
+    private record PublishedFile(Kind kind, UUID caCertificateId, Integer partition) {
+    }
+
+    private enum Kind {
+        CRL, CA_CERTIFICATE
+    }
+
+    public StaticPublisher(PublicationProperties properties,
+                           CertificateRevocationListRepository crlRepository,
+                           CrlPartitionRepository partitionRepository,
+                           ICertificateRepository certificateRepository,
+                           KeyStoreService keyStoreService,
+                           PasswordStorage passwordStorage,
+                           PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.crlRepository = crlRepository;
+        this.partitionRepository = partitionRepository;
+        this.certificateRepository = certificateRepository;
+        this.keyStoreService = keyStoreService;
+        this.passwordStorage = passwordStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Starts the writer and republishes everything, as lists may have changed while this node was down.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        writer = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("static-publisher-", 0).factory());
+        writer.execute(() -> sync(Instant.EPOCH));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdownNow();
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${publication.sync-interval-ms:60000}", initialDelayString = "${publication.sync-interval-ms:60000}")
+    public void syncScheduled() {
+        Instant since = lastSync;
+        if (writer != null && since != null) {
+            writer.execute(() -> sync(since.minus(SYNC_OVERLAP)));
+        }
+    }
+
+    /**
+     * Publishes the CA's list once the current transaction commits.
+     */
+    public void crlChangedAfterCommit(UUID caCertificateId, Integer partition) {
+        afterCommit(new PublishedFile(Kind.CRL, caCertificateId, partition));
+    }
+
+    /**
+     * Publishes the certificate of a newly issued CA once the current transaction commits.
+     */
+    public void caIssuedAfterCommit(UUID caCertificateId) {
+        afterCommit(new PublishedFile(Kind.CA_CERTIFICATE, caCertificateId, null));
+    }
+
+    /**
+     * @return the published list, if publication is enabled and the list was written
+     */
+    public Optional<Path> findCrl(UUID caCertificateId, Integer partition) {
+        return find(new PublishedFile(Kind.CRL, caCertificateId, partition));
+    }
+
+    public Optional<Path> findCaCertificate(UUID caCertificateId) {
+        return find(new PublishedFile(Kind.CA_CERTIFICATE, caCertificateId, null));
+    }
+
+    private Optional<Path> find(PublishedFile file) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(file);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private void afterCommit(PublishedFile file) {
+        if (writer == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(file);
+                }
+            });
+        } else {
+            schedule(file);
+        }
+    }
+
+    private void schedule(PublishedFile file) {
+        if (pending.add(file)) {
+            writer.execute(() -> {
+                // removed before writing, so that a change committed during the write is written again
+                pending.remove(file);
+                write(file);
+            });
+        }
+    }
+
+    private void sync(Instant signedSince) {
+        Instant started = Instant.now();
+        try {
+            crlRepository.findCaIdsSignedSince(signedSince)
+                    .forEach(caId -> write(new PublishedFile(Kind.CRL, caId, null)));
+            partitionRepository.findSignedSince(signedSince)
+                    .forEach(p -> write(new PublishedFile(Kind.CRL, p.getCaId(), p.getPartitionNumber())));
+            // CA certificates never change, only new ones are missing
+            certificateRepository.findCaIds().stream()
+                    .map(caId -> new PublishedFile(Kind.CA_CERTIFICATE, caId, null))
+                    .filter(file -> !Files.exists(pathOf(file)))
+                    .forEach(this::write);
+            lastSync = started;
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync the publication directory: {}", e.getMessage());
+            if (lastSync == null) {
+                lastSync = Instant.EPOCH;
+            }
+        }
+    }
+
+    private void write(PublishedFile file) {
+        try {
+            Optional<byte[]> content = transactionTemplate.execute(status -> load(file));
+            Path path = pathOf(file);
+            if (content.isEmpty()) {
+                Files.deleteIfExists(path);
+                return;
+            }
+            Files.createDirectories(path.getParent());
+            // readers never see a partially written file
+            Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tmp, content.get());
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to publish {} of CA {}: {}", file.kind(), file.caCertificateId(), e.getMessage());
+        }
+    }
+
+    private Optional<byte[]> load(PublishedFile file) {
+        if (file.kind() == Kind.CA_CERTIFICATE) {
+            return certificateRepository.findById(file.caCertificateId()).map(this::encodeCertificate);
+        }
+        if (file.partition() == null) {
+            return Optional.ofNullable(crlRepository.findByCACertificateId(file.caCertificateId()))
+                    .map(CertificateRevocationList::getRevocationList);
+        }
+        return partitionRepository.findByCaIdAndPartition(file.caCertificateId(), file.partition())
+                .map(CrlPartition::getRevocationList);
+    }
+
+    private byte[] encodeCertificate(Certificate certificate) {
+        String serialNumber = certificate.getSerialNumber();
+        String keyStorePass = passwordStorage.loadKeyStorePassword(certificate.getIssuer().getOrganization(), serialNumber);
+        try {
+            return keyStoreService.readCertificate(serialNumber, keyStorePass.toCharArray(), serialNumber).getEncoded();
+        } catch (CertificateEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path pathOf(PublishedFile file) {
+        Path root = Paths.get(properties.getDirectory());
+        return switch (file.kind()) {
+            case CA_CERTIFICATE -> root.resolve("ca").resolve(file.caCertificateId() + ".crt");
+            case CRL -> file.partition() == null
+                    ? root.resolve("crl").resolve(file.caCertificateId() + ".crl")
+                    : root.resolve("crl").resolve(file.caCertificateId().toString()).resolve(file.partition() + ".crl");
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.team20.pki.purge.service;
+
+import com.team20.pki.config.properties.PurgeConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes stale rows in bounded chunks, each in its own transaction, pausing between chunks
+ * so that a large backlog never holds locks on the whole table or produces one huge WAL burst.
+ */
+@Slf4j
+@Component
+public class ChunkedPurger {
+    private final PurgeConfigProperties purgeConfig;
+    private final TransactionTemplate chunkTransaction;
+    private final MeterRegistry meterRegistry;
+
+    public ChunkedPurger(PurgeConfigProperties purgeConfig,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.purgeConfig = purgeConfig;
+        this.meterRegistry = meterRegistry;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        // every chunk commits on its own, even when the caller is already in a transaction
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Purges the target until no stale rows are left, or the per-run chunk limit is reached.
+     *
+     * @return number of deleted rows
+     */
+    public <K> long purge(PurgeTarget<K> target) {
+        final int chunkSize = purgeConfig.getChunkSize();
+        final Counter rowsCounter = meterRegistry.counter("pki.purge.rows", "target", target.getName());
+        final Counter chunksCounter = meterRegistry.counter("pki.purge.chunks", "target", target.getName());
+        final Timer timer = meterRegistry.timer("pki.purge.duration", "target", target.getName());
+
+        final long start = System.nanoTime();
+        long purged = 0;
+        int chunks = 0;
+        try {
+            while (purgeConfig.getMaxChunksPerRun() == 0 || chunks < purgeConfig.getMaxChunksPerRun()) {
+                ChunkResult result = chunkTransaction.execute(status -> purgeChunk(target, chunkSize));
+                if (result == null || result.keys() == 0) {
+                    break;
+                }
+                chunks++;
+                purged += result.rows();
+                rowsCounter.increment(result.rows());
+                chunksCounter.increment();
+
+                if (result.keys() < chunkSize || !pause()) {
+                    break;
+                }
+            }
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} rows from {} in {} chunks", purged, target.getName(), chunks);
+        }
+        return purged;
+    }
+
+    private <K> ChunkResult purgeChunk(PurgeTarget<K> target, int chunkSize) {
+        List<K> keys = target.findChunk(chunkSize);
+        if (keys.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
+        return new ChunkResult(keys.size(), target.deleteChunk(keys));
+    }
+
+    private boolean pause() {
+        if (purgeConfig.getPauseMs() <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(purgeConfig.getPauseMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record ChunkResult(int keys, int rows) {
+    }
+}
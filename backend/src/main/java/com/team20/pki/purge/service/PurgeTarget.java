@@ -0,0 +1,52 @@
+package com.team20.pki.purge.service;
+
+import java.util.List;
+
+/**
+ * A table whose stale rows are removed by {@link ChunkedPurger}.
+ *
+ * @param <K> key used to select and delete a chunk (row id, session id, ...)
+ */
+public interface PurgeTarget<K> {
+    String getName();
+
+    /**
+     * Returns at most {@code limit} keys of rows that can be purged.
+     * Should be backed by an index, since it is executed once per chunk.
+     */
+    List<K> findChunk(int limit);
+
+    /**
+     * Deletes the rows with the given keys and returns the number of deleted rows.
+     */
+    int deleteChunk(List<K> keys);
+
+    static <K> PurgeTarget<K> of(String name, ChunkFinder<K> finder, ChunkDeleter<K> deleter) {
+        return new PurgeTarget<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public List<K> findChunk(int limit) {
+                return finder.find(limit);
+            }
+
+            @Override
+            public int deleteChunk(List<K> keys) {
+                return deleter.delete(keys);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface ChunkFinder<K> {
+        List<K> find(int limit);
+    }
+
+    @FunctionalInterface
+    interface ChunkDeleter<K> {
+        int delete(List<K> keys);
+    }
+}
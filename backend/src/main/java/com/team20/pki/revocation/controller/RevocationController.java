@@ -1,11 +1,17 @@
 package com.team20.pki.revocation.controller;
 
 
-import com.team20.pki.certificates.dto.CertificateCaSignResponseDTO;
+import com.team20.pki.common.exception.NotFoundError;
+import com.team20.pki.publication.service.StaticFileSender;
+import com.team20.pki.publication.service.StaticPublisher;
 import com.team20.pki.revocation.dto.CRLResponseDTO;
+import com.team20.pki.revocation.dto.RevocationStatusDTO;
+import com.team20.pki.revocation.dto.RevocationStatusRequestDTO;
 import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
 import com.team20.pki.revocation.model.CertificateRevocationResponseDTO;
 import com.team20.pki.revocation.service.IRevocationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.bouncycastle.operator.OperatorCreationException;
@@ -14,8 +20,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
-import java.math.BigInteger;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -23,6 +31,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RevocationController {
     private final IRevocationService revocationService;
+    private final StaticPublisher staticPublisher;
+    private final StaticFileSender fileSender;
 
     @PutMapping("/{certificateId}")
     ResponseEntity<CertificateRevocationResponseDTO> revokeCertificate(@PathVariable("certificateId") UUID certificateId, @Valid @RequestBody RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws GeneralSecurityException, IOException, OperatorCreationException {
@@ -30,13 +40,47 @@ public class RevocationController {
         return ResponseEntity.ok(response);
     }
 
+    // served from the publication directory when the list was published there, without touching the database;
+    // a revocation on another node reaches that file with the next sync, see StaticPublisher
     @GetMapping("/crl/{serialNumber}")
-    ResponseEntity<byte[]> getCertificateRevocationList(@PathVariable("serialNumber")UUID certifiedAuthorityCertificateId) throws GeneralSecurityException, IOException, OperatorCreationException {
-        CRLResponseDTO response = revocationService.getCertificateRevocationList(certifiedAuthorityCertificateId);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"crl.der\"")
-                .header(HttpHeaders.CONTENT_TYPE, "application/pkix-crl")
-                .body(response.revocationList());
+    void getCertificateRevocationList(@PathVariable("serialNumber")UUID certifiedAuthorityCertificateId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> published = staticPublisher.findCrl(certifiedAuthorityCertificateId, null);
+        if (published.isPresent()) {
+            fileSender.send(published.get(), "application/pkix-crl", "crl.der", request, response);
+            return;
+        }
+        writeCrl(revocationService.getCertificateRevocationList(certifiedAuthorityCertificateId), response);
+    }
+
+    @GetMapping("/crl/{serialNumber}/{partition}")
+    void getCertificateRevocationListPartition(@PathVariable("serialNumber") UUID certifiedAuthorityCertificateId, @PathVariable("partition") int partition, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> published = staticPublisher.findCrl(certifiedAuthorityCertificateId, partition);
+        if (published.isPresent()) {
+            fileSender.send(published.get(), "application/pkix-crl", "crl.der", request, response);
+            return;
+        }
+        writeCrl(revocationService.getCertificateRevocationListPartition(certifiedAuthorityCertificateId, partition), response);
+    }
+
+    @GetMapping("/status/{serialNumber}")
+    ResponseEntity<RevocationStatusDTO> getRevocationStatus(@PathVariable("serialNumber") String serialNumber) {
+        return ResponseEntity.ok(revocationService.getRevocationStatus(serialNumber));
+    }
+
+    // statuses are returned in the order of the requested serial numbers
+    @PostMapping("/status")
+    ResponseEntity<List<RevocationStatusDTO>> getRevocationStatuses(@Valid @RequestBody RevocationStatusRequestDTO request) {
+        return ResponseEntity.ok(revocationService.getRevocationStatuses(request.serialNumbers()));
+    }
+
+    private static void writeCrl(CRLResponseDTO crl, HttpServletResponse response) throws IOException {
+        if (crl.revocationList() == null) {
+            throw new NotFoundError("Certificate revocation list not published");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"crl.der\"");
+        response.setContentType("application/pkix-crl");
+        response.setContentLength(crl.revocationList().length);
+        response.getOutputStream().write(crl.revocationList());
     }
 
 }
@@ -0,0 +1,6 @@
+package com.team20.pki.revocation.dto;
+
+import com.team20.pki.revocation.model.RevocationStatus;
+
+public record RevocationStatusDTO(String serialNumber, RevocationStatus status) {
+}
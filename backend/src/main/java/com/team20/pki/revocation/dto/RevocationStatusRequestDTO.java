@@ -0,0 +1,8 @@
+package com.team20.pki.revocation.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record RevocationStatusRequestDTO(@NotEmpty(message = "Serial numbers are required") List<String> serialNumbers) {
+}
@@ -8,7 +8,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.security.cert.X509CRL;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Getter
@@ -17,7 +18,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name="certificate_revocation_list")
-public class CertificateRevocationList {
+public class CertificateRevocationList implements SignedRevocationList {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(nullable = false)
@@ -30,4 +31,14 @@ public class CertificateRevocationList {
     @Lob
     @Column(nullable = false)
     private byte[] revocationList;
+
+    // validity of the signed list (null for lists signed before it was recorded)
+    @Column(columnDefinition = "TIMESTAMP")
+    private Instant thisUpdate;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private Instant nextUpdate;
+
+    // entries of certificates that expired before this date have been pruned (null if never pruned)
+    private LocalDate prunedBefore;
 }
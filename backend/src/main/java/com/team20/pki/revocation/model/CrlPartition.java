@@ -0,0 +1,52 @@
+package com.team20.pki.revocation.model;
+
+import com.team20.pki.certificates.model.Certificate;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * CRL of the certificates a CA issued within one partition period, see
+ * {@link com.team20.pki.revocation.service.util.CrlDistributionPoints}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "crl_partitions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"CA_certificate_id", "partition_number"})
+)
+public class CrlPartition implements SignedRevocationList {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(nullable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "CA_certificate_id", nullable = false)
+    private Certificate CACertificate;
+
+    @Column(name = "partition_number", nullable = false)
+    private Integer partitionNumber;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] revocationList;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant thisUpdate;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant nextUpdate;
+
+    // entries of certificates that expired before this date have been pruned (null if never pruned)
+    private LocalDate prunedBefore;
+}
@@ -0,0 +1,8 @@
+package com.team20.pki.revocation.model;
+
+public enum RevocationStatus {
+    GOOD,
+    REVOKED,
+    // not issued by this PKI
+    UNKNOWN
+}
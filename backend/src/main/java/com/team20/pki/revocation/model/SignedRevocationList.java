@@ -0,0 +1,32 @@
+package com.team20.pki.revocation.model;
+
+import com.team20.pki.certificates.model.Certificate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A signed CRL as stored, either the CA's unpartitioned list or one of its partitions.
+ */
+public interface SignedRevocationList {
+    Certificate getCACertificate();
+
+    byte[] getRevocationList();
+
+    void setRevocationList(byte[] revocationList);
+
+    Instant getNextUpdate();
+
+    void setThisUpdate(Instant thisUpdate);
+
+    void setNextUpdate(Instant nextUpdate);
+
+    LocalDate getPrunedBefore();
+
+    void setPrunedBefore(LocalDate prunedBefore);
+
+    // null for the unpartitioned list
+    default Integer getPartitionNumber() {
+        return null;
+    }
+}
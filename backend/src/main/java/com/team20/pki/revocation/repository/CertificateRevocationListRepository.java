@@ -1,12 +1,45 @@
 package com.team20.pki.revocation.repository;
 
-import com.team20.pki.certificates.model.Certificate;
 import com.team20.pki.revocation.model.CertificateRevocationList;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface CertificateRevocationListRepository extends JpaRepository<CertificateRevocationList, UUID> {
     CertificateRevocationList findByCACertificateId(UUID userId);
+
+    // serializes re-signing of a list, so that concurrent updates do not drop each other's entries
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from CertificateRevocationList l where l.CACertificate.id = :caId")
+    Optional<CertificateRevocationList> findForUpdateByCACertificateId(@Param("caId") UUID caId);
+
+    /**
+     * Ids of the CAs whose list was signed since the given time, or before validity times were recorded.
+     */
+    @Query("select l.CACertificate.id from CertificateRevocationList l where l.thisUpdate is null or l.thisUpdate >= :since")
+    List<UUID> findCaIdsSignedSince(@Param("since") Instant since);
+
+    /**
+     * Ids of unexpired CA certificates that have no CRL yet or whose CRL expires before the given time.
+     */
+    @Query("""
+    SELECT c.id
+    FROM Certificate c
+    WHERE c.type IN (com.team20.pki.certificates.model.CertificateType.ROOT,
+                     com.team20.pki.certificates.model.CertificateType.INTERMEDIATE)
+      AND c.validTo >= :today
+      AND NOT EXISTS (
+          SELECT l.id FROM CertificateRevocationList l
+          WHERE l.CACertificate = c AND l.nextUpdate >= :expiringBefore
+      )
+    """)
+    List<UUID> findCaIdsDueForPublication(@Param("today") LocalDate today, @Param("expiringBefore") Instant expiringBefore);
 }
@@ -0,0 +1,62 @@
+package com.team20.pki.revocation.repository;
+
+import com.team20.pki.revocation.model.CrlPartition;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CrlPartitionRepository extends JpaRepository<CrlPartition, UUID> {
+    @Query("select p from CrlPartition p where p.CACertificate.id = :caId and p.partitionNumber = :partition")
+    Optional<CrlPartition> findByCaIdAndPartition(@Param("caId") UUID caId, @Param("partition") int partition);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from CrlPartition p where p.CACertificate.id = :caId and p.partitionNumber = :partition")
+    Optional<CrlPartition> findForUpdateByCaIdAndPartition(@Param("caId") UUID caId, @Param("partition") int partition);
+
+    /**
+     * Partitions of unexpired CAs whose CRL expires before the given time.
+     * Partitions whose certificates have all expired are left to lapse, since no valid certificate points at them.
+     */
+    @Query("""
+    SELECT p.CACertificate.id AS caId, p.partitionNumber AS partitionNumber
+    FROM CrlPartition p
+    WHERE p.nextUpdate < :expiringBefore
+      AND p.CACertificate.validTo >= :today
+      AND EXISTS (
+          SELECT c.id FROM Certificate c
+          WHERE c.parent = p.CACertificate AND c.crlPartition = p.partitionNumber AND c.validTo >= :today
+      )
+    """)
+    List<PartitionKey> findDueForRefresh(@Param("today") LocalDate today, @Param("expiringBefore") Instant expiringBefore);
+
+    /**
+     * Partitions from the given one onwards that certificates were issued into, but that have no CRL yet.
+     */
+    @Query("""
+    SELECT DISTINCT c.parent.id AS caId, c.crlPartition AS partitionNumber
+    FROM Certificate c
+    WHERE c.crlPartition >= :fromPartition
+      AND NOT EXISTS (
+          SELECT p.id FROM CrlPartition p
+          WHERE p.CACertificate = c.parent AND p.partitionNumber = c.crlPartition
+      )
+    """)
+    List<PartitionKey> findMissing(@Param("fromPartition") int fromPartition);
+
+    @Query("SELECT p.CACertificate.id AS caId, p.partitionNumber AS partitionNumber FROM CrlPartition p WHERE p.thisUpdate >= :since")
+    List<PartitionKey> findSignedSince(@Param("since") Instant since);
+
+    interface PartitionKey {
+        UUID getCaId();
+
+        Integer getPartitionNumber();
+    }
+}
@@ -0,0 +1,308 @@
+package com.team20.pki.revocation.service;
+
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.common.exception.NotFoundError;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.service.SingleFlight;
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.revocation.model.SignedRevocationList;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository.PartitionKey;
+import com.team20.pki.revocation.service.util.CertificateRevocationListService;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import com.team20.pki.scheduling.service.ScheduledJobRunner;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs CRLs in the background, so that CRL requests only read stored lists.
+ * Newly issued CAs and newly started partitions get their first list right after the issuing transaction
+ * commits, and every list is re-signed before its nextUpdate. Signing runs on a fixed pool of signer threads.
+ * Concurrent publications of the same list, e.g. by the scheduled run and a CRL request, share one signing.
+ */
+@Slf4j
+@Service
+public class CrlPublisher {
+    private final CertificateRevocationListRepository crlRepository;
+    private final CrlPartitionRepository partitionRepository;
+    private final ICertificateRepository certificateRepository;
+    private final CertificateRevocationListService crlService;
+    private final CrlDistributionPoints distributionPoints;
+    private final ScheduledJobRunner jobRunner;
+    private final CrlProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    // lists that could not be signed, e.g. because the CA's private key is not held by the system
+    private final Map<ListKey, Instant> failedUntil = new ConcurrentHashMap<>();
+
+    // partitions known to have a list, so that issuing into them does not check again
+    private final Set<ListKey> publishedPartitions = ConcurrentHashMap.newKeySet();
+
+    private final SingleFlight<ListKey, Boolean> publications = new SingleFlight<>();
+
+    // lists requested before their publication and queued for signing, so that repeated requests queue them once
+    private final Set<ListKey> requested = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService signerPool;
+
+    // the CA's unpartitioned list for a null partition
+    private record ListKey(UUID caCertificateId, Integer partition) {
+    }
+
+    public CrlPublisher(CertificateRevocationListRepository crlRepository,
+                        CrlPartitionRepository partitionRepository,
+                        ICertificateRepository certificateRepository,
+                        CertificateRevocationListService crlService,
+                        CrlDistributionPoints distributionPoints,
+                        ScheduledJobRunner jobRunner,
+                        CrlProperties properties,
+                        MeterRegistry meterRegistry,
+                        PlatformTransactionManager transactionManager) {
+        this.crlRepository = crlRepository;
+        this.partitionRepository = partitionRepository;
+        this.certificateRepository = certificateRepository;
+        this.crlService = crlService;
+        this.distributionPoints = distributionPoints;
+        this.jobRunner = jobRunner;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.isPublisherEnabled()) {
+            // signing is CPU bound, so the pool bounds the cores taken from request handling
+            signerPool = Executors.newFixedThreadPool(properties.getPublisherThreads(),
+                    Thread.ofPlatform().name("crl-signer-", 0).factory());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (signerPool != null) {
+            signerPool.shutdownNow();
+            signerPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crl.publish-interval-ms}", initialDelayString = "${crl.publish-initial-delay-ms:10000}")
+    public void publishScheduled() {
+        jobRunner.run("crl-publication", this::publishDue);
+    }
+
+    /**
+     * Signs all lists that are missing or expire within the refresh window, and waits until they are stored.
+     *
+     * @return number of signed lists
+     */
+    public int publishDue() {
+        if (signerPool == null) {
+            return 0;
+        }
+        final Instant now = Instant.now();
+        final Instant expiringBefore = now.plus(properties.getRefreshAheadHours(), ChronoUnit.HOURS);
+        List<ListKey> due = transactionTemplate.execute(status -> findDue(expiringBefore));
+        failedUntil.values().removeIf(until -> until.isBefore(now));
+
+        List<Future<Boolean>> results = due.stream()
+                .filter(key -> !failedUntil.containsKey(key))
+                .map(key -> signerPool.submit(() -> publish(key, expiringBefore)))
+                .toList();
+        int published = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) {
+                    published++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.forEach(r -> r.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("CRL publication failed", e.getCause());
+            }
+        }
+        if (published > 0) {
+            log.info("Published {} certificate revocation lists", published);
+        }
+        return published;
+    }
+
+    /**
+     * Signs the first list of a newly issued CA once the current transaction commits.
+     */
+    public void publishAfterCommit(UUID caCertificateId) {
+        publishAfterCommit(new ListKey(caCertificateId, null));
+    }
+
+    /**
+     * Signs the list of a partition once the current transaction commits, unless it already has one.
+     */
+    public void publishPartitionAfterCommit(UUID caCertificateId, int partition) {
+        ListKey key = new ListKey(caCertificateId, partition);
+        if (!publishedPartitions.contains(key)) {
+            publishAfterCommit(key);
+        }
+    }
+
+    public enum PublicationRequest {
+        // the list is being signed, and can be requested again shortly
+        QUEUED,
+        // the CA or partition has no list to publish, or its list recently failed to sign
+        NOT_PUBLISHABLE
+    }
+
+    /**
+     * Queues the signing of a list that was requested before it was published, without waiting for it.
+     * Signing stays on the signer pool, so that unauthenticated CRL requests cannot take request threads for it.
+     */
+    public PublicationRequest requestPublication(UUID caCertificateId, Integer partition) {
+        ListKey key = new ListKey(caCertificateId, partition);
+        if (signerPool == null || failedUntil.getOrDefault(key, Instant.MIN).isAfter(Instant.now()) || !isPublishable(key)) {
+            return PublicationRequest.NOT_PUBLISHABLE;
+        }
+        if (requested.add(key)) {
+            Instant expiringBefore = Instant.now().plus(properties.getRefreshAheadHours(), ChronoUnit.HOURS);
+            signerPool.execute(() -> {
+                try {
+                    publish(key, expiringBefore);
+                } finally {
+                    requested.remove(key);
+                }
+            });
+        }
+        return PublicationRequest.QUEUED;
+    }
+
+    // only unexpired CAs have lists, and partitions only once a certificate was issued into them
+    private boolean isPublishable(ListKey key) {
+        Optional<Certificate> caCertificate = certificateRepository.findById(key.caCertificateId());
+        if (caCertificate.isEmpty() || caCertificate.get().getType() == CertificateType.END_ENTITY
+                || caCertificate.get().getValidTo().isBefore(LocalDate.now())) {
+            return false;
+        }
+        return key.partition() == null
+                || certificateRepository.existsByParent_IdAndCrlPartition(key.caCertificateId(), key.partition());
+    }
+
+    private void publishAfterCommit(ListKey key) {
+        if (signerPool == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(key);
+                }
+            });
+        } else {
+            submit(key);
+        }
+    }
+
+    private void submit(ListKey key) {
+        Instant expiringBefore = Instant.now().plus(properties.getRefreshAheadHours(), ChronoUnit.HOURS);
+        signerPool.execute(() -> publish(key, expiringBefore));
+    }
+
+    private List<ListKey> findDue(Instant expiringBefore) {
+        LocalDate today = LocalDate.now();
+        List<ListKey> due = new ArrayList<>();
+        crlRepository.findCaIdsDueForPublication(today, expiringBefore)
+                .forEach(caId -> due.add(new ListKey(caId, null)));
+        partitionRepository.findDueForRefresh(today, expiringBefore).forEach(p -> due.add(toListKey(p)));
+        Integer currentPartition = distributionPoints.partitionOf(today);
+        if (currentPartition != null) {
+            // partitions are normally published on issuance, this catches the ones lost to a crash
+            partitionRepository.findMissing(currentPartition - 1).forEach(p -> due.add(toListKey(p)));
+        }
+        return due;
+    }
+
+    private static ListKey toListKey(PartitionKey partition) {
+        return new ListKey(partition.getCaId(), partition.getPartitionNumber());
+    }
+
+    private boolean publish(ListKey key, Instant expiringBefore) {
+        return publications.load(key, () -> publishOnce(key, expiringBefore));
+    }
+
+    private boolean publishOnce(ListKey key, Instant expiringBefore) {
+        try {
+            boolean signed = Boolean.TRUE.equals(transactionTemplate.execute(status -> sign(key, expiringBefore)));
+            if (key.partition() != null) {
+                publishedPartitions.add(key);
+            }
+            if (signed) {
+                meterRegistry.counter("pki.crl.published", "outcome", "success").increment();
+            }
+            return signed;
+        } catch (DataIntegrityViolationException e) {
+            // the first list was created concurrently, by a revocation or on another node
+            return false;
+        } catch (RuntimeException e) {
+            failedUntil.put(key, Instant.now().plusMillis(properties.getFailureBackoffMs()));
+            meterRegistry.counter("pki.crl.published", "outcome", "failure").increment();
+            log.warn("Failed to publish the CRL {} of CA {}: {}", key.partition(), key.caCertificateId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean sign(ListKey key, Instant expiringBefore) {
+        SignedRevocationList crl = key.partition() == null
+                ? crlService.findForCAForUpdate(key.caCertificateId()).orElse(null)
+                : crlService.findPartitionForUpdate(key.caCertificateId(), key.partition()).orElse(null);
+        if (crl != null && crl.getNextUpdate() != null && !crl.getNextUpdate().isBefore(expiringBefore)) {
+            // re-signed in the meantime, e.g. by a revocation
+            return false;
+        }
+        Certificate caCertificate = certificateRepository.findById(key.caCertificateId())
+                .orElseThrow(() -> new NotFoundError("CA certificate not found"));
+        try {
+            if (crl != null) {
+                crlService.refreshCRL(caCertificate, crl);
+            } else if (key.partition() == null) {
+                crlService.createEmptyCRL(caCertificate);
+            } else {
+                crlService.createEmptyPartition(caCertificate, key.partition());
+            }
+        } catch (IOException | GeneralSecurityException | OperatorCreationException e) {
+            throw new ServerError(e.getMessage(), 500);
+        }
+        return true;
+    }
+}
@@ -2,16 +2,24 @@ package com.team20.pki.revocation.service;
 
 import com.team20.pki.certificates.dto.CertificateCaSignResponseDTO;
 import com.team20.pki.revocation.dto.CRLResponseDTO;
+import com.team20.pki.revocation.dto.RevocationStatusDTO;
 import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
 import com.team20.pki.revocation.model.CertificateRevocationResponseDTO;
 import org.bouncycastle.operator.OperatorCreationException;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.List;
 import java.util.UUID;
 
 public interface IRevocationService {
     CertificateRevocationResponseDTO revokeCertificate(UUID certificateId, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws GeneralSecurityException, IOException, OperatorCreationException;
 
-    CRLResponseDTO getCertificateRevocationList(UUID certifiedAuthorityId) throws GeneralSecurityException, IOException, OperatorCreationException;
+    CRLResponseDTO getCertificateRevocationList(UUID certifiedAuthorityId);
+
+    CRLResponseDTO getCertificateRevocationListPartition(UUID certifiedAuthorityId, int partition);
+
+    RevocationStatusDTO getRevocationStatus(String serialNumber);
+
+    List<RevocationStatusDTO> getRevocationStatuses(List<String> serialNumbers);
 }
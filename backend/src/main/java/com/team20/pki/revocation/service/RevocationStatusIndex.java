@@ -0,0 +1,336 @@
+package com.team20.pki.revocation.service;
+
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.common.exception.InvalidRequestError;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.config.properties.RevocationStatusProperties;
+import com.team20.pki.revocation.model.RevocationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Answers whether a serial number is revoked from memory, without touching the database.
+ * Serial numbers of all issued and of all revoked certificates are kept as two sorted {@code long} arrays
+ * and looked up by binary search. Issuances and revocations of this node are added once their transaction
+ * commits, first to a small map that is consulted before the arrays, and merged into fresh arrays once it grows.
+ * <p>
+ * Changes made by other nodes are picked up from the database in two ways. Every
+ * {@code revocation-status.refresh-interval-ms} the certificates revoked since the previous read are added, so
+ * a revocation elsewhere is answered as GOOD here for at most that interval plus the read itself. Every
+ * {@code revocation-status.reload-interval-ms} the whole index is reloaded, which adds certificates issued by
+ * other nodes (answered as UNKNOWN until then) and any revocation the refreshes missed, one whose transaction ran
+ * longer than {@code revocation-status.refresh-overlap-ms}.
+ * <p>
+ * Serial numbers are unique across the PKI, so no issuer is needed for a lookup.
+ */
+@Slf4j
+@Service
+public class RevocationStatusIndex {
+    // serial numbers are positive, so 0 never matches an issued certificate
+    private static final long NOT_INDEXED = 0;
+    private static final int MAX_SERIAL_NUMBER_DIGITS = 49;
+
+    private final ICertificateRepository certificateRepository;
+    private final RevocationStatusProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    // held while the arrays are replaced, by a reload or a merge of the changes
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+    // changes committed since the arrays were built, they take precedence over them
+    private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot;
+    // revocations stamped after this are read by the next refresh
+    private volatile Instant refreshFrom;
+
+    // both sorted and without duplicates
+    private record Snapshot(long[] issued, long[] revoked) {
+    }
+
+    private record Change(boolean revoked, long sequence) {
+    }
+
+    public RevocationStatusIndex(ICertificateRepository certificateRepository,
+                                 RevocationStatusProperties properties,
+                                 PlatformTransactionManager transactionManager) {
+        this.certificateRepository = certificateRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Failed to load the revocation status index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${revocation-status.reload-interval-ms:300000}", initialDelayString = "${revocation-status.reload-interval-ms:300000}")
+    public void reloadScheduled() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload the revocation status index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${revocation-status.refresh-interval-ms:5000}", initialDelayString = "${revocation-status.refresh-interval-ms:5000}")
+    public void refreshScheduled() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the revocation status index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the index with the state of the database.
+     */
+    public void reload() {
+        rebuildLock.lock();
+        try {
+            // changes numbered below this were committed before the query started, so it reads them
+            long loadedUpTo = sequence.get();
+            long started = System.currentTimeMillis();
+            Instant nextRefreshFrom = refreshStart();
+            snapshot = transactionTemplate.execute(status -> load());
+            refreshFrom = nextRefreshFrom;
+            changes.values().removeIf(change -> change.sequence() < loadedUpTo);
+            log.info("Loaded revocation status of {} certificates in {} ms", snapshot.issued().length,
+                    System.currentTimeMillis() - started);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the certificates revoked since the previous refresh or reload, by any node.
+     */
+    public void refresh() {
+        rebuildLock.lock();
+        try {
+            Instant from = refreshFrom;
+            if (snapshot == null || from == null) {
+                return;
+            }
+            Instant nextRefreshFrom = refreshStart();
+            List<String> revokedSerialNumbers = transactionTemplate.execute(status ->
+                    certificateRepository.findSerialNumbersRevokedAfter(from));
+            // the overlap reads recent revocations again, only those not known yet are recorded
+            List<String> added = revokedSerialNumbers.stream()
+                    .filter(serialNumber -> statusOf(serialNumber) != RevocationStatus.REVOKED)
+                    .toList();
+            if (!added.isEmpty()) {
+                record(added, true);
+                log.info("Added {} certificates revoked by other nodes to the revocation status index", added.size());
+            }
+            refreshFrom = nextRefreshFrom;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @param serialNumber decimal serial number, as stored on the certificate
+     * @throws InvalidRequestError if the serial number is not a decimal number
+     * @throws ServerError if the index has not been loaded yet
+     */
+    public RevocationStatus statusOf(String serialNumber) {
+        long key = key(serialNumber);
+        if (key == NOT_INDEXED) {
+            return RevocationStatus.UNKNOWN;
+        }
+        // read before the arrays, as a merge replaces the arrays before dropping the merged changes
+        Change change = changes.isEmpty() ? null : changes.get(key);
+        if (change != null) {
+            return change.revoked() ? RevocationStatus.REVOKED : RevocationStatus.GOOD;
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new ServerError("Revocation status is not available yet", 503);
+        }
+        if (Arrays.binarySearch(current.revoked(), key) >= 0) {
+            return RevocationStatus.REVOKED;
+        }
+        return Arrays.binarySearch(current.issued(), key) >= 0 ? RevocationStatus.GOOD : RevocationStatus.UNKNOWN;
+    }
+
+    /**
+     * @return number of certificates in the index
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return (current != null ? current.issued().length : 0) + changes.size();
+    }
+
+    public void issuedAfterCommit(String serialNumber) {
+        afterCommit(List.of(serialNumber), false);
+    }
+
+    public void revokedAfterCommit(Collection<String> serialNumbers) {
+        afterCommit(serialNumbers, true);
+    }
+
+    private void afterCommit(Collection<String> serialNumbers, boolean revoked) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(serialNumbers, revoked);
+                }
+            });
+        } else {
+            record(serialNumbers, revoked);
+        }
+    }
+
+    private void record(Collection<String> serialNumbers, boolean revoked) {
+        for (String serialNumber : serialNumbers) {
+            long key = key(serialNumber);
+            if (key == NOT_INDEXED) {
+                log.warn("Serial number {} does not fit the revocation status index", serialNumber);
+                continue;
+            }
+            // revocation is final, an issuance committed earlier but recorded later must not undo it
+            changes.merge(key, new Change(revoked, sequence.getAndIncrement()),
+                    (recorded, change) -> recorded.revoked() ? recorded : change);
+        }
+        if (changes.size() >= properties.getMergeThreshold() && rebuildLock.tryLock()) {
+            try {
+                merge();
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+    }
+
+    private void merge() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        List<Map.Entry<Long, Change>> merged = new ArrayList<>(changes.entrySet());
+        LongList issued = new LongList(merged.size());
+        LongList revoked = new LongList(merged.size());
+        for (Map.Entry<Long, Change> entry : merged) {
+            issued.add(entry.getKey());
+            if (entry.getValue().revoked()) {
+                revoked.add(entry.getKey());
+            }
+        }
+        snapshot = new Snapshot(union(current.issued(), issued.sortedDistinct()),
+                union(current.revoked(), revoked.sortedDistinct()));
+        // a change recorded again meanwhile stays
+        merged.forEach(entry -> changes.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private Snapshot load() {
+        LongList issued = new LongList(1024);
+        LongList revoked = new LongList(64);
+        try (Stream<ICertificateRepository.SerialNumberStatus> certificates = certificateRepository.streamSerialNumberStatuses()) {
+            certificates.forEach(certificate -> {
+                long key = key(certificate.getSerialNumber());
+                if (key == NOT_INDEXED) {
+                    log.warn("Serial number {} does not fit the revocation status index", certificate.getSerialNumber());
+                    return;
+                }
+                issued.add(key);
+                if (Boolean.TRUE.equals(certificate.getRevoked())) {
+                    revoked.add(key);
+                }
+            });
+        }
+        return new Snapshot(issued.sortedDistinct(), revoked.sortedDistinct());
+    }
+
+    /**
+     * Revocations are stamped when their transaction starts, so a read reaches back by the overlap
+     * to catch those that committed after the previous read.
+     */
+    private Instant refreshStart() {
+        return Instant.now().minusMillis(properties.getRefreshOverlapMs());
+    }
+
+    /**
+     * Maps a serial number below 2^63 to a distinct long, which is all this PKI issues.
+     *
+     * @return the key, or {@link #NOT_INDEXED} for a serial number outside that range
+     */
+    private static long key(String serialNumber) {
+        if (serialNumber == null || serialNumber.isEmpty() || serialNumber.length() > MAX_SERIAL_NUMBER_DIGITS) {
+            throw new InvalidRequestError("Invalid serial number: " + serialNumber);
+        }
+        for (int i = 0; i < serialNumber.length(); i++) {
+            if (serialNumber.charAt(i) < '0' || serialNumber.charAt(i) > '9') {
+                throw new InvalidRequestError("Invalid serial number: " + serialNumber);
+            }
+        }
+        if (serialNumber.length() <= 18) {
+            return Long.parseLong(serialNumber);
+        }
+        BigInteger value = new BigInteger(serialNumber);
+        // a bit length of 64 would wrap to a negative long that another serial number may map to
+        return value.bitLength() < Long.SIZE ? value.longValue() : NOT_INDEXED;
+    }
+
+    private static long[] union(long[] sorted, long[] additions) {
+        long[] result = new long[sorted.length + additions.length];
+        int i = 0, j = 0, size = 0;
+        while (i < sorted.length || j < additions.length) {
+            long next;
+            if (j == additions.length || (i < sorted.length && sorted[i] <= additions[j])) {
+                next = sorted[i++];
+            } else {
+                next = additions[j++];
+            }
+            if (size == 0 || result[size - 1] != next) {
+                result[size++] = next;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static final class LongList {
+        private long[] values;
+        private int size;
+
+        LongList(int capacity) {
+            values = new long[Math.max(capacity, 16)];
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] sortedDistinct() {
+            Arrays.sort(values, 0, size);
+            return union(Arrays.copyOf(values, size), new long[0]);
+        }
+    }
+}
@@ -2,22 +2,39 @@ package com.team20.pki.revocation.service.impl;
 
 import com.team20.pki.certificates.model.Certificate;
 import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.util.CertificateTreeCounter;
 import com.team20.pki.common.exception.InvalidRequestError;
+import com.team20.pki.common.exception.NotFoundError;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.service.SingleFlight;
+import com.team20.pki.config.properties.RevocationStatusProperties;
+import com.team20.pki.metrics.service.OperationMetrics;
+import com.team20.pki.metrics.service.OperationTrace;
 import com.team20.pki.revocation.dto.CRLResponseDTO;
+import com.team20.pki.revocation.dto.RevocationStatusDTO;
 import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
 import com.team20.pki.revocation.model.CertificateRevocationList;
 import com.team20.pki.revocation.model.CertificateRevocationResponseDTO;
+import com.team20.pki.revocation.model.CrlPartition;
+import com.team20.pki.revocation.model.SignedRevocationList;
+import com.team20.pki.revocation.service.CrlPublisher;
 import com.team20.pki.revocation.service.IRevocationService;
+import com.team20.pki.revocation.service.RevocationStatusIndex;
 import com.team20.pki.revocation.service.util.CertificateRevocationListService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.x509.CRLReason;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 
@@ -25,68 +42,177 @@ import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 public class RevocationService implements IRevocationService {
+    // reason recorded for certificates revoked together with their issuer
+    private static final int DESCENDANT_REVOCATION_REASON = CRLReason.cACompromise;
+
     private final CertificateRevocationListService crlService;
     private final ICertificateRepository certificateRepository;
+    private final CertificateTreeCounter treeCounter;
+    private final OperationMetrics operationMetrics;
+    private final CrlPublisher crlPublisher;
+    private final RevocationStatusIndex statusIndex;
+    private final RevocationStatusProperties statusProperties;
+
+    // a null partition reads the CA's unpartitioned list
+    private record CrlRead(UUID caCertificateId, Integer partition) {
+    }
+
+    // relying parties tend to fetch a CA's list all at once, e.g. right after its nextUpdate
+    private final SingleFlight<CrlRead, byte[]> crlReads = new SingleFlight<>();
 
 
     @Override
+    @Transactional
     public CertificateRevocationResponseDTO revokeCertificate(UUID revokingCertificateId, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws GeneralSecurityException, IOException, OperatorCreationException {
-        Certificate certificate = certificateRepository.findById(revokingCertificateId).
-                orElseThrow(()-> new EntityNotFoundException("Certificate not found"));
-        certificate.setIsRevoked(true);
-        revokeDownwards(certificate);
-        certificateRepository.save(certificate);
+        try (OperationTrace trace = operationMetrics.start("revocation")) {
+            CertificateRevocationResponseDTO response = revokeCertificate(revokingCertificateId, revokeCertificateRequestDTO, trace);
+            trace.success();
+            return response;
+        }
+    }
 
-        Certificate parentCertificate = certificate.getParent();
-        if (parentCertificate == null){
-            return createSelfSignedCRL(certificate, revokeCertificateRequestDTO);
+    private CertificateRevocationResponseDTO revokeCertificate(UUID revokingCertificateId, RevokeCertificateRequestDTO revokeCertificateRequestDTO, OperationTrace trace) throws GeneralSecurityException, IOException, OperatorCreationException {
+        Certificate certificate = trace.stage("jpa-load", () -> certificateRepository.findById(revokingCertificateId)).
+                orElseThrow(()-> new EntityNotFoundException("Certificate not found"));
+        trace.tag(OperationMetrics.ORGANIZATION, certificate.getIssuer().getOrganization())
+                .tag(OperationMetrics.CERTIFICATE_TYPE, certificate.getType());
+        Instant revokedAt = Instant.now();
+        long newlyRevoked = markRevoked(certificate, revokeCertificateRequestDTO.reason(), revokedAt) ? 1 : 0;
+        List<UUID> descendantIds = new ArrayList<>();
+        List<String> revokedSerialNumbers = new ArrayList<>(List.of(certificate.getSerialNumber()));
+        // descendants are revoked together with their CRL updates
+        try (OperationTrace.StageScope ignored = trace.startStage("revoke-descendants")) {
+            newlyRevoked += revokeDownwards(certificate, descendantIds, revokedSerialNumbers, revokedAt);
         }
-        CertificateRevocationList crl = crlService.findForCA(parentCertificate.getId());
+        statusIndex.revokedAfterCommit(revokedSerialNumbers);
+        trace.stage("jpa-save", () -> certificateRepository.save(certificate));
 
-        if (crl == null){
-            crl = crlService.createEmptyCRL(parentCertificate);
+        try (OperationTrace.StageScope ignored = trace.startStage("crl-update")) {
+            Certificate parentCertificate = certificate.getParent();
+            if (parentCertificate == null){
+                createSelfSignedCRL(certificate, revokeCertificateRequestDTO);
+            } else {
+                SignedRevocationList crl = findOrCreateList(parentCertificate, certificate.getCrlPartition());
+                crlService.addRevocationToCRL(parentCertificate, crl, certificate, revokeCertificateRequestDTO);
+            }
         }
-        crlService.addRevocationToCRL(parentCertificate, crl, certificate, revokeCertificateRequestDTO);
+
+        // detaches the loaded certificates, so it runs after everything that uses them
+        final long revokedCount = newlyRevoked;
+        trace.stage("tree-counters", () -> treeCounter.onSubtreeRevoked(certificate, descendantIds, revokedCount));
 
         return new CertificateRevocationResponseDTO(true);
     }
 
+    /**
+     * Serves the list as last signed. Lists are created and re-signed ahead of their
+     * nextUpdate by {@link CrlPublisher}; a list requested before its first publication is queued for it and
+     * answered with 503. Concurrent requests for the same list share one read.
+     */
     @Override
-    public CRLResponseDTO getCertificateRevocationList(UUID certifiedAuthorityCertificateId) throws GeneralSecurityException, IOException, OperatorCreationException {
-        CertificateRevocationList crl = crlService.findForCA(certifiedAuthorityCertificateId);
-        if (crl == null) {
-            Certificate cert = certificateRepository.findById(certifiedAuthorityCertificateId).orElseThrow(() -> new InvalidRequestError("Invalid CA certificate id!"));
-            crl = crlService.createEmptyCRL(cert);
+    public CRLResponseDTO getCertificateRevocationList(UUID certifiedAuthorityCertificateId) {
+        byte[] revocationList = crlReads.load(new CrlRead(certifiedAuthorityCertificateId, null), () -> {
+            CertificateRevocationList crl = crlService.findForCA(certifiedAuthorityCertificateId);
+            return crl != null ? crl.getRevocationList() : null;
+        });
+        if (revocationList == null) {
+            throw unpublished(crlPublisher.requestPublication(certifiedAuthorityCertificateId, null));
         }
-        return new CRLResponseDTO(crl.getRevocationList());
+        return new CRLResponseDTO(revocationList);
     }
 
-    private CertificateRevocationResponseDTO createSelfSignedCRL(Certificate rootCertificate, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws GeneralSecurityException, IOException, OperatorCreationException {
-        CertificateRevocationList crl = crlService.findForCA(rootCertificate.getId());
-        if (crl == null){
-            crl = crlService.createEmptyCRL(rootCertificate);
+    @Override
+    public CRLResponseDTO getCertificateRevocationListPartition(UUID certifiedAuthorityCertificateId, int partition) {
+        byte[] revocationList = crlReads.load(new CrlRead(certifiedAuthorityCertificateId, partition), () ->
+                crlService.findPartition(certifiedAuthorityCertificateId, partition)
+                        .map(CrlPartition::getRevocationList)
+                        .orElse(null));
+        if (revocationList == null) {
+            throw unpublished(crlPublisher.requestPublication(certifiedAuthorityCertificateId, partition));
         }
-        crlService.addRevocationToCRL(rootCertificate, crl, rootCertificate, revokeCertificateRequestDTO);
+        return new CRLResponseDTO(revocationList);
+    }
 
-        return new CertificateRevocationResponseDTO(true);
+    private static RuntimeException unpublished(CrlPublisher.PublicationRequest request) {
+        return switch (request) {
+            case QUEUED -> new ServerError("Certificate revocation list is being published, try again later", 503);
+            case NOT_PUBLISHABLE -> new NotFoundError("Certificate revocation list not published");
+        };
+    }
+
+    /**
+     * Answered from {@link RevocationStatusIndex}, without touching the database.
+     */
+    @Override
+    public RevocationStatusDTO getRevocationStatus(String serialNumber) {
+        return new RevocationStatusDTO(serialNumber, statusIndex.statusOf(serialNumber));
+    }
+
+    @Override
+    public List<RevocationStatusDTO> getRevocationStatuses(List<String> serialNumbers) {
+        if (serialNumbers.size() > statusProperties.getMaxBatchSize()) {
+            throw new InvalidRequestError("At most " + statusProperties.getMaxBatchSize() + " serial numbers can be checked at once");
+        }
+        List<RevocationStatusDTO> statuses = new ArrayList<>(serialNumbers.size());
+        for (String serialNumber : serialNumbers) {
+            statuses.add(getRevocationStatus(serialNumber));
+        }
+        return statuses;
     }
 
-    private void revokeDownwards(Certificate parentCertificate) throws GeneralSecurityException, IOException, OperatorCreationException {
+    private void createSelfSignedCRL(Certificate rootCertificate, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws GeneralSecurityException, IOException, OperatorCreationException {
+        SignedRevocationList crl = findOrCreateList(rootCertificate, null);
+        crlService.addRevocationToCRL(rootCertificate, crl, rootCertificate, revokeCertificateRequestDTO);
+    }
+
+    /**
+     * @return number of certificates below the parent that were not revoked before
+     */
+    private long revokeDownwards(Certificate parentCertificate, List<UUID> revokedIds, List<String> revokedSerialNumbers, Instant revokedAt) throws GeneralSecurityException, IOException, OperatorCreationException {
+        long newlyRevoked = 0;
         List<Certificate> issuedCertificates = certificateRepository.findAllByParent_Id(parentCertificate.getId());
         for (Certificate cert: issuedCertificates){
-            cert.setIsRevoked(true);
+            if (markRevoked(cert, DESCENDANT_REVOCATION_REASON, revokedAt)) {
+                newlyRevoked++;
+            }
             certificateRepository.save(cert);
+            revokedIds.add(cert.getId());
+            revokedSerialNumbers.add(cert.getSerialNumber());
             addCertificateToCRL(parentCertificate, cert);
-            revokeDownwards(cert);
+            newlyRevoked += revokeDownwards(cert, revokedIds, revokedSerialNumbers, revokedAt);
         }
+        return newlyRevoked;
+    }
+
+    /**
+     * Keeps the time and reason of an earlier revocation.
+     *
+     * @return whether the certificate was not revoked before
+     */
+    private static boolean markRevoked(Certificate certificate, int reason, Instant revokedAt) {
+        if (certificate.getIsRevoked()) {
+            return false;
+        }
+        certificate.setIsRevoked(true);
+        certificate.setRevokedAt(revokedAt);
+        certificate.setRevocationReason(reason);
+        return true;
     }
 
     private void addCertificateToCRL(Certificate parentCertificate, Certificate certToRevoke) throws GeneralSecurityException, IOException, OperatorCreationException {
-        CertificateRevocationList crl = crlService.findForCA(parentCertificate.getId());
+        SignedRevocationList crl = findOrCreateList(parentCertificate, certToRevoke.getCrlPartition());
+        crlService.addRevocationToCRL(parentCertificate, crl, certToRevoke, new RevokeCertificateRequestDTO(DESCENDANT_REVOCATION_REASON));
+    }
 
-        if (crl == null){
-            crl = crlService.createEmptyCRL(parentCertificate);
+    /**
+     * Finds the CA's list that the partition's certificates are revoked on, or the unpartitioned one for a null partition.
+     */
+    private SignedRevocationList findOrCreateList(Certificate caCertificate, Integer partition) throws GeneralSecurityException, IOException, OperatorCreationException {
+        if (partition == null) {
+            Optional<CertificateRevocationList> crl = crlService.findForCAForUpdate(caCertificate.getId());
+            return crl.isPresent() ? crl.get() : crlService.createEmptyCRL(caCertificate);
         }
-        crlService.addRevocationToCRL(parentCertificate, crl, certToRevoke, new RevokeCertificateRequestDTO(2));
+        Optional<CrlPartition> crl = crlService.findPartitionForUpdate(caCertificate.getId(), partition);
+        return crl.isPresent() ? crl.get() : crlService.createEmptyPartition(caCertificate, partition);
     }
 }
@@ -1,16 +1,26 @@
 package com.team20.pki.revocation.service.util;
 import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
 import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
 import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.metrics.jfr.CrlSigningEvent;
+import com.team20.pki.publication.service.StaticPublisher;
 import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
 import com.team20.pki.revocation.model.CertificateRevocationList;
+import com.team20.pki.revocation.model.CrlPartition;
+import com.team20.pki.revocation.model.SignedRevocationList;
 import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import com.team20.pki.revocation.service.util.StreamingCrlEncoder.RevokedEntries;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.*;
 import org.bouncycastle.asn1.x509.CRLReason;
 import org.bouncycastle.asn1.x509.Extension;
-import org.bouncycastle.cert.X509v2CRLBuilder;
 import org.bouncycastle.cert.jcajce.*;
 
 import java.io.ByteArrayInputStream;
@@ -19,8 +29,15 @@ import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.security.cert.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.OperatorCreationException;
@@ -31,91 +48,197 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class CertificateRevocationListService {
     private final CertificateRevocationListRepository certificateRevocationListRepository;
+    private final CrlPartitionRepository crlPartitionRepository;
+    private final ICertificateRepository certificateRepository;
     private final KeyStoreService keyStoreService;
     private final PasswordStorage passwordStorage;
+    private final CrlDistributionPoints distributionPoints;
+    private final CrlProperties crlProperties;
+    private final MeterRegistry meterRegistry;
+    private final StaticPublisher staticPublisher;
 
     public CertificateRevocationList createEmptyCRL(Certificate parentCACertificate) throws IOException, GeneralSecurityException, OperatorCreationException
     {
-        X509Certificate x509Cert = loadCertificate(parentCACertificate);
-        PrivateKey parentPrivateKey = loadPrivateKey(parentCACertificate);
-        X509v2CRLBuilder crlGen = new JcaX509v2CRLBuilder(x509Cert.getSubjectX500Principal(),
-                calculateDate(0));
-
-
-        crlGen.setNextUpdate(calculateDate(24 * 7));
-
+        return createEmptyList(parentCACertificate, new CertificateRevocationList(null, parentCACertificate, null, null, null, null));
+    }
 
-        // add extensions to CRL
-        JcaX509ExtensionUtils extUtils = new JcaX509ExtensionUtils();
+    public CrlPartition createEmptyPartition(Certificate parentCACertificate, int partition) throws IOException, GeneralSecurityException, OperatorCreationException
+    {
+        return createEmptyList(parentCACertificate, new CrlPartition(null, parentCACertificate, partition, null, null, null, null));
+    }
 
+    private <T extends SignedRevocationList> T createEmptyList(Certificate parentCACertificate, T crl) throws IOException, GeneralSecurityException, OperatorCreationException
+    {
+        return withSigningEvent(parentCACertificate, null, event -> {
+            X509Certificate x509Cert = loadCertificate(parentCACertificate);
+            return sign(parentCACertificate, x509Cert, crl, RevokedEntries.empty(), event);
+        });
+    }
 
-        crlGen.addExtension(Extension.authorityKeyIdentifier, false,
-                extUtils.createAuthorityKeyIdentifier(x509Cert));
+    /**
+     * Signs the list again with a new validity period. Entries of certificates expired longer than the retention
+     * period are pruned here, so that revocations do not pay for the lookup of expired certificates.
+     */
+    public <T extends SignedRevocationList> T refreshCRL(Certificate parentCACertificate, T crl) throws IOException, GeneralSecurityException, OperatorCreationException
+    {
+        return withSigningEvent(parentCACertificate, null, event -> {
+            X509Certificate x509Cert = loadCertificate(parentCACertificate);
+            RevokedEntries entries = readUnexpiredEntries(parentCACertificate, crl);
+            return sign(parentCACertificate, x509Cert, crl, entries, event);
+        });
+    }
 
+    public <T extends SignedRevocationList> T addRevocationToCRL(Certificate parentCACertificate, T crl, Certificate certToRevoke, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws IOException, GeneralSecurityException, OperatorCreationException
+    {
+        return withSigningEvent(parentCACertificate, certToRevoke.getSerialNumber(), event -> {
+            X509Certificate x509Cert = loadCertificate(parentCACertificate);
+            // the entries signed so far are copied over in their encoded form
+            RevokedEntries entries = RevokedEntries.of(crl.getRevocationList());
 
-        ContentSigner signer = new JcaContentSignerBuilder(x509Cert.getSigAlgName())
-                .setProvider("BC").build(parentPrivateKey);
 
+            // add revocation
+            ExtensionsGenerator extGen = new ExtensionsGenerator();
 
-        JcaX509CRLConverter converter = new JcaX509CRLConverter().setProvider("BC");
 
+            CRLReason crlReason = CRLReason.lookup(revokeCertificateRequestDTO.reason());
 
-        X509CRL x509CRL = converter.getCRL(crlGen.build(signer));
 
-        CertificateRevocationList crl = new CertificateRevocationList(null, parentCACertificate, toByteArray(x509CRL));
-        return certificateRevocationListRepository.save(crl);
-    }
+            extGen.addExtension(Extension.reasonCode, false, crlReason);
 
-    public CertificateRevocationList addRevocationToCRL(Certificate parentCACertificate, CertificateRevocationList crl, Certificate certToRevoke, RevokeCertificateRequestDTO revokeCertificateRequestDTO) throws IOException, GeneralSecurityException, OperatorCreationException
-    {
-        X509CRL x509CRL = fromByteArray(crl.getRevocationList());
-        X509Certificate x509Cert = loadCertificate(parentCACertificate);
-        X509v2CRLBuilder crlGen = new JcaX509v2CRLBuilder(x509CRL);
 
 
-        crlGen.setNextUpdate(calculateDate(24 * 7));
 
+            // the revocation date matches the one recorded on the certificate
+            Date revocationDate = certToRevoke.getRevokedAt() != null ? Date.from(certToRevoke.getRevokedAt()) : new Date();
+            entries.add(new BigInteger(certToRevoke.getSerialNumber()),
+                    revocationDate, extGen.generate());
 
-        // add revocation
-        ExtensionsGenerator extGen = new ExtensionsGenerator();
-
+            return sign(parentCACertificate, x509Cert, crl, entries, event);
+        });
+    }
 
-        CRLReason crlReason = CRLReason.lookup(revokeCertificateRequestDTO.reason());
+    public CertificateRevocationList findForCA(UUID caCertificateId){
+        return certificateRevocationListRepository.findByCACertificateId(caCertificateId);
+    }
 
+    /**
+     * Finds the CA's list and locks it until the end of the transaction, for changing it.
+     */
+    public Optional<CertificateRevocationList> findForCAForUpdate(UUID caCertificateId){
+        return certificateRevocationListRepository.findForUpdateByCACertificateId(caCertificateId);
+    }
 
-        extGen.addExtension(Extension.reasonCode, false, crlReason);
+    public Optional<CrlPartition> findPartition(UUID caCertificateId, int partition){
+        return crlPartitionRepository.findByCaIdAndPartition(caCertificateId, partition);
+    }
 
+    public Optional<CrlPartition> findPartitionForUpdate(UUID caCertificateId, int partition){
+        return crlPartitionRepository.findForUpdateByCaIdAndPartition(caCertificateId, partition);
+    }
 
+    /**
+     * Reads the entries of the signed list, without the ones of certificates expired longer than the retention period.
+     * Only certificates that expired since the previous pruning of the list are looked up.
+     */
+    private RevokedEntries readUnexpiredEntries(Certificate parentCACertificate, SignedRevocationList crl) throws IOException {
+        if (!crlProperties.isPruneExpired()) {
+            return RevokedEntries.of(crl.getRevocationList());
+        }
+        final LocalDate expiredBefore = expiredBefore();
+        Set<BigInteger> expired = certificateRepository.findExpiredRevokedSerialNumbers(parentCACertificate.getId(),
+                        crl.getPartitionNumber(), crl.getPrunedBefore(), expiredBefore).stream()
+                .map(BigInteger::new)
+                .collect(Collectors.toSet());
+        crl.setPrunedBefore(expiredBefore);
+        RevokedEntries entries = RevokedEntries.of(crl.getRevocationList(), serialNumber -> !expired.contains(serialNumber));
+        if (entries.pruned() > 0) {
+            meterRegistry.counter("pki.crl.entries.pruned").increment(entries.pruned());
+        }
+        return entries;
+    }
 
+    // entries of certificates that expired before this date are pruned
+    private LocalDate expiredBefore() {
+        return LocalDate.now().minusDays(crlProperties.getExpiredRetentionDays());
+    }
 
-        crlGen.addCRLEntry(BigInteger.valueOf(Long.parseLong(certToRevoke.getSerialNumber())),
-                new Date(), extGen.generate());
+    /**
+     * Signs the entries with a new validity period. The list is encoded by {@link StreamingCrlEncoder}, so that
+     * large lists are never held as an ASN.1 object tree or parsed back.
+     */
+    private <T extends SignedRevocationList> T sign(Certificate parentCACertificate, X509Certificate x509Cert, T crl, RevokedEntries entries, CrlSigningEvent event) throws GeneralSecurityException, OperatorCreationException, IOException
+    {
+        ExtensionsGenerator extensions = new ExtensionsGenerator();
+        extensions.addExtension(Extension.authorityKeyIdentifier, false,
+                new JcaX509ExtensionUtils().createAuthorityKeyIdentifier(x509Cert));
+        // also added to lists signed before partitioning, which then no longer cover partitioned certificates
+        extensions.addExtension(Extension.issuingDistributionPoint, true,
+                distributionPoints.issuingDistributionPoint(parentCACertificate.getId(), crl.getPartitionNumber()));
+        if (crlProperties.isPruneExpired() && crlProperties.isExpiredCertsOnCrlExtension()) {
+            Instant cutoff = expiredBefore().atStartOfDay(ZoneId.systemDefault()).toInstant();
+            extensions.addExtension(Extension.expiredCertsOnCRL, false, new ASN1GeneralizedTime(Date.from(cutoff)));
+        }
+
+        // CRL times are encoded with second precision
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant nextUpdate = thisUpdate.plus(crlProperties.getValidityHours(), ChronoUnit.HOURS);
 
         PrivateKey parentPrivateKey = loadPrivateKey(parentCACertificate);
 
         ContentSigner signer = new JcaContentSignerBuilder(x509Cert.getSigAlgName())
                 .setProvider("BC").build(parentPrivateKey);
 
+        byte[] encoded = StreamingCrlEncoder.encode(X500Name.getInstance(x509Cert.getSubjectX500Principal().getEncoded()),
+                thisUpdate, nextUpdate, entries, extensions.generate(), signer);
+        event.entries = (int) entries.count();
+        event.encodedBytes = encoded.length;
+        crl.setRevocationList(encoded);
+        crl.setThisUpdate(thisUpdate);
+        crl.setNextUpdate(nextUpdate);
+        return save(crl);
+    }
 
-        JcaX509CRLConverter converter = new JcaX509CRLConverter().setProvider("BC");
-
-        x509CRL = converter.getCRL(crlGen.build(signer));
-        crl.setRevocationList(toByteArray(x509CRL));
-        return certificateRevocationListRepository.save(crl);
+    @SuppressWarnings("unchecked")
+    private <T extends SignedRevocationList> T save(T crl) {
+        staticPublisher.crlChangedAfterCommit(crl.getCACertificate().getId(), crl.getPartitionNumber());
+        return switch (crl) {
+            case CrlPartition partition -> (T) crlPartitionRepository.save(partition);
+            case CertificateRevocationList list -> (T) certificateRevocationListRepository.save(list);
+            default -> throw new IllegalArgumentException("Unknown revocation list type " + crl.getClass());
+        };
     }
 
-    public CertificateRevocationList findForCA(UUID caCertificateId){
-        return certificateRevocationListRepository.findByCACertificateId(caCertificateId);
+    @FunctionalInterface
+    private interface CrlSigning<T> {
+        T sign(CrlSigningEvent event) throws IOException, GeneralSecurityException, OperatorCreationException;
     }
 
-    private Date calculateDate(int hoursInFuture)
+    /**
+     * Rebuilds and signs a list within a {@link CrlSigningEvent}, which is committed whether or not signing succeeds.
+     */
+    private <T extends SignedRevocationList> T withSigningEvent(Certificate parentCACertificate, String revokedSerialNumber, CrlSigning<T> signing) throws IOException, GeneralSecurityException, OperatorCreationException
     {
-        long secs = System.currentTimeMillis() / 1000;
-        return new Date((secs + ((long) hoursInFuture * 60 * 60)) * 1000);
+        CrlSigningEvent event = new CrlSigningEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            T signed = signing.sign(event);
+            failed = false;
+            return signed;
+        } finally {
+            commitSigningEvent(event, parentCACertificate, revokedSerialNumber, failed);
+        }
     }
 
-    private byte[] toByteArray(X509CRL crl) throws CRLException {
-        return crl.getEncoded();
+    private void commitSigningEvent(CrlSigningEvent event, Certificate parentCACertificate, String revokedSerialNumber, boolean failed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.caId = String.valueOf(parentCACertificate.getId());
+        event.revokedSerialNumber = revokedSerialNumber;
+        event.failed = failed;
+        event.commit();
     }
 
     public static X509CRL fromByteArray(byte[] data) throws CRLException, CertificateException {
@@ -0,0 +1,51 @@
+package com.team20.pki.revocation.service.util;
+
+import com.team20.pki.config.properties.CrlProperties;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.IssuingDistributionPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Maps certificates to the CRL they are listed in. Certificates are partitioned by issuance epoch,
+ * so that every CRL only covers the certificates a CA issued within one period and old partitions stop growing.
+ * Roots and certificates issued before partitioning are listed in the CA's unpartitioned CRL.
+ */
+@Component
+public class CrlDistributionPoints {
+    private final String crlUrl;
+    private final CrlProperties properties;
+
+    public CrlDistributionPoints(@Value("${crl-url}") String crlUrl, CrlProperties properties) {
+        this.crlUrl = crlUrl;
+        this.properties = properties;
+    }
+
+    /**
+     * @return partition of a certificate issued on the given day, or null when partitioning is disabled
+     */
+    public Integer partitionOf(LocalDate issuedOn) {
+        if (properties.getPartitionDays() == 0) {
+            return null;
+        }
+        return Math.toIntExact(Math.floorDiv(issuedOn.toEpochDay(), properties.getPartitionDays()));
+    }
+
+    public String url(UUID caCertificateId, Integer partition) {
+        return partition == null ? crlUrl + caCertificateId : crlUrl + caCertificateId + "/" + partition;
+    }
+
+    /**
+     * Scopes a CRL to the certificates whose distribution point names the same URL.
+     */
+    public IssuingDistributionPoint issuingDistributionPoint(UUID caCertificateId, Integer partition) {
+        GeneralName name = new GeneralName(GeneralName.uniformResourceIdentifier, url(caCertificateId, partition));
+        return new IssuingDistributionPoint(new DistributionPointName(new GeneralNames(name)),
+                false, false, null, false, false);
+    }
+}
@@ -0,0 +1,300 @@
+package com.team20.pki.revocation.service.util;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.operator.ContentSigner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Writes a signed X.509 v2 CRL straight to DER, without building it as an ASN.1 object tree.
+ * Revoked entries are kept as encoded bytes, so entries of a previously signed list are copied over without
+ * being decoded. The TBS part is streamed once into the signer and once into an output array of the exact
+ * final size, so signing a list takes the memory of the old and the new encoding only.
+ */
+public final class StreamingCrlEncoder {
+    private static final int SEQUENCE = 0x30;
+    private static final int INTEGER = 0x02;
+    private static final int UTC_TIME = 0x17;
+    private static final int GENERALIZED_TIME = 0x18;
+
+    private StreamingCrlEncoder() {
+    }
+
+    /**
+     * Encoded revoked certificate entries of a CRL, in order.
+     */
+    public static final class RevokedEntries {
+        private record Segment(byte[] data, int offset, int length) {
+        }
+
+        private final List<Segment> segments = new ArrayList<>();
+        private long length;
+        private long count;
+        private long pruned;
+
+        public static RevokedEntries empty() {
+            return new RevokedEntries();
+        }
+
+        /**
+         * Takes over the entries of a signed CRL, by reference to its encoding.
+         */
+        public static RevokedEntries of(byte[] encodedCrl) throws IOException {
+            return of(encodedCrl, serialNumber -> true);
+        }
+
+        /**
+         * Takes over the entries of a signed CRL whose serial number passes the filter, by reference to its encoding.
+         * Only the serial numbers are decoded; kept runs of entries are copied as they are.
+         */
+        public static RevokedEntries of(byte[] encodedCrl, Predicate<BigInteger> keep) throws IOException {
+            RevokedEntries entries = new RevokedEntries();
+            DerReader crl = new DerReader(encodedCrl, 0, encodedCrl.length);
+            DerReader tbs = crl.enter(SEQUENCE).enter(SEQUENCE);
+            if (tbs.peek() == INTEGER) {
+                tbs.skip();
+            }
+            tbs.skip(); // signature algorithm
+            tbs.skip(); // issuer
+            tbs.skip(); // thisUpdate
+            if (tbs.peek() == UTC_TIME || tbs.peek() == GENERALIZED_TIME) {
+                tbs.skip();
+            }
+            if (tbs.peek() == SEQUENCE) {
+                DerReader revoked = tbs.enter(SEQUENCE);
+                int runStart = revoked.position;
+                while (revoked.hasNext()) {
+                    int entryStart = revoked.position;
+                    DerReader serialNumber = revoked.enter(SEQUENCE).enter(INTEGER);
+                    if (keep.test(serialNumber.integerValue())) {
+                        entries.count++;
+                    } else {
+                        entries.addRun(encodedCrl, runStart, entryStart);
+                        runStart = revoked.position;
+                        entries.pruned++;
+                    }
+                }
+                entries.addRun(encodedCrl, runStart, revoked.end);
+            }
+            return entries;
+        }
+
+        private void addRun(byte[] data, int start, int end) {
+            if (end > start) {
+                segments.add(new Segment(data, start, end - start));
+                length += end - start;
+            }
+        }
+
+        public RevokedEntries add(BigInteger serialNumber, Date revocationDate, Extensions extensions) throws IOException {
+            ASN1Encodable[] fields = extensions != null
+                    ? new ASN1Encodable[]{new ASN1Integer(serialNumber), new Time(revocationDate), extensions}
+                    : new ASN1Encodable[]{new ASN1Integer(serialNumber), new Time(revocationDate)};
+            byte[] entry = new DERSequence(fields).getEncoded(ASN1Encoding.DER);
+            segments.add(new Segment(entry, 0, entry.length));
+            length += entry.length;
+            count++;
+            return this;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return number of entries of the signed CRL that were dropped by the filter
+         */
+        public long pruned() {
+            return pruned;
+        }
+
+        long length() {
+            return length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            for (Segment segment : segments) {
+                out.write(segment.data(), segment.offset(), segment.length());
+            }
+        }
+    }
+
+    /**
+     * @param extensions CRL extensions, or null for none
+     * @return DER encoding of the signed CRL
+     */
+    public static byte[] encode(X500Name issuer, Instant thisUpdate, Instant nextUpdate, RevokedEntries entries,
+                                Extensions extensions, ContentSigner signer) throws IOException {
+        byte[] signatureAlgorithm = signer.getAlgorithmIdentifier().getEncoded(ASN1Encoding.DER);
+        List<byte[]> fields = new ArrayList<>();
+        fields.add(new ASN1Integer(1).getEncoded(ASN1Encoding.DER));
+        fields.add(signatureAlgorithm);
+        fields.add(issuer.getEncoded(ASN1Encoding.DER));
+        fields.add(new Time(Date.from(thisUpdate)).getEncoded(ASN1Encoding.DER));
+        fields.add(new Time(Date.from(nextUpdate)).getEncoded(ASN1Encoding.DER));
+        // an empty list has no revokedCertificates field at all
+        byte[] entriesHeader = entries.count() > 0 ? header(SEQUENCE, entries.length()) : new byte[0];
+        byte[] crlExtensions = extensions != null
+                ? new DERTaggedObject(true, 0, extensions).getEncoded(ASN1Encoding.DER) : new byte[0];
+
+        long tbsLength = fields.stream().mapToLong(field -> field.length).sum()
+                + entriesHeader.length + entries.length() + crlExtensions.length;
+        byte[] tbsHeader = header(SEQUENCE, tbsLength);
+
+        try (OutputStream signerStream = signer.getOutputStream()) {
+            writeTbs(signerStream, tbsHeader, fields, entriesHeader, entries, crlExtensions);
+        }
+        byte[] signature = new DERBitString(signer.getSignature()).getEncoded(ASN1Encoding.DER);
+
+        long crlLength = tbsHeader.length + tbsLength + signatureAlgorithm.length + signature.length;
+        byte[] crlHeader = header(SEQUENCE, crlLength);
+        if (crlHeader.length + crlLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("CRL too large to encode: " + crlLength + " bytes");
+        }
+        byte[] encoded = new byte[(int) (crlHeader.length + crlLength)];
+        ArrayOutput out = new ArrayOutput(encoded);
+        out.write(crlHeader);
+        writeTbs(out, tbsHeader, fields, entriesHeader, entries, crlExtensions);
+        out.write(signatureAlgorithm);
+        out.write(signature);
+        return encoded;
+    }
+
+    private static void writeTbs(OutputStream out, byte[] tbsHeader, List<byte[]> fields, byte[] entriesHeader,
+                                 RevokedEntries entries, byte[] crlExtensions) throws IOException {
+        out.write(tbsHeader);
+        for (byte[] field : fields) {
+            out.write(field);
+        }
+        out.write(entriesHeader);
+        entries.writeTo(out);
+        out.write(crlExtensions);
+    }
+
+    private static byte[] header(int tag, long length) {
+        if (length < 0x80) {
+            return new byte[]{(byte) tag, (byte) length};
+        }
+        int lengthBytes = (Long.SIZE - Long.numberOfLeadingZeros(length) + 7) / 8;
+        byte[] header = new byte[2 + lengthBytes];
+        header[0] = (byte) tag;
+        header[1] = (byte) (0x80 | lengthBytes);
+        for (int i = 0; i < lengthBytes; i++) {
+            header[2 + i] = (byte) (length >>> (8 * (lengthBytes - 1 - i)));
+        }
+        return header;
+    }
+
+    /**
+     * Walks the TLVs of a DER encoding by offset, without copying or decoding the values.
+     */
+    private static final class DerReader {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        DerReader(byte[] data, int position, int end) {
+            this.data = data;
+            this.position = position;
+            this.end = end;
+        }
+
+        /**
+         * @return the contents read as an INTEGER, for a reader entered at one
+         */
+        BigInteger integerValue() {
+            return new BigInteger(data, position, end - position);
+        }
+
+        boolean hasNext() {
+            return position < end;
+        }
+
+        int peek() {
+            return hasNext() ? data[position] & 0xff : -1;
+        }
+
+        DerReader enter(int tag) throws IOException {
+            if (peek() != tag) {
+                throw new IOException("Malformed CRL: expected tag " + tag + " at " + position);
+            }
+            int contentStart = contentStart();
+            int contentEnd = contentStart + contentLength();
+            position = contentEnd;
+            return new DerReader(data, contentStart, contentEnd);
+        }
+
+        void skip() throws IOException {
+            position = contentStart() + contentLength();
+            if (position > end) {
+                throw new IOException("Malformed CRL: value exceeds its container");
+            }
+        }
+
+        private int contentStart() throws IOException {
+            int first = lengthByte(1);
+            return position + 2 + (first < 0x80 ? 0 : first & 0x7f);
+        }
+
+        private int contentLength() throws IOException {
+            int first = lengthByte(1);
+            if (first < 0x80) {
+                return first;
+            }
+            int lengthBytes = first & 0x7f;
+            if (lengthBytes == 0 || lengthBytes > 4) {
+                throw new IOException("Malformed CRL: unsupported length encoding at " + position);
+            }
+            long length = 0;
+            for (int i = 0; i < lengthBytes; i++) {
+                length = (length << 8) | lengthByte(2 + i);
+            }
+            if (length > end - position) {
+                throw new IOException("Malformed CRL: value exceeds its container");
+            }
+            return (int) length;
+        }
+
+        private int lengthByte(int index) throws IOException {
+            if (position + index >= end) {
+                throw new IOException("Malformed CRL: truncated at " + position);
+            }
+            return data[position + index] & 0xff;
+        }
+    }
+
+    private static final class ArrayOutput extends OutputStream {
+        private final byte[] target;
+        private int position;
+
+        ArrayOutput(byte[] target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.arraycopy(b, off, target, position, len);
+            position += len;
+        }
+    }
+}
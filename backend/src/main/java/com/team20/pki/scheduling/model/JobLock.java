@@ -0,0 +1,36 @@
+package com.team20.pki.scheduling.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Lease on a scheduled job. The node that moves {@code lockedUntil} into the future runs the job,
+ * all other nodes skip it until the lease runs out.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scheduled_job_locks")
+public class JobLock {
+    @Id
+    private String name;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant lockedUntil;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant lockedAt;
+
+    @Column(nullable = false)
+    private String lockedBy;
+}
@@ -0,0 +1,65 @@
+package com.team20.pki.scheduling.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "scheduled_job_runs",
+        indexes = {
+                @Index(name = "idx_scheduled_job_runs_job_started", columnList = "jobName, startedAt"),
+                @Index(name = "idx_scheduled_job_runs_started", columnList = "startedAt")
+        }
+)
+public class JobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private String jobName;
+
+    @Column(nullable = false)
+    private String node;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant startedAt;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant finishedAt;
+
+    @Column(nullable = false)
+    private long durationMs;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(length = 1000)
+    private String error;
+
+    public enum Status {
+        SUCCEEDED,
+        FAILED
+    }
+}
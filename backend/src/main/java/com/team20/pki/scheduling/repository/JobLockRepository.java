@@ -0,0 +1,34 @@
+package com.team20.pki.scheduling.repository;
+
+import com.team20.pki.scheduling.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    /**
+     * Takes the lease if it has run out.
+     *
+     * @return 1 if this node holds the lock now, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+        update JobLock l
+        set l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :node
+        where l.name = :name and l.lockedUntil <= :now
+        """)
+    int acquire(String name, String node, Instant now, Instant lockedUntil);
+
+    /**
+     * Shortens the lease taken at {@code lockedAt}, unless another node has taken it over since.
+     */
+    @Modifying
+    @Query("""
+        update JobLock l
+        set l.lockedUntil = :lockedUntil
+        where l.name = :name and l.lockedBy = :node and l.lockedAt = :lockedAt
+        """)
+    int release(String name, String node, Instant lockedAt, Instant lockedUntil);
+}
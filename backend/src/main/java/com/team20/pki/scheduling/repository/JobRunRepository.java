@@ -0,0 +1,22 @@
+package com.team20.pki.scheduling.repository;
+
+import com.team20.pki.scheduling.model.JobRun;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface JobRunRepository extends JpaRepository<JobRun, UUID> {
+    List<JobRun> findByJobNameOrderByStartedAtDesc(String jobName, Limit limit);
+
+    @Query("select r.id from JobRun r where r.startedAt < :before order by r.startedAt")
+    List<UUID> findIdsStartedBefore(Instant before, Limit limit);
+
+    @Modifying
+    @Query("delete from JobRun r where r.id in :ids")
+    int deleteAllByIdIn(List<UUID> ids);
+}
@@ -0,0 +1,34 @@
+package com.team20.pki.scheduling.service;
+
+import com.team20.pki.config.properties.SchedulingProperties;
+import com.team20.pki.purge.service.ChunkedPurger;
+import com.team20.pki.purge.service.PurgeTarget;
+import com.team20.pki.scheduling.repository.JobRunRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class JobRunHistoryCleaner {
+    private final ScheduledJobRunner jobRunner;
+    private final JobRunRepository runRepository;
+    private final ChunkedPurger purger;
+    private final SchedulingProperties properties;
+
+    @Scheduled(cron = "${scheduling.history-delete-cron}")
+    public void clearOldRuns() {
+        jobRunner.run("job-run-history-cleanup", () -> {
+            Instant before = Instant.now().minus(Duration.ofDays(properties.getHistoryRetentionDays()));
+            purger.purge(PurgeTarget.of(
+                    "scheduled-job-runs",
+                    limit -> runRepository.findIdsStartedBefore(before, Limit.of(limit)),
+                    runRepository::deleteAllByIdIn
+            ));
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.team20.pki.scheduling.service;
+
+import com.team20.pki.config.properties.SchedulingProperties;
+import com.team20.pki.scheduling.model.JobLock;
+import com.team20.pki.scheduling.model.JobRun;
+import com.team20.pki.scheduling.repository.JobLockRepository;
+import com.team20.pki.scheduling.repository.JobRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs maintenance jobs on one node of the cluster at a time. Every run takes the job's lease in the
+ * {@code scheduled_job_locks} table; nodes that find the lease taken skip the run instead of waiting,
+ * as do overlapping triggers on the same node. Executed runs are recorded in {@code scheduled_job_runs}.
+ * <p>
+ * {@code @Scheduled} methods delegate to {@link #run(String, Runnable)} with a name unique per job.
+ * With {@code scheduling.enabled=false} this node skips every job, leaving them to the other nodes.
+ */
+@Slf4j
+@Service
+public class ScheduledJobRunner {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobLockRepository lockRepository;
+    private final JobRunRepository runRepository;
+    private final SchedulingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transaction;
+    private final String node;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public ScheduledJobRunner(JobLockRepository lockRepository,
+                              JobRunRepository runRepository,
+                              SchedulingProperties properties,
+                              MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager) {
+        this.lockRepository = lockRepository;
+        this.runRepository = runRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // lock changes must be visible to other nodes right away, whatever the caller's transaction
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.node = properties.getNodeId() != null ? properties.getNodeId() : ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Runs the job if no other run of it is in progress anywhere in the cluster.
+     *
+     * @return whether the job ran on this node
+     */
+    public boolean run(String jobName, Runnable job) {
+        if (!properties.isEnabled()) {
+            skip(jobName, "scheduling is disabled on this node");
+            return false;
+        }
+        if (!running.add(jobName)) {
+            skip(jobName, "a run on this node is still in progress");
+            return false;
+        }
+        try {
+            // matched on release, so it must survive the round trip through a TIMESTAMP column
+            Instant lockedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            if (!acquire(jobName, lockedAt)) {
+                skip(jobName, "it is locked by another node");
+                return false;
+            }
+            try {
+                execute(jobName, job, lockedAt);
+            } finally {
+                release(jobName, lockedAt);
+            }
+            return true;
+        } finally {
+            running.remove(jobName);
+        }
+    }
+
+    private boolean acquire(String jobName, Instant now) {
+        Instant lockedUntil = now.plusMillis(properties.getLockAtMostForMs());
+        Integer updated = transaction.execute(status -> lockRepository.acquire(jobName, node, now, lockedUntil));
+        if (updated != null && updated > 0) {
+            return true;
+        }
+        try {
+            // first run of the job in this database
+            return Boolean.TRUE.equals(transaction.execute(status -> {
+                if (lockRepository.existsById(jobName)) {
+                    return false;
+                }
+                lockRepository.saveAndFlush(new JobLock(jobName, lockedUntil, now, node));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void release(String jobName, Instant lockedAt) {
+        Instant earliestRelease = lockedAt.plusMillis(properties.getLockAtLeastForMs());
+        Instant now = Instant.now();
+        Instant lockedUntil = now.isAfter(earliestRelease) ? now : earliestRelease;
+        try {
+            transaction.executeWithoutResult(status -> lockRepository.release(jobName, node, lockedAt, lockedUntil));
+        } catch (RuntimeException e) {
+            // the lease runs out on its own
+            log.warn("Failed to release the lock of job {}", jobName, e);
+        }
+    }
+
+    private void execute(String jobName, Runnable job, Instant startedAt) {
+        long start = System.nanoTime();
+        JobRun.Status status = JobRun.Status.SUCCEEDED;
+        String error = null;
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            status = JobRun.Status.FAILED;
+            error = e.toString();
+            log.error("Scheduled job {} failed", jobName, e);
+        }
+        long durationNanos = System.nanoTime() - start;
+
+        meterRegistry.timer("pki.job.duration", "job", jobName, "status", status.name())
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        JobRun run = JobRun.builder()
+                .jobName(jobName)
+                .node(node)
+                .startedAt(startedAt)
+                .finishedAt(startedAt.plusNanos(durationNanos))
+                .durationMs(Duration.ofNanos(durationNanos).toMillis())
+                .status(status)
+                .error(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error)
+                .build();
+        try {
+            transaction.executeWithoutResult(s -> runRepository.save(run));
+        } catch (RuntimeException e) {
+            log.warn("Failed to record a run of job {}", jobName, e);
+        }
+    }
+
+    private void skip(String jobName, String reason) {
+        meterRegistry.counter("pki.job.skipped", "job", jobName).increment();
+        log.debug("Skipped job {}, {}", jobName, reason);
+    }
+}
@@ -0,0 +1,63 @@
+package com.team20.pki.authentication.repository;
+
+import com.team20.pki.authentication.model.RefreshToken;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.profiles.active=test")
+class RefreshTokenRepositoryTest {
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(User.builder()
+                .email("user-" + UUID.randomUUID() + "@refresh.example.com")
+                .password("unused")
+                .firstName("Refresh")
+                .lastName("User")
+                .organization("Refresh Org")
+                .role(User.Role.REGULAR_USER)
+                .build());
+    }
+
+    @Test
+    void findsSessionsWithoutActiveTokenByExpirationAndByRevocation() {
+        Instant past = Instant.now().minus(Duration.ofHours(1));
+        Instant future = Instant.now().plus(Duration.ofHours(1));
+        // rotated, so the session is still active
+        save("active", past, false);
+        save("active", future, false);
+        save("expired", past, false);
+        save("revoked", future, true);
+        save("expired-and-revoked", past, false);
+        save("expired-and-revoked", future, true);
+
+        assertEquals(Set.of("expired", "expired-and-revoked"),
+                Set.copyOf(refreshTokenRepository.findExpiredSessionIds(Limit.of(10))));
+        assertEquals(Set.of("revoked", "expired-and-revoked"),
+                Set.copyOf(refreshTokenRepository.findRevokedSessionIds(Limit.of(10))));
+    }
+
+    private void save(String sessionId, Instant expirationTime, boolean revoked) {
+        refreshTokenRepository.save(new RefreshToken(null, UUID.randomUUID().toString().replace("-", ""),
+                sessionId, expirationTime, revoked, user));
+    }
+}
@@ -0,0 +1,112 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.PkiApplication;
+import com.team20.pki.authentication.dto.BulkInviteResponseDto;
+import com.team20.pki.authentication.dto.BulkInviteRowResultDto;
+import com.team20.pki.authentication.dto.BulkInviteRowResultDto.Status;
+import com.team20.pki.authentication.dto.InviteRequestDto;
+import com.team20.pki.authentication.repository.RegisterRequestRepository;
+import com.team20.pki.authentication.service.util.InviteCsvParser;
+import com.team20.pki.email.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// named explicitly, since this package also holds the minimal configuration of PasswordHashingLoadTest
+@SpringBootTest(classes = PkiApplication.class, properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:bulk-invite;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        "crl.publisher-enabled=false",
+        "auth.bulk-invite-chunk-size=2",
+        "auth.secret-key=" + BulkInviteServiceTest.SECRET,
+        "auth.hmac-secret-key=" + BulkInviteServiceTest.SECRET,
+        "secret.master-key=" + BulkInviteServiceTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused"
+})
+class BulkInviteServiceTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Autowired
+    private BulkInviteService bulkInviteService;
+
+    @Autowired
+    private RegisterRequestRepository registerRequestRepository;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @DynamicPropertySource
+    static void keyStorePaths(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-bulk-invite");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+    }
+
+    @Test
+    void rowThatCannotBeSavedFailsOnlyItself() {
+        long requestsBefore = registerRequestRepository.count();
+        long emailsBefore = outboxRepository.count();
+
+        // the second row of the first chunk is longer than its column
+        BulkInviteResponseDto response = bulkInviteService.inviteCaUsers(List.of(
+                new InviteRequestDto("first@bulk.example.com", "First", "User", "Team 20"),
+                new InviteRequestDto("second@bulk.example.com", "Second", "User", "T".repeat(300)),
+                new InviteRequestDto("third@bulk.example.com", "Third", "User", "Team 20")
+        ));
+
+        assertEquals(List.of(Status.INVITED, Status.FAILED, Status.INVITED), statuses(response));
+        assertEquals(2, response.getInvited());
+        assertEquals(1, response.getRejected());
+        assertEquals(2, response.getResults().get(1).getRow());
+        assertNotNull(response.getResults().get(1).getError());
+        // the failed row left neither a request nor an email behind
+        assertEquals(requestsBefore + 2, registerRequestRepository.count());
+        assertEquals(emailsBefore + 2, outboxRepository.count());
+    }
+
+    @Test
+    void reportsCsvRowsByLineWithTheirOwnErrors() {
+        BulkInviteResponseDto response = bulkInviteService.inviteCaUserRows(InviteCsvParser.parse("""
+                email,firstName,lastName,organization
+                csv-first@bulk.example.com,First,User,Team 20
+                csv-second@bulk.example.com,Second,User,Team 20,Security
+                not-an-email,Third,User,Team 20
+                csv-first@bulk.example.com,First,Again,Team 20
+                """));
+
+        List<BulkInviteRowResultDto> results = response.getResults();
+        assertEquals(List.of(Status.INVITED, Status.INVALID, Status.INVALID, Status.DUPLICATE), statuses(response));
+        assertEquals(List.of(2, 3, 4, 5), results.stream().map(BulkInviteRowResultDto::getRow).toList());
+        assertEquals("Row has 5 fields, but the header has 4", results.get(1).getError());
+        assertEquals("Email must be valid", results.get(2).getError());
+    }
+
+    private static List<Status> statuses(BulkInviteResponseDto response) {
+        return response.getResults().stream().map(BulkInviteRowResultDto::getStatus).toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.config.properties.PasswordHashingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+    private final List<String> hashingThreads = new ArrayList<>();
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(
+            new RecordingPasswordEncoder(), new PasswordHashingProperties(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void pooledEncoderHashesAndVerifiesOnPool() {
+        PasswordEncoder encoder = executor.pooledEncoder();
+
+        String hash = encoder.encode("password");
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        assertEquals(3, hashingThreads.size());
+        assertTrue(hashingThreads.stream().allMatch(thread -> thread.startsWith("password-hashing-")), hashingThreads::toString);
+    }
+
+    @Test
+    void pooledEncoderChecksStrengthOnCallingThread() {
+        assertTrue(executor.pooledEncoder().upgradeEncoding("hash:password"));
+
+        assertTrue(hashingThreads.isEmpty());
+    }
+
+    private final class RecordingPasswordEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            record();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            record();
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return true;
+        }
+
+        private void record() {
+            synchronized (hashingThreads) {
+                hashingThreads.add(Thread.currentThread().getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.common.exception.handler.CustomExceptionHandler;
+import com.team20.pki.config.properties.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Floods a login endpoint backed by {@link PasswordHashingExecutor} on a servlet container with few
+ * request threads, and checks that excess logins are rejected with 429 while an endpoint without
+ * password hashing keeps answering.
+ */
+@SpringBootTest(
+        classes = PasswordHashingLoadTest.TestApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.profiles.active=test",
+                "server.ssl.enabled=false",
+                "logging.level.org.springframework.web=INFO",
+                "logging.level.com.team20.pki=ERROR",
+                "server.tomcat.threads.max=16",
+                "auth.password-hashing.bcrypt-strength=10",
+                "auth.password-hashing.threads=1",
+                "auth.password-hashing.queue-capacity=4",
+                "auth.password-hashing.max-wait-ms=2000"
+        }
+)
+class PasswordHashingLoadTest {
+    private static final int LOGIN_CLIENTS = 32;
+    private static final Duration FLOOD_DURATION = Duration.ofSeconds(4);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void nonAuthEndpointsStayResponsiveDuringLoginFlood() throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService loginClients = Executors.newFixedThreadPool(LOGIN_CLIENTS);
+        for (int i = 0; i < LOGIN_CLIENTS; i++) {
+            loginClients.submit(() -> {
+                while (flooding.get()) {
+                    int status = client.send(request("/login").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                            HttpResponse.BodyHandlers.discarding()).statusCode();
+                    switch (status) {
+                        case 200 -> accepted.incrementAndGet();
+                        case 429 -> rejected.incrementAndGet();
+                        default -> failed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        Thread.sleep(500);
+        int pings = 0;
+        final long end = System.nanoTime() + FLOOD_DURATION.toNanos();
+        while (System.nanoTime() < end) {
+            HttpResponse<String> response = client.send(request("/ping").GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("pong", response.body());
+            pings++;
+            Thread.sleep(20);
+        }
+
+        flooding.set(false);
+        loginClients.shutdown();
+        assertTrue(loginClients.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(pings > 0);
+        assertEquals(0, failed.get(), "logins should either be served or rejected with 429");
+        assertTrue(accepted.get() > 0, "some logins should be served");
+        assertTrue(rejected.get() > 0, "excess logins should be rejected with 429");
+        assertEquals(rejected.get(), meterRegistry.counter("pki.password.hashing.rejected").count());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(10));
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @EnableConfigurationProperties(PasswordHashingProperties.class)
+    @Import({PasswordHashingExecutor.class, CustomExceptionHandler.class, TestController.class})
+    static class TestApplication {
+        @Bean
+        PasswordEncoder passwordEncoder(PasswordHashingProperties config) {
+            return new BCryptPasswordEncoder(config.getBcryptStrength());
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @RestController
+    static class TestController {
+        private final PasswordHashingExecutor passwordHashingExecutor;
+        private final PasswordEncoder passwordEncoder;
+        private final String storedHash;
+
+        TestController(PasswordHashingExecutor passwordHashingExecutor, PasswordEncoder passwordEncoder) {
+            this.passwordHashingExecutor = passwordHashingExecutor;
+            this.passwordEncoder = passwordEncoder;
+            this.storedHash = passwordEncoder.encode("password");
+        }
+
+        @PostMapping("/login")
+        boolean login() {
+            return passwordHashingExecutor.execute(() -> passwordEncoder.matches("password", storedHash));
+        }
+
+        @GetMapping("/ping")
+        String ping() {
+            return "pong";
+        }
+    }
+}
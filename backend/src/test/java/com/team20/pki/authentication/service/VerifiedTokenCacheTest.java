@@ -0,0 +1,117 @@
+package com.team20.pki.authentication.service;
+
+import com.team20.pki.authentication.model.UserDetailsImpl;
+import com.team20.pki.common.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final Map<String, Integer> verifications = new HashMap<>();
+
+    @Test
+    void verifiesTokenOnceWhileCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        Function<String, VerifiedTokenCache.VerifiedToken> verifier = verifierExpiringIn(Duration.ofMinutes(5));
+
+        UserDetailsImpl first = cache.getOrVerify("token", verifier);
+        UserDetailsImpl second = cache.getOrVerify("token", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get("token"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void verifiesAgainOnceTokenExpired() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        cache.getOrVerify("token", verifierExpiringIn(Duration.ofMinutes(5)));
+
+        clock.advance(Duration.ofMinutes(6));
+        cache.getOrVerify("token", verifierExpiringIn(Duration.ofMinutes(5)));
+
+        assertEquals(2, verifications.get("token"));
+    }
+
+    @Test
+    void doesNotCacheInvalidOrExpiredTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+
+        assertNull(cache.getOrVerify("invalid", token -> null));
+        assertNotNull(cache.getOrVerify("expired", verifierExpiringIn(Duration.ofMinutes(-1))));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void keepsCachingNewTokensWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(4, clock);
+        Function<String, VerifiedTokenCache.VerifiedToken> verifier = verifierExpiringIn(Duration.ofMinutes(5));
+        for (int i = 0; i < 100; i++) {
+            cache.getOrVerify("token-" + i, verifier);
+        }
+
+        cache.getOrVerify("token-99", verifier);
+
+        assertEquals(4, cache.size());
+        assertEquals(1, verifications.get("token-99"));
+    }
+
+    @Test
+    void verifiesEveryTimeWhenCachingIsDisabled() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, clock);
+        Function<String, VerifiedTokenCache.VerifiedToken> verifier = verifierExpiringIn(Duration.ofMinutes(5));
+
+        cache.getOrVerify("token", verifier);
+        cache.getOrVerify("token", verifier);
+
+        assertEquals(2, verifications.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    private Function<String, VerifiedTokenCache.VerifiedToken> verifierExpiringIn(Duration validity) {
+        return token -> {
+            verifications.merge(token, 1, Integer::sum);
+            UserDetailsImpl userDetails = new UserDetailsImpl(UUID.randomUUID(), token, User.Role.REGULAR_USER);
+            return new VerifiedTokenCache.VerifiedToken(userDetails, clock.instant().plus(validity));
+        };
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
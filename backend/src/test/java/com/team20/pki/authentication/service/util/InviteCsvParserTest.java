@@ -0,0 +1,92 @@
+package com.team20.pki.authentication.service.util;
+
+import com.team20.pki.authentication.dto.BulkInviteRowDto;
+import com.team20.pki.authentication.dto.InviteRequestDto;
+import com.team20.pki.common.exception.InvalidRequestError;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InviteCsvParserTest {
+
+    @Test
+    void readsColumnsByHeaderInAnyOrderAndCase() {
+        List<BulkInviteRowDto> rows = InviteCsvParser.parse("""
+                Organization, LASTNAME ,email,firstname,department
+                Team 20,Doe,jane@example.com,Jane,Security
+                """);
+
+        assertEquals(1, rows.size());
+        assertEquals(new InviteRequestDto("jane@example.com", "Jane", "Doe", "Team 20"), rows.getFirst().getInvite());
+        assertNull(rows.getFirst().getError());
+    }
+
+    @Test
+    void rejectsHeaderWithMissingColumn() {
+        InvalidRequestError error = assertThrows(InvalidRequestError.class,
+                () -> InviteCsvParser.parse("email,firstName,lastName\njane@example.com,Jane,Doe\n"));
+
+        assertTrue(error.getMessage().contains("organization"));
+    }
+
+    @Test
+    void rejectsEmptyCsv() {
+        assertThrows(InvalidRequestError.class, () -> InviteCsvParser.parse("\r\n  \r\n"));
+    }
+
+    @Test
+    void skipsByteOrderMark() {
+        List<BulkInviteRowDto> rows = InviteCsvParser.parse("﻿email,firstName,lastName,organization\r\n"
+                + "jane@example.com,Jane,Doe,Team 20\r\n");
+
+        assertEquals("jane@example.com", rows.getFirst().getInvite().getEmail());
+    }
+
+    @Test
+    void unquotesFields() {
+        List<BulkInviteRowDto> rows = InviteCsvParser.parse("""
+                email,firstName,lastName,organization
+                "jane@example.com","Jane","Doe","Team 20, ""Security"" department"
+                """);
+
+        assertEquals("Team 20, \"Security\" department", rows.getFirst().getInvite().getOrganization());
+    }
+
+    @Test
+    void numbersRowsByTheLineTheyStartOn() {
+        List<BulkInviteRowDto> rows = InviteCsvParser.parse("""
+                email,firstName,lastName,organization
+                jane@example.com,Jane,Doe,"Team 20
+                Security"
+
+                john@example.com,John,Doe,Team 20
+                """);
+
+        assertEquals(2, rows.size());
+        assertEquals(2, rows.get(0).getRow());
+        assertEquals("Team 20\nSecurity", rows.get(0).getInvite().getOrganization());
+        assertEquals(5, rows.get(1).getRow());
+    }
+
+    @Test
+    void reportsRowWithTooManyFieldsWithoutFailingOthers() {
+        List<BulkInviteRowDto> rows = InviteCsvParser.parse("""
+                email,firstName,lastName,organization
+                jane@example.com,Jane,Doe,Team 20, Security
+                john@example.com,John,Doe
+                """);
+
+        assertNull(rows.get(0).getInvite());
+        assertEquals("Row has 5 fields, but the header has 4", rows.get(0).getError());
+        // missing trailing fields are left to validation
+        assertEquals(new InviteRequestDto("john@example.com", "John", "Doe", null), rows.get(1).getInvite());
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() {
+        assertThrows(InvalidRequestError.class,
+                () -> InviteCsvParser.parse("email,firstName,lastName,organization\n\"jane@example.com,Jane,Doe,Team 20\n"));
+    }
+}
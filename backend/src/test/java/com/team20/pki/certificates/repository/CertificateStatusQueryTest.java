@@ -0,0 +1,100 @@
+package com.team20.pki.certificates.repository;
+
+import com.team20.pki.certificates.dto.CertificateStatusDto;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Issuer;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.repository.ICertificateRepository.CertificateWithStatus;
+import com.team20.pki.certificates.repository.ICertificateRepository.StatusCount;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.profiles.active=test")
+class CertificateStatusQueryTest {
+    @Autowired
+    private ICertificateRepository certificateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void createCertificates() {
+        owner = userRepository.save(User.builder()
+                .email("owner-" + UUID.randomUUID() + "@status.example.com")
+                .password("unused")
+                .firstName("Status")
+                .lastName("Owner")
+                .organization("Status Org")
+                .role(User.Role.REGULAR_USER)
+                .build());
+        save("active", today.minusDays(10), today.plusDays(10), false);
+        save("last-day", today.minusDays(10), today, false);
+        save("expired", today.minusDays(10), today.minusDays(1), false);
+        save("future", today.plusDays(1), today.plusDays(10), false);
+        save("revoked", today.minusDays(10), today.plusDays(10), true);
+        save("revoked-expired", today.minusDays(10), today.minusDays(1), true);
+    }
+
+    @Test
+    void computesStatusOfEveryCertificate() {
+        Map<String, CertificateStatusDto> statuses = certificateRepository.findWithStatusByOwnerId(owner.getId(), null).stream()
+                .collect(Collectors.toMap(row -> row.getCertificate().getSerialNumber(), CertificateWithStatus::getStatus));
+
+        assertEquals(Map.of(
+                serial("active"), CertificateStatusDto.ACTIVE,
+                serial("last-day"), CertificateStatusDto.ACTIVE,
+                serial("expired"), CertificateStatusDto.EXPIRED,
+                serial("future"), CertificateStatusDto.NOT_YET_VALID,
+                serial("revoked"), CertificateStatusDto.REVOKED,
+                serial("revoked-expired"), CertificateStatusDto.REVOKED), statuses);
+    }
+
+    @Test
+    void filtersByStatus() {
+        for (CertificateStatusDto status : CertificateStatusDto.values()) {
+            List<CertificateWithStatus> rows = certificateRepository.findWithStatusByOwnerId(owner.getId(), status);
+            assertFalse(rows.isEmpty(), status.name());
+            rows.forEach(row -> assertEquals(status, row.getStatus()));
+        }
+        assertEquals(2, certificateRepository.findWithStatusByOwnerId(owner.getId(), CertificateStatusDto.REVOKED).size());
+    }
+
+    @Test
+    void countsByStatus() {
+        Map<CertificateStatusDto, Long> counts = certificateRepository.countByStatus().stream()
+                .collect(Collectors.toMap(StatusCount::getStatus, StatusCount::getCount));
+
+        assertEquals(2, counts.get(CertificateStatusDto.ACTIVE));
+        assertEquals(1, counts.get(CertificateStatusDto.EXPIRED));
+        assertEquals(1, counts.get(CertificateStatusDto.NOT_YET_VALID));
+        assertEquals(2, counts.get(CertificateStatusDto.REVOKED));
+    }
+
+    private void save(String name, LocalDate validFrom, LocalDate validTo, boolean revoked) {
+        Certificate certificate = new Certificate(null, CertificateType.ROOT, serial(name), validFrom, validTo, null,
+                new Issuer("CN=" + name + ",O=Status Org"), new Subject("CN=" + name + ",O=Status Org"), owner,
+                revoked, revoked ? Instant.now() : null, revoked ? 1 : null, 0L, 0L, null, false);
+        certificateRepository.save(certificate);
+    }
+
+    private String serial(String name) {
+        return owner.getId() + "-" + name;
+    }
+}
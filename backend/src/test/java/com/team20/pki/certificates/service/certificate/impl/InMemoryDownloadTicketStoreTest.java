@@ -0,0 +1,101 @@
+package com.team20.pki.certificates.service.certificate.impl;
+
+import com.team20.pki.certificates.model.DownloadTicket;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.config.properties.DownloadTicketProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDownloadTicketStoreTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final DownloadTicketProperties properties = new DownloadTicketProperties();
+
+    @Test
+    void redeemsTicketOnlyOnce() {
+        InMemoryDownloadTicketStore store = new InMemoryDownloadTicketStore(properties, clock);
+        UUID certificateId = UUID.randomUUID();
+        DownloadTicket ticket = store.issue(certificateId, "encrypted", clock.instant().plus(Duration.ofMinutes(5)));
+
+        DownloadTicket redeemed = store.redeem(ticket.id()).orElseThrow();
+
+        assertEquals(certificateId, redeemed.certificateId());
+        assertEquals("encrypted", redeemed.password());
+        assertTrue(store.redeem(ticket.id()).isEmpty());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void rejectsAndSweepsExpiredTickets() {
+        properties.setWheelSlots(4);
+        InMemoryDownloadTicketStore store = new InMemoryDownloadTicketStore(properties, clock);
+        // expires three turns of the wheel later, so its slot is swept twice before it expires
+        DownloadTicket later = store.issue(UUID.randomUUID(), "later", clock.instant().plus(Duration.ofSeconds(13)));
+        DownloadTicket expired = store.issue(UUID.randomUUID(), "soon", clock.instant().plus(Duration.ofSeconds(1)));
+
+        clock.advance(Duration.ofSeconds(2));
+        assertTrue(store.redeem(expired.id()).isEmpty());
+        for (int i = 0; i < 10; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            store.sweep();
+        }
+        assertEquals(1, store.size());
+        assertTrue(store.redeem(later.id()).isPresent());
+
+        DownloadTicket swept = store.issue(UUID.randomUUID(), "swept", clock.instant().plus(Duration.ofSeconds(1)));
+        // a pause longer than a turn of the wheel
+        clock.advance(Duration.ofMinutes(10));
+        store.sweep();
+        assertEquals(0, store.size());
+        assertTrue(store.redeem(swept.id()).isEmpty());
+    }
+
+    @Test
+    void refusesTicketsOverLimit() {
+        properties.setMaxTickets(2);
+        InMemoryDownloadTicketStore store = new InMemoryDownloadTicketStore(properties, clock);
+        Instant expiration = clock.instant().plus(Duration.ofSeconds(5));
+        store.issue(UUID.randomUUID(), "first", expiration);
+        store.issue(UUID.randomUUID(), "second", expiration);
+
+        assertThrows(ServerError.class, () -> store.issue(UUID.randomUUID(), "third", expiration));
+
+        // expired tickets are swept before the limit is checked
+        clock.advance(Duration.ofSeconds(6));
+        assertDoesNotThrow(() -> store.issue(UUID.randomUUID(), "third", clock.instant().plus(Duration.ofSeconds(5))));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import com.team20.pki.certificates.dto.CaSignSubjectDataDTO;
+import com.team20.pki.certificates.dto.CertificateTreeNodeResponseDto;
+import com.team20.pki.certificates.dto.SelfSignSubjectDataDTO;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.ICertificateService;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
+import com.team20.pki.revocation.service.IRevocationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:tree-counter;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        "crl.publisher-enabled=false",
+        "auth.secret-key=" + CertificateTreeCounterTest.SECRET,
+        "auth.hmac-secret-key=" + CertificateTreeCounterTest.SECRET,
+        "secret.master-key=" + CertificateTreeCounterTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused"
+})
+class CertificateTreeCounterTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Autowired
+    private ICertificateService certificateService;
+
+    @Autowired
+    private IRevocationService revocationService;
+
+    @Autowired
+    private ICertificateRepository certificateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void keyStorePaths(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-tree-counter");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+    }
+
+    @Test
+    // one persistence context for the whole test, so entities read back are the ones the bulk updates bypassed
+    @Transactional
+    void countsIssuedAndRevokedDescendantsWithinOneTransaction() throws Exception {
+        UUID rootId = issueRoot();
+        UUID intermediateId = issueCaSigned(rootId, User.Role.CA_USER);
+        issueCaSigned(intermediateId, User.Role.REGULAR_USER);
+        issueCaSigned(intermediateId, User.Role.REGULAR_USER);
+        issueCaSigned(rootId, User.Role.REGULAR_USER);
+
+        assertCounts(rootId, 4, 0);
+        assertCounts(intermediateId, 2, 0);
+
+        // revokes both end entities below it as well
+        revocationService.revokeCertificate(intermediateId, new RevokeCertificateRequestDTO(1));
+
+        assertCounts(rootId, 4, 3);
+        assertCounts(intermediateId, 2, 2);
+
+        issueCaSigned(rootId, User.Role.REGULAR_USER);
+
+        assertCounts(rootId, 5, 3);
+    }
+
+    @Test
+    void countsOnlyListedDescendantsOfChildNodes() throws Exception {
+        UUID rootId = issueRoot();
+        UUID intermediateId = issueCaSigned(rootId, User.Role.CA_USER);
+        UUID revokedId = issueCaSigned(intermediateId, User.Role.CA_USER);
+        issueCaSigned(revokedId, User.Role.REGULAR_USER);
+        issueCaSigned(intermediateId, User.Role.REGULAR_USER);
+        revocationService.revokeCertificate(revokedId, new RevokeCertificateRequestDTO(1));
+
+        List<CertificateTreeNodeResponseDto> children = certificateService.getChildNodes(rootId);
+
+        assertEquals(1, children.size());
+        // the revoked intermediate and the end entity below it are not listed when expanding
+        assertEquals(1, children.getFirst().getDescendantCount());
+        assertEquals(2, children.getFirst().getRevokedDescendantCount());
+        assertEquals(1, certificateService.getChildNodes(intermediateId).size());
+    }
+
+    @Test
+    void backfillsMissingCountsOfChildNodes() throws Exception {
+        UUID rootId = issueRoot();
+        UUID intermediateId = issueCaSigned(rootId, User.Role.CA_USER);
+        issueCaSigned(intermediateId, User.Role.REGULAR_USER);
+        issueCaSigned(intermediateId, User.Role.REGULAR_USER);
+        jdbcTemplate.update("update certificates set descendant_count = null, revoked_descendant_count = null where id = ?",
+                intermediateId);
+
+        List<CertificateTreeNodeResponseDto> children = certificateService.getChildNodes(rootId);
+
+        assertEquals(2, children.getFirst().getDescendantCount());
+        assertCounts(intermediateId, 2, 0);
+    }
+
+    private void assertCounts(UUID certificateId, long descendants, long revokedDescendants) {
+        Certificate certificate = certificateRepository.findById(certificateId).orElseThrow();
+        assertEquals(descendants, certificate.getDescendantCount(), "descendants");
+        assertEquals(revokedDescendants, certificate.getRevokedDescendantCount(), "revoked descendants");
+    }
+
+    private UUID issueRoot() throws Exception {
+        User owner = createUser(User.Role.CA_USER);
+        LocalDateTime now = LocalDateTime.now();
+        return certificateService.generateSelfSignedCertificate(new SelfSignSubjectDataDTO(owner.getId(),
+                "Counter Root " + UUID.randomUUID(), "Counter Org", null, "RS", null, null, null,
+                now.toString(), now.plusYears(1).toString(),
+                null, null, null, null, null, null, null, null)).getCertificateId();
+    }
+
+    private UUID issueCaSigned(UUID caId, User.Role role) throws Exception {
+        return certificateService.generateCaSignedCertificate(new CaSignSubjectDataDTO(caId,
+                createUser(role).getId(), "counter-user", "Counter Org", null, "RS", null, null, null, 180,
+                null, null, null, null, null, null, null, null, null, List.of("digitalSignature"), List.of())).certificateId();
+    }
+
+    private User createUser(User.Role role) {
+        return userRepository.save(User.builder()
+                .email("user-" + UUID.randomUUID() + "@counter.example.com")
+                .password("unused")
+                .firstName("Counter")
+                .lastName("User")
+                .organization("Counter Org")
+                .role(role)
+                .build());
+    }
+}
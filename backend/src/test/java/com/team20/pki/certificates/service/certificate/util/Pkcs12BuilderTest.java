@@ -0,0 +1,86 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.service.certificate.impl.RSAGenerator;
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.config.properties.Pkcs12Properties;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Pkcs12BuilderTest {
+    private static final char[] PASSWORD = "download-password".toCharArray();
+
+    private static KeyPair rootKeyPair;
+    private static X509Certificate rootCertificate;
+    private static KeyPair endEntityKeyPair;
+    private static X509Certificate endEntityCertificate;
+
+    @BeforeAll
+    static void issueChain() throws Exception {
+        CertificateGenerator generator = new CertificateGenerator(
+                new CrlDistributionPoints("http://localhost:8080/api/revocation/crl/", new CrlProperties()));
+        RSAGenerator rsaGenerator = new RSAGenerator();
+        LocalDate validFrom = LocalDate.now().minusDays(1);
+
+        Certificate root = new Certificate();
+        root.setId(UUID.randomUUID());
+        root.setType(CertificateType.ROOT);
+        root.setSubject(new Subject("CN=PKCS12 Root,O=Team20,C=RS"));
+        rootKeyPair = rsaGenerator.generateKeyPair();
+        rootCertificate = generator.generateSelfSignedCertificate(root.getId(), BigInteger.ONE, rootKeyPair, null,
+                validFrom, validFrom.plusYears(1), root.getSubject());
+
+        endEntityKeyPair = rsaGenerator.generateKeyPair();
+        endEntityCertificate = generator.generateCertificate(new Subject("CN=service.example.com,O=Team20,C=RS"),
+                rootKeyPair.getPrivate(), rootKeyPair.getPublic(), root, validFrom, validFrom.plusMonths(1), "2",
+                endEntityKeyPair.getPublic(), CertificateType.END_ENTITY, null,
+                List.of("digitalSignature"), List.of("serverAuth"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "AES_256_CBC, AES_256_CBC, HMAC_SHA256",
+            "AES_256_CBC, NONE, HMAC_SHA256",
+            "DES_EDE3_CBC, DES_EDE3_CBC, HMAC_SHA1"
+    })
+    void buildsFileReadableByKeyStore(Pkcs12Properties.Encryption keyEncryption,
+                                      Pkcs12Properties.Encryption certificateEncryption,
+                                      Pkcs12Properties.Mac mac) throws Exception {
+        Pkcs12Properties properties = new Pkcs12Properties();
+        properties.setKeyEncryption(keyEncryption);
+        properties.setCertificateEncryption(certificateEncryption);
+        properties.setMac(mac);
+        properties.setEncryptionIterations(2048);
+        properties.setMacIterations(2048);
+
+        PKCS12PfxPdu pkcs12 = new Pkcs12Builder(properties).build(endEntityKeyPair.getPrivate(), endEntityCertificate,
+                List.of(new JcaX509CertificateHolder(rootCertificate)), PASSWORD);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        pkcs12.toASN1Structure().encodeTo(encoded, ASN1Encoding.DER);
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(new ByteArrayInputStream(encoded.toByteArray()), PASSWORD);
+        assertEquals(endEntityKeyPair.getPrivate(), keyStore.getKey(Pkcs12Builder.FRIENDLY_NAME, PASSWORD));
+        assertArrayEquals(new X509Certificate[]{endEntityCertificate, rootCertificate},
+                keyStore.getCertificateChain(Pkcs12Builder.FRIENDLY_NAME));
+    }
+}
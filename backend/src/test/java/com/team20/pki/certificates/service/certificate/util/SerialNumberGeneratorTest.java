@@ -0,0 +1,36 @@
+package com.team20.pki.certificates.service.certificate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialNumberGeneratorTest {
+    private static final int SAMPLES = 100_000;
+
+    private final SerialNumberGenerator generator = new SerialNumberGenerator();
+
+    @Test
+    void generatesPositiveSerialNumbersThatFitTheStatusIndex() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigInteger serial = generator.generate();
+            assertEquals(1, serial.signum(), serial::toString);
+            assertTrue(serial.bitLength() < Long.SIZE, serial::toString);
+            assertEquals(serial, BigInteger.valueOf(Long.parseLong(serial.toString())));
+            // RFC 5280 limits serial numbers to 20 octets
+            assertTrue(serial.toByteArray().length <= 20, serial::toString);
+        }
+    }
+
+    @Test
+    void generatesUniqueSerialNumbersInTightLoop() {
+        // the millisecond serials this replaced collided as soon as two were generated in the same millisecond
+        Set<BigInteger> serials = new HashSet<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(serials.add(generator.generate()), "duplicate serial number after " + i + " samples");
+        }
+    }
+}
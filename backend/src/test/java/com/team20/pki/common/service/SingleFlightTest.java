@@ -0,0 +1,94 @@
+package com.team20.pki.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int THREADS = 500;
+
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+
+    @Test
+    void coalescesConcurrentLoadsOfOneKey() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Object>> results = hammer(() -> singleFlight.load("ca", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return new Object();
+        }), release);
+
+        Object first = results.getFirst().get();
+        for (Future<Object> result : results) {
+            assertSame(first, result.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void sharesFailureWithAllWaiters() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Object>> results = hammer(() -> singleFlight.load("ca", () -> {
+            loads.incrementAndGet();
+            release.await();
+            throw new IOException("keystore unreadable");
+        }), release);
+
+        for (Future<Object> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadsAgainOnceFinished() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load("ca", loads::incrementAndGet);
+        singleFlight.load("ca", loads::incrementAndGet);
+        singleFlight.load("other", loads::incrementAndGet);
+
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Starts all callers, waits until they are blocked on the load, and then releases it.
+     */
+    private List<Future<Object>> hammer(Callable<Object> call, CountDownLatch release) throws Exception {
+        CountDownLatch started = new CountDownLatch(THREADS);
+        List<Future<Object>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return call.call();
+                }));
+            }
+            started.await();
+            // lets callers that counted down reach the flight before the load completes
+            while (singleFlight.inFlight() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(200);
+            release.countDown();
+        }
+        return results;
+    }
+}
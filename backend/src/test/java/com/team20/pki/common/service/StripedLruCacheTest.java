@@ -0,0 +1,51 @@
+package com.team20.pki.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryOfStripe() {
+        StripedLruCache<String, Integer> cache = new StripedLruCache<>(2, 1);
+        cache.put("first", 1);
+        cache.put("second", 2);
+        // used again, so "second" is now the least recently used
+        cache.get("first");
+
+        cache.put("third", 3);
+
+        assertEquals(1, cache.get("first"));
+        assertNull(cache.get("second"));
+        assertEquals(3, cache.get("third"));
+    }
+
+    @Test
+    void neverHoldsMoreThanMaxSize() {
+        StripedLruCache<Integer, Integer> cache = new StripedLruCache<>(20);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 20);
+        assertEquals(999, cache.get(999));
+    }
+
+    @Test
+    void removesOnlyMatchingValue() {
+        StripedLruCache<String, Integer> cache = new StripedLruCache<>(10);
+        cache.put("key", 2);
+
+        cache.remove("key", 1);
+        assertEquals(2, cache.get("key"));
+
+        cache.remove("key", 2);
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void rejectsNonPositiveMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLruCache<>(0));
+    }
+}
@@ -0,0 +1,134 @@
+package com.team20.pki.email.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.team20.pki.config.JavaMailSenderConfig;
+import com.team20.pki.email.model.OutboxEmail;
+import com.team20.pki.email.repository.EmailOutboxRepository;
+import com.team20.pki.email.service.infra.JavaMailSenderService;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.profiles.active=test",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=pki",
+        "spring.mail.password=secret",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "email.outbox.batch-size=5",
+        "email.outbox.max-attempts=2",
+        "email.outbox.initial-backoff-ms=1"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+@Import({EmailOutboxDispatcher.class, JavaMailSenderService.class, JavaMailSenderConfig.class})
+class EmailOutboxDispatcherTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("pki", "secret"));
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendsDueEmailsInBatchesAndRemovesThem() throws Exception {
+        outboxRepository.saveAll(IntStream.range(0, 7).mapToObj(i -> email("user" + i + "@example.com")).toList());
+
+        assertEquals(5, dispatcher.dispatchBatch());
+        assertEquals(2, dispatcher.dispatchBatch());
+        assertEquals(0, dispatcher.dispatchBatch());
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(7, received.length);
+        assertEquals("Subject", received[0].getSubject());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void retriesWithBackoffAndGivesUpAfterMaxAttempts() throws Exception {
+        greenMail.stop();
+        OutboxEmail saved = outboxRepository.save(email("user@example.com"));
+
+        assertEquals(1, dispatcher.dispatchBatch());
+        OutboxEmail retried = outboxRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(OutboxEmail.Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertNotNull(retried.getLastError());
+
+        Thread.sleep(10);
+        assertEquals(1, dispatcher.dispatchBatch());
+        OutboxEmail failed = outboxRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(OutboxEmail.Status.FAILED, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertEquals(OutboxEmail.REDACTED_BODY, failed.getBody());
+        assertEquals(0, dispatcher.dispatchBatch());
+    }
+
+    @Test
+    void findsOnlyFailedEmailsOlderThanCutoffForPurge() {
+        final Instant now = Instant.now();
+        OutboxEmail oldFailed = email("old-failed@example.com");
+        oldFailed.setStatus(OutboxEmail.Status.FAILED);
+        oldFailed.setCreatedAt(now.minusSeconds(3600));
+        OutboxEmail newFailed = email("new-failed@example.com");
+        newFailed.setStatus(OutboxEmail.Status.FAILED);
+        OutboxEmail oldPending = email("old-pending@example.com");
+        oldPending.setCreatedAt(now.minusSeconds(3600));
+        outboxRepository.saveAll(List.of(oldFailed, newFailed, oldPending));
+
+        assertEquals(List.of(oldFailed.getId()),
+                outboxRepository.findFailedIdsCreatedBefore(now.minusSeconds(60), Limit.of(10)));
+    }
+
+    @Test
+    void doesNotSendEmailsThatAreNotDueYet() {
+        OutboxEmail email = email("user@example.com");
+        email.setNextAttemptAt(Instant.now().plusSeconds(60));
+        outboxRepository.save(email);
+
+        assertEquals(0, dispatcher.dispatchBatch());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(List.of(email.getId()), outboxRepository.findAll().stream().map(OutboxEmail::getId).toList());
+    }
+
+    private static OutboxEmail email(String recipient) {
+        final Instant now = Instant.now();
+        return OutboxEmail.builder()
+                .recipientEmail(recipient)
+                .subject("Subject")
+                .body("<p>Body</p>")
+                .status(OutboxEmail.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.team20.pki.metrics.jfr;
+
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.service.certificate.impl.RSAGenerator;
+import com.team20.pki.encryption.exception.EncryptionError;
+import com.team20.pki.encryption.service.impl.DefaultEncryptionService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.naming.InvalidNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PkiEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bundledProfileEnablesEveryEvent() throws Exception {
+        Configuration configuration = Configuration.create(Path.of("src/main/resources/jfr/pki.jfc"));
+
+        for (String event : List.of("KeyGeneration", "CertificateSigning", "CrlSigning", "KeyStore", "Encryption", "DnParsing")) {
+            assertEquals("true", configuration.getSettings().get("com.team20.pki." + event + "#enabled"), event);
+        }
+    }
+
+    @Test
+    void recordsOperationsWithAttributes() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        SecretKey key = keyGenerator.generateKey();
+        DefaultEncryptionService encryptionService = new DefaultEncryptionService(organization -> key);
+        Subject subject = new Subject("CN=service.example.com,O=Team20,C=RS");
+
+        Path dump = tempDir.resolve("pki.jfr");
+        byte[] encrypted;
+        try (Recording recording = new Recording()) {
+            recording.enable(KeyGenerationEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(EncryptionEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(DnParsingEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            new RSAGenerator().generateKeyPair();
+            encrypted = encryptionService.encrypt("password".getBytes(StandardCharsets.UTF_8), "Team20");
+            encryptionService.decrypt(encrypted, "Team20");
+            subject.getOrganization();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        RecordedEvent keyGeneration = single(events, "com.team20.pki.KeyGeneration");
+        assertEquals("RSA", keyGeneration.getString("algorithm"));
+        assertEquals(2048, keyGeneration.getInt("keySize"));
+        assertFalse(keyGeneration.getDuration().isNegative());
+
+        List<RecordedEvent> encryption = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.team20.pki.Encryption"))
+                .toList();
+        assertEquals(2, encryption.size());
+        assertEquals("encrypt", encryption.get(0).getString("operation"));
+        assertEquals(8, encryption.get(0).getLong("inputBytes"));
+        assertEquals(encrypted.length, encryption.get(0).getLong("outputBytes"));
+        assertEquals("decrypt", encryption.get(1).getString("operation"));
+        assertEquals("Team20", encryption.get(1).getString("organization"));
+        assertFalse(encryption.get(1).getBoolean("failed"));
+
+        RecordedEvent dnParsing = single(events, "com.team20.pki.DnParsing");
+        assertEquals("O", dnParsing.getString("attribute"));
+        assertEquals(subject.getDistinguishedName().length(), dnParsing.getInt("length"));
+    }
+
+    @Test
+    void recordsFailedOperations() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        SecretKey key = keyGenerator.generateKey();
+        DefaultEncryptionService encryptionService = new DefaultEncryptionService(organization -> key);
+        byte[] encrypted = encryptionService.encrypt("password".getBytes(StandardCharsets.UTF_8), "Team20");
+        // fails the GCM tag check
+        encrypted[encrypted.length - 1] ^= 1;
+        Subject subject = new Subject("not a distinguished name");
+
+        Path dump = tempDir.resolve("pki-failed.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EncryptionEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(DnParsingEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            assertThrows(EncryptionError.class, () -> encryptionService.decrypt(encrypted, "Team20"));
+            assertThrows(InvalidNameException.class, subject::getOrganization);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        RecordedEvent decryption = single(events, "com.team20.pki.Encryption");
+        assertEquals("decrypt", decryption.getString("operation"));
+        assertTrue(decryption.getBoolean("failed"));
+        assertEquals(0, decryption.getLong("outputBytes"));
+        assertTrue(single(events, "com.team20.pki.DnParsing").getBoolean("failed"));
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
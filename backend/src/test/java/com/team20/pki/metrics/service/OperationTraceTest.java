@@ -0,0 +1,150 @@
+package com.team20.pki.metrics.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationTraceTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OperationMetrics operationMetrics = new OperationMetrics(meterRegistry);
+
+    @Test
+    void recordsStagesOncePerOperationWithTags() throws InterruptedException {
+        try (OperationTrace trace = operationMetrics.start("issuance")) {
+            trace.tag(OperationMetrics.ORGANIZATION, "Org").tag(OperationMetrics.CERTIFICATE_TYPE, "END_ENTITY");
+            trace.stage("password-decrypt", () -> sleep(5));
+            trace.stage("password-decrypt", () -> sleep(5));
+            assertEquals("key", trace.stage("keystore-load", () -> "key"));
+            trace.success();
+        }
+
+        Timer decrypt = meterRegistry.get(OperationMetrics.STAGE_TIMER)
+                .tags("operation", "issuance", "stage", "password-decrypt", "outcome", "success",
+                        "organization", "Org", "type", "END_ENTITY")
+                .timer();
+        assertEquals(1, decrypt.count());
+        assertTrue(decrypt.totalTime(TimeUnit.MILLISECONDS) >= 10);
+        assertEquals(1, meterRegistry.get(OperationMetrics.STAGE_TIMER).tag("stage", "keystore-load").timer().count());
+        assertEquals(1, meterRegistry.get(OperationMetrics.OPERATION_TIMER).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void tagsOrganizationsBeyondLimitAsOther() {
+        for (int i = 0; i <= OperationMetrics.MAX_ORGANIZATIONS; i++) {
+            try (OperationTrace trace = operationMetrics.start("issuance")) {
+                trace.tag(OperationMetrics.ORGANIZATION, "Org " + i);
+                trace.success();
+            }
+        }
+        try (OperationTrace trace = operationMetrics.start("issuance")) {
+            trace.tag(OperationMetrics.ORGANIZATION, "Org 0");
+            trace.success();
+        }
+
+        assertEquals(2, meterRegistry.get(OperationMetrics.OPERATION_TIMER).tag("organization", "Org 0").timer().count());
+        assertEquals(1, meterRegistry.get(OperationMetrics.OPERATION_TIMER)
+                .tag("organization", OperationMetrics.OTHER_ORGANIZATION).timer().count());
+        assertEquals(OperationMetrics.MAX_ORGANIZATIONS + 1, meterRegistry.get(OperationMetrics.OPERATION_TIMER).timers().size());
+    }
+
+    @Test
+    void tagsEveryStageAsFailedWhenOperationThrows() {
+        assertThrows(IllegalStateException.class, () -> {
+            try (OperationTrace trace = operationMetrics.start("revocation")) {
+                trace.stage("jpa-load", () -> "certificate");
+                trace.stage("crl-update", () -> {
+                    throw new IllegalStateException("signing failed");
+                });
+                trace.success();
+            }
+        });
+
+        assertEquals(1, meterRegistry.get(OperationMetrics.STAGE_TIMER)
+                .tags("stage", "jpa-load", "outcome", "failure", "organization", OperationTrace.UNKNOWN).timer().count());
+        assertEquals(1, meterRegistry.get(OperationMetrics.STAGE_TIMER)
+                .tags("stage", "crl-update", "outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get(OperationMetrics.OPERATION_TIMER).tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void succeedsOnlyOnceTransactionCommits() {
+        new TransactionTemplate(new StubTransactionManager(false)).executeWithoutResult(status -> {
+            try (OperationTrace trace = operationMetrics.start("issuance")) {
+                trace.stage("jpa-save", () -> "certificate");
+                trace.success();
+            }
+            assertTrue(meterRegistry.getMeters().isEmpty(), "recorded before commit");
+        });
+
+        assertEquals(1, meterRegistry.get(OperationMetrics.STAGE_TIMER)
+                .tags("stage", "jpa-save", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(OperationMetrics.OPERATION_TIMER).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void failsWhenTransactionDoesNotCommit() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new StubTransactionManager(true));
+
+        assertThrows(TransactionSystemException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            try (OperationTrace trace = operationMetrics.start("revocation")) {
+                trace.stage("jpa-save", () -> "certificate");
+                trace.success();
+            }
+        }));
+
+        assertEquals(1, meterRegistry.get(OperationMetrics.OPERATION_TIMER).tag("outcome", "failure").timer().count());
+        assertTrue(meterRegistry.find(OperationMetrics.OPERATION_TIMER).tag("outcome", "success").timers().isEmpty());
+    }
+
+    @Test
+    void noopTraceRecordsNothing() {
+        try (OperationTrace trace = OperationTrace.noop()) {
+            trace.tag(OperationMetrics.ORGANIZATION, "Org");
+            trace.stage("keystore-load", () -> "key");
+            trace.success();
+        }
+
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    private static final class StubTransactionManager extends AbstractPlatformTransactionManager {
+        private final boolean failCommit;
+
+        StubTransactionManager(boolean failCommit) {
+            this.failCommit = failCommit;
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (failCommit) {
+                throw new TransactionSystemException("commit failed");
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
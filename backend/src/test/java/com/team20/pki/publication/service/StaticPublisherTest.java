@@ -0,0 +1,160 @@
+package com.team20.pki.publication.service;
+
+import com.team20.pki.certificates.dto.SelfSignSubjectDataDTO;
+import com.team20.pki.certificates.service.certificate.ICertificateService;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.service.IRevocationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:static-publisher;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        "publication.enabled=true",
+        "auth.secret-key=" + StaticPublisherTest.SECRET,
+        "auth.hmac-secret-key=" + StaticPublisherTest.SECRET,
+        "secret.master-key=" + StaticPublisherTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused"
+})
+@AutoConfigureMockMvc
+class StaticPublisherTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private static Path publishDirectory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ICertificateService certificateService;
+
+    @Autowired
+    private IRevocationService revocationService;
+
+    @Autowired
+    private CertificateRevocationListRepository crlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-static-publisher");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        publishDirectory = keyStores.resolve("publish");
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+        registry.add("publication.directory", publishDirectory::toString);
+    }
+
+    @Test
+    void publishesCaCertificateAndServesItAsFile() throws Exception {
+        UUID rootId = issueRoot();
+        Path file = publishDirectory.resolve("ca").resolve(rootId + ".crt");
+        await(() -> Files.exists(file));
+
+        byte[] served = mockMvc.perform(get("/pub/ca/{id}.crt", rootId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(served));
+        assertTrue(certificate.getSubjectX500Principal().getName().contains("Static Root"));
+    }
+
+    @Test
+    void republishesCrlAfterRevocationAndAnswersConditionalRequests() throws Exception {
+        UUID rootId = issueRoot();
+        Path file = publishDirectory.resolve("crl").resolve(rootId + ".crl");
+        await(() -> Files.exists(file));
+
+        MvcResult first = mockMvc.perform(get("/api/certificates/revoke/crl/{id}", rootId))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(first.getResponse().getHeader(HttpHeaders.CACHE_CONTROL).contains("max-age=300"));
+        mockMvc.perform(get("/pub/crl/{id}.crl", rootId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        revocationService.revokeCertificate(rootId, new RevokeCertificateRequestDTO(1));
+        byte[] signed = crlRepository.findByCACertificateId(rootId).getRevocationList();
+        await(() -> {
+            try {
+                return Arrays.equals(signed, Files.readAllBytes(file));
+            } catch (IOException e) {
+                return false;
+            }
+        });
+
+        byte[] served = mockMvc.perform(get("/pub/crl/{id}.crl", rootId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(signed, served);
+    }
+
+    private UUID issueRoot() throws Exception {
+        User owner = userRepository.save(User.builder()
+                .email("ca-" + UUID.randomUUID() + "@static.example.com")
+                .password("unused")
+                .firstName("Static")
+                .lastName("User")
+                .organization("Static Org")
+                .role(User.Role.CA_USER)
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        return certificateService.generateSelfSignedCertificate(new SelfSignSubjectDataDTO(owner.getId(),
+                "Static Root " + UUID.randomUUID(), "Static Org", null, "RS", null, null, null,
+                now.toString(), now.plusYears(1).toString(),
+                null, null, null, null, null, null, null, null)).getCertificateId();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "file was not published");
+            Thread.sleep(50);
+        }
+    }
+}
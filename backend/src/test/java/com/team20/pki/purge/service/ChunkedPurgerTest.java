@@ -0,0 +1,151 @@
+package com.team20.pki.purge.service;
+
+import com.team20.pki.config.properties.PurgeConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedPurgerTest {
+    private final PurgeConfigProperties purgeConfig = new PurgeConfigProperties();
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> rows = new ArrayList<>();
+    private final List<Integer> findLimits = new ArrayList<>();
+    private ChunkedPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        purgeConfig.setChunkSize(3);
+        purgeConfig.setPauseMs(0);
+        purger = new ChunkedPurger(purgeConfig, transactionManager, meterRegistry);
+    }
+
+    @Test
+    void purgesInChunksUntilShortChunk() {
+        addRows(7);
+
+        long purged = purger.purge(target(keys -> {
+            rows.removeAll(keys);
+            return keys.size();
+        }));
+
+        assertEquals(7, purged);
+        assertTrue(rows.isEmpty());
+        // the short third chunk ends the run without looking for a fourth
+        assertEquals(List.of(3, 3, 3), findLimits);
+        assertEquals(3, transactionManager.commits);
+        assertEquals(0, transactionManager.rollbacks);
+        assertEquals(7, meterRegistry.counter("pki.purge.rows", "target", "rows").count());
+        assertEquals(3, meterRegistry.counter("pki.purge.chunks", "target", "rows").count());
+    }
+
+    @Test
+    void stopsOnEmptyChunkWhenRowsFillWholeChunks() {
+        addRows(6);
+
+        long purged = purger.purge(target(keys -> {
+            rows.removeAll(keys);
+            return keys.size();
+        }));
+
+        assertEquals(6, purged);
+        assertEquals(3, findLimits.size());
+        assertEquals(2, meterRegistry.counter("pki.purge.chunks", "target", "rows").count());
+    }
+
+    @Test
+    void stopsAtChunkLimitPerRun() {
+        purgeConfig.setMaxChunksPerRun(2);
+        addRows(10);
+
+        long purged = purger.purge(target(keys -> {
+            rows.removeAll(keys);
+            return keys.size();
+        }));
+
+        assertEquals(6, purged);
+        assertEquals(4, rows.size());
+    }
+
+    @Test
+    void runsEveryChunkInItsOwnTransaction() {
+        addRows(5);
+
+        purger.purge(target(keys -> {
+            assertTrue(transactionManager.active, "chunk deleted outside a transaction");
+            rows.removeAll(keys);
+            return keys.size();
+        }));
+
+        assertEquals(2, transactionManager.definitions.size());
+        assertTrue(transactionManager.definitions.stream()
+                .allMatch(definition -> definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void failedChunkRollsBackAloneAndEndsRun() {
+        addRows(7);
+        List<List<Integer>> deleted = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> purger.purge(target(keys -> {
+            if (!deleted.isEmpty()) {
+                throw new IllegalStateException("lock timeout");
+            }
+            deleted.add(keys);
+            rows.removeAll(keys);
+            return keys.size();
+        })));
+
+        assertEquals(1, deleted.size());
+        assertEquals(1, transactionManager.commits);
+        assertEquals(1, transactionManager.rollbacks);
+        assertEquals(3, meterRegistry.counter("pki.purge.rows", "target", "rows").count());
+    }
+
+    private void addRows(int count) {
+        IntStream.range(0, count).forEach(rows::add);
+    }
+
+    private PurgeTarget<Integer> target(PurgeTarget.ChunkDeleter<Integer> deleter) {
+        return PurgeTarget.of("rows", limit -> {
+            findLimits.add(limit);
+            return List.copyOf(rows.subList(0, Math.min(limit, rows.size())));
+        }, deleter);
+    }
+
+    private static final class RecordingTransactionManager implements PlatformTransactionManager {
+        private final List<TransactionDefinition> definitions = new ArrayList<>();
+        private boolean active;
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            definitions.add(definition);
+            active = true;
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            active = false;
+            commits++;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            active = false;
+            rollbacks++;
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.team20.pki.querycount;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team20.pki.authentication.model.RegisterRequest;
+import com.team20.pki.authentication.model.UserDetailsImpl;
+import com.team20.pki.authentication.repository.RegisterRequestRepository;
+import com.team20.pki.authentication.service.JwtService;
+import com.team20.pki.authentication.service.RefreshTokenService;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.encryption.service.CryptoHashService;
+import jakarta.servlet.http.Cookie;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements and rows read per request for every endpoint, so that N+1 patterns
+ * introduced by a change fail the build. Runs against H2 with a small PKI: a root with two intermediates
+ * and two end-entity certificates below each, one of them revoked.
+ * <p>
+ * Budgets are the current counts. When an endpoint gets cheaper, lower its budget with it. As absolute budgets
+ * cannot tell a constant number of statements from one per row, {@link Scaling} also checks that the reads
+ * execute as many statements after the fixture is doubled.
+ */
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        "crl.publisher-enabled=false",
+        // statements are counted on all threads, so node-local timers must not fire during a request
+        "revocation-status.reload-interval-ms=3600000",
+        "revocation-status.refresh-interval-ms=3600000",
+        "publication.sync-interval-ms=3600000",
+        "auth.secret-key=" + EndpointQueryBudgetTest.SECRET,
+        "auth.hmac-secret-key=" + EndpointQueryBudgetTest.SECRET,
+        "auth.password-hashing.bcrypt-strength=4",
+        "secret.master-key=" + EndpointQueryBudgetTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused",
+        "logging.level.org.springframework.web=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class EndpointQueryBudgetTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final String PASSWORD = "Password123!";
+    private static final String ORGANIZATION = "Budget Org";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RegisterRequestRepository registerRequestRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CryptoHashService cryptoHashService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ICertificateRepository certificateRepository;
+
+    private User admin;
+    private User caUser;
+    private User user;
+    private UUID rootId;
+    private UUID intermediateId;
+    private UUID endEntityId;
+
+    @DynamicPropertySource
+    static void keyStorePaths(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-query-budget");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+    }
+
+    private record Pki(UUID rootId, UUID intermediateId, UUID endEntityId) {
+    }
+
+    @BeforeAll
+    void createPki() throws Exception {
+        admin = createUser("admin@budget.example.com", User.Role.ADMINISTRATOR);
+        caUser = createUser("ca@budget.example.com", User.Role.CA_USER);
+        user = createUser("user@budget.example.com", User.Role.REGULAR_USER);
+
+        Pki pki = addPki(caUser, createUser("ca2@budget.example.com", User.Role.CA_USER),
+                user, createUser("user2@budget.example.com", User.Role.REGULAR_USER));
+        rootId = pki.rootId();
+        intermediateId = pki.intermediateId();
+        endEntityId = pki.endEntityId();
+    }
+
+    private Pki addPki(User caOwner, User otherCaOwner, User owner, User otherOwner) throws Exception {
+        UUID root = issueSelfSigned(caOwner);
+        UUID intermediate = issueCaSigned(root, caOwner);
+        UUID otherIntermediate = issueCaSigned(root, otherCaOwner);
+        UUID endEntity = issueCaSigned(intermediate, owner);
+        // also creates the CRLs, so that revocations and CRL fetches are measured in the steady state
+        revoke(issueCaSigned(intermediate, otherOwner));
+        issueCaSigned(otherIntermediate, owner);
+        revoke(issueCaSigned(otherIntermediate, otherOwner));
+        return new Pki(root, intermediate, endEntity);
+    }
+
+    @Nested
+    @Order(1)
+    class Reads {
+        @Test
+        void userCertificates() throws Exception {
+            assertBudget(get("/api/certificates/user/{id}", user.getId()).with(auth(user)), status().isOk(), 2, 3);
+        }
+
+        @Test
+        void userCertificatesByStatus() throws Exception {
+            assertBudget(get("/api/certificates/user/{id}", user.getId()).param("status", "REVOKED").with(auth(user)),
+                    status().isOk(), 1, 1);
+        }
+
+        @Test
+        void statusCounts() throws Exception {
+            assertBudget(get("/api/certificates/status-counts").with(auth(admin)), status().isOk(), 1, 2);
+        }
+
+        // one query per certificate while walking the subtrees
+        @Test
+        void tree() throws Exception {
+            assertBudget(get("/api/certificates/tree").with(auth(admin)), status().isOk(), 9, 8);
+        }
+
+        // one query per certificate while walking the subtrees
+        @Test
+        void caTree() throws Exception {
+            assertBudget(get("/api/certificates/tree/ca/{id}", caUser.getId()).with(auth(caUser)), status().isOk(), 9, 8);
+        }
+
+        @Test
+        void rootNodes() throws Exception {
+            assertBudget(get("/api/certificates/tree/roots").with(auth(admin)), status().isOk(), 2, 2);
+        }
+
+        @Test
+        void caRootNodes() throws Exception {
+            assertBudget(get("/api/certificates/tree/ca/{id}/roots", caUser.getId()).with(auth(caUser)), status().isOk(), 2, 2);
+        }
+
+        @Test
+        void childNodes() throws Exception {
+            assertBudget(get("/api/certificates/tree/{id}/children", intermediateId).with(auth(caUser)), status().isOk(), 3, 3);
+        }
+
+        @Test
+        void certificateAuthoritiesForSubject() throws Exception {
+            assertBudget(get("/api/certificates/get-cas/{id}", user.getId()).with(auth(admin)), status().isOk(), 2, 4);
+        }
+
+        // one query per certificate while collecting the descendants
+        @Test
+        void certificateAuthoritiesOfCaUser() throws Exception {
+            assertBudget(get("/api/certificates/get-cas").with(auth(caUser)), status().isOk(), 9, 14);
+        }
+
+        @Test
+        void downloadCheck() throws Exception {
+            assertBudget(get("/api/certificates/{id}/download/check", endEntityId).with(auth(user)), status().isOk(), 3, 3);
+        }
+
+        @Test
+        void downloadPem() throws Exception {
+            assertBudget(get("/api/certificates/{id}/download/pem", endEntityId).with(auth(user)), status().isOk(), 2, 2);
+        }
+
+        @Test
+        void rootsExist() throws Exception {
+            assertBudget(get("/api/certificates/check-root/{userId}", caUser.getId()).with(auth(admin)), status().isOk(), 2, 2);
+        }
+
+        @Test
+        void revocationList() throws Exception {
+            Integer partition = certificateRepository.findById(endEntityId).orElseThrow().getCrlPartition();
+            assertBudget(get("/api/certificates/revoke/crl/{id}/{partition}", intermediateId, partition), status().isOk(), 1, 1);
+        }
+
+        @Test
+        void usersForCertificateIssue() throws Exception {
+            assertBudget(get("/api/users/certificate-issue").with(auth(caUser)), status().isOk(), 2, 6);
+        }
+
+        @Test
+        void user() throws Exception {
+            assertBudget(get("/api/users/{id}", user.getId()).with(auth(admin)), status().isOk(), 1, 1);
+        }
+
+        // revoked certificates are listed with their status
+        @Test
+        void regularUsers() throws Exception {
+            assertBudget(get("/api/users/regular").with(auth(admin)), status().isOk(), 2, 6);
+        }
+
+        @Test
+        void caUsers() throws Exception {
+            assertBudget(get("/api/ca-users").with(auth(admin)), status().isOk(), 3, 7);
+        }
+
+        @Test
+        void verificationSubject() throws Exception {
+            String code = createRegisterRequest("pending@budget.example.com", User.Role.CA_USER);
+            assertBudget(get("/api/auth/verification-subject").param("verificationCode", code), status().isOk(), 2, 1);
+        }
+
+        @Test
+        void csrfToken() throws Exception {
+            assertBudget(get("/api/auth/csrf-token"), status().isOk(), 0, 0);
+        }
+    }
+
+    // run after the reads, as they add rows the reads would see; their own counts do not depend on the order
+    @Nested
+    @Order(2)
+    class Writes {
+        @Test
+        void selfSigned() throws Exception {
+            assertBudget(post("/api/certificates/self-signed").with(auth(admin)).with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content(json(selfSignedSubject(caUser))), status().isOk(), 5, 3);
+        }
+
+        @Test
+        void caIssued() throws Exception {
+            assertBudget(post("/api/certificates/ca-issued").with(auth(admin)).with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content(json(caSignedSubject(intermediateId, user))), status().isOk(), 10, 8);
+        }
+
+        @Test
+        void caExternalIssued() throws Exception {
+            assertBudget(multipart("/api/certificates/ca-external-issued")
+                    .file(new MockMultipartFile("csr", "request.csr", "application/pkcs10", createCsr().getBytes()))
+                    .param("subjectId", user.getId().toString())
+                    .param("caId", intermediateId.toString())
+                    .param("validityDays", "30")
+                    .with(auth(user)).with(csrf()), status().isOk(), 9, 7);
+        }
+
+        // download tickets are held in memory
+        @Test
+        void downloadRequest() throws Exception {
+            UUID certificateId = issueCaSigned(intermediateId, user);
+            assertBudget(get("/api/certificates/{id}/download/request", certificateId).with(auth(user)), status().isOk(), 2, 2);
+        }
+
+        // records that the end entity's private key was removed
+        @Test
+        void download() throws Exception {
+            UUID certificateId = issueCaSigned(intermediateId, user);
+            JsonNode downloadRequest = perform(get("/api/certificates/{id}/download/request", certificateId).with(auth(user)));
+            assertBudget(get("/api/certificates/{id}/download/{requestId}", certificateId, downloadRequest.get("id").asText())
+                    .with(auth(user)), status().isOk(), 12, 11);
+        }
+
+        @Test
+        void revoke() throws Exception {
+            UUID certificateId = issueCaSigned(intermediateId, user);
+            assertBudget(put("/api/certificates/revoke/{id}", certificateId).with(auth(admin)).with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content(json(Map.of("reason", 1))), status().isOk(), 12, 7);
+        }
+
+        @Test
+        void register() throws Exception {
+            Map<String, String> request = Map.of("email", "register@budget.example.com", "password", PASSWORD,
+                    "firstName", "Budget", "lastName", "User", "organization", ORGANIZATION);
+            assertBudget(post("/api/auth/register").with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content(json(request)), status().isCreated(), 3, 0);
+        }
+
+        @Test
+        void activate() throws Exception {
+            String code = createRegisterRequest("activate@budget.example.com", User.Role.REGULAR_USER);
+            assertBudget(post("/api/auth/activate").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                    .content(json(Map.of("verificationCode", code))), status().isNoContent(), 4, 1);
+        }
+
+        @Test
+        void activateCa() throws Exception {
+            String code = createRegisterRequest("activate-ca@budget.example.com", User.Role.CA_USER);
+            assertBudget(post("/api/auth/activate/ca").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                    .content(json(Map.of("verificationCode", code, "password", PASSWORD))), status().isNoContent(), 4, 1);
+        }
+
+        @Test
+        void invite() throws Exception {
+            assertBudget(post("/api/auth/invite").with(auth(admin)).with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                    .content(json(invite("invite@budget.example.com"))), status().isCreated(), 3, 0);
+        }
+
+        @Test
+        void bulkInvite() throws Exception {
+            List<Map<String, String>> invites = List.of(invite("bulk1@budget.example.com"),
+                    invite("bulk2@budget.example.com"), invite("bulk3@budget.example.com"));
+            assertBudget(post("/api/auth/invite/bulk").with(auth(admin)).with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content(json(invites)), status().isOk(), 3, 0);
+        }
+
+        @Test
+        void bulkInviteCsv() throws Exception {
+            String csv = """
+                    email,firstName,lastName,organization
+                    csv1@budget.example.com,Budget,User,Budget Org
+                    csv2@budget.example.com,Budget,User,Budget Org
+                    csv3@budget.example.com,Budget,User,Budget Org
+                    """;
+            assertBudget(post("/api/auth/invite/bulk").with(auth(admin)).with(csrf())
+                    .contentType("text/csv").content(csv), status().isOk(), 3, 0);
+        }
+
+        @Test
+        void login() throws Exception {
+            login(user);
+        }
+
+        @Test
+        void refresh() throws Exception {
+            Cookie refreshToken = login(user);
+            assertBudget(post("/api/auth/refresh").cookie(refreshToken).with(csrf()), status().isOk(), 4, 2);
+        }
+
+        @Test
+        void refreshUser() throws Exception {
+            Cookie refreshToken = login(user);
+            assertBudget(get("/api/auth/refresh/user").cookie(refreshToken), status().isOk(), 4, 2);
+        }
+
+        @Test
+        void logout() throws Exception {
+            Cookie refreshToken = login(user);
+            assertBudget(get("/api/auth/logout").cookie(refreshToken), status().isOk(), 4, 3);
+        }
+
+        private Cookie login(User user) throws Exception {
+            MvcResult result = assertBudget(post("/api/auth/login").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                    .content(json(Map.of("email", user.getEmail(), "password", PASSWORD))), status().isOk(), 3, 2);
+            return result.getResponse().getCookie(RefreshTokenService.COOKIE_NAME);
+        }
+
+        private Map<String, String> invite(String email) {
+            return Map.of("email", email, "firstName", "Budget", "lastName", "User", "organization", ORGANIZATION);
+        }
+    }
+
+    // run last, as it doubles the fixture
+    @Nested
+    @Order(3)
+    class Scaling {
+        @Test
+        void readsExecuteAsManyStatementsWhenFixtureDoubles() throws Exception {
+            Map<String, Long> before = countReadStatements();
+
+            // the same shape again, owned partly by the same users, so per-user lists double as well
+            addPki(caUser, createUser("ca3@budget.example.com", User.Role.CA_USER),
+                    user, createUser("user3@budget.example.com", User.Role.REGULAR_USER));
+
+            assertEquals(before, countReadStatements());
+        }
+
+        /**
+         * Leaves out the tree walks and the CA user's authorities, which issue one query per certificate,
+         * see their budgets.
+         */
+        private Map<String, Long> countReadStatements() throws Exception {
+            Integer partition = certificateRepository.findById(endEntityId).orElseThrow().getCrlPartition();
+            Map<String, MockHttpServletRequestBuilder> reads = new LinkedHashMap<>();
+            reads.put("userCertificates", get("/api/certificates/user/{id}", user.getId()).with(auth(user)));
+            reads.put("userCertificatesByStatus", get("/api/certificates/user/{id}", user.getId())
+                    .param("status", "REVOKED").with(auth(user)));
+            reads.put("statusCounts", get("/api/certificates/status-counts").with(auth(admin)));
+            reads.put("rootNodes", get("/api/certificates/tree/roots").with(auth(admin)));
+            reads.put("caRootNodes", get("/api/certificates/tree/ca/{id}/roots", caUser.getId()).with(auth(caUser)));
+            reads.put("childNodes", get("/api/certificates/tree/{id}/children", rootId).with(auth(caUser)));
+            reads.put("certificateAuthoritiesForSubject", get("/api/certificates/get-cas/{id}", user.getId()).with(auth(admin)));
+            reads.put("downloadCheck", get("/api/certificates/{id}/download/check", endEntityId).with(auth(user)));
+            reads.put("downloadPem", get("/api/certificates/{id}/download/pem", endEntityId).with(auth(user)));
+            reads.put("rootsExist", get("/api/certificates/check-root/{userId}", caUser.getId()).with(auth(admin)));
+            reads.put("revocationList", get("/api/certificates/revoke/crl/{id}/{partition}", intermediateId, partition));
+            reads.put("usersForCertificateIssue", get("/api/users/certificate-issue").with(auth(caUser)));
+            reads.put("user", get("/api/users/{id}", user.getId()).with(auth(admin)));
+            reads.put("regularUsers", get("/api/users/regular").with(auth(admin)));
+            reads.put("caUsers", get("/api/ca-users").with(auth(admin)));
+
+            Map<String, Long> statements = new LinkedHashMap<>();
+            for (Map.Entry<String, MockHttpServletRequestBuilder> read : reads.entrySet()) {
+                queryCounter.reset();
+                mockMvc.perform(read.getValue()).andExpect(status().isOk());
+                statements.put(read.getKey(), queryCounter.get().statements());
+            }
+            return statements;
+        }
+    }
+
+    private MvcResult assertBudget(MockHttpServletRequestBuilder request, ResultMatcher expectedStatus,
+                                   long maxStatements, long maxRows) throws Exception {
+        queryCounter.reset();
+        MvcResult result = mockMvc.perform(request).andExpect(expectedStatus).andReturn();
+        QueryCounter.Count count = queryCounter.get();
+
+        String endpoint = result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+        assertTrue(count.statements() <= maxStatements,
+                () -> "%s executed %d statements, budget is %d".formatted(endpoint, count.statements(), maxStatements));
+        assertTrue(count.rows() <= maxRows,
+                () -> "%s read %d rows, budget is %d".formatted(endpoint, count.rows(), maxRows));
+        return result;
+    }
+
+    private JsonNode perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsByteArray());
+    }
+
+    private RequestPostProcessor auth(User user) {
+        String token = jwtService.generateAccessToken(new UserDetailsImpl(user));
+        return request -> {
+            request.addHeader("Authorization", "Bearer " + token);
+            return request;
+        };
+    }
+
+    private User createUser(String email, User.Role role) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .password(passwordEncoder.encode(PASSWORD))
+                .firstName("Budget")
+                .lastName("User")
+                .organization(ORGANIZATION)
+                .role(role)
+                .build());
+    }
+
+    private String createRegisterRequest(String email, User.Role role) {
+        String code = UUID.randomUUID().toString();
+        registerRequestRepository.save(RegisterRequest.builder()
+                .verificationCode(cryptoHashService.hash(code))
+                .expirationTime(Instant.now().plus(1, ChronoUnit.HOURS))
+                .email(email)
+                .password(passwordEncoder.encode(PASSWORD))
+                .firstName("Budget")
+                .lastName("User")
+                .organization(ORGANIZATION)
+                .role(role)
+                .build());
+        return code;
+    }
+
+    private UUID issueSelfSigned(User owner) throws Exception {
+        return UUID.fromString(perform(post("/api/certificates/self-signed").with(auth(admin)).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content(json(selfSignedSubject(owner)))).get("certificateId").asText());
+    }
+
+    private UUID issueCaSigned(UUID caId, User subject) throws Exception {
+        return UUID.fromString(perform(post("/api/certificates/ca-issued").with(auth(admin)).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content(json(caSignedSubject(caId, subject)))).get("certificateId").asText());
+    }
+
+    private void revoke(UUID certificateId) throws Exception {
+        perform(put("/api/certificates/revoke/{id}", certificateId).with(auth(admin)).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content(json(Map.of("reason", 1))));
+    }
+
+    private Map<String, Object> selfSignedSubject(User owner) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> subject = new HashMap<>();
+        subject.put("subjectId", owner.getId());
+        subject.put("cn", "Budget Root " + UUID.randomUUID());
+        subject.put("o", ORGANIZATION);
+        subject.put("c", "RS");
+        subject.put("validFrom", now.toString());
+        subject.put("validTo", now.plusYears(10).toString());
+        return subject;
+    }
+
+    private Map<String, Object> caSignedSubject(UUID caId, User subjectUser) {
+        Map<String, Object> subject = new HashMap<>();
+        subject.put("caId", caId);
+        subject.put("subjectId", subjectUser.getId());
+        subject.put("cn", subjectUser.getEmail());
+        subject.put("o", ORGANIZATION);
+        subject.put("c", "RS");
+        subject.put("validityDays", subjectUser.getRole() == User.Role.REGULAR_USER ? 365 : 3650);
+        subject.put("keyUsage", List.of("digitalSignature", "keyEncipherment"));
+        subject.put("extendedKeyUsage", List.of("clientAuth"));
+        return subject;
+    }
+
+    private static String createCsr() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        ExtensionsGenerator extensions = new ExtensionsGenerator();
+        extensions.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature | KeyUsage.keyEncipherment));
+        extensions.addExtension(Extension.extendedKeyUsage, false, new ExtendedKeyUsage(KeyPurposeId.id_kp_clientAuth));
+
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(new JcaPKCS10CertificationRequestBuilder(
+                    new X500Name("CN=csr.budget.example.com,O=" + ORGANIZATION + ",C=RS"), keyPair.getPublic())
+                    .addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions.generate())
+                    .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+        }
+        return pem.toString();
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,84 @@
+package com.team20.pki.querycount;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the statements executed and rows read through a wrapped {@link DataSource}, on all threads.
+ * A batch counts as one statement, as it is one round trip.
+ */
+public class QueryCounter {
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    public record Count(long statements, long rows) {
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource);
+    }
+
+    public void reset() {
+        statements.set(0);
+        rows.set(0);
+    }
+
+    public Count get() {
+        return new Count(statements.get(), rows.get());
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new CountingHandler(target)));
+    }
+
+    private class CountingHandler implements InvocationHandler {
+        private final Object target;
+
+        CountingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // keeps unwrap() working for code looking for the pool behind the data source
+            if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                statements.incrementAndGet();
+            } else if (name.equals("next") && target instanceof ResultSet && Boolean.TRUE.equals(result)) {
+                rows.incrementAndGet();
+            }
+            return wrapResult(result);
+        }
+
+        private Object wrapResult(Object result) {
+            return switch (result) {
+                case Connection connection -> proxy(Connection.class, connection);
+                case CallableStatement statement -> proxy(CallableStatement.class, statement);
+                case PreparedStatement statement -> proxy(PreparedStatement.class, statement);
+                case Statement statement -> proxy(Statement.class, statement);
+                case ResultSet resultSet -> proxy(ResultSet.class, resultSet);
+                case null, default -> result;
+            };
+        }
+    }
+}
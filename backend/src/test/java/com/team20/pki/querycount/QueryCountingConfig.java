@@ -0,0 +1,28 @@
+package com.team20.pki.querycount;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Role;
+
+import javax.sql.DataSource;
+
+@TestConfiguration
+public class QueryCountingConfig {
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor(QueryCounter queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? queryCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+}
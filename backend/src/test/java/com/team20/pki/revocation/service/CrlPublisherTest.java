@@ -0,0 +1,327 @@
+package com.team20.pki.revocation.service;
+
+import com.team20.pki.certificates.dto.CaSignSubjectDataDTO;
+import com.team20.pki.certificates.dto.SelfSignSubjectDataDTO;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.ICertificateService;
+import com.team20.pki.common.exception.NotFoundError;
+import com.team20.pki.common.exception.ServerError;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
+import com.team20.pki.revocation.model.CertificateRevocationList;
+import com.team20.pki.revocation.model.CrlPartition;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import com.team20.pki.revocation.service.util.CertificateRevocationListService;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509CRL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:crl-publisher;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        "auth.secret-key=" + CrlPublisherTest.SECRET,
+        "auth.hmac-secret-key=" + CrlPublisherTest.SECRET,
+        "secret.master-key=" + CrlPublisherTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused"
+})
+class CrlPublisherTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Autowired
+    private CrlPublisher publisher;
+
+    @Autowired
+    private ICertificateService certificateService;
+
+    @Autowired
+    private IRevocationService revocationService;
+
+    @Autowired
+    private ICertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateRevocationListRepository crlRepository;
+
+    @Autowired
+    private CrlPartitionRepository partitionRepository;
+
+    @Autowired
+    private CrlDistributionPoints distributionPoints;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void keyStorePaths(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-crl-publisher");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+    }
+
+    @Test
+    void signsFirstListAfterCaIsIssued() throws Exception {
+        UUID rootId = issueRoot();
+
+        CertificateRevocationList crl = awaitList(rootId);
+
+        assertEquals(Duration.ofDays(7), Duration.between(crl.getThisUpdate(), crl.getNextUpdate()));
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(crl.getRevocationList());
+        assertNull(x509CRL.getRevokedCertificates());
+        assertEquals(crl.getNextUpdate(), x509CRL.getNextUpdate().toInstant());
+    }
+
+    @Test
+    void resignsExpiringListWithItsEntries() throws Exception {
+        UUID rootId = issueRoot();
+        awaitList(rootId);
+        revocationService.revokeCertificate(rootId, new RevokeCertificateRequestDTO(1));
+        CertificateRevocationList expiring = crlRepository.findByCACertificateId(rootId);
+        expiring.setNextUpdate(Instant.now().plus(1, ChronoUnit.HOURS));
+        crlRepository.save(expiring);
+
+        assertTrue(publisher.publishDue() >= 1);
+
+        CertificateRevocationList crl = crlRepository.findByCACertificateId(rootId);
+        assertTrue(crl.getNextUpdate().isAfter(Instant.now().plus(6, ChronoUnit.DAYS)));
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(crl.getRevocationList());
+        Certificate root = certificateRepository.findById(rootId).orElseThrow();
+        assertNotNull(x509CRL.getRevokedCertificate(new BigInteger(root.getSerialNumber())));
+        assertEquals(0, publisher.publishDue());
+    }
+
+    @Test
+    void concurrentRequestsForUnpublishedListQueueOneSigning() throws Exception {
+        UUID rootId = issueRoot();
+        crlRepository.delete(awaitList(rootId));
+        double signedBefore = signedLists();
+
+        List<Future<byte[]>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(200)) {
+            for (int i = 0; i < 200; i++) {
+                responses.add(executor.submit(() -> revocationService.getCertificateRevocationList(rootId).revocationList()));
+            }
+        }
+
+        byte[] published = awaitList(rootId).getRevocationList();
+        for (Future<byte[]> response : responses) {
+            try {
+                assertArrayEquals(published, response.get());
+            } catch (ExecutionException e) {
+                // requests answered before the list was signed
+                ServerError error = assertInstanceOf(ServerError.class, e.getCause());
+                assertEquals(503, error.getCode());
+            }
+        }
+        assertEquals(1, signedLists() - signedBefore);
+    }
+
+    @Test
+    void requestForCaWithoutListIsNotFound() {
+        assertEquals(CrlPublisher.PublicationRequest.NOT_PUBLISHABLE, publisher.requestPublication(UUID.randomUUID(), null));
+        assertThrows(NotFoundError.class, () -> revocationService.getCertificateRevocationList(UUID.randomUUID()));
+    }
+
+    @Test
+    void publishesPartitionOfIssuedCertificateAndListsItsRevocation() throws Exception {
+        UUID rootId = issueRoot();
+        UUID endEntityId = issueEndEntity(rootId);
+        Certificate endEntity = certificateRepository.findById(endEntityId).orElseThrow();
+        assertNotNull(endEntity.getCrlPartition());
+
+        CrlPartition partition = awaitPartition(rootId, endEntity.getCrlPartition());
+        assertIssuingDistributionPoint(rootId, endEntity.getCrlPartition(), partition.getRevocationList());
+
+        revocationService.revokeCertificate(endEntityId, new RevokeCertificateRequestDTO(1));
+
+        byte[] revocationList = partitionRepository.findByCaIdAndPartition(rootId, endEntity.getCrlPartition())
+                .orElseThrow().getRevocationList();
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(revocationList);
+        assertNotNull(x509CRL.getRevokedCertificate(new BigInteger(endEntity.getSerialNumber())));
+        assertIssuingDistributionPoint(rootId, endEntity.getCrlPartition(), revocationList);
+    }
+
+    @Test
+    void prunesEntriesOfExpiredCertificatesWhenRefreshing() throws Exception {
+        UUID rootId = issueRoot();
+        Certificate expired = certificateRepository.findById(issueEndEntity(rootId)).orElseThrow();
+        Certificate current = certificateRepository.findById(issueEndEntity(rootId)).orElseThrow();
+        revocationService.revokeCertificate(expired.getId(), new RevokeCertificateRequestDTO(1));
+        expired = certificateRepository.findById(expired.getId()).orElseThrow();
+        expired.setValidTo(LocalDate.now().minusDays(31));
+        certificateRepository.save(expired);
+
+        revocationService.revokeCertificate(current.getId(), new RevokeCertificateRequestDTO(1));
+        CrlPartition expiring = partitionRepository.findByCaIdAndPartition(rootId, current.getCrlPartition()).orElseThrow();
+        expiring.setNextUpdate(Instant.now().plus(1, ChronoUnit.HOURS));
+        partitionRepository.save(expiring);
+
+        assertTrue(publisher.publishDue() >= 1);
+
+        byte[] revocationList = partitionRepository.findByCaIdAndPartition(rootId, current.getCrlPartition())
+                .orElseThrow().getRevocationList();
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(revocationList);
+        assertNull(x509CRL.getRevokedCertificate(new BigInteger(expired.getSerialNumber())));
+        assertNotNull(x509CRL.getRevokedCertificate(new BigInteger(current.getSerialNumber())));
+        assertNotNull(x509CRL.getExtensionValue(Extension.expiredCertsOnCRL.getId()));
+    }
+
+    @Test
+    void looksUpOnlyCertificatesExpiredSincePreviousPruning() throws Exception {
+        UUID rootId = issueRoot();
+        Certificate prunedAlready = certificateRepository.findById(issueEndEntity(rootId)).orElseThrow();
+        Certificate expiredSince = certificateRepository.findById(issueEndEntity(rootId)).orElseThrow();
+        // keeps the partition refreshed
+        issueEndEntity(rootId);
+        revocationService.revokeCertificate(prunedAlready.getId(), new RevokeCertificateRequestDTO(1));
+        revocationService.revokeCertificate(expiredSince.getId(), new RevokeCertificateRequestDTO(1));
+        setValidTo(prunedAlready.getId(), LocalDate.now().minusDays(40));
+        setValidTo(expiredSince.getId(), LocalDate.now().minusDays(31));
+        // pretends the entry of the first one survived an earlier pruning, so that a lookup below the cutoff shows
+        CrlPartition expiring = partitionRepository.findByCaIdAndPartition(rootId, expiredSince.getCrlPartition()).orElseThrow();
+        expiring.setPrunedBefore(LocalDate.now().minusDays(35));
+        expiring.setNextUpdate(Instant.now().plus(1, ChronoUnit.HOURS));
+        partitionRepository.save(expiring);
+
+        assertTrue(publisher.publishDue() >= 1);
+
+        CrlPartition partition = partitionRepository.findByCaIdAndPartition(rootId, expiredSince.getCrlPartition()).orElseThrow();
+        assertEquals(LocalDate.now().minusDays(30), partition.getPrunedBefore());
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(partition.getRevocationList());
+        assertNotNull(x509CRL.getRevokedCertificate(new BigInteger(prunedAlready.getSerialNumber())));
+        assertNull(x509CRL.getRevokedCertificate(new BigInteger(expiredSince.getSerialNumber())));
+    }
+
+    @Test
+    void leavesPartitionOfExpiredCertificatesToLapse() throws Exception {
+        UUID rootId = issueRoot();
+        Certificate expired = certificateRepository.findById(issueEndEntity(rootId)).orElseThrow();
+        awaitPartition(rootId, expired.getCrlPartition());
+        expired.setValidTo(LocalDate.now().minusDays(1));
+        certificateRepository.save(expired);
+        CrlPartition expiring = partitionRepository.findByCaIdAndPartition(rootId, expired.getCrlPartition()).orElseThrow();
+        expiring.setNextUpdate(Instant.now().plus(1, ChronoUnit.HOURS));
+        partitionRepository.save(expiring);
+
+        assertTrue(partitionRepository.findDueForRefresh(LocalDate.now(), Instant.now().plus(1, ChronoUnit.DAYS)).stream()
+                .noneMatch(p -> p.getCaId().equals(rootId)));
+        publisher.publishDue();
+
+        // still expiring, re-signing would have pushed it a week out
+        CrlPartition partition = partitionRepository.findByCaIdAndPartition(rootId, expired.getCrlPartition()).orElseThrow();
+        assertTrue(partition.getNextUpdate().isBefore(Instant.now().plus(2, ChronoUnit.HOURS)));
+    }
+
+    private void assertIssuingDistributionPoint(UUID caId, Integer partition, byte[] revocationList) throws Exception {
+        X509CRL x509CRL = CertificateRevocationListService.fromByteArray(revocationList);
+        assertTrue(x509CRL.getCriticalExtensionOIDs().contains(Extension.issuingDistributionPoint.getId()));
+        byte[] issuingDistributionPoint = ASN1OctetString.getInstance(
+                x509CRL.getExtensionValue(Extension.issuingDistributionPoint.getId())).getOctets();
+        assertArrayEquals(distributionPoints.issuingDistributionPoint(caId, partition).getEncoded(), issuingDistributionPoint);
+    }
+
+    private UUID issueRoot() throws Exception {
+        User owner = createUser(User.Role.CA_USER);
+        LocalDateTime now = LocalDateTime.now();
+        return certificateService.generateSelfSignedCertificate(new SelfSignSubjectDataDTO(owner.getId(),
+                "Crl Root " + UUID.randomUUID(), "Crl Org", null, "RS", null, null, null,
+                now.toString(), now.plusYears(1).toString(),
+                null, null, null, null, null, null, null, null)).getCertificateId();
+    }
+
+    private UUID issueEndEntity(UUID caId) throws Exception {
+        return certificateService.generateCaSignedCertificate(new CaSignSubjectDataDTO(caId,
+                createUser(User.Role.REGULAR_USER).getId(), "crl-user", "Crl Org", null, "RS", null, null, null, 365,
+                null, null, null, null, null, null, null, null, null, List.of("digitalSignature"), List.of())).certificateId();
+    }
+
+    private void setValidTo(UUID certificateId, LocalDate validTo) {
+        Certificate certificate = certificateRepository.findById(certificateId).orElseThrow();
+        certificate.setValidTo(validTo);
+        certificateRepository.save(certificate);
+    }
+
+    private User createUser(User.Role role) {
+        return userRepository.save(User.builder()
+                .email("user-" + UUID.randomUUID() + "@crl.example.com")
+                .password("unused")
+                .firstName("Crl")
+                .lastName("User")
+                .organization("Crl Org")
+                .role(role)
+                .build());
+    }
+
+    private double signedLists() {
+        return meterRegistry.counter("pki.crl.published", "outcome", "success").count();
+    }
+
+    private CrlPartition awaitPartition(UUID caId, int partitionNumber) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        Optional<CrlPartition> partition;
+        while ((partition = partitionRepository.findByCaIdAndPartition(caId, partitionNumber)).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(partition.isPresent(), "CRL partition was not published");
+        return partition.get();
+    }
+
+    private CertificateRevocationList awaitList(UUID caId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        CertificateRevocationList crl;
+        while ((crl = crlRepository.findByCACertificateId(caId)) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertNotNull(crl, "CRL was not published");
+        return crl;
+    }
+}
@@ -0,0 +1,199 @@
+package com.team20.pki.revocation.service;
+
+import com.team20.pki.certificates.dto.CaSignSubjectDataDTO;
+import com.team20.pki.certificates.dto.SelfSignSubjectDataDTO;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.ICertificateService;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
+import com.team20.pki.revocation.model.RevocationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:revocation-status;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.mail.username=pki@example.com",
+        "spring.mail.password=secret",
+        "email.config.from-email=pki@example.com",
+        "email.outbox.enabled=false",
+        "scheduling.enabled=false",
+        // merges on almost every change
+        "revocation-status.merge-threshold=2",
+        "revocation-status.max-batch-size=5",
+        "auth.secret-key=" + RevocationStatusIndexTest.SECRET,
+        "auth.hmac-secret-key=" + RevocationStatusIndexTest.SECRET,
+        "secret.master-key=" + RevocationStatusIndexTest.MASTER_KEY,
+        "server.ssl.enabled=false",
+        "server.ssl.key-alias=unused",
+        "server.ssl.key-password=unused",
+        "server.ssl.key-store-password=unused"
+})
+@AutoConfigureMockMvc
+class RevocationStatusIndexTest {
+    static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    static final String MASTER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RevocationStatusIndex statusIndex;
+
+    @Autowired
+    private ICertificateService certificateService;
+
+    @Autowired
+    private IRevocationService revocationService;
+
+    @Autowired
+    private ICertificateRepository certificateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void keyStorePaths(DynamicPropertyRegistry registry) throws IOException {
+        Path keyStores = Files.createTempDirectory("pki-revocation-status");
+        for (String directory : List.of("certs", "ks-passwords", "pk-passwords")) {
+            Files.createDirectories(keyStores.resolve(directory));
+        }
+        registry.add("cert-keystore.path", () -> keyStores.resolve("certs").toString());
+        registry.add("ks-password-keystore.path", () -> keyStores.resolve("ks-passwords").toString());
+        registry.add("pk-password-keystore.path", () -> keyStores.resolve("pk-passwords").toString());
+    }
+
+    @Test
+    void tracksIssuedAndRevokedCertificatesWithoutReload() throws Exception {
+        UUID rootId = issueRoot();
+        UUID intermediateId = issueCaSigned(rootId, User.Role.CA_USER);
+        String intermediate = serialNumberOf(intermediateId);
+        String endEntity = serialNumberOf(issueCaSigned(intermediateId, User.Role.REGULAR_USER));
+        String sibling = serialNumberOf(issueCaSigned(rootId, User.Role.REGULAR_USER));
+
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(endEntity));
+
+        // revokes the end entity below it as well
+        revocationService.revokeCertificate(intermediateId, new RevokeCertificateRequestDTO(1));
+
+        assertEquals(RevocationStatus.REVOKED, statusIndex.statusOf(intermediate));
+        assertEquals(RevocationStatus.REVOKED, statusIndex.statusOf(endEntity));
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(sibling));
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(serialNumberOf(rootId)));
+        assertEquals(RevocationStatus.UNKNOWN, statusIndex.statusOf("1"));
+        assertEquals(RevocationStatus.UNKNOWN, statusIndex.statusOf("340282366920938463463374607431768211455"));
+
+        statusIndex.reload();
+
+        assertEquals(RevocationStatus.REVOKED, statusIndex.statusOf(endEntity));
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(sibling));
+    }
+
+    @Test
+    void refreshPicksUpRevocationsOfOtherNodes() throws Exception {
+        UUID rootId = issueRoot();
+        UUID revokedElsewhereId = issueCaSigned(rootId, User.Role.REGULAR_USER);
+        String revokedElsewhere = serialNumberOf(revokedElsewhereId);
+        statusIndex.reload();
+
+        // revoked without going through this node's index, as another node would
+        Certificate certificate = certificateRepository.findById(revokedElsewhereId).orElseThrow();
+        certificate.setIsRevoked(true);
+        certificate.setRevokedAt(Instant.now());
+        certificate.setRevocationReason(1);
+        certificateRepository.save(certificate);
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(revokedElsewhere));
+
+        statusIndex.refresh();
+
+        assertEquals(RevocationStatus.REVOKED, statusIndex.statusOf(revokedElsewhere));
+        assertEquals(RevocationStatus.GOOD, statusIndex.statusOf(serialNumberOf(rootId)));
+        // reading the same revocation again within the overlap changes nothing
+        statusIndex.refresh();
+        assertEquals(RevocationStatus.REVOKED, statusIndex.statusOf(revokedElsewhere));
+    }
+
+    @Test
+    void answersSingleAndBatchRequestsWithoutAuthentication() throws Exception {
+        UUID rootId = issueRoot();
+        String good = serialNumberOf(issueCaSigned(rootId, User.Role.REGULAR_USER));
+        UUID revokedId = issueCaSigned(rootId, User.Role.REGULAR_USER);
+        revocationService.revokeCertificate(revokedId, new RevokeCertificateRequestDTO(1));
+        String revoked = serialNumberOf(revokedId);
+
+        mockMvc.perform(get("/api/certificates/revoke/status/{serialNumber}", revoked))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.serialNumber").value(revoked))
+                .andExpect(jsonPath("$.status").value("REVOKED"));
+
+        mockMvc.perform(post("/api/certificates/revoke/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumbers\": [\"" + good + "\", \"" + revoked + "\", \"1\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("GOOD"))
+                .andExpect(jsonPath("$[1].status").value("REVOKED"))
+                .andExpect(jsonPath("$[2].status").value("UNKNOWN"));
+
+        mockMvc.perform(get("/api/certificates/revoke/status/{serialNumber}", "0x1f"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/certificates/revoke/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumbers\": [\"1\", \"2\", \"3\", \"4\", \"5\", \"6\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String serialNumberOf(UUID certificateId) {
+        return certificateRepository.findById(certificateId).orElseThrow().getSerialNumber();
+    }
+
+    private UUID issueRoot() throws Exception {
+        User owner = createUser(User.Role.CA_USER);
+        LocalDateTime now = LocalDateTime.now();
+        return certificateService.generateSelfSignedCertificate(new SelfSignSubjectDataDTO(owner.getId(),
+                "Status Root " + UUID.randomUUID(), "Status Org", null, "RS", null, null, null,
+                now.toString(), now.plusYears(1).toString(),
+                null, null, null, null, null, null, null, null)).getCertificateId();
+    }
+
+    private UUID issueCaSigned(UUID caId, User.Role role) throws Exception {
+        return certificateService.generateCaSignedCertificate(new CaSignSubjectDataDTO(caId,
+                createUser(role).getId(), "status-user", "Status Org", null, "RS", null, null, null, 180,
+                null, null, null, null, null, null, null, null, null, List.of("digitalSignature"), List.of())).certificateId();
+    }
+
+    private User createUser(User.Role role) {
+        return userRepository.save(User.builder()
+                .email("user-" + UUID.randomUUID() + "@status.example.com")
+                .password("unused")
+                .firstName("Status")
+                .lastName("User")
+                .organization("Status Org")
+                .role(role)
+                .build());
+    }
+}
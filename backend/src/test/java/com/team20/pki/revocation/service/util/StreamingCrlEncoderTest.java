@@ -0,0 +1,129 @@
+package com.team20.pki.revocation.service.util;
+
+import com.team20.pki.revocation.service.util.StreamingCrlEncoder.RevokedEntries;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCrlEncoderTest {
+    private static final X500Name ISSUER = new X500Name("CN=Streaming CA,O=Crl Org,C=RS");
+
+    @Test
+    void encodesEmptyListThatVerifies() throws Exception {
+        KeyPair keyPair = keyPair("RSA");
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        byte[] encoded = StreamingCrlEncoder.encode(ISSUER, thisUpdate, thisUpdate.plus(7, ChronoUnit.DAYS),
+                RevokedEntries.empty(), extensions(), signer("SHA256withRSA", keyPair));
+
+        X509CRL crl = CertificateRevocationListService.fromByteArray(encoded);
+        crl.verify(keyPair.getPublic());
+        assertNull(crl.getRevokedCertificates());
+        assertEquals(thisUpdate, crl.getThisUpdate().toInstant());
+        assertNotNull(crl.getExtensionValue(Extension.cRLNumber.getId()));
+    }
+
+    @Test
+    void carriesEntriesOverAndAppendsNewOnes() throws Exception {
+        KeyPair keyPair = keyPair("EC");
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        RevokedEntries entries = RevokedEntries.empty();
+        for (int i = 1; i <= 2000; i++) {
+            entries.add(BigInteger.valueOf(i), new Date(), reason());
+        }
+        byte[] first = StreamingCrlEncoder.encode(ISSUER, thisUpdate, thisUpdate.plus(7, ChronoUnit.DAYS),
+                entries, extensions(), signer("SHA256withECDSA", keyPair));
+
+        RevokedEntries carried = RevokedEntries.of(first).add(BigInteger.valueOf(5000), new Date(), null);
+        byte[] second = StreamingCrlEncoder.encode(ISSUER, thisUpdate, thisUpdate.plus(7, ChronoUnit.DAYS),
+                carried, extensions(), signer("SHA256withECDSA", keyPair));
+
+        X509CRL crl = CertificateRevocationListService.fromByteArray(second);
+        crl.verify(keyPair.getPublic());
+        assertEquals(2001, carried.count());
+        assertEquals(2001, crl.getRevokedCertificates().size());
+        X509CRLEntry carriedEntry = crl.getRevokedCertificate(BigInteger.valueOf(1234));
+        assertNotNull(carriedEntry.getExtensionValue(Extension.reasonCode.getId()));
+        assertNotNull(crl.getRevokedCertificate(BigInteger.valueOf(5000)));
+    }
+
+    @Test
+    void dropsFilteredEntries() throws Exception {
+        KeyPair keyPair = keyPair("EC");
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        RevokedEntries entries = RevokedEntries.empty();
+        for (int i = 1; i <= 10; i++) {
+            entries.add(BigInteger.valueOf(i), new Date(), reason());
+        }
+        byte[] first = StreamingCrlEncoder.encode(ISSUER, thisUpdate, thisUpdate.plus(7, ChronoUnit.DAYS),
+                entries, null, signer("SHA256withECDSA", keyPair));
+
+        RevokedEntries pruned = RevokedEntries.of(first, serialNumber -> serialNumber.intValue() % 3 != 1);
+        X509CRL crl = CertificateRevocationListService.fromByteArray(StreamingCrlEncoder.encode(ISSUER, thisUpdate,
+                thisUpdate.plus(7, ChronoUnit.DAYS), pruned, null, signer("SHA256withECDSA", keyPair)));
+
+        crl.verify(keyPair.getPublic());
+        assertEquals(4, pruned.pruned());
+        assertEquals(6, crl.getRevokedCertificates().size());
+        assertNull(crl.getRevokedCertificate(BigInteger.ONE));
+        assertNull(crl.getRevokedCertificate(BigInteger.TEN));
+        assertNotNull(crl.getRevokedCertificate(BigInteger.TWO));
+    }
+
+    @Test
+    void readsEntriesOfListsBuiltByBouncyCastle() throws Exception {
+        KeyPair keyPair = keyPair("RSA");
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(ISSUER, new Date());
+        builder.setNextUpdate(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+        builder.addCRLEntry(BigInteger.valueOf(42), new Date(), CRLReason.keyCompromise);
+        byte[] built = builder.build(signer("SHA256withRSA", keyPair)).getEncoded();
+
+        RevokedEntries entries = RevokedEntries.of(built);
+
+        assertEquals(1, entries.count());
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        X509CRL crl = CertificateRevocationListService.fromByteArray(StreamingCrlEncoder.encode(ISSUER, thisUpdate,
+                thisUpdate.plus(1, ChronoUnit.DAYS), entries, null, signer("SHA256withRSA", keyPair)));
+        assertNotNull(crl.getRevokedCertificate(BigInteger.valueOf(42)));
+    }
+
+    private static Extensions extensions() throws Exception {
+        ExtensionsGenerator generator = new ExtensionsGenerator();
+        generator.addExtension(Extension.cRLNumber, false, new ASN1Integer(1));
+        return generator.generate();
+    }
+
+    private static Extensions reason() throws Exception {
+        ExtensionsGenerator generator = new ExtensionsGenerator();
+        generator.addExtension(Extension.reasonCode, false, CRLReason.lookup(CRLReason.superseded));
+        return generator.generate();
+    }
+
+    private static KeyPair keyPair(String algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(algorithm.equals("EC") ? 256 : 2048);
+        return generator.generateKeyPair();
+    }
+
+    private static ContentSigner signer(String algorithm, KeyPair keyPair) throws Exception {
+        return new JcaContentSignerBuilder(algorithm).build(keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,144 @@
+package com.team20.pki.scheduling.service;
+
+import com.team20.pki.config.properties.SchedulingProperties;
+import com.team20.pki.scheduling.model.JobLock;
+import com.team20.pki.scheduling.model.JobRun;
+import com.team20.pki.scheduling.repository.JobLockRepository;
+import com.team20.pki.scheduling.repository.JobRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.profiles.active=test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduledJobRunnerTest {
+    private static final String JOB = "test-job";
+
+    @Autowired
+    private JobLockRepository lockRepository;
+
+    @Autowired
+    private JobRunRepository runRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ScheduledJobRunner nodeA;
+    private ScheduledJobRunner nodeB;
+
+    @BeforeEach
+    void setUp() {
+        lockRepository.deleteAll();
+        runRepository.deleteAll();
+        nodeA = runner("node-a", 0);
+        nodeB = runner("node-b", 0);
+    }
+
+    @Test
+    void runsJobAndRecordsRun() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(nodeA.run(JOB, runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        List<JobRun> history = runRepository.findByJobNameOrderByStartedAtDesc(JOB, Limit.unlimited());
+        assertEquals(1, history.size());
+        assertEquals(JobRun.Status.SUCCEEDED, history.getFirst().getStatus());
+        assertEquals("node-a", history.getFirst().getNode());
+    }
+
+    @Test
+    void skipsJobWhileAnotherNodeRunsIt() {
+        AtomicBoolean ranOnB = new AtomicBoolean(true);
+
+        assertTrue(nodeA.run(JOB, () -> ranOnB.set(nodeB.run(JOB, () -> {
+        }))));
+
+        assertFalse(ranOnB.get());
+        // the lock is released after the run
+        assertTrue(nodeB.run(JOB, () -> {
+        }));
+    }
+
+    @Test
+    void skipsOverlappingRunOnSameNode() {
+        AtomicBoolean nestedRan = new AtomicBoolean(true);
+
+        nodeA.run(JOB, () -> nestedRan.set(nodeA.run(JOB, () -> {
+        })));
+
+        assertFalse(nestedRan.get());
+        assertEquals(1, runRepository.count());
+    }
+
+    @Test
+    void takesOverLockOfDeadNode() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        lockRepository.save(new JobLock(JOB, now.minusSeconds(1), now.minusSeconds(3600), "dead-node"));
+
+        assertTrue(nodeB.run(JOB, () -> {
+        }));
+    }
+
+    @Test
+    void keepsLockForMinimumTime() {
+        nodeA = runner("node-a", 60000);
+
+        assertTrue(nodeA.run(JOB, () -> {
+        }));
+
+        assertFalse(nodeB.run(JOB, () -> {
+        }));
+        assertEquals("node-a", lockRepository.findById(JOB).orElseThrow().getLockedBy());
+    }
+
+    @Test
+    void recordsFailedRunAndReleasesLock() {
+        assertTrue(nodeA.run(JOB, () -> {
+            throw new IllegalStateException("broken");
+        }));
+
+        JobRun run = runRepository.findByJobNameOrderByStartedAtDesc(JOB, Limit.of(1)).getFirst();
+        assertEquals(JobRun.Status.FAILED, run.getStatus());
+        assertTrue(run.getError().contains("broken"));
+        assertTrue(nodeB.run(JOB, () -> {
+        }));
+    }
+
+    @Test
+    void nodeWithSchedulingDisabledSkipsJobs() {
+        SchedulingProperties properties = new SchedulingProperties();
+        properties.setNodeId("node-c");
+        properties.setEnabled(false);
+        ScheduledJobRunner disabled = new ScheduledJobRunner(lockRepository, runRepository, properties,
+                new SimpleMeterRegistry(), transactionManager);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertFalse(disabled.run(JOB, () -> ran.set(true)));
+
+        assertFalse(ran.get());
+        assertFalse(lockRepository.existsById(JOB));
+    }
+
+    private ScheduledJobRunner runner(String node, long lockAtLeastForMs) {
+        SchedulingProperties properties = new SchedulingProperties();
+        properties.setNodeId(node);
+        properties.setLockAtLeastForMs(lockAtLeastForMs);
+        return new ScheduledJobRunner(lockRepository, runRepository, properties, new SimpleMeterRegistry(),
+                transactionManager);
+    }
+}
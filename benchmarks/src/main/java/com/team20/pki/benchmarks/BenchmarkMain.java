@@ -0,0 +1,28 @@
+package com.team20.pki.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with machine-readable output by default, so that result files from
+ * different commits can be compared. Explicit {@code -rf}/{@code -rff} options take precedence.
+ */
+public class BenchmarkMain {
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if (!options.contains("-rff")) {
+            options.add("-rff");
+            options.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
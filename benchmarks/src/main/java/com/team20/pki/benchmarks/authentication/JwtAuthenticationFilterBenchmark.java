@@ -0,0 +1,79 @@
+package com.team20.pki.benchmarks.authentication;
+
+import com.team20.pki.authentication.filter.JwtAuthenticationFilter;
+import com.team20.pki.authentication.model.UserDetailsImpl;
+import com.team20.pki.authentication.service.JwtService;
+import com.team20.pki.common.model.User;
+import com.team20.pki.config.properties.AuthConfigProperties;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of {@link JwtAuthenticationFilter} for a valid bearer token.
+ * {@code cacheSize = 0} measures full signature verification on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    private static final String SECRET_KEY =
+            "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+    private final FilterChain noopChain = (request, response) -> {
+    };
+
+    @Setup
+    public void setup() {
+        AuthConfigProperties authConfig = new AuthConfigProperties();
+        authConfig.setSecretKey(SECRET_KEY);
+        authConfig.setAccessTokenExpirationTimeMs(600000L);
+        authConfig.setVerifiedTokenCacheSize(cacheSize);
+
+        JwtService jwtService = new JwtService(authConfig);
+        jwtService.init();
+        filter = new JwtAuthenticationFilter(jwtService);
+
+        String token = jwtService.generateAccessToken(
+                new UserDetailsImpl(UUID.randomUUID(), "user@example.com", User.Role.CA_USER)
+        );
+        authorizationHeader = "Bearer " + token;
+    }
+
+    @Benchmark
+    public void filterAuthenticatedRequest(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/certificates/tree");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, noopChain);
+
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void filterAnonymousRequest(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/certificates/tree");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, noopChain);
+
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,92 @@
+package com.team20.pki.benchmarks.certificates;
+
+import com.team20.pki.benchmarks.support.BenchmarkCa;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.service.certificate.impl.RSAGenerator;
+import com.team20.pki.certificates.service.certificate.util.CertificateGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Certificate issuing cost. Key generation is measured separately, since issuing reuses a pre-generated subject key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificateGeneratorBenchmark {
+    private final AtomicLong serials = new AtomicLong(1000);
+
+    private BenchmarkCa ca;
+    private CertificateGenerator generator;
+    private RSAGenerator rsaGenerator;
+    private KeyPair subjectKeyPair;
+    private Subject subject;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        ca = new BenchmarkCa();
+        generator = ca.getCertificateGenerator();
+        rsaGenerator = new RSAGenerator();
+        subjectKeyPair = rsaGenerator.generateKeyPair();
+        subject = new Subject("CN=service.example.com,O=" + BenchmarkCa.ORGANIZATION + ",C=RS");
+        validFrom = LocalDate.now();
+        validTo = validFrom.plusYears(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ca.close();
+    }
+
+    @Benchmark
+    public X509Certificate generateEndEntityCertificate() {
+        return generator.generateCertificate(
+                subject,
+                ca.getKeyPair().getPrivate(),
+                ca.getKeyPair().getPublic(),
+                ca.getCertificate(),
+                validFrom,
+                validTo,
+                String.valueOf(serials.incrementAndGet()),
+                subjectKeyPair.getPublic(),
+                CertificateType.END_ENTITY,
+                null,
+                List.of("digitalSignature", "keyEncipherment"),
+                List.of("serverAuth", "clientAuth")
+        );
+    }
+
+    @Benchmark
+    public X509Certificate generateSelfSignedCertificate() {
+        return generator.generateSelfSignedCertificate(
+                UUID.randomUUID(),
+                BigInteger.valueOf(serials.incrementAndGet()),
+                subjectKeyPair,
+                null,
+                validFrom,
+                validTo,
+                subject
+        );
+    }
+
+    @Benchmark
+    public KeyPair generateRsaKeyPair() throws NoSuchAlgorithmException {
+        return rsaGenerator.generateKeyPair();
+    }
+}
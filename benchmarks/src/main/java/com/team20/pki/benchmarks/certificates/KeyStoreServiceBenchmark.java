@@ -0,0 +1,59 @@
+package com.team20.pki.benchmarks.certificates;
+
+import com.team20.pki.benchmarks.support.BenchmarkCa;
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keystore file round trips, as done for every issued certificate and every signing operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStoreServiceBenchmark {
+    private static final char[] PASSWORD = "benchmark-pass".toCharArray();
+    private static final String ALIAS = "benchmark";
+
+    private BenchmarkCa ca;
+    private KeyStoreService keyStoreService;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        ca = new BenchmarkCa();
+        keyStoreService = ca.getKeyStoreService();
+        keyStoreService.saveKeyStore(ALIAS, PASSWORD, ALIAS, ca.getKeyPair().getPrivate(), PASSWORD, ca.getX509Certificate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ca.close();
+    }
+
+    @Benchmark
+    public void storeKeyEntry() {
+        keyStoreService.saveKeyStore("store-key", PASSWORD, ALIAS, ca.getKeyPair().getPrivate(), PASSWORD, ca.getX509Certificate());
+    }
+
+    @Benchmark
+    public void storeCertificateEntry() {
+        keyStoreService.saveKeyStore("store-certificate", PASSWORD, ALIAS, ca.getX509Certificate());
+    }
+
+    @Benchmark
+    public X509Certificate loadCertificate() {
+        return keyStoreService.readCertificate(ALIAS, PASSWORD, ALIAS);
+    }
+
+    @Benchmark
+    public PrivateKey loadPrivateKey() {
+        return keyStoreService.readPrivateKey(ALIAS, new String(PASSWORD), ALIAS, new String(PASSWORD));
+    }
+}
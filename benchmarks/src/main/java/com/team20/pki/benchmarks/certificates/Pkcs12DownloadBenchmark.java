@@ -0,0 +1,146 @@
+package com.team20.pki.benchmarks.certificates;
+
+import com.team20.pki.benchmarks.support.BenchmarkCa;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Issuer;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.service.certificate.impl.RSAGenerator;
+import com.team20.pki.certificates.service.certificate.util.ChainCertificateCache;
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.certificates.service.certificate.util.Pkcs12Builder;
+import com.team20.pki.config.properties.Pkcs12Properties;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of a PKCS#12 download of an end entity issued by an intermediate CA, chain included.
+ * {@code keyStore} is the former implementation: every chain link read from its keystore with its password,
+ * and a PKCS12 {@link KeyStore} stored into a byte array. {@code builder} takes the CA certificates from
+ * {@link ChainCertificateCache} and encodes the {@link Pkcs12Builder} result into the response stream.
+ * Both use AES-256 with 10000 iterations and an HMAC-SHA256 MAC, the JDK 21 defaults.
+ * The whole endpoint is measured by the load test's pkcs12-download operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Pkcs12DownloadBenchmark {
+    private static final String KEY_STORE_PASSWORD = "keystore-pass";
+    private static final char[] DOWNLOAD_PASSWORD = "download-pass-16".toCharArray();
+
+    private BenchmarkCa ca;
+    private KeyStoreService keyStoreService;
+    private PasswordStorage passwordStorage;
+    private Pkcs12Builder pkcs12Builder;
+    private ChainCertificateCache chainCache;
+
+    private KeyPair endEntityKeyPair;
+    private X509Certificate endEntityCertificate;
+    // issuing CAs, direct issuer first
+    private List<Certificate> chain;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        ca = new BenchmarkCa();
+        keyStoreService = ca.getKeyStoreService();
+        passwordStorage = ca.getPasswordStorage();
+        Pkcs12Properties properties = new Pkcs12Properties();
+        pkcs12Builder = new Pkcs12Builder(properties);
+        chainCache = new ChainCertificateCache(properties);
+
+        RSAGenerator rsaGenerator = new RSAGenerator();
+        LocalDate validFrom = LocalDate.now().minusDays(1);
+        KeyPair intermediateKeyPair = rsaGenerator.generateKeyPair();
+        Subject intermediateSubject = new Subject("CN=Benchmark Intermediate CA,O=" + BenchmarkCa.ORGANIZATION + ",C=RS");
+        X509Certificate intermediateCertificate = ca.getCertificateGenerator().generateCertificate(intermediateSubject,
+                ca.getKeyPair().getPrivate(), ca.getKeyPair().getPublic(), ca.getCertificate(), validFrom, validFrom.plusYears(5),
+                "2", intermediateKeyPair.getPublic(), CertificateType.INTERMEDIATE, null,
+                List.of("keyCertSign", "cRLSign"), List.of());
+        Certificate intermediate = new Certificate();
+        intermediate.setId(UUID.randomUUID());
+        intermediate.setType(CertificateType.INTERMEDIATE);
+        intermediate.setSerialNumber("2");
+        intermediate.setSubject(intermediateSubject);
+        intermediate.setIssuer(new Issuer(intermediateSubject.getDistinguishedName()));
+        intermediate.setParent(ca.getCertificate());
+        keyStoreService.saveKeyStore("2", KEY_STORE_PASSWORD.toCharArray(), "2", intermediateCertificate);
+        passwordStorage.storeKeyStorePassword(BenchmarkCa.ORGANIZATION, KEY_STORE_PASSWORD, "2");
+
+        endEntityKeyPair = rsaGenerator.generateKeyPair();
+        endEntityCertificate = ca.getCertificateGenerator().generateCertificate(
+                new Subject("CN=service.example.com,O=" + BenchmarkCa.ORGANIZATION + ",C=RS"),
+                intermediateKeyPair.getPrivate(), intermediateKeyPair.getPublic(), intermediate, validFrom, validFrom.plusYears(1),
+                "3", endEntityKeyPair.getPublic(), CertificateType.END_ENTITY, null,
+                List.of("digitalSignature", "keyEncipherment"), List.of("serverAuth", "clientAuth"));
+        chain = List.of(intermediate, ca.getCertificate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ca.close();
+    }
+
+    @Benchmark
+    public byte[] keyStore() throws GeneralSecurityException, IOException {
+        List<X509Certificate> certificates = new ArrayList<>();
+        certificates.add(endEntityCertificate);
+        for (Certificate link : chain) {
+            String keyStorePassword = passwordStorage.loadKeyStorePassword(BenchmarkCa.ORGANIZATION, link.getSerialNumber());
+            certificates.add(keyStoreService.readCertificate(link.getSerialNumber(), keyStorePassword.toCharArray(), link.getSerialNumber()));
+        }
+        KeyStore pkcs12 = KeyStore.getInstance("PKCS12");
+        pkcs12.load(null, null);
+        pkcs12.setKeyEntry("key", endEntityKeyPair.getPrivate(), DOWNLOAD_PASSWORD, certificates.toArray(X509Certificate[]::new));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pkcs12.store(out, DOWNLOAD_PASSWORD);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public long builder() throws Exception {
+        List<X509CertificateHolder> certificates = new ArrayList<>();
+        for (Certificate link : chain) {
+            certificates.add(chainCache.get(link.getId(), () -> {
+                String keyStorePassword = passwordStorage.loadKeyStorePassword(BenchmarkCa.ORGANIZATION, link.getSerialNumber());
+                return keyStoreService.readCertificate(link.getSerialNumber(), keyStorePassword.toCharArray(), link.getSerialNumber());
+            }));
+        }
+        CountingOutputStream out = new CountingOutputStream();
+        pkcs12Builder.build(endEntityKeyPair.getPrivate(), endEntityCertificate, certificates, DOWNLOAD_PASSWORD)
+                .toASN1Structure().encodeTo(out, ASN1Encoding.DER);
+        return out.count;
+    }
+
+    // stands in for the response stream
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.team20.pki.benchmarks.certificates;
+
+import com.team20.pki.certificates.model.Subject;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.openjdk.jmh.annotations.*;
+
+import javax.naming.InvalidNameException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinguished name parsing, which runs for every certificate mapped to a response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubjectBenchmark {
+    private Subject subject;
+
+    @Setup
+    public void setup() {
+        subject = new Subject("CN=service.example.com,OU=Platform,O=Benchmark Org,L=Novi Sad,C=RS,E=admin@example.com");
+    }
+
+    @Benchmark
+    public String getCommonName() {
+        return subject.getCommonName();
+    }
+
+    @Benchmark
+    public String getOrganization() throws InvalidNameException {
+        return subject.getOrganization();
+    }
+
+    @Benchmark
+    public X500Name toX500Name() {
+        return subject.toX500Name();
+    }
+}
@@ -0,0 +1,97 @@
+package com.team20.pki.benchmarks.dataset;
+
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.common.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts generated rows with JDBC batches, one transaction per call, bypassing JPA.
+ * Column names follow the Hibernate naming of the entities.
+ */
+public class BulkWriter {
+    private static final String INSERT_USER = """
+            insert into users (id, email, password, first_name, last_name, organization, role)
+            values (?, ?, ?, ?, ?, ?, ?)""";
+    private static final String INSERT_CERTIFICATE = """
+            insert into certificates (id, type, serial_number, valid_from, valid_to, parent_id, issuer_dn, subject_dn,
+                                      owner_id, is_revoked, revoked_at, revocation_reason, descendant_count,
+                                      revoked_descendant_count, crl_partition, private_key_available)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+    private static final String INSERT_REFRESH_TOKEN = """
+            insert into refresh_tokens (id, token, session_id, expiration_time, revoked, user_id)
+            values (?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public record UserRow(UUID id, String email, String passwordHash, String organization, User.Role role) {
+    }
+
+    public record CertificateRow(UUID id, CertificateType type, String serialNumber, LocalDate validFrom,
+                                 LocalDate validTo, UUID parentId, String issuerDn, String subjectDn, UUID ownerId,
+                                 boolean revoked, Instant revokedAt, Integer revocationReason, long descendantCount,
+                                 long revokedDescendantCount, Integer crlPartition, boolean privateKeyAvailable) {
+    }
+
+    public record RefreshTokenRow(UUID id, String token, String sessionId, Instant expirationTime, UUID userId) {
+    }
+
+    public BulkWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void insertUsers(List<UserRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(),
+                (statement, row) -> {
+                    statement.setObject(1, row.id());
+                    statement.setString(2, row.email());
+                    statement.setString(3, row.passwordHash());
+                    statement.setString(4, "Dataset");
+                    statement.setString(5, "User");
+                    statement.setString(6, row.organization());
+                    statement.setInt(7, row.role().ordinal());
+                }));
+    }
+
+    public void insertCertificates(List<CertificateRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CERTIFICATE, rows, rows.size(),
+                (statement, row) -> {
+                    statement.setObject(1, row.id());
+                    statement.setString(2, row.type().name());
+                    statement.setString(3, row.serialNumber());
+                    statement.setObject(4, row.validFrom());
+                    statement.setObject(5, row.validTo());
+                    statement.setObject(6, row.parentId());
+                    statement.setString(7, row.issuerDn());
+                    statement.setString(8, row.subjectDn());
+                    statement.setObject(9, row.ownerId());
+                    statement.setBoolean(10, row.revoked());
+                    statement.setObject(11, row.revokedAt() != null ? Timestamp.from(row.revokedAt()) : null);
+                    statement.setObject(12, row.revocationReason());
+                    statement.setLong(13, row.descendantCount());
+                    statement.setLong(14, row.revokedDescendantCount());
+                    statement.setObject(15, row.crlPartition());
+                    statement.setBoolean(16, row.privateKeyAvailable());
+                }));
+    }
+
+    public void insertRefreshTokens(List<RefreshTokenRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_REFRESH_TOKEN, rows, rows.size(),
+                (statement, row) -> {
+                    statement.setObject(1, row.id());
+                    statement.setString(2, row.token());
+                    statement.setString(3, row.sessionId());
+                    statement.setTimestamp(4, Timestamp.from(row.expirationTime()));
+                    statement.setBoolean(5, false);
+                    statement.setObject(6, row.userId());
+                }));
+    }
+}
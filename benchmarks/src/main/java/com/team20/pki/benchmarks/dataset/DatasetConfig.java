@@ -0,0 +1,123 @@
+package com.team20.pki.benchmarks.dataset;
+
+import java.nio.file.Path;
+
+/**
+ * Shape of the generated dataset, given as {@code --name=value} arguments.
+ * Every organization gets the same hierarchy: {@code roots} root CAs, each with {@code intermediatesPerCa}
+ * intermediates per level down to {@code depth}. End-entity certificates are spread over the CAs of the lowest level.
+ *
+ * @param name              prefix of organization names and emails, so that several datasets can share a database
+ * @param endEntityKeyStores whether end-entity keystores and password files are written, CA key material is always written
+ * @param keyPoolSize        number of distinct end-entity key pairs, reused round-robin
+ */
+public record DatasetConfig(
+        String name,
+        int organizations,
+        int usersPerOrganization,
+        int caUsersPerOrganization,
+        int roots,
+        int depth,
+        int intermediatesPerCa,
+        long endEntities,
+        double revokedRatio,
+        int refreshTokensPerUser,
+        boolean endEntityKeyStores,
+        int keyPoolSize,
+        int threads,
+        int batchSize,
+        Path keyStoreDirectory,
+        String datasourceUrl,
+        String datasourceUsername,
+        String datasourcePassword
+) {
+    public static final String USAGE = """
+            Options:
+              --name=dataset                   prefix of organization names and user emails
+              --organizations=10
+              --users-per-organization=100     regular users
+              --ca-users-per-organization=5
+              --roots=1                        root CAs per organization
+              --depth=2                        intermediate levels below every root
+              --intermediates-per-ca=3
+              --end-entities=100000            in total
+              --revoked-ratio=0.05             share of revoked end-entity certificates
+              --refresh-tokens-per-user=3      a third of them expired
+              --end-entity-keystores=true      write end-entity keystores and password files
+              --key-pool=64                    distinct end-entity key pairs
+              --threads=<processors>
+              --batch-size=1000                rows per insert transaction
+              --keystore-dir=../backend/src/main/resources/keystores
+              --datasource-url=jdbc:postgresql://localhost:5432/pki
+              --datasource-username=postgres
+              --datasource-password=postgres
+            PKI_MASTER_KEY must be set to the master key of the backend that will use the dataset.
+            """;
+
+    public static DatasetConfig parse(String[] args) {
+        String name = "dataset";
+        int organizations = 10;
+        int usersPerOrganization = 100;
+        int caUsersPerOrganization = 5;
+        int roots = 1;
+        int depth = 2;
+        int intermediatesPerCa = 3;
+        long endEntities = 100_000;
+        double revokedRatio = 0.05;
+        int refreshTokensPerUser = 3;
+        boolean endEntityKeyStores = true;
+        int keyPoolSize = 64;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1000;
+        Path keyStoreDirectory = Path.of("../backend/src/main/resources/keystores");
+        String datasourceUrl = "jdbc:postgresql://localhost:5432/pki";
+        String datasourceUsername = "postgres";
+        String datasourcePassword = "postgres";
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Invalid argument: " + arg);
+            }
+            String option = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (option) {
+                case "name" -> name = value;
+                case "organizations" -> organizations = Integer.parseInt(value);
+                case "users-per-organization" -> usersPerOrganization = Integer.parseInt(value);
+                case "ca-users-per-organization" -> caUsersPerOrganization = Integer.parseInt(value);
+                case "roots" -> roots = Integer.parseInt(value);
+                case "depth" -> depth = Integer.parseInt(value);
+                case "intermediates-per-ca" -> intermediatesPerCa = Integer.parseInt(value);
+                case "end-entities" -> endEntities = Long.parseLong(value);
+                case "revoked-ratio" -> revokedRatio = Double.parseDouble(value);
+                case "refresh-tokens-per-user" -> refreshTokensPerUser = Integer.parseInt(value);
+                case "end-entity-keystores" -> endEntityKeyStores = Boolean.parseBoolean(value);
+                case "key-pool" -> keyPoolSize = Integer.parseInt(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "batch-size" -> batchSize = Integer.parseInt(value);
+                case "keystore-dir" -> keyStoreDirectory = Path.of(value);
+                case "datasource-url" -> datasourceUrl = value;
+                case "datasource-username" -> datasourceUsername = value;
+                case "datasource-password" -> datasourcePassword = value;
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        if (organizations < 1 || roots < 1 || depth < 0 || (depth > 0 && intermediatesPerCa < 1)) {
+            throw new IllegalArgumentException("Every organization needs at least one root and intermediates on every level");
+        }
+        if (endEntities > 0 && (usersPerOrganization < 1 || keyPoolSize < 1)) {
+            throw new IllegalArgumentException("End-entity certificates need regular users and a key pool");
+        }
+        if (caUsersPerOrganization < 1) {
+            throw new IllegalArgumentException("Every organization needs a CA user to own its CAs");
+        }
+        if (revokedRatio < 0 || revokedRatio > 1) {
+            throw new IllegalArgumentException("Revoked ratio must be between 0 and 1");
+        }
+        return new DatasetConfig(name, organizations, usersPerOrganization, caUsersPerOrganization, roots, depth,
+                intermediatesPerCa, endEntities, revokedRatio, refreshTokensPerUser, endEntityKeyStores, keyPoolSize,
+                threads, batchSize, keyStoreDirectory, datasourceUrl, datasourceUsername, datasourcePassword);
+    }
+}
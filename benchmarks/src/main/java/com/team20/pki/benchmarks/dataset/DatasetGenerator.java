@@ -0,0 +1,574 @@
+package com.team20.pki.benchmarks.dataset;
+
+import com.team20.pki.benchmarks.support.BackendApplication;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Issuer;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.certificates.service.certificate.IRSAGenerator;
+import com.team20.pki.certificates.service.certificate.util.CertificateGenerator;
+import com.team20.pki.certificates.service.certificate.util.KeyStorePasswordGenerator;
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.common.model.User;
+import com.team20.pki.encryption.service.OrganizationKeyProvider;
+import com.team20.pki.encryption.service.impl.DefaultEncryptionService;
+import com.team20.pki.revocation.model.CertificateRevocationList;
+import com.team20.pki.revocation.model.CrlPartition;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v2CRLBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills a database with a synthetic PKI: organizations with regular and CA users, refresh tokens,
+ * CA hierarchies and a large number of end-entity certificates, some of them revoked.
+ * <p>
+ * Rows are bulk-inserted with JDBC, while keystores, password files and CRLs are produced by the backend's own
+ * services, so the backend can load every generated certificate. CA keys are unique; end-entity certificates
+ * reuse a pool of key pairs, as generating millions of RSA keys would dominate the run time.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar com.team20.pki.benchmarks.dataset.DatasetGenerator [options]},
+ * see {@link DatasetConfig#USAGE}.
+ */
+public class DatasetGenerator {
+    public static final String PASSWORD = "Dataset123!";
+
+    private static final List<String> CA_KEY_USAGE = List.of("digitalSignature");
+    private static final List<String> END_ENTITY_KEY_USAGE = List.of("digitalSignature", "keyEncipherment");
+    private static final List<String> END_ENTITY_EXTENDED_KEY_USAGE = List.of("clientAuth");
+    private static final int PASSWORD_LENGTH = 16;
+
+    private final DatasetConfig config;
+    private final ConfigurableApplicationContext context;
+    private final BulkWriter writer;
+    private final KeyStoreService keyStoreService;
+    private final PasswordStorage passwordStorage;
+    private final CertificateGenerator certificateGenerator;
+    private final CrlDistributionPoints distributionPoints;
+    private final KeyStorePasswordGenerator passwordGenerator;
+    private final IRSAGenerator rsaGenerator;
+    private final ExecutorService executor;
+
+    private final SecureRandom random = new SecureRandom();
+    private final LocalDate today = LocalDate.now();
+    // serials are handed out sequentially from a random base, so they are unique without a lookup
+    private final AtomicLong nextSerial = new AtomicLong((1L << 61) + (random.nextLong() >>> 4));
+    private final AtomicLong issuedEndEntities = new AtomicLong();
+
+    private record Organization(String name, String domain, List<UUID> caUsers, List<UUID> users) {
+    }
+
+    private record RevokedEntry(BigInteger serialNumber, Date revocationDate) {
+    }
+
+    private static class CaNode {
+        private final Organization organization;
+        private final CaNode parent;
+        private final String label;
+        private final Certificate certificate = new Certificate();
+        private final List<CaNode> children = new ArrayList<>();
+        // revocations of the end entities by the CRL partition they are listed in
+        private final Map<Integer, List<RevokedEntry>> revokedByPartition = Collections.synchronizedMap(new HashMap<>());
+        private KeyPair keyPair;
+        private X509Certificate x509Certificate;
+        private UUID ownerId;
+        private long endEntities;
+        private long revokedEndEntities;
+
+        CaNode(Organization organization, CaNode parent, String label) {
+            this.organization = organization;
+            this.parent = parent;
+            this.label = label;
+        }
+
+        long getDescendantCount() {
+            return endEntities + children.stream().mapToLong(child -> 1 + child.getDescendantCount()).sum();
+        }
+
+        long getRevokedDescendantCount() {
+            return revokedEndEntities + children.stream().mapToLong(CaNode::getRevokedDescendantCount).sum();
+        }
+    }
+
+    public DatasetGenerator(DatasetConfig config, ConfigurableApplicationContext context) {
+        this.config = config;
+        this.context = context;
+        this.writer = new BulkWriter(context.getBean(JdbcTemplate.class), context.getBean(TransactionTemplate.class));
+        this.keyStoreService = context.getBean(KeyStoreService.class);
+        this.certificateGenerator = context.getBean(CertificateGenerator.class);
+        this.distributionPoints = context.getBean(CrlDistributionPoints.class);
+        this.passwordGenerator = context.getBean(KeyStorePasswordGenerator.class);
+        this.rsaGenerator = context.getBean(IRSAGenerator.class);
+        this.executor = Executors.newFixedThreadPool(config.threads());
+
+        // organization keys are unwrapped once instead of being loaded from the database for every password file
+        OrganizationKeyProvider databaseKeys = context.getBean(OrganizationKeyProvider.class);
+        Map<String, SecretKey> organizationKeys = new ConcurrentHashMap<>();
+        this.passwordStorage = new PasswordStorage(new DefaultEncryptionService(
+                organization -> organizationKeys.computeIfAbsent(organization, databaseKeys::getOrCreateOrganizationKey)));
+        ReflectionTestUtils.setField(passwordStorage, "privateKeyFilePath", config.keyStoreDirectory().resolve("pk-passwords").toString());
+        ReflectionTestUtils.setField(passwordStorage, "ksPasswordFilePath", config.keyStoreDirectory().resolve("ks-passwords").toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(DatasetConfig.USAGE);
+            return;
+        }
+        DatasetConfig config = DatasetConfig.parse(args);
+        if (System.getenv("PKI_MASTER_KEY") == null) {
+            throw new IllegalStateException("PKI_MASTER_KEY must be set to the master key of the backend that will use the dataset");
+        }
+
+        try (ConfigurableApplicationContext context = startBackend(config)) {
+            new DatasetGenerator(config, context).run();
+        }
+    }
+
+    public void run() throws Exception {
+        long start = System.nanoTime();
+        try {
+            List<Organization> organizations = createUsers();
+            log(start, "created %d organizations with %d users and an administrator", organizations.size(),
+                    organizations.stream().mapToInt(organization -> organization.users().size() + organization.caUsers().size()).sum());
+
+            List<CaNode> authorities = createAuthorities(organizations);
+            List<CaNode> issuers = authorities.stream().filter(node -> node.children.isEmpty()).toList();
+            planEndEntities(issuers);
+            insertAuthorities(authorities);
+            log(start, "created %d CAs", authorities.size());
+
+            issueEndEntities(issuers, start);
+            log(start, "issued %d end-entity certificates", issuedEndEntities.get());
+
+            long crls = writeRevocationLists(authorities);
+            log(start, "signed %d CRLs", crls);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Organization> createUsers() throws Exception {
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<BulkWriter.UserRow> rows = new ArrayList<>();
+        List<Organization> organizations = new ArrayList<>();
+
+        rows.add(new BulkWriter.UserRow(UUID.randomUUID(), "admin@" + config.name() + ".example.com", passwordHash,
+                config.name() + " Administration", User.Role.ADMINISTRATOR));
+        for (int i = 1; i <= config.organizations(); i++) {
+            Organization organization = new Organization(config.name() + " Organization " + i,
+                    "org" + i + "." + config.name() + ".example.com", new ArrayList<>(), new ArrayList<>());
+            for (int j = 1; j <= config.caUsersPerOrganization(); j++) {
+                UUID id = UUID.randomUUID();
+                organization.caUsers().add(id);
+                rows.add(new BulkWriter.UserRow(id, "ca" + j + "@" + organization.domain(), passwordHash,
+                        organization.name(), User.Role.CA_USER));
+            }
+            for (int j = 1; j <= config.usersPerOrganization(); j++) {
+                UUID id = UUID.randomUUID();
+                organization.users().add(id);
+                rows.add(new BulkWriter.UserRow(id, "user" + j + "@" + organization.domain(), passwordHash,
+                        organization.name(), User.Role.REGULAR_USER));
+            }
+            organizations.add(organization);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<BulkWriter.UserRow> chunk : chunks(rows)) {
+            tasks.add(() -> {
+                writer.insertUsers(chunk);
+                insertRefreshTokens(chunk);
+                return null;
+            });
+        }
+        await(tasks);
+        return organizations;
+    }
+
+    // two thirds are still valid, the rest expired in the last week and wait for the cleanup job
+    private void insertRefreshTokens(List<BulkWriter.UserRow> users) {
+        Instant now = Instant.now();
+        List<BulkWriter.RefreshTokenRow> rows = new ArrayList<>();
+        for (BulkWriter.UserRow user : users) {
+            for (int i = 0; i < config.refreshTokensPerUser(); i++) {
+                byte[] token = new byte[32];
+                random.nextBytes(token);
+                Instant expiration = i % 3 == 2
+                        ? now.minus(Duration.ofMinutes(random.nextInt(7 * 24 * 60)))
+                        : now.plus(Duration.ofMinutes(1 + random.nextInt(24 * 60)));
+                rows.add(new BulkWriter.RefreshTokenRow(UUID.randomUUID(), HexFormat.of().formatHex(token),
+                        UUID.randomUUID().toString(), expiration, user.id()));
+            }
+        }
+        if (!rows.isEmpty()) {
+            writer.insertRefreshTokens(rows);
+        }
+    }
+
+    /**
+     * Generates the CA hierarchies of all organizations in parallel, with their keystores and password files.
+     * Returned parents-first, ready to be inserted.
+     */
+    private List<CaNode> createAuthorities(List<Organization> organizations) throws Exception {
+        List<Callable<List<CaNode>>> tasks = new ArrayList<>();
+        for (Organization organization : organizations) {
+            tasks.add(() -> {
+                // creates the organization key before any password file of the organization is written
+                passwordStorage.storeKeyStorePassword(organization.name(), "", "organization-key-check");
+                Files.deleteIfExists(config.keyStoreDirectory().resolve("ks-passwords").resolve("organization-key-check.key"));
+
+                List<CaNode> nodes = new ArrayList<>();
+                List<CaNode> level = new ArrayList<>();
+                for (int r = 1; r <= config.roots(); r++) {
+                    CaNode root = new CaNode(organization, null, Integer.toString(r));
+                    createRoot(root, nodes.size());
+                    level.add(root);
+                    nodes.add(root);
+                }
+                for (int depth = 1; depth <= config.depth(); depth++) {
+                    List<CaNode> nextLevel = new ArrayList<>();
+                    for (CaNode parent : level) {
+                        for (int i = 1; i <= config.intermediatesPerCa(); i++) {
+                            CaNode intermediate = new CaNode(organization, parent, parent.label + "." + i);
+                            createIntermediate(intermediate, nodes.size());
+                            parent.children.add(intermediate);
+                            nextLevel.add(intermediate);
+                            nodes.add(intermediate);
+                        }
+                    }
+                    level = nextLevel;
+                }
+                return nodes;
+            });
+        }
+
+        List<CaNode> authorities = new ArrayList<>();
+        for (Future<List<CaNode>> future : executor.invokeAll(tasks)) {
+            authorities.addAll(getResult(future));
+        }
+        return authorities;
+    }
+
+    private void createRoot(CaNode node, int index) throws NoSuchAlgorithmException {
+        Organization organization = node.organization;
+        Subject subject = new Subject("CN=" + organization.name() + " Root CA " + node.label + ",O=" + organization.name() + ",C=RS");
+        LocalDate validFrom = today.minusYears(2);
+        prepareCertificate(node, CertificateType.ROOT, subject, new Issuer(subject.getDistinguishedName()),
+                validFrom, validFrom.plusYears(20), organization.caUsers().get(index % organization.caUsers().size()));
+
+        node.keyPair = rsaGenerator.generateKeyPair();
+        node.x509Certificate = certificateGenerator.generateSelfSignedCertificate(node.certificate.getId(),
+                new BigInteger(node.certificate.getSerialNumber()), node.keyPair, null,
+                node.certificate.getValidFrom(), node.certificate.getValidTo(), subject);
+        storeKeyMaterial(organization.name(), node.certificate.getSerialNumber(), node.keyPair, node.x509Certificate);
+    }
+
+    private void createIntermediate(CaNode node, int index) throws NoSuchAlgorithmException {
+        Organization organization = node.organization;
+        Subject subject = new Subject("CN=" + organization.name() + " CA " + node.label + ",O=" + organization.name() + ",C=RS");
+        prepareCertificate(node, CertificateType.INTERMEDIATE, subject,
+                new Issuer(node.parent.certificate.getSubject().getDistinguishedName()),
+                today.minusYears(1), today.plusYears(10), organization.caUsers().get(index % organization.caUsers().size()));
+
+        node.keyPair = rsaGenerator.generateKeyPair();
+        node.x509Certificate = certificateGenerator.generateCertificate(subject,
+                node.parent.keyPair.getPrivate(), node.parent.keyPair.getPublic(), node.parent.certificate,
+                node.certificate.getValidFrom(), node.certificate.getValidTo(), node.certificate.getSerialNumber(),
+                node.keyPair.getPublic(), CertificateType.INTERMEDIATE, null, CA_KEY_USAGE, null);
+        storeKeyMaterial(organization.name(), node.certificate.getSerialNumber(), node.keyPair, node.x509Certificate);
+    }
+
+    private void prepareCertificate(CaNode node, CertificateType type, Subject subject, Issuer issuer,
+                                    LocalDate validFrom, LocalDate validTo, UUID ownerId) {
+        Certificate certificate = node.certificate;
+        certificate.setId(UUID.randomUUID());
+        certificate.setType(type);
+        certificate.setSerialNumber(Long.toString(nextSerial.getAndIncrement()));
+        certificate.setValidFrom(validFrom);
+        certificate.setValidTo(validTo);
+        certificate.setSubject(subject);
+        certificate.setIssuer(issuer);
+        certificate.setIsRevoked(false);
+        node.ownerId = ownerId;
+    }
+
+    private void storeKeyMaterial(String organization, String serialNumber, KeyPair keyPair, X509Certificate certificate) {
+        String keyStorePassword = passwordGenerator.generatePassword(PASSWORD_LENGTH);
+        String privateKeyPassword = passwordGenerator.generatePassword(PASSWORD_LENGTH);
+        passwordStorage.storePrivateKeyPassword(organization, privateKeyPassword, serialNumber);
+        passwordStorage.storeKeyStorePassword(organization, keyStorePassword, serialNumber);
+        keyStoreService.saveKeyStore(serialNumber, keyStorePassword.toCharArray(), serialNumber,
+                keyPair.getPrivate(), privateKeyPassword.toCharArray(), certificate);
+    }
+
+    // every CA of the lowest level gets the same share, revocations are spread evenly within it
+    private void planEndEntities(List<CaNode> issuers) {
+        for (int i = 0; i < issuers.size(); i++) {
+            CaNode issuer = issuers.get(i);
+            issuer.endEntities = config.endEntities() / issuers.size() + (i < config.endEntities() % issuers.size() ? 1 : 0);
+            issuer.revokedEndEntities = (long) Math.floor(issuer.endEntities * config.revokedRatio());
+        }
+    }
+
+    private boolean isRevoked(long index) {
+        return (long) Math.floor((index + 1) * config.revokedRatio()) > (long) Math.floor(index * config.revokedRatio());
+    }
+
+    private void insertAuthorities(List<CaNode> authorities) {
+        List<BulkWriter.CertificateRow> rows = authorities.stream().map(node -> {
+            Certificate certificate = node.certificate;
+            return new BulkWriter.CertificateRow(certificate.getId(), certificate.getType(),
+                    certificate.getSerialNumber(), certificate.getValidFrom(), certificate.getValidTo(),
+                    node.parent != null ? node.parent.certificate.getId() : null,
+                    certificate.getIssuer().getDistinguishedName(), certificate.getSubject().getDistinguishedName(),
+                    node.ownerId, false, null, null, node.getDescendantCount(), node.getRevokedDescendantCount(),
+                    node.parent != null ? distributionPoints.partitionOf(certificate.getValidFrom()) : null, true);
+        }).toList();
+        // parents come first, so a single ordered batch satisfies the foreign keys
+        writer.insertCertificates(rows);
+    }
+
+    private void issueEndEntities(List<CaNode> issuers, long start) throws Exception {
+        KeyPair[] keyPool = createKeyPool();
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (CaNode issuer : issuers) {
+            for (long first = 0; first < issuer.endEntities; first += config.batchSize()) {
+                long from = first;
+                long to = Math.min(first + config.batchSize(), issuer.endEntities);
+                tasks.add(() -> {
+                    issueEndEntities(issuer, from, to, keyPool);
+                    return null;
+                });
+            }
+        }
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> log(start, "issued %d of %d end-entity certificates",
+                issuedEndEntities.get(), config.endEntities()), 10, 10, TimeUnit.SECONDS);
+        try {
+            await(tasks);
+        } finally {
+            progress.shutdownNow();
+        }
+    }
+
+    private KeyPair[] createKeyPool() throws Exception {
+        List<Callable<KeyPair>> tasks = new ArrayList<>();
+        for (int i = 0; i < config.keyPoolSize(); i++) {
+            tasks.add(rsaGenerator::generateKeyPair);
+        }
+        List<KeyPair> keyPairs = new ArrayList<>();
+        for (Future<KeyPair> future : executor.invokeAll(tasks)) {
+            keyPairs.add(getResult(future));
+        }
+        return keyPairs.toArray(KeyPair[]::new);
+    }
+
+    private void issueEndEntities(CaNode issuer, long from, long to, KeyPair[] keyPool) {
+        Organization organization = issuer.organization;
+        Date revocationDate = Date.from(Instant.now().minus(Duration.ofDays(1)));
+        List<BulkWriter.CertificateRow> rows = new ArrayList<>();
+
+        for (long i = from; i < to; i++) {
+            KeyPair keyPair = keyPool[(int) (i % keyPool.length)];
+            String serialNumber = Long.toString(nextSerial.getAndIncrement());
+            UUID ownerId = organization.users().get((int) (i % organization.users().size()));
+            LocalDate validFrom = today.minusDays(i % 180);
+            LocalDate validTo = validFrom.plusYears(1);
+            Subject subject = new Subject("CN=ee" + i + ".ca" + issuer.label + "." + organization.domain()
+                    + ",O=" + organization.name() + ",C=RS");
+            boolean revoked = isRevoked(i);
+            Integer partition = distributionPoints.partitionOf(validFrom);
+
+            X509Certificate certificate = certificateGenerator.generateCertificate(subject,
+                    issuer.keyPair.getPrivate(), issuer.keyPair.getPublic(), issuer.certificate,
+                    validFrom, validTo, serialNumber, keyPair.getPublic(), CertificateType.END_ENTITY, null,
+                    END_ENTITY_KEY_USAGE, END_ENTITY_EXTENDED_KEY_USAGE);
+            if (config.endEntityKeyStores()) {
+                storeKeyMaterial(organization.name(), serialNumber, keyPair, certificate);
+            }
+            List<RevokedEntry> partitionRevocations = issuer.revokedByPartition.computeIfAbsent(partition,
+                    p -> Collections.synchronizedList(new ArrayList<>()));
+            if (revoked) {
+                partitionRevocations.add(new RevokedEntry(certificate.getSerialNumber(), revocationDate));
+            }
+
+            rows.add(new BulkWriter.CertificateRow(UUID.randomUUID(), CertificateType.END_ENTITY, serialNumber,
+                    validFrom, validTo, issuer.certificate.getId(), issuer.certificate.getSubject().getDistinguishedName(),
+                    subject.getDistinguishedName(), ownerId, revoked, revoked ? revocationDate.toInstant() : null,
+                    revoked ? CRLReason.keyCompromise : null, 0, 0, partition, config.endEntityKeyStores()));
+        }
+
+        writer.insertCertificates(rows);
+        issuedEndEntities.addAndGet(rows.size());
+    }
+
+    /**
+     * Signs one CRL with all revocations for every CRL partition end entities were issued into, including
+     * partitions without revocations. Unpartitioned CRLs without revocations are left to the backend's CRL publisher,
+     * as usual.
+     */
+    private long writeRevocationLists(List<CaNode> authorities) throws Exception {
+        ICertificateRepository certificateRepository = context.getBean(ICertificateRepository.class);
+        CertificateRevocationListRepository crlRepository = context.getBean(CertificateRevocationListRepository.class);
+        CrlPartitionRepository partitionRepository = context.getBean(CrlPartitionRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (CaNode authority : authorities) {
+            authority.revokedByPartition.forEach((partition, revoked) -> {
+                if (partition == null && revoked.isEmpty()) {
+                    return;
+                }
+                tasks.add(() -> {
+                    Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+                    Instant nextUpdate = thisUpdate.plus(Duration.ofDays(7));
+                    byte[] encoded = signRevocationList(authority, partition, revoked, thisUpdate, nextUpdate);
+                    Certificate ca = certificateRepository.getReferenceById(authority.certificate.getId());
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (partition == null) {
+                            crlRepository.save(new CertificateRevocationList(null, ca, encoded, thisUpdate, nextUpdate, null));
+                        } else {
+                            partitionRepository.save(new CrlPartition(null, ca, partition, encoded, thisUpdate, nextUpdate, null));
+                        }
+                    });
+                    return null;
+                });
+            });
+        }
+        await(tasks);
+        return tasks.size();
+    }
+
+    private byte[] signRevocationList(CaNode authority, Integer partition, List<RevokedEntry> revoked,
+                                      Instant thisUpdate, Instant nextUpdate) throws Exception {
+        X509Certificate caCertificate = authority.x509Certificate;
+        X509v2CRLBuilder builder = new JcaX509v2CRLBuilder(caCertificate.getSubjectX500Principal(), Date.from(thisUpdate));
+        builder.setNextUpdate(Date.from(nextUpdate));
+        builder.addExtension(Extension.authorityKeyIdentifier, false,
+                new JcaX509ExtensionUtils().createAuthorityKeyIdentifier(caCertificate));
+        builder.addExtension(Extension.issuingDistributionPoint, true,
+                distributionPoints.issuingDistributionPoint(authority.certificate.getId(), partition));
+
+        ExtensionsGenerator entryExtensions = new ExtensionsGenerator();
+        entryExtensions.addExtension(Extension.reasonCode, false, CRLReason.lookup(CRLReason.keyCompromise));
+        for (RevokedEntry entry : revoked) {
+            builder.addCRLEntry(entry.serialNumber(), entry.revocationDate(), entryExtensions.generate());
+        }
+
+        return builder.build(new JcaContentSignerBuilder(caCertificate.getSigAlgName())
+                .setProvider("BC").build(authority.keyPair.getPrivate())).getEncoded();
+    }
+
+    private <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += config.batchSize()) {
+            chunks.add(rows.subList(i, Math.min(i + config.batchSize(), rows.size())));
+        }
+        return chunks;
+    }
+
+    private void await(List<Callable<Void>> tasks) throws Exception {
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            getResult(future);
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void log(long start, String format, Object... args) {
+        System.out.printf("[%6.1f s] %s%n", (System.nanoTime() - start) / 1e9, String.format(format, args));
+    }
+
+    private static ConfigurableApplicationContext startBackend(DatasetConfig config) throws IOException {
+        Path directory = config.keyStoreDirectory();
+        List<String> args = new ArrayList<>(List.of(
+                BackendApplication.PROFILE_ARGUMENT,
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=" + config.datasourceUrl(),
+                // detected from the url, so the dataset can also be generated into another database
+                "--spring.datasource.driver-class-name=",
+                "--spring.datasource.username=" + config.datasourceUsername(),
+                "--spring.datasource.password=" + config.datasourcePassword(),
+                "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, config.threads()),
+                "--cert-keystore.path=" + Files.createDirectories(directory.resolve("certs")),
+                "--ks-password-keystore.path=" + Files.createDirectories(directory.resolve("ks-passwords")),
+                "--pk-password-keystore.path=" + Files.createDirectories(directory.resolve("pk-passwords")),
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN"
+        ));
+        // secrets the generator does not use, only needed to start the context
+        Map<String, String> placeholders = Map.of(
+                "PKI_JWT_SECRET", "0123456789abcdef".repeat(4),
+                "PKI_HMAC_SECRET", "0123456789abcdef".repeat(4),
+                "PKI_EMAIL_USERNAME", "dataset@example.com",
+                "PKI_EMAIL_PASSWORD", "unused",
+                "SSL_KEY_ALIAS", "unused",
+                "SSL_KS_PASSWORD", "unused");
+        placeholders.forEach((variable, value) -> {
+            if (System.getenv(variable) == null) {
+                args.add("--" + variable + "=" + value);
+            }
+        });
+
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,45 @@
+package com.team20.pki.benchmarks.encryption;
+
+import com.team20.pki.benchmarks.support.BenchmarkCa;
+import com.team20.pki.encryption.service.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM encryption of organization secrets. Small payloads match the stored keystore passwords.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultEncryptionServiceBenchmark {
+    @Param({"32", "4096"})
+    private int payloadSize;
+
+    private EncryptionService encryptionService;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        encryptionService = BenchmarkCa.newEncryptionService();
+        plaintext = new byte[payloadSize];
+        new SecureRandom().nextBytes(plaintext);
+        ciphertext = encryptionService.encrypt(plaintext, BenchmarkCa.ORGANIZATION);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return encryptionService.encrypt(plaintext, BenchmarkCa.ORGANIZATION);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return encryptionService.decrypt(ciphertext, BenchmarkCa.ORGANIZATION);
+    }
+}
@@ -0,0 +1,97 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import com.team20.pki.benchmarks.support.BackendApplication;
+import com.team20.pki.common.model.User;
+import com.team20.pki.common.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The backend started in-process on a random port, with plain HTTP, throw-away keystore
+ * directories and generated secrets.
+ */
+public class EmbeddedApplication implements AutoCloseable {
+    public static final String ORGANIZATION = "Load Test Org";
+    public static final String PASSWORD = "LoadTest123!";
+
+    private static final String HEX_SECRET = "0123456789abcdef".repeat(8);
+
+    private final Path directory;
+    private final ConfigurableApplicationContext context;
+
+    public EmbeddedApplication(LoadTestConfig config) throws IOException {
+        directory = Files.createTempDirectory("pki-load-test");
+
+        List<String> args = new ArrayList<>(List.of(
+                BackendApplication.PROFILE_ARGUMENT,
+                "--server.port=0",
+                "--server.ssl.enabled=false",
+                "--management.server.port=-1",
+                "--cert-keystore.path=" + Files.createDirectories(directory.resolve("certs")),
+                "--ks-password-keystore.path=" + Files.createDirectories(directory.resolve("ks-passwords")),
+                "--pk-password-keystore.path=" + Files.createDirectories(directory.resolve("pk-passwords")),
+                "--PKI_JWT_SECRET=" + HEX_SECRET,
+                "--PKI_HMAC_SECRET=" + HEX_SECRET,
+                "--PKI_MASTER_KEY=" + HEX_SECRET.substring(0, 64),
+                "--PKI_EMAIL_USERNAME=load-test@example.com",
+                "--PKI_EMAIL_PASSWORD=unused",
+                "--SSL_KEY_ALIAS=unused",
+                "--SSL_KS_PASSWORD=unused",
+                // users log in once, the refresh operation keeps their tokens fresh
+                "--auth.access-token-expiration-time-ms=3600000",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.com.team20.pki=WARN"
+        ));
+        if (config.datasourceUrl() != null) {
+            args.add("--spring.datasource.url=" + config.datasourceUrl());
+            args.add("--spring.datasource.username=" + config.datasourceUsername());
+            args.add("--spring.datasource.password=" + config.datasourcePassword());
+        } else {
+            args.add("--spring.datasource.url=jdbc:h2:mem:pki-load-test;DB_CLOSE_DELAY=-1");
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.datasource.username=sa");
+            args.add("--spring.datasource.password=");
+        }
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    public String getBaseUrl() {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    /**
+     * Creates an active user directly in the database, bypassing registration and email activation.
+     */
+    public User createUser(String email, User.Role role) {
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        return context.getBean(UserRepository.class).save(User.builder()
+                .email(email)
+                .password(passwordEncoder.encode(PASSWORD))
+                .firstName("Load")
+                .lastName("Test")
+                .organization(ORGANIZATION)
+                .role(role)
+                .build());
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,124 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the latency of every request per endpoint. Requests sent before {@link #startMeasuring()}
+ * (setup and warmup) are not recorded. Percentiles are exact, as all samples are kept in memory.
+ */
+public class LatencyRecorder {
+    private final Map<String, EndpointSamples> endpoints = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+    private volatile long measuringStartedAt;
+    private volatile long measuringStoppedAt;
+
+    public void startMeasuring() {
+        measuringStartedAt = System.nanoTime();
+        measuring = true;
+    }
+
+    public void stopMeasuring() {
+        measuring = false;
+        measuringStoppedAt = System.nanoTime();
+    }
+
+    public boolean isMeasuring() {
+        return measuring;
+    }
+
+    /**
+     * @param status HTTP status of the response, or 0 if no response was received
+     */
+    public void record(String endpoint, long latencyNanos, int status) {
+        if (!measuring) {
+            return;
+        }
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointSamples()).add(latencyNanos, status);
+    }
+
+    public double getMeasuredSeconds() {
+        return (measuringStoppedAt - measuringStartedAt) / 1e9;
+    }
+
+    public List<LoadTestReport.EndpointResult> summarize() {
+        double seconds = getMeasuredSeconds();
+        return endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey(), seconds))
+                .sorted(Comparator.comparing(LoadTestReport.EndpointResult::endpoint))
+                .toList();
+    }
+
+    public LoadTestReport.EndpointResult summarizeAll() {
+        EndpointSamples all = new EndpointSamples();
+        endpoints.values().forEach(all::addAll);
+        return all.summarize("total", getMeasuredSeconds());
+    }
+
+    private static class EndpointSamples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final Map<Integer, Long> errorStatuses = new TreeMap<>();
+
+        synchronized void add(long latencyNanos, int status) {
+            if (status < 200 || status >= 300) {
+                errorStatuses.merge(status, 1L, Long::sum);
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        synchronized void addAll(EndpointSamples other) {
+            synchronized (other) {
+                for (int i = 0; i < other.size; i++) {
+                    add(other.latencies[i], 200);
+                }
+                other.errorStatuses.forEach((status, count) -> errorStatuses.merge(status, count, Long::sum));
+            }
+        }
+
+        // latencies are those of successful requests only, failures are usually much faster
+        synchronized LoadTestReport.EndpointResult summarize(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            long errors = errorStatuses.values().stream().mapToLong(Long::longValue).sum();
+            double mean = size == 0 ? 0 : Arrays.stream(sorted).average().orElse(0);
+
+            return new LoadTestReport.EndpointResult(
+                    endpoint,
+                    size + errors,
+                    errors,
+                    new TreeMap<>(errorStatuses),
+                    seconds > 0 ? size / seconds : 0,
+                    new LoadTestReport.Latency(
+                            toMillis(mean),
+                            toMillis(percentile(sorted, 50)),
+                            toMillis(percentile(sorted, 90)),
+                            toMillis(percentile(sorted, 95)),
+                            toMillis(percentile(sorted, 99)),
+                            toMillis(size == 0 ? 0 : sorted[size - 1])
+                    )
+            );
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(rank - 1, 0)];
+        }
+
+        private static double toMillis(double nanos) {
+            return Math.round(nanos / TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team20.pki.common.model.User;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load test: starts the backend in-process and lets a number of virtual users run
+ * a weighted mix of operations against its REST API, without think time. Per-endpoint throughput
+ * and latency percentiles of the measured period are printed and written to a JSON report.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar com.team20.pki.benchmarks.loadtest.LoadTest [options]},
+ * see {@link LoadTestConfig#USAGE}.
+ */
+public class LoadTest {
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Map<Operation, LongAdder> operations = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failedOperations = new EnumMap<>(Operation.class);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadTest(LoadTestConfig config) {
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new LongAdder());
+            failedOperations.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(LoadTestConfig.USAGE);
+            return;
+        }
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        LoadTestReport report = new LoadTest(config).run();
+
+        report.print(System.out);
+        report.write(config.report());
+        System.out.println("\nReport written to " + config.report().toAbsolutePath());
+    }
+
+    public LoadTestReport run() throws Exception {
+        try (EmbeddedApplication application = new EmbeddedApplication(config)) {
+            String baseUrl = application.getBaseUrl();
+            Instant startedAt = Instant.now();
+
+            application.createUser("admin@loadtest.example.com", User.Role.ADMINISTRATOR);
+            PkiClient setupClient = newClient(baseUrl);
+            setupClient.login("admin@loadtest.example.com", EmbeddedApplication.PASSWORD);
+            Workload workload = Workload.prepare(setupClient);
+
+            List<Workload.VirtualUser> virtualUsers = new ArrayList<>();
+            for (int i = 0; i < config.users(); i++) {
+                String email = "user" + i + "@loadtest.example.com";
+                application.createUser(email, User.Role.REGULAR_USER);
+
+                PkiClient administrator = newClient(baseUrl);
+                administrator.login("admin@loadtest.example.com", EmbeddedApplication.PASSWORD);
+                PkiClient user = newClient(baseUrl);
+                user.login(email, EmbeddedApplication.PASSWORD);
+                virtualUsers.add(new Workload.VirtualUser(administrator, user, email, new Random(config.seed() + i)));
+            }
+
+            List<Thread> threads = new ArrayList<>();
+            for (Workload.VirtualUser virtualUser : virtualUsers) {
+                threads.add(Thread.ofPlatform().name("virtual-user-" + threads.size())
+                        .start(() -> runVirtualUser(workload, virtualUser)));
+            }
+
+            Thread.sleep(config.warmup().toMillis());
+            recorder.startMeasuring();
+            Thread.sleep(config.duration().toMillis());
+            recorder.stopMeasuring();
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            return new LoadTestReport(
+                    startedAt,
+                    config.datasourceUrl() != null ? config.datasourceUrl() : "h2 (in-memory)",
+                    config.users(),
+                    config.warmup().toMillis() / 1000.0,
+                    recorder.getMeasuredSeconds(),
+                    config.seed(),
+                    config.mix(),
+                    summarizeOperations(),
+                    recorder.summarizeAll(),
+                    recorder.summarize()
+            );
+        }
+    }
+
+    private void runVirtualUser(Workload workload, Workload.VirtualUser virtualUser) {
+        Operation[] weighted = weightedOperations();
+        while (running.get()) {
+            Operation operation = weighted[virtualUser.getRandom().nextInt(weighted.length)];
+            boolean measured = recorder.isMeasuring();
+            try {
+                workload.execute(operation, virtualUser);
+            } catch (PkiClient.RequestFailedException e) {
+                if (measured) {
+                    failedOperations.get(operation).increment();
+                }
+            }
+            if (measured) {
+                operations.get(operation).increment();
+            }
+        }
+    }
+
+    private Operation[] weightedOperations() {
+        List<Operation> weighted = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private Map<Operation, LoadTestReport.OperationResult> summarizeOperations() {
+        Map<Operation, LoadTestReport.OperationResult> summary = new EnumMap<>(Operation.class);
+        operations.forEach((operation, count) -> {
+            if (count.sum() > 0) {
+                summary.put(operation, new LoadTestReport.OperationResult(count.sum(), failedOperations.get(operation).sum()));
+            }
+        });
+        return summary;
+    }
+
+    private PkiClient newClient(String baseUrl) {
+        return new PkiClient(httpClient, objectMapper, recorder, baseUrl);
+    }
+}
@@ -0,0 +1,99 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as {@code --name=value} arguments.
+ *
+ * @param mix           relative weight of every operation, operations with weight 0 are not run
+ * @param datasourceUrl JDBC url of a local PostgreSQL database, or null to run against an in-memory H2 database
+ */
+public record LoadTestConfig(
+        Duration duration,
+        Duration warmup,
+        int users,
+        Map<Operation, Integer> mix,
+        long seed,
+        Path report,
+        String datasourceUrl,
+        String datasourceUsername,
+        String datasourcePassword
+) {
+    public static final String USAGE = """
+            Options:
+              --duration=60s             measured duration
+              --warmup=15s               duration before measuring starts
+              --users=16                 concurrent virtual users
+              --mix=crl-fetch=25,...     operation weights, unlisted operations keep their default weight
+              --seed=20                  seed of the operation sequence
+              --report=load-test-report.json
+              --datasource-url=jdbc:postgresql://localhost:5432/pki_loadtest
+              --datasource-username=postgres
+              --datasource-password=postgres
+            Operations: login, refresh, self-signed, ca-signed, csr, pem-download, pkcs12-download, crl-fetch, revoke
+            """;
+
+    public static LoadTestConfig parse(String[] args) {
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(15);
+        int users = 16;
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, operation.getDefaultWeight());
+        }
+        long seed = 20;
+        Path report = Path.of("load-test-report.json");
+        String datasourceUrl = null;
+        String datasourceUsername = "postgres";
+        String datasourcePassword = "postgres";
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Invalid argument: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "users" -> users = Integer.parseInt(value);
+                case "mix" -> parseMix(value, mix);
+                case "seed" -> seed = Long.parseLong(value);
+                case "report" -> report = Path.of(value);
+                case "datasource-url" -> datasourceUrl = value;
+                case "datasource-username" -> datasourceUsername = value;
+                case "datasource-password" -> datasourcePassword = value;
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        if (users < 1) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+        return new LoadTestConfig(duration, warmup, users, mix, seed, report,
+                datasourceUrl, datasourceUsername, datasourcePassword);
+    }
+
+    private static void parseMix(String value, Map<Operation, Integer> mix) {
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + entry);
+            }
+            mix.put(Operation.fromKey(parts[0].trim()), weight);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable result of a load test run, written as JSON.
+ * Throughput is in successful requests per second, latencies are in milliseconds.
+ */
+public record LoadTestReport(
+        Instant startedAt,
+        String database,
+        int users,
+        double warmupSeconds,
+        double measuredSeconds,
+        long seed,
+        Map<Operation, Integer> mix,
+        Map<Operation, OperationResult> operations,
+        EndpointResult total,
+        List<EndpointResult> endpoints
+) {
+    /**
+     * @param failed operations that ended with a failed request
+     */
+    public record OperationResult(long executed, long failed) {
+    }
+
+    public record EndpointResult(
+            String endpoint,
+            long requests,
+            long errors,
+            Map<Integer, Long> errorStatuses,
+            double throughput,
+            Latency latencyMs
+    ) {
+    }
+
+    public record Latency(double mean, double p50, double p90, double p95, double p99, double max) {
+    }
+
+    public void write(Path path) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        mapper.writeValue(path.toFile(), this);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n%d users, %s, %.1f s measured after %.1f s warmup%n",
+                users, database, measuredSeconds, warmupSeconds);
+        String format = "%-50s %9s %7s %9s %9s %9s %9s %9s %9s%n";
+        out.printf(format, "endpoint", "requests", "errors", "req/s", "mean", "p50", "p95", "p99", "max");
+        for (EndpointResult endpoint : endpoints) {
+            print(out, format, endpoint);
+        }
+        print(out, format, total);
+    }
+
+    private static void print(PrintStream out, String format, EndpointResult result) {
+        Latency latency = result.latencyMs();
+        out.printf(format,
+                result.endpoint(),
+                result.requests(),
+                result.errors(),
+                String.format("%.1f", result.throughput()),
+                String.format("%.2f", latency.mean()),
+                String.format("%.2f", latency.p50()),
+                String.format("%.2f", latency.p95()),
+                String.format("%.2f", latency.p99()),
+                String.format("%.2f", latency.max()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * A single step of the workload. One step may call several endpoints,
+ * e.g. a PKCS#12 download first requests a download ticket.
+ */
+public enum Operation {
+    LOGIN("login", 10),
+    REFRESH("refresh", 15),
+    SELF_SIGNED("self-signed", 1),
+    CA_SIGNED("ca-signed", 10),
+    CSR("csr", 5),
+    PEM_DOWNLOAD("pem-download", 20),
+    PKCS12_DOWNLOAD("pkcs12-download", 8),
+    CRL_FETCH("crl-fetch", 25),
+    REVOKE("revoke", 6);
+
+    private final String key;
+    private final int defaultWeight;
+
+    Operation(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + key));
+    }
+}
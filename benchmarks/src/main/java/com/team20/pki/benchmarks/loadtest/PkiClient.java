@@ -0,0 +1,232 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP session of a single user, keeping its cookies, CSRF token and access token the way the frontend does.
+ * Every request is recorded under its endpoint; a non-2xx response ends the current operation with a {@link RequestFailedException}.
+ */
+public class PkiClient {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+    private final String baseUrl;
+
+    // the refresh token cookie is "Secure", so it is kept here instead of in a cookie manager
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private String accessToken;
+    private UUID userId;
+
+    public PkiClient(HttpClient httpClient, ObjectMapper objectMapper, LatencyRecorder recorder, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.recorder = recorder;
+        this.baseUrl = baseUrl;
+    }
+
+    public static class RequestFailedException extends RuntimeException {
+        public RequestFailedException(String message) {
+            super(message);
+        }
+
+        public RequestFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void login(String email, String password) {
+        ensureCsrfToken();
+        JsonNode response = json(send("POST /api/auth/login", request("/api/auth/login")
+                .header("Content-Type", "application/json")
+                .POST(jsonBody(Map.of("email", email, "password", password)))));
+        accessToken = response.get("accessToken").asText();
+        userId = UUID.fromString(response.get("id").asText());
+    }
+
+    public void refresh() {
+        ensureCsrfToken();
+        JsonNode response = json(send("POST /api/auth/refresh", request("/api/auth/refresh")
+                .POST(HttpRequest.BodyPublishers.noBody())));
+        accessToken = response.get("accessToken").asText();
+    }
+
+    public UUID issueSelfSigned(Map<String, Object> subjectData) {
+        ensureCsrfToken();
+        return certificateId(send("POST /api/certificates/self-signed", request("/api/certificates/self-signed")
+                .header("Content-Type", "application/json")
+                .POST(jsonBody(subjectData))));
+    }
+
+    public UUID issueCaSigned(Map<String, Object> subjectData) {
+        ensureCsrfToken();
+        return certificateId(send("POST /api/certificates/ca-issued", request("/api/certificates/ca-issued")
+                .header("Content-Type", "application/json")
+                .POST(jsonBody(subjectData))));
+    }
+
+    public UUID issueFromCsr(UUID caId, UUID subjectId, int validityDays, String csrPem) {
+        ensureCsrfToken();
+        String boundary = "----pki-load-test-" + UUID.randomUUID();
+        Multipart multipart = new Multipart(boundary)
+                .field("subjectId", subjectId.toString())
+                .field("caId", caId.toString())
+                .field("validityDays", Integer.toString(validityDays))
+                .file("csr", "request.csr", csrPem.getBytes(StandardCharsets.US_ASCII));
+
+        return certificateId(send("POST /api/certificates/ca-external-issued", request("/api/certificates/ca-external-issued")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart.finish()))));
+    }
+
+    public byte[] downloadPem(UUID certificateId) {
+        return send("GET /api/certificates/{id}/download/pem",
+                request("/api/certificates/" + certificateId + "/download/pem").GET());
+    }
+
+    public byte[] downloadPkcs12(UUID certificateId) {
+        JsonNode ticket = json(send("GET /api/certificates/{id}/download/request",
+                request("/api/certificates/" + certificateId + "/download/request").GET()));
+        return send("GET /api/certificates/{id}/download/{requestId}",
+                request("/api/certificates/" + certificateId + "/download/" + ticket.get("id").asText()).GET());
+    }
+
+    public byte[] fetchCrl(UUID caId) {
+        return send("GET /api/certificates/revoke/crl/{id}", request("/api/certificates/revoke/crl/" + caId).GET());
+    }
+
+    public void revoke(UUID certificateId, int reason) {
+        ensureCsrfToken();
+        send("PUT /api/certificates/revoke/{id}", request("/api/certificates/revoke/" + certificateId)
+                .header("Content-Type", "application/json")
+                .PUT(jsonBody(Map.of("reason", reason))));
+    }
+
+    // the token cookie is cleared after every authenticated state-changing request, the frontend fetches it again the same way
+    private void ensureCsrfToken() {
+        if (!cookies.containsKey("XSRF-TOKEN")) {
+            send("GET /api/auth/csrf-token", request("/api/auth/csrf-token").GET());
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT);
+        if (accessToken != null) {
+            builder.header("Authorization", "Bearer " + accessToken);
+        }
+        String csrfToken = cookies.get("XSRF-TOKEN");
+        if (csrfToken != null) {
+            builder.header("X-XSRF-TOKEN", csrfToken);
+        }
+        if (!cookies.isEmpty()) {
+            builder.header("Cookie", cookies.entrySet().stream()
+                    .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+                    .collect(Collectors.joining("; ")));
+        }
+        return builder;
+    }
+
+    private byte[] send(String endpoint, HttpRequest.Builder builder) {
+        HttpRequest request = builder.build();
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, 0);
+            throw new RequestFailedException(endpoint + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(endpoint + " interrupted", e);
+        }
+        recorder.record(endpoint, System.nanoTime() - start, response.statusCode());
+
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                if (cookie.getMaxAge() == 0 || cookie.getValue().isEmpty()) {
+                    cookies.remove(cookie.getName());
+                } else {
+                    cookies.put(cookie.getName(), cookie.getValue());
+                }
+            }
+        }
+
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new RequestFailedException(endpoint + " returned " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return response.body();
+    }
+
+    private HttpRequest.BodyPublisher jsonBody(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private JsonNode json(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new RequestFailedException("Invalid response body", e);
+        }
+    }
+
+    private UUID certificateId(byte[] body) {
+        return UUID.fromString(json(body).get("certificateId").asText());
+    }
+
+    private static class Multipart {
+        private final String boundary;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        Multipart(String boundary) {
+            this.boundary = boundary;
+        }
+
+        Multipart field(String name, String value) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+            return this;
+        }
+
+        Multipart file(String name, String fileName, byte[] content) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n");
+            body.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        byte[] finish() {
+            write("--" + boundary + "--\r\n");
+            return body.toByteArray();
+        }
+
+        private void write(String text) {
+            body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.team20.pki.benchmarks.loadtest;
+
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Executes operations on behalf of virtual users, against a root CA created at setup.
+ * Certificates issued during the run feed the download and revocation operations.
+ */
+public class Workload {
+    private static final int VALIDITY_DAYS = 365;
+    private static final int CSR_POOL_SIZE = 16;
+    // keyCompromise
+    private static final int REVOCATION_REASON = 1;
+
+    private final UUID rootCaId;
+    private final List<String> csrPool;
+    private final List<UUID> issued = new ArrayList<>();
+    private final Queue<UUID> revocable = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A user of the system. The administrator session issues and revokes certificates,
+     * the regular user session owns the end-entity certificates issued for it.
+     */
+    public static class VirtualUser {
+        private final PkiClient administrator;
+        private final PkiClient user;
+        private final String email;
+        private final Random random;
+        // end-entity certificates whose private key has not been downloaded yet
+        private final Deque<UUID> downloadable = new ArrayDeque<>();
+
+        public VirtualUser(PkiClient administrator, PkiClient user, String email, Random random) {
+            this.administrator = administrator;
+            this.user = user;
+            this.email = email;
+            this.random = random;
+        }
+
+        public Random getRandom() {
+            return random;
+        }
+    }
+
+    private Workload(UUID rootCaId, List<String> csrPool) {
+        this.rootCaId = rootCaId;
+        this.csrPool = csrPool;
+    }
+
+    /**
+     * Issues the root CA used by the run and prepares the certificate signing requests.
+     */
+    public static Workload prepare(PkiClient administrator) throws GeneralSecurityException, IOException, OperatorCreationException {
+        UUID rootCaId = administrator.issueSelfSigned(selfSignedSubject(administrator.getUserId(), "Load Test Root CA"));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        List<String> csrPool = new ArrayList<>();
+        for (int i = 0; i < CSR_POOL_SIZE; i++) {
+            csrPool.add(createCsr(generator.generateKeyPair(), "Load Test CSR " + i));
+        }
+        return new Workload(rootCaId, csrPool);
+    }
+
+    public void execute(Operation operation, VirtualUser virtualUser) {
+        switch (operation) {
+            case LOGIN -> virtualUser.user.login(virtualUser.email, EmbeddedApplication.PASSWORD);
+            case REFRESH -> virtualUser.user.refresh();
+            case SELF_SIGNED -> virtualUser.administrator.issueSelfSigned(
+                    selfSignedSubject(virtualUser.administrator.getUserId(), "Load Test Root " + UUID.randomUUID()));
+            case CA_SIGNED -> issueEndEntity(virtualUser);
+            case CSR -> {
+                String csr = csrPool.get(virtualUser.random.nextInt(csrPool.size()));
+                addIssued(virtualUser.user.issueFromCsr(rootCaId, virtualUser.user.getUserId(), VALIDITY_DAYS, csr));
+            }
+            case PEM_DOWNLOAD -> virtualUser.user.downloadPem(randomIssued(virtualUser.random));
+            case PKCS12_DOWNLOAD -> {
+                // the private key of an end-entity certificate can only be downloaded once
+                UUID certificateId = virtualUser.downloadable.poll();
+                if (certificateId == null) {
+                    certificateId = issueEndEntity(virtualUser);
+                    virtualUser.downloadable.remove(certificateId);
+                }
+                virtualUser.user.downloadPkcs12(certificateId);
+            }
+            case CRL_FETCH -> virtualUser.user.fetchCrl(rootCaId);
+            case REVOKE -> {
+                UUID certificateId = revocable.poll();
+                if (certificateId == null) {
+                    certificateId = issueEndEntity(virtualUser);
+                    revocable.remove(certificateId);
+                }
+                virtualUser.administrator.revoke(certificateId, REVOCATION_REASON);
+            }
+        }
+    }
+
+    private UUID issueEndEntity(VirtualUser virtualUser) {
+        Map<String, Object> subject = new HashMap<>();
+        subject.put("caId", rootCaId);
+        subject.put("subjectId", virtualUser.user.getUserId());
+        subject.put("cn", virtualUser.email);
+        subject.put("o", EmbeddedApplication.ORGANIZATION);
+        subject.put("c", "RS");
+        subject.put("validityDays", VALIDITY_DAYS);
+        subject.put("keyUsage", List.of("digitalSignature", "keyEncipherment"));
+        subject.put("extendedKeyUsage", List.of("clientAuth"));
+
+        UUID certificateId = virtualUser.administrator.issueCaSigned(subject);
+        virtualUser.downloadable.add(certificateId);
+        addIssued(certificateId);
+        return certificateId;
+    }
+
+    private void addIssued(UUID certificateId) {
+        synchronized (issued) {
+            issued.add(certificateId);
+        }
+        revocable.add(certificateId);
+    }
+
+    private UUID randomIssued(Random random) {
+        synchronized (issued) {
+            return issued.isEmpty() ? rootCaId : issued.get(random.nextInt(issued.size()));
+        }
+    }
+
+    private static Map<String, Object> selfSignedSubject(UUID subjectId, String commonName) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> subject = new HashMap<>();
+        subject.put("subjectId", subjectId);
+        subject.put("cn", commonName);
+        subject.put("o", EmbeddedApplication.ORGANIZATION);
+        subject.put("c", "RS");
+        subject.put("validFrom", now.toString());
+        subject.put("validTo", now.plusYears(10).toString());
+        return subject;
+    }
+
+    private static String createCsr(KeyPair keyPair, String commonName) throws IOException, OperatorCreationException {
+        ExtensionsGenerator extensions = new ExtensionsGenerator();
+        extensions.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature | KeyUsage.keyEncipherment));
+        extensions.addExtension(Extension.extendedKeyUsage, false, new ExtendedKeyUsage(KeyPurposeId.id_kp_clientAuth));
+
+        PKCS10CertificationRequest csr = new JcaPKCS10CertificationRequestBuilder(
+                new X500Name("CN=" + commonName + ",O=" + EmbeddedApplication.ORGANIZATION + ",C=RS"), keyPair.getPublic())
+                .addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions.generate())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(csr);
+        }
+        return pem.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.team20.pki.benchmarks.revocation;
+
+import com.team20.pki.benchmarks.support.BenchmarkCa;
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.repository.ICertificateRepository;
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.config.properties.PublicationProperties;
+import com.team20.pki.publication.service.StaticPublisher;
+import com.team20.pki.revocation.dto.RevokeCertificateRequestDTO;
+import com.team20.pki.revocation.model.CertificateRevocationList;
+import com.team20.pki.revocation.repository.CertificateRevocationListRepository;
+import com.team20.pki.revocation.repository.CrlPartitionRepository;
+import com.team20.pki.revocation.service.util.CertificateRevocationListService;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v2CRLBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of revoking one more certificate when the issuer's CRL already holds {@code entries} revocations.
+ * The CRL is re-parsed, re-signed and re-encoded on every revocation, so this grows with the list size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CertificateRevocationListBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int entries;
+
+    private final AtomicLong serials = new AtomicLong(1_000_000_000L);
+    private final RevokeCertificateRequestDTO revokeRequest = new RevokeCertificateRequestDTO(CRLReason.keyCompromise);
+
+    private BenchmarkCa ca;
+    private CertificateRevocationListService crlService;
+    private byte[] populatedCrl;
+
+    @Setup
+    public void setup() throws GeneralSecurityException, IOException, OperatorCreationException {
+        ca = new BenchmarkCa();
+        CrlProperties properties = new CrlProperties();
+        // the benchmark certificates never expire, so there is nothing to prune
+        properties.setPruneExpired(false);
+        crlService = new CertificateRevocationListService(savingRepository(CertificateRevocationListRepository.class),
+                savingRepository(CrlPartitionRepository.class), savingRepository(ICertificateRepository.class),
+                ca.getKeyStoreService(), ca.getPasswordStorage(),
+                new CrlDistributionPoints(BenchmarkCa.CRL_URL, properties), properties, new SimpleMeterRegistry(),
+                new StaticPublisher(new PublicationProperties(), null, null, null, null, null, null));
+        populatedCrl = buildCrl(entries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ca.close();
+    }
+
+    @Benchmark
+    public CertificateRevocationList addRevocation() throws GeneralSecurityException, IOException, OperatorCreationException {
+        CertificateRevocationList crl = new CertificateRevocationList(null, ca.getCertificate(), populatedCrl, null, null, null);
+        return crlService.addRevocationToCRL(ca.getCertificate(), crl, nextRevokedCertificate(), revokeRequest);
+    }
+
+    private Certificate nextRevokedCertificate() {
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(String.valueOf(serials.incrementAndGet()));
+        return certificate;
+    }
+
+    // built directly, since going through the service would re-sign the list once per entry
+    private byte[] buildCrl(int size) throws GeneralSecurityException, IOException, OperatorCreationException {
+        Date now = new Date();
+        X509v2CRLBuilder builder = new JcaX509v2CRLBuilder(ca.getX509Certificate().getSubjectX500Principal(), now);
+        builder.setNextUpdate(new Date(now.getTime() + TimeUnit.DAYS.toMillis(7)));
+
+        ExtensionsGenerator extensions = new ExtensionsGenerator();
+        extensions.addExtension(Extension.reasonCode, false, CRLReason.lookup(CRLReason.keyCompromise));
+        for (int i = 0; i < size; i++) {
+            builder.addCRLEntry(BigInteger.valueOf(10_000L + i), now, extensions.generate());
+        }
+
+        return builder.build(new JcaContentSignerBuilder(ca.getX509Certificate().getSigAlgName())
+                        .setProvider("BC")
+                        .build(ca.getKeyPair().getPrivate()))
+                .getEncoded();
+    }
+
+    private static <T> T savingRepository(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        return args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
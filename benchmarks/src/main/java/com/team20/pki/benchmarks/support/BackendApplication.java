@@ -0,0 +1,24 @@
+package com.team20.pki.benchmarks.support;
+
+import com.team20.pki.PkiApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Same as {@link PkiApplication}, without the benchmark classes packaged next to it.
+ * Used by the tools that start the whole backend in-process.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@AutoConfigurationPackage(basePackageClasses = PkiApplication.class)
+@ComponentScan(basePackageClasses = PkiApplication.class, excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = PkiApplication.class),
+        @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.team20\\.pki\\.benchmarks\\..*")
+})
+public class BackendApplication {
+    // the packaged application.properties is not filtered, so the profile has to be set explicitly
+    public static final String PROFILE_ARGUMENT = "--spring.profiles.active=benchmark";
+}
@@ -0,0 +1,159 @@
+package com.team20.pki.benchmarks.support;
+
+import com.team20.pki.certificates.model.Certificate;
+import com.team20.pki.certificates.model.CertificateType;
+import com.team20.pki.certificates.model.Issuer;
+import com.team20.pki.certificates.model.Subject;
+import com.team20.pki.certificates.service.certificate.impl.RSAGenerator;
+import com.team20.pki.certificates.service.certificate.util.CertificateGenerator;
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import com.team20.pki.certificates.service.certificate.util.PasswordStorage;
+import com.team20.pki.config.properties.CrlProperties;
+import com.team20.pki.encryption.service.EncryptionService;
+import com.team20.pki.encryption.service.OrganizationKeyProvider;
+import com.team20.pki.encryption.service.impl.DefaultEncryptionService;
+import com.team20.pki.revocation.service.util.CrlDistributionPoints;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Self-signed root CA wired together from the real services, without Spring.
+ * Keystores and password files live in a temporary directory that {@link #close()} removes.
+ */
+public class BenchmarkCa implements AutoCloseable {
+    public static final String ORGANIZATION = "Benchmark Org";
+    public static final String CRL_URL = "http://localhost:8080/api/revocation/crl/";
+
+    private static final String KEY_STORE_PASSWORD = "keystore-pass";
+    private static final String PRIVATE_KEY_PASSWORD = "private-key-pass";
+
+    private final Path directory;
+    private final EncryptionService encryptionService;
+    private final KeyStoreService keyStoreService;
+    private final PasswordStorage passwordStorage;
+    private final CertificateGenerator certificateGenerator;
+    private final KeyPair keyPair;
+    private final X509Certificate x509Certificate;
+    private final Certificate certificate;
+
+    public BenchmarkCa() throws GeneralSecurityException {
+        directory = createTempDirectory();
+        encryptionService = newEncryptionService();
+
+        keyStoreService = new KeyStoreService();
+        ReflectionTestUtils.setField(keyStoreService, "certificateFilePath", directory.toString());
+
+        passwordStorage = new PasswordStorage(encryptionService);
+        ReflectionTestUtils.setField(passwordStorage, "privateKeyFilePath", createDirectory(directory.resolve("pk-passwords")).toString());
+        ReflectionTestUtils.setField(passwordStorage, "ksPasswordFilePath", createDirectory(directory.resolve("ks-passwords")).toString());
+
+        certificateGenerator = new CertificateGenerator(new CrlDistributionPoints(CRL_URL, new CrlProperties()));
+        keyPair = new RSAGenerator().generateKeyPair();
+
+        UUID id = UUID.randomUUID();
+        BigInteger serial = BigInteger.valueOf(1);
+        Subject subject = new Subject("CN=Benchmark Root CA,O=" + ORGANIZATION + ",C=RS");
+        LocalDate validFrom = LocalDate.now().minusDays(1);
+        LocalDate validTo = validFrom.plusYears(10);
+        x509Certificate = certificateGenerator.generateSelfSignedCertificate(
+                id, serial, keyPair, null, validFrom, validTo, subject);
+
+        certificate = new Certificate();
+        certificate.setId(id);
+        certificate.setType(CertificateType.ROOT);
+        certificate.setSerialNumber(serial.toString());
+        certificate.setValidFrom(validFrom);
+        certificate.setValidTo(validTo);
+        certificate.setSubject(subject);
+        certificate.setIssuer(new Issuer(subject.getDistinguishedName()));
+        certificate.setIsRevoked(false);
+
+        String alias = certificate.getSerialNumber();
+        keyStoreService.saveKeyStore(alias, KEY_STORE_PASSWORD.toCharArray(), alias,
+                keyPair.getPrivate(), PRIVATE_KEY_PASSWORD.toCharArray(), x509Certificate);
+        passwordStorage.storeKeyStorePassword(ORGANIZATION, KEY_STORE_PASSWORD, alias);
+        passwordStorage.storePrivateKeyPassword(ORGANIZATION, PRIVATE_KEY_PASSWORD, alias);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public EncryptionService getEncryptionService() {
+        return encryptionService;
+    }
+
+    public KeyStoreService getKeyStoreService() {
+        return keyStoreService;
+    }
+
+    public PasswordStorage getPasswordStorage() {
+        return passwordStorage;
+    }
+
+    public CertificateGenerator getCertificateGenerator() {
+        return certificateGenerator;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    public X509Certificate getX509Certificate() {
+        return x509Certificate;
+    }
+
+    public Certificate getCertificate() {
+        return certificate;
+    }
+
+    @Override
+    public void close() {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("pki-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createDirectory(Path path) {
+        try {
+            return Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encryption service backed by a single in-memory AES key instead of the database key provider.
+     */
+    public static EncryptionService newEncryptionService() throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        SecretKey key = keyGenerator.generateKey();
+        OrganizationKeyProvider keyProvider = organization -> key;
+        return new DefaultEncryptionService(keyProvider);
+    }
+}
@@ -0,0 +1,158 @@
+package com.team20.pki.benchmarks.threading;
+
+import com.team20.pki.certificates.service.certificate.util.KeyStoreService;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of a request that reads a certificate from its keystore file
+ * and then waits on simulated blocking I/O (a database or SMTP round trip), with more concurrent
+ * clients than Tomcat has platform request threads (200 by default).
+ * Run with {@code -bm sample} for percentiles only, or {@code -t} to change the concurrency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class RequestThreadingBenchmark {
+    private static final char[] KEY_STORE_PASSWORD = "benchmark".toCharArray();
+    private static final String ALIAS = "benchmark";
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"20"})
+    private long blockingIoMs;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+    private Path keyStoreDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        keyStoreDir = Files.createTempDirectory("pki-keystores");
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(
+                        "--spring.profiles.active=benchmark",
+                        "--server.port=0",
+                        "--server.ssl.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "--cert-keystore.path=" + keyStoreDir,
+                        "--benchmark.blocking-io-ms=" + blockingIoMs
+                );
+        context.getBean(KeyStoreService.class).saveKeyStore(ALIAS, KEY_STORE_PASSWORD, ALIAS, selfSignedCertificate());
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/certificate"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        try (var files = Files.list(keyStoreDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(keyStoreDir);
+    }
+
+    @Benchmark
+    public int certificateRequest() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static X509Certificate selfSignedCertificate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=benchmark");
+        Instant now = Instant.now();
+        return new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                name,
+                BigInteger.ONE,
+                Date.from(now),
+                Date.from(now.plus(Duration.ofDays(1))),
+                name,
+                keyPair.getPublic()
+        ).build(new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate())));
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @Import({KeyStoreService.class, CertificateController.class})
+    static class BenchmarkApplication {
+    }
+
+    @RestController
+    static class CertificateController {
+        private final KeyStoreService keyStoreService;
+        private final long blockingIoMs;
+
+        CertificateController(KeyStoreService keyStoreService, @Value("${benchmark.blocking-io-ms}") long blockingIoMs) {
+            this.keyStoreService = keyStoreService;
+            this.blockingIoMs = blockingIoMs;
+        }
+
+        @GetMapping("/certificate")
+        String certificate() throws InterruptedException {
+            X509Certificate certificate = keyStoreService.readCertificate(ALIAS, KEY_STORE_PASSWORD, ALIAS);
+            Thread.sleep(blockingIoMs);
+            return certificate.getSerialNumber().toString();
+        }
+    }
+}
@@ -33,7 +33,7 @@ interface UserCertificate {
   commonName: string;
   validFrom: string;
   validTo: string;
-  status: "ACTIVE" | "EXPIRED" | "REVOKED";
+  status: "ACTIVE" | "EXPIRED" | "REVOKED" | "NOT_YET_VALID";
   type: "ROOT" | "INTERMEDIATE" | "END_ENTITY";
   issuerName: string;
 }